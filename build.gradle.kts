@@ -1,26 +1,75 @@
-plugins {
-    id("java")
-}
-
-group = "org.osta"
-version = "1.0-SNAPSHOT"
-
-repositories {
-    mavenCentral()
-}
-
-dependencies {
-    implementation("org.jetbrains:annotations:24.0.0")
-
-    testImplementation(platform("org.junit:junit-bom:5.9.1"))
-    testImplementation("org.junit.jupiter:junit-jupiter")
-    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
-
-}
-
-tasks.test {
-    useJUnitPlatform()
-    testLogging {
-        events("passed", "skipped", "failed")
-    }
-}
+plugins {
+    id("java")
+    id("me.champeau.jmh") version "0.7.3"
+}
+
+group = "org.osta"
+version = "1.0-SNAPSHOT"
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    implementation("org.jetbrains:annotations:24.0.0")
+
+    testImplementation(platform("org.junit:junit-bom:5.9.1"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+
+}
+
+// The trivia skipper uses the incubator Vector API when the module is there, and scans char by char otherwise
+val vectorModule = listOf("--add-modules", "jdk.incubator.vector")
+
+tasks.withType<JavaCompile> {
+    // Some sources and tests hold non-ASCII literals, whatever the default charset of the machine is
+    options.encoding = "UTF-8"
+    options.compilerArgs.addAll(vectorModule)
+}
+
+tasks.withType<Test> {
+    jvmArgs(vectorModule)
+}
+
+tasks.test {
+    useJUnitPlatform()
+    testLogging {
+        events("passed", "skipped", "failed")
+    }
+}
+
+// The profiler is off in the other tests, so its tests run again with it on
+val profiledTest = tasks.register<Test>("profiledTest") {
+    description = "Runs the parse profiler tests with profiling enabled"
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform()
+    systemProperty("osta.profile", "true")
+    filter {
+        includeTestsMatching("org.osta.parse.ParseProfilerTest")
+    }
+    testLogging {
+        events("passed", "skipped", "failed")
+    }
+}
+
+tasks.check {
+    dependsOn(profiledTest)
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    jvmArgsAppend.addAll(vectorModule)
+    profilers.add("gc")
+}
+
+// gradle generateSource -Pargs="--seed 1 --size 1g --depth 16 --out big.osta"
+tasks.register<JavaExec>("generateSource") {
+    group = "application"
+    description = "Writes a synthetic Osta program for load testing"
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("org.osta.gen.SourceGenerator")
+    args = (project.findProperty("args") as String? ?: "").split(" ").filter { it.isNotEmpty() }
+}
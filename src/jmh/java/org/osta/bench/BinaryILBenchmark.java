@@ -0,0 +1,81 @@
+package org.osta.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.osta.gen.SourceGenerator;
+import org.osta.il.ILReader;
+import org.osta.parse.ParseException;
+import org.osta.parse.ast.DeclAST;
+import org.osta.parse.ast.FileAST;
+import org.osta.parse.ast.FunctionDeclAST;
+import org.osta.parse.visitor.BinaryILWriter;
+import org.osta.parse.visitor.ILWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing the text and the binary IL of a generated file, and reading the binary IL back whole or one function of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryILBenchmark {
+
+    @Param({"1048576"})
+    int size;
+
+    FileAST ast;
+    ByteBuffer binary;
+    String function;
+    WritableByteChannel discard = Channels.newChannel(OutputStream.nullOutputStream());
+
+    @Setup
+    public void setup() throws ParseException, IOException {
+        ast = FileAST.parser().parse(new SourceGenerator(1, 5).generate(size)).ast();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryILWriter writer = new BinaryILWriter(out);
+        writer.write(ast);
+        writer.finish();
+        // Direct like the mapping of a file
+        binary = ByteBuffer.allocateDirect(out.size()).put(out.toByteArray()).flip();
+        for (DeclAST declaration : ast.declarations()) {
+            if (declaration instanceof FunctionDeclAST candidate) {
+                function = candidate.name();
+            }
+        }
+    }
+
+    @Benchmark
+    public long writeText() throws IOException {
+        ILWriter writer = new ILWriter(discard);
+        writer.write(ast);
+        return writer.written();
+    }
+
+    @Benchmark
+    public long writeBinary() throws IOException {
+        BinaryILWriter writer = new BinaryILWriter(discard);
+        writer.write(ast);
+        writer.finish();
+        return writer.written();
+    }
+
+    @Benchmark
+    public String readAll() throws IOException {
+        return new ILReader(binary).text();
+    }
+
+    @Benchmark
+    public String readFunction() throws IOException {
+        ILReader reader = new ILReader(binary);
+        return reader.text(reader.find(function));
+    }
+}
@@ -0,0 +1,58 @@
+package org.osta.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.osta.parse.ParseException;
+import org.osta.parse.Parser;
+import org.osta.parse.ast.SequenceAST;
+import org.osta.token.TokenType;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CombinatorBenchmark {
+
+    private static final Parser<SequenceAST> LITERALS = Parser.zeroOrMore(Parser.skipWhitespace(Parser.literal("abc")));
+    private static final Parser<SequenceAST> REGEXES = Parser.zeroOrMore(Parser.skipWhitespace(Parser.regex("[a-z]+", "Expected a word")));
+    private static final Parser<SequenceAST> TOKENS = Parser.zeroOrMore(Parser.token(TokenType.IDENTIFIER));
+    private static final Parser<SequenceAST> ALTERNATIVES = Parser.zeroOrMore(Parser.skipWhitespace(Parser.anyOf(
+            Parser.literal("abx"),
+            Parser.literal("aby"),
+            Parser.sequence(Parser.literal("ab"), Parser.literal("z")),
+            Parser.literal("abc")
+    )));
+
+    @Param({"100", "10000"})
+    int size;
+
+    String input;
+
+    @Setup
+    public void setup() {
+        input = Inputs.words("abc", size);
+    }
+
+    @Benchmark
+    public SequenceAST literal() throws ParseException {
+        return LITERALS.parse(input).ast();
+    }
+
+    @Benchmark
+    public SequenceAST regex() throws ParseException {
+        return REGEXES.parse(input).ast();
+    }
+
+    @Benchmark
+    public SequenceAST token() throws ParseException {
+        return TOKENS.parse(input).ast();
+    }
+
+    @Benchmark
+    public SequenceAST anyOf() throws ParseException {
+        return ALTERNATIVES.parse(input).ast();
+    }
+}
@@ -0,0 +1,37 @@
+package org.osta.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.osta.parse.MemoTable;
+import org.osta.parse.ParseException;
+import org.osta.parse.ast.ExprAST;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExprBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int depth;
+
+    String input;
+
+    @Setup
+    public void setup() {
+        input = Inputs.expression(depth);
+    }
+
+    @Benchmark
+    public ExprAST nested() throws ParseException {
+        return ExprAST.parser().parse(input).ast();
+    }
+
+    @Benchmark
+    public ExprAST nestedMemoized() throws ParseException {
+        return new MemoTable().parse(ExprAST.parser(), input).ast();
+    }
+}
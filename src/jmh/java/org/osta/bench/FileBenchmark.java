@@ -0,0 +1,57 @@
+package org.osta.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.osta.gen.SourceGenerator;
+import org.osta.parse.GrammarCompiler;
+import org.osta.parse.ParseException;
+import org.osta.parse.ParseInput;
+import org.osta.parse.Parser;
+import org.osta.parse.ast.AST;
+import org.osta.parse.ast.FileAST;
+import org.osta.parse.visitor.ILGenerator;
+import org.osta.text.BufferCharSequence;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a whole generated program from a direct buffer, the way the driver reads mapped files, and generates its IL.
+ * The time per size and depth gives the throughput of the pipeline as the inputs grow.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+// The compiled grammar has many small methods for the JIT to go through, it needs a longer warmup
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileBenchmark {
+
+    @Param({"65536", "4194304"})
+    int size;
+
+    @Param({"4", "32"})
+    int depth;
+
+    /* Whether to parse with the grammar compiled to a class or with the interpreted combinators */
+    @Param({"false", "true"})
+    boolean compiled;
+
+    Parser<FileAST> grammar;
+
+    ByteBuffer buffer;
+
+    @Setup
+    public void setup() {
+        buffer = Inputs.direct(new SourceGenerator(0, depth).generate(size));
+        grammar = compiled ? GrammarCompiler.compile(FileAST.parser()) : FileAST.parser();
+    }
+
+    @Benchmark
+    public String parseAndGenerate() throws ParseException {
+        AST ast = new ParseInput(new BufferCharSequence(buffer.duplicate())).parse(grammar).ast();
+        ILGenerator ilGenerator = new ILGenerator();
+        ast.accept(ilGenerator);
+        return ilGenerator.generate();
+    }
+}
@@ -0,0 +1,47 @@
+package org.osta.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.osta.gen.SourceGenerator;
+import org.osta.parse.ParseException;
+import org.osta.parse.ParseInput;
+import org.osta.parse.ast.AST;
+import org.osta.parse.ast.FileAST;
+import org.osta.parse.flat.FlatAST;
+import org.osta.parse.flat.FlatLowering;
+import org.osta.text.BufferCharSequence;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses the same generated program into AST objects and then lowers it into a flat arena, the difference is what
+ * lowering costs. Run with the gc profiler to compare the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlatASTBenchmark {
+
+    @Param({"65536", "4194304"})
+    int size;
+
+    ByteBuffer buffer;
+
+    @Setup
+    public void setup() {
+        buffer = Inputs.direct(new SourceGenerator(0, 8).generate(size));
+    }
+
+    @Benchmark
+    public AST objects() throws ParseException {
+        return new ParseInput(new BufferCharSequence(buffer.duplicate())).parse(FileAST.parser()).ast();
+    }
+
+    @Benchmark
+    public FlatAST flat() throws ParseException {
+        return FlatLowering.parse(new ParseInput(new BufferCharSequence(buffer.duplicate())));
+    }
+}
@@ -0,0 +1,48 @@
+package org.osta.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.osta.gen.SourceGenerator;
+import org.osta.parse.IncrementalParse;
+import org.osta.parse.ParseException;
+import org.osta.parse.ParseInput;
+import org.osta.parse.ast.FileAST;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The latency from an edit to the tree of the edited file, changing one literal in the middle of a generated program.
+ * The full reparse is what every keystroke used to cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IncrementalBenchmark {
+
+    @Param({"65536", "1048576"})
+    int size;
+
+    IncrementalParse parsed;
+    String edited;
+    int offset;
+
+    @Setup
+    public void setup() throws ParseException {
+        String program = new SourceGenerator(0, 8).generate(size);
+        parsed = IncrementalParse.parse(program);
+        offset = program.indexOf("return ", program.length() / 2) + "return ".length();
+        edited = program.substring(0, offset) + "1 + " + program.substring(offset);
+    }
+
+    @Benchmark
+    public FileAST full() throws ParseException {
+        return new ParseInput(edited).parse(FileAST.parser()).ast();
+    }
+
+    @Benchmark
+    public FileAST incremental() throws ParseException {
+        return parsed.edit(offset, 0, "1 + ").ast();
+    }
+}
@@ -0,0 +1,66 @@
+package org.osta.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Synthetic inputs for the benchmarks, each one scales with its parameter and is always the same for the same parameter.
+ */
+final class Inputs {
+
+    private Inputs() {}
+
+    /**
+     * An expression nested {@code depth} parentheses deep.
+     */
+    static String expression(int depth) {
+        StringBuilder sb = new StringBuilder("a");
+        for (int i = 1; i <= depth; i++) {
+            sb.insert(0, '(');
+            sb.append(" + ").append(i).append(") * b").append(i % 10);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * {@code count} assignments, one per line.
+     */
+    static String statements(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append("x").append(i).append(" = (a + ").append(i).append(") * b - ").append(i).append(" % 7;\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * {@code count} integer literals separated by spaces.
+     */
+    static String integers(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i % 3 == 0) {
+                sb.append('-');
+            }
+            sb.append((i * 2654435761L) & 0xFFFFF).append(' ');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * {@code count} repetitions of a word, separated by spaces.
+     */
+    static String words(String word, int count) {
+        return (word + " ").repeat(count);
+    }
+
+    /**
+     * The text encoded in a direct buffer, like a memory mapped file.
+     */
+    static ByteBuffer direct(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return buffer;
+    }
+}
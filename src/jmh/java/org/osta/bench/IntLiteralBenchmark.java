@@ -0,0 +1,40 @@
+package org.osta.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.osta.parse.ParseException;
+import org.osta.parse.Parser;
+import org.osta.parse.ast.IntLiteralAST;
+import org.osta.parse.ast.SequenceAST;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntLiteralBenchmark {
+
+    private static final Parser<SequenceAST> LITERALS = Parser.zeroOrMore(Parser.skipWhitespace(IntLiteralAST.$parser()));
+
+    @Param({"100", "10000"})
+    int size;
+
+    String input;
+
+    @Setup
+    public void setup() {
+        input = Inputs.integers(size);
+    }
+
+    @Benchmark
+    public IntLiteralAST single() throws ParseException {
+        return IntLiteralAST.$parser().parse("-1234567").ast();
+    }
+
+    @Benchmark
+    public SequenceAST list() throws ParseException {
+        return LITERALS.parse(input).ast();
+    }
+}
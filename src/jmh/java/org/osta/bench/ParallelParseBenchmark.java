@@ -0,0 +1,54 @@
+package org.osta.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.osta.gen.SourceGenerator;
+import org.osta.parse.ParallelParser;
+import org.osta.parse.ParseException;
+import org.osta.parse.ParseInput;
+import org.osta.parse.ast.FileAST;
+import org.osta.text.BufferCharSequence;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses one large generated file on a single thread and split by declarations over every core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelParseBenchmark {
+
+    @Param({"4194304"})
+    int size;
+
+    ByteBuffer buffer;
+    ForkJoinPool pool;
+    ParallelParser parser;
+
+    @Setup
+    public void setup() {
+        buffer = Inputs.direct(new SourceGenerator(0, 8).generate(size));
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        parser = new ParallelParser(pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public FileAST sequential() throws ParseException {
+        return new ParseInput(new BufferCharSequence(buffer.duplicate())).parse(FileAST.parser()).ast();
+    }
+
+    @Benchmark
+    public FileAST parallel() throws ParseException {
+        return parser.parse(new BufferCharSequence(buffer.duplicate()));
+    }
+}
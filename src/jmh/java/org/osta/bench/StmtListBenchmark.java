@@ -0,0 +1,35 @@
+package org.osta.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.osta.parse.ParseException;
+import org.osta.parse.Parser;
+import org.osta.parse.ast.SequenceAST;
+import org.osta.parse.ast.StmtAST;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StmtListBenchmark {
+
+    private static final Parser<SequenceAST> STATEMENTS = Parser.zeroOrMore(StmtAST.parser());
+
+    @Param({"100", "10000"})
+    int size;
+
+    String input;
+
+    @Setup
+    public void setup() {
+        input = Inputs.statements(size);
+    }
+
+    @Benchmark
+    public SequenceAST statements() throws ParseException {
+        return STATEMENTS.parse(input).ast();
+    }
+}
@@ -0,0 +1,59 @@
+package org.osta.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.osta.text.BufferCharSequence;
+import org.osta.token.Lexer;
+import org.osta.token.TokenBuffer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lexes a mapped source where most bytes are indentation and comments, so the time goes to skipping trivia.
+ * For the scalar skipper run it with {@code -jvmArgsAppend "--add-modules jdk.incubator.vector -Dosta.vector=false"},
+ * JVM arguments given on the command line replace the ones of the annotation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class TriviaBenchmark {
+
+    /* How many spaces every line is indented by */
+    @Param({"4", "64"})
+    int indent;
+
+    BufferCharSequence source;
+    /* The same lines without their statements, only trivia */
+    BufferCharSequence trivia;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+        StringBuilder trivia = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            sb.append(" ".repeat(indent)).append("x").append(i % 10).append(" = a + ").append(i).append(";\n");
+            trivia.append(" ".repeat(indent)).append('\n');
+            if (i % 8 == 0) {
+                sb.append(" ".repeat(indent)).append("// a comment about the next statement, as long as comments get\n");
+                trivia.append(" ".repeat(indent)).append("// a comment about the next statement, as long as comments get\n");
+            }
+        }
+        source = new BufferCharSequence(Inputs.direct(sb.toString()));
+        // Checks that the source is ASCII once, so only the lexing is measured
+        source.isAscii();
+        this.trivia = new BufferCharSequence(Inputs.direct(trivia.toString()));
+        this.trivia.isAscii();
+    }
+
+    @Benchmark
+    public TokenBuffer lex() {
+        return Lexer.lex(source.duplicate());
+    }
+
+    @Benchmark
+    public int skip() {
+        return Lexer.skipTrivia(trivia, 0);
+    }
+}
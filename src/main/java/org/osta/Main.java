@@ -1,36 +1,180 @@
 package org.osta;
 
+import org.osta.cache.CompilationCache;
+import org.osta.driver.CompilerDriver;
+import org.osta.driver.FileResult;
+import org.osta.driver.StreamingCompiler;
+import org.osta.mono.Monomorphizer;
+import org.osta.optimize.ConstantFolder;
+import org.osta.parse.GrammarCompiler;
 import org.osta.parse.ParseException;
+import org.osta.parse.ParseProfiler;
 import org.osta.parse.Parser;
 import org.osta.parse.ast.AST;
-import org.osta.parse.ast.IntLiteralAST;
+import org.osta.parse.ast.FileAST;
 import org.osta.parse.visitor.ILGenerator;
-import org.osta.text.BufferCharSequence;
+import org.osta.parse.visitor.ILWriter;
+import org.osta.text.ChunkedSource;
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
-import java.nio.MappedByteBuffer;
-import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Main {
 
+    private static final String USAGE = "Usage: osta [-j <threads>] [--timings] [--compiled] [--stream] [--profile] [-O] [--monomorphize] [--cache <dir>] [--cache-size <MB>] <files or source roots>...";
+
     public static void main(String[] args) throws IOException {
-        RandomAccessFile file = new RandomAccessFile("examples/simple.osta", "r");
-        FileChannel channel = file.getChannel();
-        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
-        BufferCharSequence input = new BufferCharSequence(buffer);
-
-        try {
-            AST ast = Parser.sequence(Parser.literal("hello"), Parser.item(), IntLiteralAST.parser()).parse(input).ast();
-            ILGenerator ilGenerator = new ILGenerator();
-            ast.accept(ilGenerator);
-            System.out.println(ilGenerator.generate());
-        } catch (ParseException e) {
-            throw new RuntimeException(e);
-        } finally {
-            channel.close();
-            file.close();
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        boolean timings = false;
+        boolean compiled = false;
+        boolean stream = false;
+        boolean profile = false;
+        boolean optimize = false;
+        boolean monomorphize = false;
+        Path cacheDirectory = null;
+        long cacheSize = CompilationCache.DEFAULT_MAX_SIZE;
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-j" -> parallelism = (int) positive(args, ++i, Integer.MAX_VALUE);
+                case "--timings" -> timings = true;
+                case "--compiled" -> compiled = true;
+                case "--stream" -> stream = true;
+                case "--profile" -> profile = true;
+                case "-O" -> optimize = true;
+                case "--monomorphize" -> monomorphize = true;
+                case "--cache" -> {
+                    if (i + 1 >= args.length) {
+                        System.err.println(USAGE);
+                        System.exit(2);
+                    }
+                    cacheDirectory = Path.of(args[++i]);
+                }
+                case "--cache-size" -> cacheSize = positive(args, ++i, Long.MAX_VALUE >> 20) << 20;
+                default -> paths.add(Path.of(args[i]));
+            }
+        }
+        if (paths.isEmpty()) {
+            paths.add(Path.of("examples/program.osta"));
+        }
+
+        Parser<? extends AST> grammar = compiled ? GrammarCompiler.compile(FileAST.parser()) : FileAST.parser();
+        if (optimize) {
+            grammar = folded(grammar);
+        }
+        if (profile && !ParseProfiler.ENABLED) {
+            System.err.println("Rules are only profiled with -Dosta.profile=true");
+            profile = false;
+        }
+        if (stream && monomorphize) {
+            // Streaming never sees the whole program, so it can't know which instances it needs
+            System.err.println("--monomorphize can't be used with --stream");
+            System.exit(2);
+        }
+        if (cacheDirectory != null && (stream || monomorphize)) {
+            // Only files compiled on their own have IL that depends on nothing but their source
+            System.err.println("--cache can't be used with --stream or --monomorphize");
+            System.exit(2);
+        }
+        if (stream) {
+            boolean succeeded = stream(grammar, CompilerDriver.collectSources(paths));
+            if (profile) {
+                System.err.print(ParseProfiler.report());
+            }
+            System.exit(succeeded ? 0 : 1);
+        }
+        List<FileResult> results;
+        Monomorphizer monomorphizer = monomorphize ? new Monomorphizer() : null;
+        CompilationCache cache = null;
+        if (cacheDirectory != null) {
+            // A compiled grammar builds the same AST, -O is the only option that changes the IL
+            String salt = CompilationCache.compilerVersion() + (optimize ? " -O" : "");
+            cache = CompilationCache.open(cacheDirectory, salt, cacheSize);
+        }
+        long start = System.nanoTime();
+        try (CompilerDriver driver = new CompilerDriver(grammar, parallelism, cache)) {
+            List<Path> sources = CompilerDriver.collectSources(paths);
+            results = monomorphizer == null ? driver.compile(sources) : driver.compile(sources, monomorphizer);
+        }
+        long wall = System.nanoTime() - start;
+
+        boolean failed = false;
+        for (FileResult result : results) {
+            if (result.succeeded()) {
+                System.out.println(result.il());
+            } else {
+                failed = true;
+                System.err.println(result.path() + ": " + result.error().getMessage());
+            }
+        }
+        if (monomorphizer != null) {
+            // The instances are shared by all files, so they come once after them
+            ILGenerator instances = new ILGenerator();
+            new FileAST(List.copyOf(monomorphizer.instances())).accept(instances);
+            System.out.println(instances.generate());
+        }
+        if (timings) {
+            System.err.print(CompilerDriver.report(results));
+            System.err.printf("wall %.3f ms with %d threads%n", wall / 1_000_000.0, parallelism);
+            if (cache != null) {
+                System.err.printf("cache %d hits, %d misses, %d bytes%n", cache.hits(), cache.misses(), cache.size());
+            }
+        }
+        if (profile) {
+            System.err.print(ParseProfiler.report());
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /* The positive number at an index of the arguments, the usage is printed if it is missing or isn't one */
+    private static long positive(String[] args, int i, long max) {
+        if (i < args.length) {
+            try {
+                long value = Long.parseLong(args[i]);
+                if (value >= 1 && value <= max) {
+                    return value;
+                }
+            } catch (NumberFormatException e) {
+                // Printed below
+            }
+            System.err.println(args[i - 1] + " takes a positive number, not " + args[i]);
+        }
+        System.err.println(USAGE);
+        System.exit(2);
+        return 0;
+    }
+
+    /* Folds the AST of every file as soon as it is parsed, so both ways of compiling lower the folded AST */
+    private static <T extends AST> Parser<AST> folded(Parser<T> grammar) {
+        ConstantFolder folder = new ConstantFolder();
+        return Parser.map(grammar, folder::fold);
+    }
+
+    /* Compiles the files one after the other through a bounded window, for files too large to map */
+    private static boolean stream(Parser<? extends AST> grammar, List<Path> files) throws IOException {
+        StreamingCompiler compiler = new StreamingCompiler(grammar, StreamingCompiler.DEFAULT_BATCH_SIZE);
+        System.out.flush();
+        // Straight to the file descriptor, the IL is already buffered by the writer
+        ILWriter out = new ILWriter(new FileOutputStream(FileDescriptor.out).getChannel());
+        boolean succeeded = true;
+        for (Path file : files) {
+            try (ChunkedSource source = ChunkedSource.open(file)) {
+                compiler.compile(source, out);
+                out.append("\n");
+            } catch (ParseException e) {
+                succeeded = false;
+                out.flush();
+                System.err.println(file + ": " + e.getMessage());
+            }
         }
+        out.flush();
+        return succeeded;
     }
 
 }
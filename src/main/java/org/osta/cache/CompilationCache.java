@@ -0,0 +1,327 @@
+package org.osta.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * The IL of source files already compiled, kept on disk between builds and shared by every compiler on the machine.
+ * <p>
+ * An entry is addressed by the {@link XXHash64} of the source bytes, seeded with the hash of a salt that holds the
+ * compiler version and every option that changes the IL, and by the size of the source. Entries live in
+ * {@code <directory>/<2 hex digits>/<hash>-<size>.il}, each one a small header followed by the IL in UTF-8, and are
+ * memory mapped when they are read. The header holds the size and the SHA-256 of the salt and the source, which a hit
+ * has to match as well, so two sources whose hashes collide never get each other's IL.
+ * <p>
+ * Many processes can use the same directory. An entry is written to a temporary file and moved into place atomically,
+ * so it is either missing or whole, and a reader whose entry is deleted under it only misses. Reading an entry touches
+ * its modification time, and once the entries grow past the size limit the least recently used ones are deleted down
+ * to {@link #LOW_WATER} of it. Eviction holds an exclusive lock on {@code <directory>/.lock}, so only one process
+ * evicts at a time. Each process only counts what it wrote since it last looked at the directory, so the limit is
+ * enforced as soon as one of them notices.
+ */
+public final class CompilationCache {
+
+    public static final long DEFAULT_MAX_SIZE = 256L << 20;
+    /** The part of the size limit the entries are evicted down to. */
+    public static final double LOW_WATER = 0.75;
+
+    private static final int MAGIC = 'O' << 24 | 'S' << 16 | 'C' << 8 | 'C';
+    private static final int FORMAT = 2;
+    private static final int DIGEST_SIZE = 32;
+    /* magic, format, size of the IL, size of the source and its digest */
+    private static final int HEADER_SIZE = 24 + DIGEST_SIZE;
+    private static final String EXTENSION = ".il";
+    /* Temporary files older than this were left by a writer that died */
+    private static final long STALE_MILLIS = 60 * 60 * 1000;
+
+    private final Path directory;
+    private final byte[] salt;
+    private final long seed;
+    private final long maxSize;
+    private final AtomicLong size;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private CompilationCache(Path directory, byte[] salt, long maxSize, long size) {
+        this.directory = directory;
+        this.salt = salt;
+        this.seed = XXHash64.hash(salt, FORMAT);
+        this.maxSize = maxSize;
+        this.size = new AtomicLong(size);
+    }
+
+    /**
+     * Opens the cache in a directory, creating it if needed.
+     * @param salt Everything besides the source the IL depends on, entries of another salt are never hits
+     * @param maxSize How many bytes the entries can take before the least recently used ones are evicted
+     */
+    public static CompilationCache open(@NotNull Path directory, @NotNull String salt, long maxSize) throws IOException {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Max size must be at least 1");
+        }
+        Files.createDirectories(directory);
+        long size = 0;
+        for (Entry entry : entries(directory)) {
+            size += entry.size();
+        }
+        return new CompilationCache(directory, salt.getBytes(StandardCharsets.UTF_8), maxSize, size);
+    }
+
+    /**
+     * The version of the running compiler, with the SHA-256 of its jar or of its class files, so every build of the
+     * compiler is another version whether it is versioned or not.
+     */
+    public static String compilerVersion() {
+        String version = CompilationCache.class.getPackage().getImplementationVersion();
+        StringBuilder sb = new StringBuilder(version == null ? "dev" : version).append('+');
+        CodeSource source = CompilationCache.class.getProtectionDomain().getCodeSource();
+        try {
+            Path location = Path.of(source.getLocation().toURI());
+            sb.append(HexFormat.of().formatHex(classesDigest(location)));
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            // The IL of another build would be taken for this one's, so the entries only last this run
+            sb.append(UUID.randomUUID());
+        }
+        return sb.toString();
+    }
+
+    /* The digest of a jar, or of the names and contents of the files under a directory of classes */
+    private static byte[] classesDigest(Path location) throws IOException {
+        MessageDigest digest = sha256();
+        if (Files.isRegularFile(location)) {
+            digest.update(Files.readAllBytes(location));
+            return digest.digest();
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(location)) {
+            files = walk.filter(Files::isRegularFile).sorted().toList();
+        }
+        for (Path file : files) {
+            digest.update(location.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Files.readAllBytes(file));
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Returns the key of a source, from the position to the limit of the buffer.
+     */
+    public Key key(@NotNull ByteBuffer source) {
+        MessageDigest digest = sha256();
+        digest.update(salt);
+        digest.update(source.duplicate());
+        return new Key(XXHash64.hash(source, seed), source.remaining(), digest.digest());
+    }
+
+    /**
+     * Returns the IL of the source of the key, or {@code null} if it isn't in the cache.
+     */
+    @Nullable
+    public String get(@NotNull Key key) throws IOException {
+        Path path = path(key);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT
+                || buffer.getLong(8) != buffer.limit() - HEADER_SIZE) {
+            // Written by another format, it is replaced by the next put
+            misses.incrementAndGet();
+            return null;
+        }
+        if (buffer.getLong(16) != key.size()
+                || !buffer.slice(24, DIGEST_SIZE).equals(ByteBuffer.wrap(key.digest()))) {
+            // Another source whose hash collides, the one put last keeps the entry
+            misses.incrementAndGet();
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Evicted in the meantime, the IL is still mapped
+        }
+        hits.incrementAndGet();
+        return StandardCharsets.UTF_8.decode(buffer.position(HEADER_SIZE)).toString();
+    }
+
+    /**
+     * Stores the IL of the source of the key, replacing what was there, then evicts if the cache is too large.
+     */
+    public void put(@NotNull Key key, @NotNull String il) throws IOException {
+        byte[] bytes = il.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT).putLong(bytes.length)
+                .putLong(key.size()).put(key.digest()).flip();
+        Path path = path(key);
+        Files.createDirectories(path.getParent());
+        Path temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer[] buffers = {header, ByteBuffer.wrap(bytes)};
+                while (buffers[0].hasRemaining() || buffers[1].hasRemaining()) {
+                    channel.write(buffers);
+                }
+            }
+            try {
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        if (size.addAndGet(HEADER_SIZE + bytes.length) > maxSize) {
+            evict();
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries until they take at most {@link #LOW_WATER} of the size limit, if they
+     * take more than the limit, along with the temporary files of writers that died.
+     */
+    public void evict() throws IOException {
+        // A file lock is held by the whole process, so its caches take turns first
+        synchronized (CompilationCache.class) {
+            try (FileChannel lock = FileChannel.open(directory.resolve(".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = lock.lock()) {
+                List<Entry> entries = entries(directory);
+                long total = 0;
+                for (Entry entry : entries) {
+                    total += entry.size();
+                }
+                if (total > maxSize) {
+                    entries.sort(Comparator.comparingLong(Entry::lastUsed));
+                    long target = (long) (maxSize * LOW_WATER);
+                    for (int i = 0; i < entries.size() && total > target; i++) {
+                        Files.deleteIfExists(entries.get(i).path());
+                        total -= entries.get(i).size();
+                    }
+                }
+                deleteStaleTemporaryFiles();
+                size.set(total);
+            }
+        }
+    }
+
+    /**
+     * How many bytes the entries take, as far as this cache knows.
+     */
+    public long size() {
+        return size.get();
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    Path path(Key key) {
+        String hash = String.format("%016x", key.hash());
+        return directory.resolve(hash.substring(0, 2)).resolve(hash + "-" + key.size() + EXTENSION);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform has it
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<Entry> entries(Path directory) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Path path : files(directory, EXTENSION)) {
+            try {
+                entries.add(new Entry(path, Files.size(path), Files.getLastModifiedTime(path).toMillis()));
+            } catch (NoSuchFileException e) {
+                // Evicted by another process in the meantime
+            }
+        }
+        return entries;
+    }
+
+    private void deleteStaleTemporaryFiles() throws IOException {
+        long stale = System.currentTimeMillis() - STALE_MILLIS;
+        for (Path path : files(directory, ".tmp")) {
+            try {
+                if (Files.getLastModifiedTime(path).toMillis() < stale) {
+                    Files.deleteIfExists(path);
+                }
+            } catch (NoSuchFileException e) {
+                // Moved into place in the meantime
+            }
+        }
+    }
+
+    /* The files of a suffix in the subdirectories, listed without reading their attributes as others may delete them */
+    private static List<Path> files(Path directory, String suffix) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> subdirectories = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path subdirectory : subdirectories) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(subdirectory, "*" + suffix)) {
+                    stream.forEach(files::add);
+                } catch (NoSuchFileException e) {
+                    // Removed by hand, the cache can always be deleted
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * The address of a source in the cache.
+     * @param hash The hash of the source bytes, seeded with the salt of the cache
+     * @param size The size of the source in bytes
+     * @param digest The SHA-256 of the salt and the source, which an entry has to match
+     */
+    public record Key(long hash, long size, byte @NotNull [] digest) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && hash == key.hash && size == key.size && Arrays.equals(digest, key.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash);
+        }
+    }
+
+    private record Entry(Path path, long size, long lastUsed) {
+    }
+}
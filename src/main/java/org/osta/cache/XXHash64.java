@@ -0,0 +1,86 @@
+package org.osta.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The 64 bit xxHash of a run of bytes, which reads 32 bytes per step and runs at the speed memory is read at.
+ * It isn't a cryptographic hash, only one that spreads any change of the input over the whole hash.
+ */
+public final class XXHash64 {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    private XXHash64() {
+    }
+
+    public static long hash(byte @NotNull [] bytes, long seed) {
+        return hash(ByteBuffer.wrap(bytes), seed);
+    }
+
+    /**
+     * Hashes the bytes from the position to the limit of the buffer, without moving its position.
+     */
+    public static long hash(@NotNull ByteBuffer bytes, long seed) {
+        ByteBuffer buffer = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int offset = buffer.position();
+        int end = buffer.limit();
+        int length = end - offset;
+        long hash;
+        if (length >= 32) {
+            long v1 = seed + PRIME1 + PRIME2;
+            long v2 = seed + PRIME2;
+            long v3 = seed;
+            long v4 = seed - PRIME1;
+            for (; offset <= end - 32; offset += 32) {
+                v1 = round(v1, buffer.getLong(offset));
+                v2 = round(v2, buffer.getLong(offset + 8));
+                v3 = round(v3, buffer.getLong(offset + 16));
+                v4 = round(v4, buffer.getLong(offset + 24));
+            }
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = merge(hash, v1);
+            hash = merge(hash, v2);
+            hash = merge(hash, v3);
+            hash = merge(hash, v4);
+        } else {
+            hash = seed + PRIME5;
+        }
+        hash += length;
+
+        for (; offset <= end - 8; offset += 8) {
+            hash ^= round(0, buffer.getLong(offset));
+            hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+        }
+        if (offset <= end - 4) {
+            hash ^= (buffer.getInt(offset) & 0xFFFFFFFFL) * PRIME1;
+            hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+            offset += 4;
+        }
+        for (; offset < end; offset++) {
+            hash ^= (buffer.get(offset) & 0xFF) * PRIME5;
+            hash = Long.rotateLeft(hash, 11) * PRIME1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME2;
+        hash ^= hash >>> 29;
+        hash *= PRIME3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static long round(long accumulator, long input) {
+        return Long.rotateLeft(accumulator + input * PRIME2, 31) * PRIME1;
+    }
+
+    private static long merge(long hash, long accumulator) {
+        return (hash ^ round(0, accumulator)) * PRIME1 + PRIME4;
+    }
+}
@@ -0,0 +1,252 @@
+package org.osta.driver;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osta.cache.CompilationCache;
+import org.osta.mono.Monomorphizer;
+import org.osta.parse.ParseInput;
+import org.osta.parse.Parser;
+import org.osta.parse.ast.AST;
+import org.osta.parse.ast.FileAST;
+import org.osta.parse.visitor.ILGenerator;
+import org.osta.text.BufferCharSequence;
+import org.osta.text.SymbolTable;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+
+/**
+ * Compiles many files in parallel on a work stealing pool.
+ * Each file is memory mapped, parsed with the given grammar and lowered with its own {@link ILGenerator}.
+ * The identifiers of every file are interned into one {@link SymbolTable}, so a name used across files is one symbol.
+ * The results are always in the order of the files, whatever order they were compiled in.
+ * With a {@link CompilationCache}, a file whose source was compiled before by any compiler on the machine isn't parsed
+ * at all, its IL comes from the cache.
+ */
+public final class CompilerDriver implements AutoCloseable {
+
+    public static final String SOURCE_EXTENSION = ".osta";
+
+    private final Parser<? extends AST> grammar;
+    private final ForkJoinPool pool;
+    private final SymbolTable symbols = new SymbolTable(4096);
+    private final CompilationCache cache;
+
+    /**
+     * @param grammar The parser of a whole file
+     * @param parallelism How many files are compiled at the same time
+     * @param cache Where the IL of files is looked up before and stored after they are compiled, or {@code null}.
+     *              Its salt must cover the grammar, as the IL of a source depends on it.
+     */
+    public CompilerDriver(@NotNull Parser<? extends AST> grammar, int parallelism, @Nullable CompilationCache cache) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.grammar = grammar;
+        this.pool = new ForkJoinPool(parallelism);
+        this.cache = cache;
+    }
+
+    public CompilerDriver(@NotNull Parser<? extends AST> grammar, int parallelism) {
+        this(grammar, parallelism, null);
+    }
+
+    public CompilerDriver(@NotNull Parser<? extends AST> grammar) {
+        this(grammar, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * The identifiers of every file compiled so far.
+     */
+    public SymbolTable symbols() {
+        return symbols;
+    }
+
+    /**
+     * Expands the given paths into source files, directories are searched recursively for {@value #SOURCE_EXTENSION} files.
+     * The files found in a directory are sorted so the order doesn't depend on the file system.
+     */
+    public static List<Path> collectSources(@NotNull List<Path> paths) throws IOException {
+        List<Path> sources = new ArrayList<>();
+        for (Path path : paths) {
+            if (!Files.isDirectory(path)) {
+                sources.add(path);
+                continue;
+            }
+            try (Stream<Path> walk = Files.walk(path)) {
+                walk.filter(file -> Files.isRegularFile(file) && file.toString().endsWith(SOURCE_EXTENSION))
+                        .sorted()
+                        .forEach(sources::add);
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Compiles the files, a file that fails doesn't stop the others.
+     * @return The result of every file, in the same order as the files
+     */
+    public List<FileResult> compile(@NotNull List<Path> files) {
+        List<ForkJoinTask<FileResult>> tasks = new ArrayList<>(files.size());
+        for (Path file : files) {
+            tasks.add(pool.submit(() -> compile(file)));
+        }
+        List<FileResult> results = new ArrayList<>(files.size());
+        for (ForkJoinTask<FileResult> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    /**
+     * Compiles the files as one program whose generic types are monomorphized. Every file is parsed first and its
+     * generic declarations registered, then every file is rewritten and lowered, both in parallel. The instances are
+     * left in the monomorphizer, to be lowered once for the whole program. The cache isn't used, as the IL of a file
+     * depends on the generic types of the others.
+     * @return The result of every file, in the same order as the files
+     */
+    public List<FileResult> compile(@NotNull List<Path> files, @NotNull Monomorphizer monomorphizer) {
+        List<ForkJoinTask<Parsed>> parses = new ArrayList<>(files.size());
+        for (Path file : files) {
+            parses.add(pool.submit(() -> parse(file, null)));
+        }
+        List<Parsed> parsed = new ArrayList<>(files.size());
+        for (ForkJoinTask<Parsed> task : parses) {
+            Parsed file = task.join();
+            if (file.ast() instanceof FileAST ast) {
+                monomorphizer.register(ast);
+            }
+            parsed.add(file);
+        }
+        List<ForkJoinTask<FileResult>> tasks = new ArrayList<>(files.size());
+        for (Parsed file : parsed) {
+            tasks.add(pool.submit(() -> lower(file, monomorphizer)));
+        }
+        List<FileResult> results = new ArrayList<>(files.size());
+        for (ForkJoinTask<FileResult> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    /**
+     * Compiles a single file on the calling thread.
+     */
+    public FileResult compile(@NotNull Path file) {
+        Parsed parsed = parse(file, cache);
+        if (parsed.cached() != null) {
+            return new FileResult(file, parsed.cached(), null, parsed.readNanos(), 0, 0);
+        }
+        FileResult result = lower(parsed, null);
+        if (parsed.key() != null && result.succeeded()) {
+            try {
+                cache.put(parsed.key(), result.il());
+            } catch (IOException e) {
+                // Only compiled again next time
+            }
+        }
+        return result;
+    }
+
+    /* Reads and parses a file, unless its IL is in the cache */
+    private Parsed parse(Path file, CompilationCache cache) {
+        long start = System.nanoTime();
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            return new Parsed(file, null, null, null, e, System.nanoTime() - start, 0);
+        }
+        CompilationCache.Key key = null;
+        if (cache != null) {
+            key = cache.key(buffer);
+            try {
+                String il = cache.get(key);
+                if (il != null) {
+                    return new Parsed(file, null, il, key, null, System.nanoTime() - start, 0);
+                }
+            } catch (IOException e) {
+                // A miss, the entry is replaced once the file is compiled
+            }
+        }
+        BufferCharSequence source = new BufferCharSequence(buffer);
+        long read = System.nanoTime();
+
+        try {
+            AST ast = new ParseInput(source, symbols).parse(grammar).ast();
+            return new Parsed(file, ast, null, key, null, read - start, System.nanoTime() - read);
+        } catch (Exception e) {
+            return new Parsed(file, null, null, null, e, read - start, System.nanoTime() - read);
+        }
+    }
+
+    /* Lowers a parsed file, monomorphized first if a monomorphizer is given */
+    private static FileResult lower(Parsed file, Monomorphizer monomorphizer) {
+        if (file.error() != null) {
+            return new FileResult(file.path(), null, file.error(), file.readNanos(), file.parseNanos(), 0);
+        }
+        long start = System.nanoTime();
+        AST ast = file.ast();
+        String il;
+        try {
+            if (monomorphizer != null && ast instanceof FileAST fileAST) {
+                ast = monomorphizer.monomorphize(fileAST);
+            }
+            ILGenerator ilGenerator = new ILGenerator();
+            ast.accept(ilGenerator);
+            il = ilGenerator.generate();
+        } catch (RuntimeException e) {
+            // A file that parses but can't be lowered fails on its own, like one that doesn't parse
+            return new FileResult(file.path(), null, e, file.readNanos(), file.parseNanos(), System.nanoTime() - start);
+        }
+        return new FileResult(file.path(), il, null, file.readNanos(), file.parseNanos(), System.nanoTime() - start);
+    }
+
+    /**
+     * Formats the timing of every file, one line per file followed by the totals.
+     */
+    public static String report(@NotNull List<FileResult> results) {
+        StringBuilder sb = new StringBuilder();
+        long read = 0, parse = 0, generate = 0;
+        int failed = 0;
+        for (FileResult result : results) {
+            sb.append(String.format(Locale.ROOT, "%-8s %10.3f ms  read %8.3f  parse %8.3f  generate %8.3f  %s%n",
+                    result.succeeded() ? "ok" : "failed", millis(result.totalNanos()), millis(result.readNanos()),
+                    millis(result.parseNanos()), millis(result.generateNanos()), result.path()));
+            read += result.readNanos();
+            parse += result.parseNanos();
+            generate += result.generateNanos();
+            if (!result.succeeded()) {
+                failed++;
+            }
+        }
+        sb.append(String.format(Locale.ROOT, "%d files, %d failed, %.3f ms  read %.3f  parse %.3f  generate %.3f%n",
+                results.size(), failed, millis(read + parse + generate), millis(read), millis(parse), millis(generate)));
+        return sb.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /* A file that was read and parsed, or found in the cache, or failed to. The key is where its IL is cached. */
+    private record Parsed(Path path, AST ast, String cached, CompilationCache.Key key, Exception error, long readNanos,
+                          long parseNanos) {
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,23 @@
+package org.osta.driver;
+
+import java.nio.file.Path;
+
+/**
+ * The outcome of compiling one file.
+ * @param path The compiled file
+ * @param il The generated IL, or {@code null} if the file failed
+ * @param error Why the file failed, or {@code null} if it succeeded
+ * @param readNanos Time spent opening and mapping the file
+ * @param parseNanos Time spent parsing
+ * @param generateNanos Time spent generating IL
+ */
+public record FileResult(Path path, String il, Exception error, long readNanos, long parseNanos, long generateNanos) {
+
+    public boolean succeeded() {
+        return error == null;
+    }
+
+    public long totalNanos() {
+        return readNanos + parseNanos + generateNanos;
+    }
+}
@@ -0,0 +1,83 @@
+package org.osta.driver;
+
+import org.jetbrains.annotations.NotNull;
+import org.osta.parse.DeclarationScanner;
+import org.osta.parse.ParseException;
+import org.osta.parse.ParseInput;
+import org.osta.parse.Parser;
+import org.osta.parse.ast.AST;
+import org.osta.parse.ast.FileAST;
+import org.osta.parse.visitor.ILWriter;
+import org.osta.text.ChunkedSource;
+
+import java.io.IOException;
+
+/**
+ * Compiles a file of any size with the same memory, through the window of a {@link ChunkedSource}.
+ * A {@link DeclarationScanner} finds where top level declarations end, every batch of whole declarations is decoded,
+ * parsed and lowered on its own, its IL is written out and the source is released up to its end. A declaration has to
+ * fit in the window together with the rest of its batch. The IL goes through an {@link ILWriter}, so the output of a
+ * batch is written before the next one is read and neither the source nor the IL are ever held whole.
+ */
+public final class StreamingCompiler {
+
+    public static final int DEFAULT_BATCH_SIZE = 64 * 1024;
+
+    private final Parser<? extends AST> grammar;
+    private final int batchSize;
+
+    /**
+     * @param grammar The parser of a whole file, it is given the declarations of a batch as if they were a file
+     * @param batchSize How many bytes of declarations are parsed at once, at least
+     */
+    public StreamingCompiler(@NotNull Parser<? extends AST> grammar, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.grammar = grammar;
+        this.batchSize = batchSize;
+    }
+
+    public StreamingCompiler() {
+        this(FileAST.parser(), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Compiles the source and writes its IL out, batch by batch.
+     * @return How many batches were compiled
+     * @throws ParseException The failure of the first batch that doesn't parse
+     */
+    public long compile(@NotNull ChunkedSource source, @NotNull ILWriter out) throws IOException, ParseException {
+        DeclarationScanner scanner = new DeclarationScanner();
+        long batches = 0;
+        long start = source.released();
+        for (long position = start; position < source.size(); position++) {
+            if (position >= source.limit()) {
+                throw new ParseException("The declarations from byte " + start + " don't fit in the window of "
+                        + (source.limit() - source.released()) + " bytes");
+            }
+            if (scanner.next(source.byteAt(position)) && position + 1 - start >= batchSize) {
+                compile(source, start, position + 1, out);
+                start = position + 1;
+                batches++;
+            }
+        }
+        if (start < source.size() || batches == 0) {
+            // The last batch takes the trivia at the end of the file
+            compile(source, start, source.size(), out);
+            batches++;
+        }
+        return batches;
+    }
+
+    private void compile(ChunkedSource source, long start, long end, ILWriter out) throws IOException, ParseException {
+        AST ast;
+        try {
+            ast = new ParseInput(source.decode(start, end)).parse(grammar).ast();
+        } catch (ParseException e) {
+            throw new ParseException(e.getMessage() + " in the declarations from byte " + start + " to " + end);
+        }
+        out.write(ast);
+        source.release(end);
+    }
+}
@@ -0,0 +1,263 @@
+package org.osta.gen;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates valid Osta programs of a requested size for load testing the parser.
+ * Programs are made of units of a trait, a generic struct implementing it and a free function, and end with a
+ * {@code main}. The output only depends on the seed, the depth and the size, so the same arguments always give the
+ * same program. Units are written one at a time so programs far larger than the heap can be streamed to disk.
+ */
+public class SourceGenerator {
+
+    private static final String USAGE =
+            "Usage: SourceGenerator [--seed <n>] [--size <bytes>[k|m|g]] [--depth <n>] [--out <file>]";
+
+    private static final String[] PRIMITIVES = {"i8", "i16", "i32", "i64", "u8", "u16", "u32", "u64", "usize"};
+    private static final String[] PARAMETERS = {"K", "V", "T", "U", "E"};
+    private static final String[] CONTAINERS = {"List", "Set", "Option", "Box"};
+    private static final String[] OPERATORS = {
+            "+", "-", "*", "/", "%", "<<", ">>", ">>>", "&", "|", "^", "<", "<=", ">", ">=", "==", "!="
+    };
+
+    private final long seed;
+    private final int depth;
+
+    /**
+     * @param seed The seed of the random choices
+     * @param depth How deeply the longest expression of every function is nested
+     */
+    public SourceGenerator(long seed, int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("depth " + depth);
+        }
+        this.seed = seed;
+        this.depth = depth;
+    }
+
+    /**
+     * Writes units until at least {@code size} chars have been written, then a {@code main}.
+     * Every char is ASCII so the size is also the size in bytes.
+     * @return The number of chars written
+     */
+    public long generate(Writer out, long size) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append("// Generated with seed ").append(seed).append(" and depth ").append(depth).append('\n');
+        long written = 0;
+        int units = 0;
+        while (written + sb.length() < size) {
+            unit(random, sb, units++);
+            out.append(sb);
+            written += sb.length();
+            sb.setLength(0);
+        }
+        main(random, sb, units);
+        out.append(sb);
+        written += sb.length();
+        out.flush();
+        return written;
+    }
+
+    public String generate(long size) {
+        StringWriter out = new StringWriter((int) Math.min(size + 1024, Integer.MAX_VALUE - 8));
+        try {
+            generate(out, size);
+        } catch (IOException e) {
+            // StringWriter doesn't throw
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    public long generate(Path path, long size) throws IOException {
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+            return generate(out, size);
+        }
+    }
+
+    private void unit(SplittableRandom random, StringBuilder sb, int n) {
+        List<String> parameters = new ArrayList<>();
+        int parameterCount = 1 + random.nextInt(PARAMETERS.length - 1);
+        for (int i = 0; i < parameterCount; i++) {
+            parameters.add(PARAMETERS[i]);
+        }
+        String element = parameters.get(parameterCount - 1);
+
+        sb.append("\ntrait Access").append(n).append('<').append(element).append(">\n{\n");
+        sb.append("    ").append(element).append(" get").append(n).append("();\n");
+        sb.append("    void set").append(n).append('(').append(element).append(" value);\n");
+        sb.append("}\n\n");
+
+        sb.append("struct Node").append(n).append('<').append(String.join(", ", parameters)).append('>');
+        sb.append(" : Access").append(n).append('<').append(element).append('>');
+        if (n > 0 && random.nextBoolean()) {
+            sb.append(", Access").append(random.nextInt(n)).append('<').append(type(random, parameters, 1)).append('>');
+        }
+        sb.append("\n{\n");
+        sb.append("    ").append(element).append(" value;\n");
+        if (parameterCount >= 2) {
+            sb.append("    Map<K,List<V>> index;\n");
+        }
+        int fields = 1 + random.nextInt(4);
+        for (int i = 0; i < fields; i++) {
+            sb.append("    ").append(type(random, parameters, 2)).append(" field").append(i).append(";\n");
+        }
+        sb.append("    ").append(element).append(" get").append(n).append("() { return .value; }\n");
+        sb.append("    void set").append(n).append('(').append(element).append(" value) { .value = value; }\n");
+        sb.append("    u64 step").append(n).append("(u64 arg0, u64 arg1)\n");
+        body(random, sb, "    ", n, fields);
+        sb.append("}\n\n");
+
+        sb.append("u64 compute").append(n).append("(u64 arg0, u64 arg1)\n");
+        body(random, sb, "", n, 0);
+    }
+
+    private void main(SplittableRandom random, StringBuilder sb, int units) {
+        sb.append("\ni32 main(u32 argc, u8** argv)\n{\n");
+        sb.append("    u64 total = 0;\n");
+        for (int i = 0; i < Math.min(units, 16); i++) {
+            sb.append("    total = total + compute").append(random.nextInt(units)).append("(argc, ")
+                    .append(random.nextInt(1000)).append(");\n");
+        }
+        sb.append("    return total;\n}\n");
+    }
+
+    /* A function body using the two u64 arguments, fields refers to the fields of the enclosing struct if any */
+    private void body(SplittableRandom random, StringBuilder sb, String indent, int n, int fields) {
+        sb.append(indent).append("{\n");
+        int locals = 0;
+        int statements = 2 + random.nextInt(5);
+        for (int i = 0; i < statements; i++) {
+            String inner = indent + "    ";
+            switch (random.nextInt(6)) {
+                case 0, 1 -> {
+                    String value = expression(random, shallow(random), locals);
+                    sb.append(inner).append("u64 local").append(locals++).append(" = ").append(value).append(";\n");
+                }
+                case 2 -> {
+                    if (fields > 0) {
+                        sb.append(inner).append(".field").append(random.nextInt(fields)).append(" = ")
+                                .append(expression(random, shallow(random), locals)).append(";\n");
+                    } else {
+                        sb.append(inner).append("arg0 = ").append(expression(random, shallow(random), locals))
+                                .append(";\n");
+                    }
+                }
+                case 3 -> sb.append(inner).append("compute").append(random.nextInt(n + 1)).append('(')
+                        .append(expression(random, shallow(random), locals)).append(", ")
+                        .append(expression(random, shallow(random), locals)).append(");\n");
+                case 4 -> {
+                    sb.append(inner).append("{\n");
+                    sb.append(inner).append("    arg1 = ").append(expression(random, shallow(random), locals))
+                            .append(";\n");
+                    sb.append(inner).append("}\n");
+                }
+                default -> sb.append(inner).append("arg1 = arg1 ").append(OPERATORS[random.nextInt(5)]).append(' ')
+                        .append(1 + random.nextInt(1000)).append(";\n");
+            }
+        }
+        sb.append(indent).append("    return ").append(expression(random, depth, locals)).append(";\n");
+        sb.append(indent).append("}\n");
+    }
+
+    private int shallow(SplittableRandom random) {
+        return random.nextInt(Math.min(depth, 4) + 1);
+    }
+
+    /* An expression nested exactly depth parentheses deep, one side of every operator is a leaf so the size is linear */
+    private String expression(SplittableRandom random, int depth, int locals) {
+        StringBuilder sb = new StringBuilder(leaf(random, locals));
+        for (int i = 0; i < depth; i++) {
+            String operator = OPERATORS[random.nextInt(OPERATORS.length)];
+            if (random.nextBoolean()) {
+                sb.insert(0, '(').append(' ').append(operator).append(' ').append(leaf(random, locals)).append(')');
+            } else {
+                sb.insert(0, "(" + leaf(random, locals) + " " + operator + " ").append(')');
+            }
+        }
+        return sb.toString();
+    }
+
+    private String leaf(SplittableRandom random, int locals) {
+        return switch (random.nextInt(4)) {
+            case 0 -> Integer.toString(random.nextInt(1 << 16));
+            case 1 -> locals > 0 ? "local" + random.nextInt(locals) : "arg0";
+            case 2 -> "arg" + random.nextInt(2);
+            default -> "compute0(arg0, " + random.nextInt(100) + ")";
+        };
+    }
+
+    /* A type using primitives and the type parameters, with containers nested up to depth deep */
+    private String type(SplittableRandom random, List<String> parameters, int depth) {
+        int choice = random.nextInt(depth > 0 ? 5 : 3);
+        return switch (choice) {
+            case 0 -> PRIMITIVES[random.nextInt(PRIMITIVES.length)];
+            case 1 -> parameters.get(random.nextInt(parameters.size()));
+            case 2 -> PRIMITIVES[random.nextInt(PRIMITIVES.length)] + "*".repeat(1 + random.nextInt(2));
+            case 3 -> CONTAINERS[random.nextInt(CONTAINERS.length)] + '<' + type(random, parameters, depth - 1) + '>';
+            default -> "Map<" + type(random, parameters, 0) + ',' + type(random, parameters, depth - 1) + '>';
+        };
+    }
+
+    public static void main(String[] args) throws IOException {
+        long seed = 0;
+        long size = 1 << 20;
+        int depth = 8;
+        Path out = null;
+        for (int i = 0; i < args.length; i++) {
+            if (i + 1 >= args.length) {
+                System.err.println(USAGE);
+                System.exit(2);
+            }
+            switch (args[i]) {
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--size" -> size = parseSize(args[++i]);
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--out" -> out = Path.of(args[++i]);
+                default -> {
+                    System.err.println(USAGE);
+                    System.exit(2);
+                }
+            }
+        }
+
+        SourceGenerator generator = new SourceGenerator(seed, depth);
+        if (out == null) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII));
+            generator.generate(writer, size);
+        } else {
+            long written = generator.generate(out, size);
+            System.err.println("Wrote " + written + " bytes to " + out);
+        }
+    }
+
+    /**
+     * Parses a size like {@code 512}, {@code 64k}, {@code 16m} or {@code 2g}.
+     */
+    static long parseSize(String size) {
+        String digits = size.toLowerCase();
+        long unit = 1;
+        switch (digits.charAt(digits.length() - 1)) {
+            case 'k' -> unit = 1L << 10;
+            case 'm' -> unit = 1L << 20;
+            case 'g' -> unit = 1L << 30;
+            default -> {}
+        }
+        if (unit != 1) {
+            digits = digits.substring(0, digits.length() - 1);
+        }
+        return Long.parseLong(digits) * unit;
+    }
+}
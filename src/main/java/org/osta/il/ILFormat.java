@@ -0,0 +1,35 @@
+package org.osta.il;
+
+/**
+ * The layout of a binary IL file, big endian:
+ * <pre>
+ * header      magic "OSIL", version u16, flags u16
+ * code        the instructions of every top level declaration, one after the other
+ * pool        count u32, offset u32 of every constant, the constants
+ * index       count u32, name u32 offset u32 length u32 of every top level declaration
+ * trailer     pool offset u32, index offset u32, version u16, flags u16, magic "OSIL"
+ * </pre>
+ * An instruction is its {@link Opcode} code in a byte followed by its operands as unsigned LEB128 varints. Names and
+ * types are indices in the constant pool, which holds each of them once, the value of {@link Opcode#CONST} is zigzag
+ * encoded. Struct and trait headers take the name, then the count and names of the type parameters, then the count and
+ * types of the super types. Function headers take the return type and name, then the count and the type and name of
+ * every parameter.
+ * <p>
+ * A constant is a tag byte then either a varint length and UTF-8 bytes, or the pool index of the integer type and the
+ * 128 bit two's complement value in two longs. The trailer is written last, so the file can be streamed out, and is
+ * read first, so a single declaration is found through the index and read without going through the rest.
+ */
+public final class ILFormat {
+
+    public static final int MAGIC = 'O' << 24 | 'S' << 16 | 'I' << 8 | 'L';
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 8;
+    public static final int TRAILER_SIZE = 16;
+    public static final int INDEX_ENTRY_SIZE = 12;
+
+    public static final int TAG_UTF8 = 1;
+    public static final int TAG_INTEGER = 2;
+
+    private ILFormat() {
+    }
+}
@@ -0,0 +1,369 @@
+package org.osta.il;
+
+import org.jetbrains.annotations.NotNull;
+import org.osta.parse.ast.IntLiteralAST;
+import org.osta.token.TokenType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a binary IL file in the {@link ILFormat}, straight from a memory mapping.
+ * Opening a file only checks its header and trailer, the declarations are found through the index and only the code
+ * of the ones that are read is touched. Constants are decoded the first time they are used.
+ * <p>
+ * A reader only does absolute reads of its buffer, so it can be shared between threads that each use their own
+ * {@link Instructions}.
+ */
+public final class ILReader {
+
+    private final ByteBuffer buffer;
+    private final int version;
+    private final int poolOffset;
+    private final int constants;
+    private final int indexOffset;
+    private final int declarations;
+    /* The strings of the pool decoded so far, a race only decodes one twice */
+    private final String[] strings;
+
+    /**
+     * @param buffer The whole file, from its position to its limit
+     * @throws IOException If it isn't a binary IL file of a version this reader knows
+     */
+    public ILReader(@NotNull ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        int size = this.buffer.limit();
+        if (size < ILFormat.HEADER_SIZE + ILFormat.TRAILER_SIZE || this.buffer.getInt(0) != ILFormat.MAGIC
+                || this.buffer.getInt(size - 4) != ILFormat.MAGIC) {
+            throw new IOException("Not a binary IL file");
+        }
+        this.version = Short.toUnsignedInt(this.buffer.getShort(4));
+        if (version != ILFormat.VERSION) {
+            throw new IOException("Unsupported binary IL version " + version);
+        }
+        int trailer = size - ILFormat.TRAILER_SIZE;
+        this.poolOffset = this.buffer.getInt(trailer);
+        this.indexOffset = this.buffer.getInt(trailer + 4);
+        if (poolOffset < ILFormat.HEADER_SIZE || indexOffset < poolOffset || indexOffset + 4 > trailer) {
+            throw new IOException("Corrupt binary IL sections");
+        }
+        this.constants = this.buffer.getInt(poolOffset);
+        this.declarations = this.buffer.getInt(indexOffset);
+        if (constants < 0 || poolOffset + 4 + 4L * constants > indexOffset
+                || declarations < 0 || indexOffset + 4 + (long) ILFormat.INDEX_ENTRY_SIZE * declarations > trailer) {
+            throw new IOException("Corrupt binary IL sections");
+        }
+        this.strings = new String[constants];
+    }
+
+    /**
+     * Maps the file, the mapping stays valid after the channel is closed and is released with the reader.
+     */
+    public static ILReader open(@NotNull Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Binary IL is limited to " + Integer.MAX_VALUE + " bytes");
+            }
+            return new ILReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int version() {
+        return version;
+    }
+
+    /**
+     * How many top level declarations the file has.
+     */
+    public int declarations() {
+        return declarations;
+    }
+
+    public int constants() {
+        return constants;
+    }
+
+    /**
+     * The name of a top level declaration.
+     */
+    public String name(int declaration) {
+        return string(buffer.getInt(entry(declaration)));
+    }
+
+    /**
+     * Finds the first top level declaration of a name, by comparing the bytes of the names without decoding them.
+     * @return Its index, or -1 if there is none
+     */
+    public int find(@NotNull String name) {
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        for (int declaration = 0; declaration < declarations; declaration++) {
+            int constant = constantOffset(buffer.getInt(entry(declaration)));
+            if (buffer.get(constant) != ILFormat.TAG_UTF8) {
+                continue;
+            }
+            int[] position = {constant + 1};
+            if (varint(position) == utf8.length && matches(position[0], utf8)) {
+                return declaration;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The string constant at an index of the pool.
+     */
+    public String string(int constant) {
+        String string = strings[constant];
+        if (string == null) {
+            int offset = constantOffset(constant);
+            if (buffer.get(offset) != ILFormat.TAG_UTF8) {
+                throw new IllegalArgumentException("Constant " + constant + " isn't a string");
+            }
+            int[] position = {offset + 1};
+            int length = varint(position);
+            byte[] bytes = new byte[length];
+            buffer.get(position[0], bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+            strings[constant] = string;
+        }
+        return string;
+    }
+
+    /**
+     * The integer constant at an index of the pool, a literal of any type but {@link TokenType#I32}.
+     */
+    public IntLiteralAST integer(int constant) {
+        int offset = constantOffset(constant);
+        if (buffer.get(offset) != ILFormat.TAG_INTEGER) {
+            throw new IllegalArgumentException("Constant " + constant + " isn't an integer");
+        }
+        int[] position = {offset + 1};
+        String lexeme = string(varint(position));
+        TokenType type = Arrays.stream(TokenType.values())
+                .filter(candidate -> candidate.isIntegerType() && candidate.lexeme().equals(lexeme))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown integer type " + lexeme));
+        return new IntLiteralAST(buffer.getLong(position[0]), buffer.getLong(position[0] + 8), type);
+    }
+
+    /**
+     * Returns a cursor over the instructions of a top level declaration.
+     */
+    public Instructions instructions(int declaration) {
+        int entry = entry(declaration);
+        int offset = buffer.getInt(entry + 4);
+        return new Instructions(offset, offset + buffer.getInt(entry + 8));
+    }
+
+    /**
+     * Renders a top level declaration as the text IL {@code ILGenerator} generates for it.
+     */
+    public String text(int declaration) {
+        StringBuilder sb = new StringBuilder();
+        text(declaration, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Renders the whole file as the text IL {@code ILGenerator} generates for it.
+     */
+    public String text() {
+        StringBuilder sb = new StringBuilder();
+        for (int declaration = 0; declaration < declarations; declaration++) {
+            text(declaration, sb);
+        }
+        return sb.toString();
+    }
+
+    private void text(int declaration, StringBuilder sb) {
+        Instructions instructions = instructions(declaration);
+        int depth = 0;
+        while (instructions.next()) {
+            Opcode opcode = instructions.opcode();
+            if (opcode == Opcode.END) {
+                depth--;
+            }
+            sb.append("  ".repeat(depth));
+            switch (opcode) {
+                case STRUCT, TRAIT -> {
+                    sb.append(opcode.mnemonic()).append(' ').append(string(instructions.operand(0)));
+                    int parameters = instructions.operand(1);
+                    for (int i = 0; i < parameters; i++) {
+                        sb.append(i == 0 ? '<' : ',').append(string(instructions.operand(2 + i)));
+                    }
+                    if (parameters > 0) {
+                        sb.append('>');
+                    }
+                    int supertypes = instructions.operand(2 + parameters);
+                    for (int i = 0; i < supertypes; i++) {
+                        sb.append(i == 0 ? " : " : ", ").append(string(instructions.operand(3 + parameters + i)));
+                    }
+                    depth++;
+                }
+                case FUNC, DECLARE -> {
+                    sb.append(opcode.mnemonic()).append(' ').append(string(instructions.operand(0))).append(' ')
+                            .append(string(instructions.operand(1))).append('(');
+                    for (int i = 0; i < instructions.operand(2); i++) {
+                        sb.append(i == 0 ? "" : ", ").append(string(instructions.operand(3 + 2 * i))).append(' ')
+                                .append(string(instructions.operand(4 + 2 * i)));
+                    }
+                    sb.append(')');
+                    if (opcode == Opcode.FUNC) {
+                        depth++;
+                    }
+                }
+                case CONST -> sb.append("const ").append(instructions.operand(0));
+                case CONST_WIDE -> {
+                    IntLiteralAST literal = integer(instructions.operand(0));
+                    sb.append("const ").append(literal.bigValue()).append(' ').append(literal.type().lexeme());
+                }
+                case FIELD, LOCAL, CALL, INVOKE -> sb.append(opcode.mnemonic()).append(' ')
+                        .append(string(instructions.operand(0))).append(' ')
+                        .append(opcode == Opcode.CALL || opcode == Opcode.INVOKE
+                                ? String.valueOf(instructions.operand(1)) : string(instructions.operand(1)));
+                case CALLI -> sb.append("calli ").append(instructions.operand(0));
+                case LOAD, GETFIELD, PUTFIELD, STORE -> sb.append(opcode.mnemonic()).append(' ')
+                        .append(string(instructions.operand(0)));
+                default -> sb.append(opcode.mnemonic());
+            }
+            sb.append('\n');
+        }
+    }
+
+    private int entry(int declaration) {
+        if (declaration < 0 || declaration >= declarations) {
+            throw new IndexOutOfBoundsException("Declaration " + declaration + " of " + declarations);
+        }
+        return indexOffset + 4 + ILFormat.INDEX_ENTRY_SIZE * declaration;
+    }
+
+    private int constantOffset(int constant) {
+        if (constant < 0 || constant >= constants) {
+            throw new IndexOutOfBoundsException("Constant " + constant + " of " + constants);
+        }
+        return buffer.getInt(poolOffset + 4 + 4 * constant);
+    }
+
+    private boolean matches(int offset, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(offset + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* Reads the varint at position[0] and moves it past */
+    private int varint(int[] position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get(position[0]++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * A cursor over the instructions of a declaration, the operands are the ones of the {@link ILFormat}: pool
+     * indices, counts and the value of a {@link Opcode#CONST}.
+     */
+    public final class Instructions {
+
+        private final int end;
+        private final int[] position;
+        private Opcode opcode;
+        private int[] operands = new int[8];
+        private int count;
+
+        private Instructions(int start, int end) {
+            this.position = new int[] {start};
+            this.end = end;
+        }
+
+        /**
+         * Moves to the next instruction.
+         * @return false at the end of the declaration
+         */
+        public boolean next() {
+            if (position[0] >= end) {
+                opcode = null;
+                return false;
+            }
+            int code = buffer.get(position[0]++) & 0xFF;
+            opcode = Opcode.of(code);
+            if (opcode == null) {
+                throw new IllegalStateException("Unknown opcode " + code + " at " + (position[0] - 1));
+            }
+            count = 0;
+            switch (opcode) {
+                case STRUCT, TRAIT -> {
+                    operand();
+                    int parameters = operand();
+                    for (int i = 0; i < parameters; i++) {
+                        operand();
+                    }
+                    int supertypes = operand();
+                    for (int i = 0; i < supertypes; i++) {
+                        operand();
+                    }
+                }
+                case FUNC, DECLARE -> {
+                    operand();
+                    operand();
+                    int parameters = operand();
+                    for (int i = 0; i < 2 * parameters; i++) {
+                        operand();
+                    }
+                }
+                case CONST -> {
+                    int zigzag = varint(position);
+                    add(zigzag >>> 1 ^ -(zigzag & 1));
+                }
+                case FIELD, LOCAL, CALL, INVOKE -> {
+                    operand();
+                    operand();
+                }
+                case CONST_WIDE, LOAD, GETFIELD, PUTFIELD, STORE, CALLI -> operand();
+                default -> {
+                }
+            }
+            return true;
+        }
+
+        public Opcode opcode() {
+            return opcode;
+        }
+
+        public int operands() {
+            return count;
+        }
+
+        public int operand(int i) {
+            if (i >= count) {
+                throw new IndexOutOfBoundsException("Operand " + i + " of " + count);
+            }
+            return operands[i];
+        }
+
+        private int operand() {
+            int value = varint(position);
+            add(value);
+            return value;
+        }
+
+        private void add(int value) {
+            if (count == operands.length) {
+                operands = Arrays.copyOf(operands, count * 2);
+            }
+            operands[count++] = value;
+        }
+    }
+}
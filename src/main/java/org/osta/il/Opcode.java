@@ -0,0 +1,82 @@
+package org.osta.il;
+
+import org.osta.parse.ast.BinaryExprAST;
+
+/**
+ * The instructions of the IL, with their mnemonic in the text form and their code in the binary form.
+ * Operands are the same in both forms: names and types are constant pool indices in the binary form, counts are
+ * unsigned varints and {@link #CONST} takes a zigzag varint.
+ */
+public enum Opcode {
+    // Declarations, each one but a field or a declared function is closed by END
+    STRUCT(1, "struct"), TRAIT(2, "trait"), FIELD(3, "field"), FUNC(4, "func"), DECLARE(5, "declare"), END(6, "end"),
+    // Operands: value, or the constant of a literal that isn't an i32
+    CONST(10, "const"), CONST_WIDE(11, "const"),
+    // Operands: name, none for the object a method runs on
+    LOAD(12, "load"), LOAD_THIS(13, "load this"), GETFIELD(14, "getfield"), PUTFIELD(15, "putfield"), STORE(16, "store"),
+    // Operands: type, name
+    LOCAL(17, "local"),
+    // Operands: name, argument count
+    CALL(18, "call"), INVOKE(19, "invoke"),
+    // Operands: argument count
+    CALLI(20, "calli"),
+    POP(21, "pop"), RET(22, "ret"), RET_VOID(23, "ret.void"),
+    // The binary operators, in the order of BinaryExprAST.BinaryOp
+    MUL(32, "mul"), DIV(33, "div"), MOD(34, "mod"), ADD(35, "add"), SUB(36, "sub"),
+    SHL(37, "shl"), SHR(38, "shr"), SAR(39, "sar"),
+    LT(40, "lt"), LE(41, "le"), GT(42, "gt"), GE(43, "ge"), EQ(44, "eq"), NE(45, "ne"),
+    AND(46, "and"), XOR(47, "xor"), OR(48, "or");
+
+    private static final Opcode[] BY_CODE = new Opcode[64];
+
+    static {
+        for (Opcode opcode : values()) {
+            BY_CODE[opcode.code] = opcode;
+        }
+    }
+
+    private final int code;
+    private final String mnemonic;
+
+    Opcode(int code, String mnemonic) {
+        this.code = code;
+        this.mnemonic = mnemonic;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    public String mnemonic() {
+        return mnemonic;
+    }
+
+    /**
+     * Returns the opcode of a code, or {@code null} if no opcode has it.
+     */
+    public static Opcode of(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    public static Opcode of(BinaryExprAST.BinaryOp op) {
+        return switch (op) {
+            case MULT -> MUL;
+            case DIV -> DIV;
+            case MOD -> MOD;
+            case ADD -> ADD;
+            case SUB -> SUB;
+            case SHL -> SHL;
+            case SHR -> SHR;
+            case SAR -> SAR;
+            case LT -> LT;
+            case LE -> LE;
+            case GT -> GT;
+            case GE -> GE;
+            case EQ -> EQ;
+            case NE -> NE;
+            case BIT_AND -> AND;
+            case BIT_XOR -> XOR;
+            case BIT_OR -> OR;
+        };
+    }
+}
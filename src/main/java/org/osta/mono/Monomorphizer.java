@@ -0,0 +1,244 @@
+package org.osta.mono;
+
+import org.jetbrains.annotations.NotNull;
+import org.osta.parse.ast.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Replaces the generic structs and traits of a program by one concrete instance per tuple of type arguments they are
+ * used with.
+ * <p>
+ * The generic declarations of every file are {@link #register(FileAST) registered} first, then each file is
+ * {@link #monomorphize(FileAST) rewritten}: its generic declarations are dropped and every use like
+ * {@code ValueWrapper<u32>} refers to the instance of that name instead. The first use of a tuple instantiates the
+ * declaration with its parameters substituted, and that in turn instantiates the generic types the instance uses.
+ * Instances are cached on the {@link TypeIds canonical id} of their type, so each one is built once however many uses
+ * and files share it, and files can be rewritten in parallel. An instance that can't be built fails every file that
+ * uses it, directly or through other instances, each with its own exception caused by the same failure. The
+ * {@link #instances()} are lowered once for the whole program, after all files.
+ * <p>
+ * Each id has a future completed by the thread whose use created it. Building an instance never waits: a use of an
+ * instance that is being built, by another thread or further up by this one when the instance uses itself, only needs
+ * its name and is recorded. A file waits for the instances it uses and theirs in turn once it is rewritten, so
+ * instances that use each other can't deadlock and different instances are built in parallel.
+ */
+public final class Monomorphizer {
+
+    /** How deep instances can instantiate other ones, past it a type like {@code S<T> { S<List<T>> s; }} never ends. */
+    public static final int MAX_DEPTH = 64;
+
+    private final TypeIds types = new TypeIds();
+    private final Map<String, TypeDeclAST> generics = new ConcurrentHashMap<>();
+    /* The instance of every id that was used, or its failure */
+    private final Map<Integer, CompletableFuture<Instance>> instances = new ConcurrentHashMap<>();
+
+    /* An instance and the ids of the instances it uses */
+    private record Instance(TypeDeclAST declaration, Set<Integer> uses) {
+    }
+
+    /**
+     * Registers the generic declarations of a file, the first one of a name is kept.
+     */
+    public void register(@NotNull FileAST file) {
+        for (DeclAST declaration : file.declarations()) {
+            if (declaration instanceof TypeDeclAST type && !type.parameters().isEmpty()) {
+                generics.putIfAbsent(type.name(), type);
+            }
+        }
+    }
+
+    /**
+     * Rewrites a file to use the instances of the generic types, instantiating the ones that weren't yet.
+     * @throws IllegalArgumentException If a generic type is given the wrong number of arguments or instantiates
+     *                                  itself without end
+     */
+    public FileAST monomorphize(@NotNull FileAST file) {
+        List<DeclAST> declarations = new ArrayList<>(file.declarations().size());
+        Set<Integer> uses = new LinkedHashSet<>();
+        for (DeclAST declaration : file.declarations()) {
+            if (!(declaration instanceof TypeDeclAST type && !type.parameters().isEmpty())) {
+                declarations.add(rewrite(declaration, Map.of(), 0, uses));
+            }
+        }
+        join(uses);
+        return new FileAST(declarations);
+    }
+
+    /**
+     * The instances built so far, sorted by name.
+     */
+    public List<TypeDeclAST> instances() {
+        Map<Integer, TypeDeclAST> built = new HashMap<>();
+        Map<Integer, List<Integer>> users = new HashMap<>();
+        Deque<Integer> failed = new ArrayDeque<>();
+        instances.forEach((id, future) -> {
+            Instance instance = future.isCompletedExceptionally() ? null : future.getNow(null);
+            if (instance == null) {
+                failed.add(id);
+                return;
+            }
+            built.put(id, instance.declaration());
+            for (int use : instance.uses()) {
+                users.computeIfAbsent(use, key -> new ArrayList<>()).add(id);
+            }
+        });
+        // An instance that uses a failed one, even through others, can't be lowered either
+        while (!failed.isEmpty()) {
+            for (int user : users.getOrDefault(failed.remove(), List.of())) {
+                if (built.remove(user) != null) {
+                    failed.add(user);
+                }
+            }
+        }
+        List<TypeDeclAST> sorted = new ArrayList<>(built.values());
+        sorted.sort(Comparator.comparing(TypeDeclAST::name));
+        return sorted;
+    }
+
+    public TypeIds types() {
+        return types;
+    }
+
+    /* The type with the parameters substituted and the uses of generic types replaced by their instances */
+    private TypeAST rewrite(TypeAST type, Map<String, TypeAST> substitution, int depth, Set<Integer> uses) {
+        TypeAST parameter = type.arguments().isEmpty() ? substitution.get(type.name()) : null;
+        if (parameter != null) {
+            return type.pointers() == 0
+                    ? parameter : new TypeAST(parameter.name(), parameter.arguments(), parameter.pointers() + type.pointers());
+        }
+        if (type.arguments().isEmpty()) {
+            return type;
+        }
+        List<TypeAST> arguments = new ArrayList<>(type.arguments().size());
+        for (TypeAST argument : type.arguments()) {
+            arguments.add(rewrite(argument, substitution, depth, uses));
+        }
+        TypeDeclAST generic = generics.get(type.name());
+        if (generic == null) {
+            return new TypeAST(type.name(), arguments, type.pointers());
+        }
+        if (generic.parameters().size() != arguments.size()) {
+            throw new IllegalArgumentException(generic.name() + " takes " + generic.parameters().size()
+                    + " type arguments, not " + arguments.size());
+        }
+        TypeAST instance = new TypeAST(type.name(), List.copyOf(arguments), 0);
+        String name = instance.toString();
+        instance(types.id(instance), generic, name, arguments, depth, uses);
+        return new TypeAST(name, List.of(), type.pointers());
+    }
+
+    /* Records the use of an instance, building it if it is the first one */
+    private void instance(int id, TypeDeclAST generic, String name, List<TypeAST> arguments, int depth,
+                          Set<Integer> uses) {
+        uses.add(id);
+        if (instances.containsKey(id)) {
+            return;
+        }
+        CompletableFuture<Instance> future = new CompletableFuture<>();
+        if (instances.putIfAbsent(id, future) != null) {
+            return;
+        }
+        Set<Integer> instanceUses = new LinkedHashSet<>();
+        try {
+            future.complete(new Instance(instantiate(generic, name, arguments, depth + 1, instanceUses), instanceUses));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /* Waits for the instances and the ones they use in turn, their builders never wait so they all complete */
+    private void join(Set<Integer> uses) {
+        Set<Integer> joined = new HashSet<>();
+        Deque<Integer> pending = new ArrayDeque<>(uses);
+        while (!pending.isEmpty()) {
+            Integer id = pending.remove();
+            if (!joined.add(id)) {
+                continue;
+            }
+            try {
+                pending.addAll(instances.get(id).join().uses());
+            } catch (CompletionException e) {
+                // A new exception for every use, so the uses don't share a stack trace or suppressed exceptions
+                throw new IllegalArgumentException(e.getCause().getMessage(), e.getCause());
+            }
+        }
+    }
+
+    private TypeDeclAST instantiate(TypeDeclAST generic, String name, List<TypeAST> arguments, int depth,
+                                    Set<Integer> uses) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Instantiating " + name + " is nested more than " + MAX_DEPTH + " deep");
+        }
+        Map<String, TypeAST> substitution = new HashMap<>();
+        for (int i = 0; i < arguments.size(); i++) {
+            substitution.put(generic.parameters().get(i), arguments.get(i));
+        }
+        List<TypeAST> supertypes = new ArrayList<>(generic.supertypes().size());
+        for (TypeAST supertype : generic.supertypes()) {
+            supertypes.add(rewrite(supertype, substitution, depth, uses));
+        }
+        List<DeclAST> members = new ArrayList<>(generic.members().size());
+        for (DeclAST member : generic.members()) {
+            members.add(rewrite(member, substitution, depth, uses));
+        }
+        return generic instanceof TraitDeclAST
+                ? new TraitDeclAST(name, List.of(), supertypes, members)
+                : new StructDeclAST(name, List.of(), supertypes, members);
+    }
+
+    private DeclAST rewrite(DeclAST ast, Map<String, TypeAST> substitution, int depth, Set<Integer> uses) {
+        if (ast instanceof TypeDeclAST type) {
+            List<TypeAST> supertypes = new ArrayList<>(type.supertypes().size());
+            for (TypeAST supertype : type.supertypes()) {
+                supertypes.add(rewrite(supertype, substitution, depth, uses));
+            }
+            List<DeclAST> members = new ArrayList<>(type.members().size());
+            for (DeclAST member : type.members()) {
+                members.add(rewrite(member, substitution, depth, uses));
+            }
+            return type instanceof TraitDeclAST
+                    ? new TraitDeclAST(type.name(), type.parameters(), supertypes, members)
+                    : new StructDeclAST(type.name(), type.parameters(), supertypes, members);
+        } else if (ast instanceof FieldDeclAST field) {
+            return new FieldDeclAST(rewrite(field.type(), substitution, depth, uses), field.name());
+        } else if (ast instanceof FunctionDeclAST function) {
+            List<ParamAST> parameters = new ArrayList<>(function.parameters().size());
+            for (ParamAST parameter : function.parameters()) {
+                parameters.add(new ParamAST(rewrite(parameter.type(), substitution, depth, uses), parameter.name()));
+            }
+            BlockStmtAST body = function.body() == null
+                    ? null : (BlockStmtAST) rewrite(function.body(), substitution, depth, uses);
+            return new FunctionDeclAST(rewrite(function.returnType(), substitution, depth, uses), function.name(),
+                    parameters, body);
+        }
+        return ast;
+    }
+
+    /* Only declarations of locals name types inside a body */
+    private StmtAST rewrite(StmtAST ast, Map<String, TypeAST> substitution, int depth, Set<Integer> uses) {
+        if (ast instanceof VarDeclStmtAST varDecl) {
+            return new VarDeclStmtAST(rewrite(varDecl.type(), substitution, depth, uses), varDecl.name(),
+                    varDecl.value());
+        } else if (ast instanceof BlockStmtAST block) {
+            List<StmtAST> statements = new ArrayList<>(block.statements().size());
+            for (StmtAST statement : block.statements()) {
+                statements.add(rewrite(statement, substitution, depth, uses));
+            }
+            return new BlockStmtAST(statements);
+        }
+        return ast;
+    }
+}
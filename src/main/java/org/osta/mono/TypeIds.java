@@ -0,0 +1,60 @@
+package org.osta.mono;
+
+import org.jetbrains.annotations.NotNull;
+import org.osta.parse.ast.TypeAST;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Gives every type a canonical id, two types have the same id if and only if they are the same type.
+ * A type is keyed on its name, the ids of its arguments and its pointer depth, so the ids are hash consed: the key of
+ * {@code Map<K,List<V>>} holds the id of {@code List<V>} instead of the whole argument, and comparing two types only
+ * compares their ids. Ids are handed out from 0 in the order the types are first seen, from any number of threads.
+ */
+public final class TypeIds {
+
+    private final Map<Key, Integer> ids = new ConcurrentHashMap<>();
+    private final List<TypeAST> types = new CopyOnWriteArrayList<>();
+
+    /**
+     * Returns the id of a type, giving it one the first time it is seen.
+     */
+    public int id(@NotNull TypeAST type) {
+        List<Integer> arguments = new ArrayList<>(type.arguments().size());
+        for (TypeAST argument : type.arguments()) {
+            arguments.add(id(argument));
+        }
+        Key key = new Key(type.name(), List.copyOf(arguments), type.pointers());
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        synchronized (types) {
+            return ids.computeIfAbsent(key, k -> {
+                types.add(type);
+                return types.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * The type of an id, as it was first seen.
+     */
+    public TypeAST type(int id) {
+        return types.get(id);
+    }
+
+    /**
+     * How many different types were seen.
+     */
+    public int size() {
+        return types.size();
+    }
+
+    private record Key(String name, List<Integer> arguments, int pointers) {
+    }
+}
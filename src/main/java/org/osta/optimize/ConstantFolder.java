@@ -0,0 +1,246 @@
+package org.osta.optimize;
+
+import org.jetbrains.annotations.NotNull;
+import org.osta.parse.ast.*;
+import org.osta.token.IntegerScanner;
+import org.osta.token.TokenType;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Rewrites the AST so the IL computes less, before it is lowered:
+ * <ul>
+ * <li>Binary operators over two literals of the same integer type are evaluated, wrapping around at the width of the
+ * type. Division and remainder truncate towards zero and aren't folded by zero, shifts aren't folded by a negative
+ * amount or one of the width of the type or more. Comparisons are left alone, as there is no type for their result.
+ * <li>Operations with their identity, {@code x + 0}, {@code x - 0}, {@code x * 1}, {@code x / 1}, {@code x | 0},
+ * {@code x ^ 0} and shifts by 0, become {@code x}.
+ * <li>A multiplication by a power of two becomes a left shift, which is the same under wrap around for any width.
+ * </ul>
+ * Nothing is ever dropped that could have a side effect. Subtrees that don't change are kept as they are, so folding an
+ * AST that has nothing to fold returns the same AST.
+ */
+public final class ConstantFolder {
+
+    /**
+     * Folds a file, a declaration, a statement or an expression, any other AST is returned as is.
+     */
+    public AST fold(@NotNull AST ast) {
+        if (ast instanceof FileAST file) {
+            return fold(file);
+        } else if (ast instanceof DeclAST declaration) {
+            return fold(declaration);
+        } else if (ast instanceof StmtAST statement) {
+            return fold(statement);
+        } else if (ast instanceof ExprAST expression) {
+            return fold(expression);
+        }
+        return ast;
+    }
+
+    public FileAST fold(@NotNull FileAST file) {
+        List<DeclAST> declarations = foldAll(file.declarations(), this::fold);
+        return declarations == file.declarations() ? file : new FileAST(declarations);
+    }
+
+    public DeclAST fold(@NotNull DeclAST ast) {
+        if (ast instanceof TypeDeclAST type) {
+            List<DeclAST> members = foldAll(type.members(), this::fold);
+            if (members == type.members()) {
+                return type;
+            }
+            return type instanceof TraitDeclAST
+                    ? new TraitDeclAST(type.name(), type.parameters(), type.supertypes(), members)
+                    : new StructDeclAST(type.name(), type.parameters(), type.supertypes(), members);
+        } else if (ast instanceof FunctionDeclAST function && function.body() != null) {
+            BlockStmtAST body = (BlockStmtAST) fold(function.body());
+            return body == function.body()
+                    ? function : new FunctionDeclAST(function.returnType(), function.name(), function.parameters(), body);
+        }
+        return ast;
+    }
+
+    public StmtAST fold(@NotNull StmtAST ast) {
+        if (ast instanceof VarDeclStmtAST varDecl) {
+            ExprAST value = varDecl.value() == null ? null : fold(varDecl.value());
+            return value == varDecl.value() ? varDecl : new VarDeclStmtAST(varDecl.type(), varDecl.name(), value);
+        } else if (ast instanceof AssignStmtAST assign) {
+            ExprAST target = fold(assign.target());
+            ExprAST value = fold(assign.value());
+            return target == assign.target() && value == assign.value() ? assign : new AssignStmtAST(target, value);
+        } else if (ast instanceof ExprStmtAST exprStmt) {
+            ExprAST expr = fold(exprStmt.expr());
+            return expr == exprStmt.expr() ? exprStmt : new ExprStmtAST(expr);
+        } else if (ast instanceof ReturnStmtAST returnStmt && returnStmt.value() != null) {
+            ExprAST value = fold(returnStmt.value());
+            return value == returnStmt.value() ? returnStmt : new ReturnStmtAST(value);
+        } else if (ast instanceof BlockStmtAST block) {
+            List<StmtAST> statements = foldAll(block.statements(), this::fold);
+            return statements == block.statements() ? block : new BlockStmtAST(statements);
+        }
+        return ast;
+    }
+
+    public ExprAST fold(@NotNull ExprAST ast) {
+        if (ast instanceof BinaryExprAST binary) {
+            ExprAST left = fold(binary.left());
+            ExprAST right = fold(binary.right());
+            ExprAST simplified = simplify(left, binary.op(), right);
+            if (simplified != null) {
+                return simplified;
+            }
+            return left == binary.left() && right == binary.right() ? binary : new BinaryExprAST(left, binary.op(), right);
+        } else if (ast instanceof MemberExprAST member && member.target() != null) {
+            ExprAST target = fold(member.target());
+            return target == member.target() ? member : new MemberExprAST(target, member.member());
+        } else if (ast instanceof CallExprAST call) {
+            ExprAST callee = fold(call.callee());
+            List<ExprAST> arguments = foldAll(call.arguments(), this::fold);
+            return callee == call.callee() && arguments == call.arguments() ? call : new CallExprAST(callee, arguments);
+        }
+        return ast;
+    }
+
+    /* The simpler form of a binary expression over folded operands, or null if there is none */
+    private static ExprAST simplify(ExprAST left, BinaryExprAST.BinaryOp op, ExprAST right) {
+        IntLiteralAST leftLiteral = left instanceof IntLiteralAST literal ? literal : null;
+        IntLiteralAST rightLiteral = right instanceof IntLiteralAST literal ? literal : null;
+        if (leftLiteral != null && rightLiteral != null && leftLiteral.type() == rightLiteral.type()) {
+            IntLiteralAST value = evaluate(leftLiteral, op, rightLiteral);
+            if (value != null) {
+                return value;
+            }
+        }
+        if (rightLiteral != null && isIdentity(op, rightLiteral)) {
+            return left;
+        }
+        if (leftLiteral != null && isIdentity(op, leftLiteral)
+                && (op == BinaryExprAST.BinaryOp.ADD || op == BinaryExprAST.BinaryOp.MULT
+                || op == BinaryExprAST.BinaryOp.BIT_OR || op == BinaryExprAST.BinaryOp.BIT_XOR)) {
+            return right;
+        }
+        if (op == BinaryExprAST.BinaryOp.MULT) {
+            // The shift has the type of the power of two, like the operands of any binary expression
+            int shift = rightLiteral != null ? log2(rightLiteral) : -1;
+            if (shift > 0) {
+                return new BinaryExprAST(left, BinaryExprAST.BinaryOp.SHL,
+                        new IntLiteralAST(0, shift, rightLiteral.type()));
+            }
+            shift = leftLiteral != null ? log2(leftLiteral) : -1;
+            if (shift > 0) {
+                return new BinaryExprAST(right, BinaryExprAST.BinaryOp.SHL,
+                        new IntLiteralAST(0, shift, leftLiteral.type()));
+            }
+        }
+        return null;
+    }
+
+    private static boolean isIdentity(BinaryExprAST.BinaryOp op, IntLiteralAST literal) {
+        long value = literal.high() == 0 ? literal.low() : -1;
+        return switch (op) {
+            case ADD, SUB, SHL, SHR, SAR, BIT_OR, BIT_XOR -> value == 0;
+            case MULT, DIV -> value == 1;
+            default -> false;
+        };
+    }
+
+    /* The exponent of a literal that is a power of two, as a value of its type, or -1 */
+    private static int log2(IntLiteralAST literal) {
+        int bits = IntegerScanner.bits(literal.type());
+        long high = literal.high();
+        long low = literal.low();
+        int exponent;
+        if (high == 0 && Long.bitCount(low) == 1) {
+            exponent = Long.numberOfTrailingZeros(low);
+        } else if (low == 0 && Long.bitCount(high) == 1) {
+            exponent = 64 + Long.numberOfTrailingZeros(high);
+        } else {
+            return -1;
+        }
+        // The sign bit of a signed type is a negative value
+        return exponent < bits - (isSigned(literal.type()) ? 1 : 0) ? exponent : -1;
+    }
+
+    /* Evaluates the operator at the width of the type, or returns null if it isn't folded */
+    private static IntLiteralAST evaluate(IntLiteralAST left, BinaryExprAST.BinaryOp op, IntLiteralAST right) {
+        if (left.type() == TokenType.I32) {
+            // Java ints wrap around exactly like i32
+            int a = left.value();
+            int b = right.value();
+            Integer value = switch (op) {
+                case MULT -> a * b;
+                case DIV -> b == 0 ? null : a / b;
+                case MOD -> b == 0 ? null : a % b;
+                case ADD -> a + b;
+                case SUB -> a - b;
+                case SHL -> b < 0 || b >= 32 ? null : a << b;
+                case SHR -> b < 0 || b >= 32 ? null : a >>> b;
+                case SAR -> b < 0 || b >= 32 ? null : a >> b;
+                case BIT_AND -> a & b;
+                case BIT_XOR -> a ^ b;
+                case BIT_OR -> a | b;
+                default -> null;
+            };
+            return value == null ? null : new IntLiteralAST(value);
+        }
+
+        TokenType type = left.type();
+        int bits = IntegerScanner.bits(type);
+        BigInteger a = left.bigValue();
+        BigInteger b = right.bigValue();
+        BigInteger value = switch (op) {
+            case MULT -> a.multiply(b);
+            case DIV -> b.signum() == 0 ? null : a.divide(b);
+            case MOD -> b.signum() == 0 ? null : a.remainder(b);
+            case ADD -> a.add(b);
+            case SUB -> a.subtract(b);
+            case SHL -> isShift(b, bits) ? a.shiftLeft(b.intValue()) : null;
+            // Logical on the bits of the value whatever the type, arithmetic on them as a signed value
+            case SHR -> isShift(b, bits) ? wrap(a, bits, false).shiftRight(b.intValue()) : null;
+            case SAR -> isShift(b, bits) ? wrap(a, bits, true).shiftRight(b.intValue()) : null;
+            case BIT_AND -> a.and(b);
+            case BIT_XOR -> a.xor(b);
+            case BIT_OR -> a.or(b);
+            default -> null;
+        };
+        if (value == null) {
+            return null;
+        }
+        value = wrap(value, bits, isSigned(type));
+        return new IntLiteralAST(value.shiftRight(64).longValue(), value.longValue(), type);
+    }
+
+    private static boolean isShift(BigInteger amount, int bits) {
+        return amount.signum() >= 0 && amount.compareTo(BigInteger.valueOf(bits)) < 0;
+    }
+
+    /* The value modulo 2^bits, between -2^(bits-1) and 2^(bits-1) if signed */
+    private static BigInteger wrap(BigInteger value, int bits, boolean signed) {
+        BigInteger modulus = BigInteger.ONE.shiftLeft(bits);
+        BigInteger wrapped = value.mod(modulus);
+        return signed && wrapped.testBit(bits - 1) ? wrapped.subtract(modulus) : wrapped;
+    }
+
+    private static boolean isSigned(TokenType type) {
+        return type.lexeme().charAt(0) == 'i';
+    }
+
+    /* Folds every element, the same list is returned if none of them changed */
+    private static <T> List<T> foldAll(List<T> elements, UnaryOperator<T> fold) {
+        List<T> folded = null;
+        for (int i = 0; i < elements.size(); i++) {
+            T element = elements.get(i);
+            T result = fold.apply(element);
+            if (result != element && folded == null) {
+                folded = new ArrayList<>(elements.subList(0, i));
+            }
+            if (folded != null) {
+                folded.add(result);
+            }
+        }
+        return folded == null ? elements : folded;
+    }
+}
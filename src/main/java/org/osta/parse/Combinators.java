@@ -0,0 +1,339 @@
+package org.osta.parse;
+
+import org.osta.parse.ast.*;
+import org.osta.token.TokenBuffer;
+import org.osta.token.TokenType;
+import org.osta.token.TriviaSkipper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The parsers built by the static methods of {@link Parser}.
+ * They are records rather than lambdas so {@link GrammarCompiler} can take a grammar apart. The combinators that call
+ * other parsers do it in the static methods at the end, which the compiled grammars call too with references to their
+ * own methods, so both parse the same way by construction.
+ */
+final class Combinators {
+
+    private Combinators() {}
+
+    /**
+     * A parser written by hand as a public static method, {@code parser} is a reference to it.
+     */
+    record Direct<T extends AST>(Class<?> owner, String method, Parser<T> parser) implements Parser<T> {
+        @Override
+        public ParseResult<T> parse(ParseInput input, int offset) {
+            return parser.parse(input, offset);
+        }
+    }
+
+    /**
+     * Not a record since it keeps the parser once it is built, like {@link Rule} but without a name or profiling.
+     */
+    static final class Lazy<T extends AST> implements Parser<T> {
+
+        private final Supplier<Parser<T>> supplier;
+        private volatile Parser<T> parser;
+
+        Lazy(Supplier<Parser<T>> supplier) {
+            this.supplier = supplier;
+        }
+
+        Parser<T> parser() {
+            Parser<T> parser = this.parser;
+            if (parser == null) {
+                synchronized (this) {
+                    parser = this.parser;
+                    if (parser == null) {
+                        parser = supplier.get();
+                        this.parser = parser;
+                    }
+                }
+            }
+            return parser;
+        }
+
+        @Override
+        public ParseResult<T> parse(ParseInput input, int offset) {
+            Parser<T> parser = this.parser;
+            return (parser != null ? parser : parser()).parse(input, offset);
+        }
+    }
+
+    record Noop() implements Parser<EmptyAST> {
+        @Override
+        public ParseResult<EmptyAST> parse(ParseInput input, int offset) {
+            return new ParseResult<>(new EmptyAST(), input, offset);
+        }
+    }
+
+    record Memo<T extends AST>(int ruleId, Parser<T> parser) implements Parser<T> {
+        @Override
+        public ParseResult<T> parse(ParseInput input, int offset) {
+            return memo(ruleId, parser, input, offset);
+        }
+    }
+
+    record Test<T extends AST>(Parser<T> parser, Predicate<AST> predicate,
+                               Supplier<ParseException> exceptionSupplier) implements Parser<T> {
+        @Override
+        public ParseResult<T> parse(ParseInput input, int offset) {
+            return test(parser, predicate, exceptionSupplier, input, offset);
+        }
+    }
+
+    record Sequence(Parser<?>[] parsers) implements Parser<SequenceAST> {
+        @Override
+        public ParseResult<SequenceAST> parse(ParseInput input, int offset) {
+            return sequence(parsers, input, offset);
+        }
+    }
+
+    /**
+     * Both {@link Parser#anyOf(Parser[])} and {@link Parser#oneOf(Parser[])}, they only differ in their types.
+     */
+    record AnyOf<T extends AST>(Parser<?>[] parsers) implements Parser<T> {
+        @Override
+        public ParseResult<T> parse(ParseInput input, int offset) {
+            return anyOf(parsers, input, offset);
+        }
+    }
+
+    record Commit<T extends AST>(Parser<T> parser) implements Parser<T> {
+        @Override
+        public ParseResult<T> parse(ParseInput input, int offset) {
+            return commit(parser, input, offset);
+        }
+    }
+
+    record SkipTrivia<T extends AST>(Parser<T> parser) implements Parser<T> {
+        @Override
+        public ParseResult<T> parse(ParseInput input, int offset) {
+            return skipTrivia(parser, input, offset);
+        }
+    }
+
+    record Map<I extends AST, O extends AST>(Parser<I> parser, Parser.ParserMapLambda<I, O> map) implements Parser<O> {
+        @Override
+        public ParseResult<O> parse(ParseInput input, int offset) {
+            return Combinators.map(parser, map, input, offset);
+        }
+    }
+
+    record ZeroOrMore(Parser<?> parser) implements Parser<SequenceAST> {
+        @Override
+        public ParseResult<SequenceAST> parse(ParseInput input, int offset) {
+            return zeroOrMore(parser, input, offset);
+        }
+    }
+
+    record SeparatedBy(Parser<?> item, Parser<?> separator) implements Parser<SequenceAST> {
+        @Override
+        public ParseResult<SequenceAST> parse(ParseInput input, int offset) {
+            return separatedBy(item, separator, input, offset);
+        }
+    }
+
+    record Item() implements Parser<ItemAST> {
+        @Override
+        public ParseResult<ItemAST> parse(ParseInput input, int offset) {
+            if (input.isEnd(offset)) {
+                return input.fail(offset, ParseException::UNEXPECTED_EOF);
+            }
+            return new ParseResult<>(new ItemAST(input.charAt(offset)), input, offset + 1);
+        }
+    }
+
+    record Literal(String literal, LiteralAST ast, Supplier<ParseException> expected) implements Parser<LiteralAST> {
+
+        Literal(String literal) {
+            this(literal, new LiteralAST(literal), () -> ParseException.EXPECTED_LITERAL(literal));
+        }
+
+        @Override
+        public ParseResult<LiteralAST> parse(ParseInput input, int offset) {
+            if (input.length() - offset < literal.length()) {
+                return input.fail(offset, ParseException::UNEXPECTED_EOF);
+            }
+            if (input.startsWith(literal, offset)) {
+                return new ParseResult<>(ast, input, offset + literal.length());
+            }
+
+            return input.fail(offset, expected);
+        }
+    }
+
+    /**
+     * @param fixed The AST every match produces for tokens with a fixed spelling, {@code null} otherwise
+     */
+    record Token(TokenType type, TokenAST fixed, Supplier<ParseException> expected) implements Parser<TokenAST> {
+
+        Token(TokenType type) {
+            this(type, type.lexeme() != null ? new TokenAST(type, type.lexeme()) : null,
+                    () -> ParseException.EXPECTED_TOKEN(type));
+        }
+
+        @Override
+        public ParseResult<TokenAST> parse(ParseInput input, int offset) {
+            int index = input.tokenAt(offset);
+            TokenBuffer tokens = input.tokens();
+            if (index < 0 || tokens.kind(index) != type.ordinal()) {
+                return input.fail(offset, expected);
+            }
+            TokenAST ast = fixed != null ? fixed : new TokenAST(type, input.tokenText(index));
+            return new ParseResult<>(ast, input, tokens.end(index));
+        }
+    }
+
+    /**
+     * @param accepted Whether each token kind is accepted, indexed by ordinal
+     */
+    record TokenSet(boolean[] accepted, Supplier<ParseException> expected) implements Parser<TokenAST> {
+        @Override
+        public ParseResult<TokenAST> parse(ParseInput input, int offset) {
+            int index = input.tokenAt(offset);
+            TokenBuffer tokens = input.tokens();
+            if (index < 0 || !accepted[tokens.kind(index)]) {
+                return input.fail(offset, expected);
+            }
+            return new ParseResult<>(new TokenAST(tokens.type(index), input.tokenText(index)), input, tokens.end(index));
+        }
+    }
+
+    record Regex(Pattern pattern, Supplier<ParseException> exceptionSupplier) implements Parser<RegexAST> {
+        @Override
+        public ParseResult<RegexAST> parse(ParseInput input, int offset) {
+            Matcher matcher = pattern.matcher(input.text()).region(offset, input.length());
+            if (matcher.lookingAt()) {
+                return new ParseResult<>(match(matcher), input, matcher.end());
+            }
+            return input.fail(offset, exceptionSupplier);
+        }
+
+        static RegexAST match(Matcher matcher) {
+            String[] groups = new String[matcher.groupCount()];
+            for (int i = 1; i <= matcher.groupCount(); i++) {
+                groups[i - 1] = matcher.group(i);
+            }
+            return new RegexAST(matcher.group(), groups);
+        }
+    }
+
+    static <T extends AST> ParseResult<T> memo(int ruleId, Parser<T> parser, ParseInput input, int offset) {
+        MemoTable table = input.memoTable();
+        if (table == null) {
+            return parser.parse(input, offset);
+        }
+        return table.apply(ruleId, parser, input, offset);
+    }
+
+    static <T extends AST> ParseResult<T> test(Parser<T> parser, Predicate<AST> predicate,
+                                               Supplier<ParseException> exceptionSupplier, ParseInput input, int offset) {
+        ParseResult<T> result = parser.parse(input, offset);
+        if (result == null || predicate.test(result.ast())) {
+            return result;
+        }
+        return input.fail(offset, exceptionSupplier);
+    }
+
+    static ParseResult<SequenceAST> sequence(Parser<?>[] parsers, ParseInput input, int offset) {
+        List<AST> asts = new ArrayList<>(parsers.length);
+        for (Parser<?> parser : parsers) {
+            ParseResult<?> result = parser.parse(input, offset);
+            if (result == null) {
+                return null;
+            }
+            asts.add(result.ast());
+            offset = result.offset();
+        }
+        return new ParseResult<>(new SequenceAST(asts), input, offset);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T extends AST> ParseResult<T> anyOf(Parser<?>[] parsers, ParseInput input, int offset) {
+        for (Parser<?> parser : parsers) {
+            ParseResult<?> result = parser.parse(input, offset);
+            if (result != null) {
+                return (ParseResult<T>) result;
+            }
+            if (input.isCommitted(offset)) {
+                // The alternative cut past the offset, so the others can't be tried
+                return null;
+            }
+        }
+        return null;
+    }
+
+    static <T extends AST> ParseResult<T> commit(Parser<T> parser, ParseInput input, int offset) {
+        ParseResult<T> result = parser.parse(input, offset);
+        if (result != null) {
+            input.cut(result.offset());
+        }
+        return result;
+    }
+
+    static <T extends AST> ParseResult<T> skipTrivia(Parser<T> parser, ParseInput input, int offset) {
+        ParseResult<T> result = parser.parse(input, TriviaSkipper.skip(input.text(), offset));
+        if (result == null) {
+            return null;
+        }
+        int end = TriviaSkipper.skip(input.text(), result.offset());
+        return end == result.offset() ? result : new ParseResult<>(result.ast(), input, end);
+    }
+
+    static <I extends AST, O extends AST> ParseResult<O> map(Parser<I> parser, Parser.ParserMapLambda<I, O> map,
+                                                             ParseInput input, int offset) {
+        ParseResult<I> result = parser.parse(input, offset);
+        if (result == null) {
+            return null;
+        }
+        return new ParseResult<>(map.apply(result.ast()), input, result.offset());
+    }
+
+    static ParseResult<SequenceAST> zeroOrMore(Parser<?> parser, ParseInput input, int offset) {
+        var asts = new ArrayList<AST>();
+
+        while (true) {
+            ParseResult<?> result = parser.parse(input, offset);
+            if (result == null) {
+                if (input.isCommitted(offset)) {
+                    return null;
+                }
+                break;
+            }
+            asts.add(result.ast());
+            offset = result.offset();
+        }
+
+        return new ParseResult<>(new SequenceAST(asts), input, offset);
+    }
+
+    static ParseResult<SequenceAST> separatedBy(Parser<?> item, Parser<?> separator, ParseInput input, int offset) {
+        var asts = new ArrayList<AST>();
+        ParseResult<?> result = item.parse(input, offset);
+        if (result == null && input.isCommitted(offset)) {
+            return null;
+        }
+        while (result != null) {
+            asts.add(result.ast());
+            offset = result.offset();
+            ParseResult<?> separatorResult = separator.parse(input, offset);
+            if (separatorResult == null) {
+                if (input.isCommitted(offset)) {
+                    return null;
+                }
+                break;
+            }
+            result = item.parse(input, separatorResult.offset());
+            if (result == null) {
+                return null;
+            }
+        }
+        return new ParseResult<>(new SequenceAST(asts), input, offset);
+    }
+}
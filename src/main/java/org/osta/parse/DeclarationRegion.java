@@ -0,0 +1,68 @@
+package org.osta.parse;
+
+import org.osta.parse.ast.DeclAST;
+import org.osta.text.SymbolTable;
+import org.osta.token.Lexer;
+import org.osta.token.TokenType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The top level declarations parsed from a region of a file and their spans, the building block of parsers that only
+ * look at part of a file, see {@link IncrementalParse} and {@link ParallelParser}.
+ */
+final class DeclarationRegion {
+
+    final List<DeclAST> declarations;
+    int[] starts;
+    int[] ends;
+
+    DeclarationRegion(int capacity) {
+        capacity = Math.max(capacity, 4);
+        declarations = new ArrayList<>(capacity);
+        starts = new int[capacity];
+        ends = new int[capacity];
+    }
+
+    int size() {
+        return declarations.size();
+    }
+
+    /**
+     * Parses the declarations between the offsets, only that part of the text is lexed.
+     * @param symbols The table to intern identifiers into, or {@code null} for one of the region's own
+     * @return Whether they cover the region up to trivia that also ends at its end in the whole text
+     */
+    boolean parse(CharSequence text, int start, int end, Parser<? extends DeclAST> parser, SymbolTable symbols) {
+        CharSequence region = text.subSequence(start, end);
+        ParseInput input = symbols == null ? new ParseInput(region) : new ParseInput(region, symbols);
+        int offset = 0;
+        while (true) {
+            ParseResult<? extends DeclAST> result = parser.parse(input, offset);
+            if (result == null) {
+                break;
+            }
+            add(result.ast(), start + Lexer.skipTrivia(region, offset), start + result.offset());
+            offset = result.offset();
+        }
+        int index = input.tokenAt(offset);
+        if (index < 0 || input.tokens().kind(index) != TokenType.EOF.ordinal()) {
+            return false;
+        }
+        // A comment after the last declaration could go on past the region
+        return Lexer.skipTrivia(text, start + offset) == end;
+    }
+
+    private void add(DeclAST declaration, int start, int end) {
+        int size = declarations.size();
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        declarations.add(declaration);
+        starts[size] = start;
+        ends[size] = end;
+    }
+}
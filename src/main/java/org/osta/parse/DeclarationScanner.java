@@ -0,0 +1,92 @@
+package org.osta.parse;
+
+/**
+ * Finds where top level declarations end without parsing them, by matching braces one char at a time.
+ * A declaration ends at the brace that closes the outermost braces or at a {@code ;} outside of braces. Comments and
+ * quoted literals are skipped the same way the lexer skips them, so braces inside them don't count.
+ * <p>
+ * Only ASCII chars matter to the scanner, so it can be fed the bytes of a UTF-8 source as well as its chars.
+ * Braces only show the real boundaries of a valid file, the declarations still have to be parsed to know.
+ */
+public final class DeclarationScanner {
+
+    private static final int CODE = 0;
+    private static final int SLASH = 1;
+    private static final int LINE_COMMENT = 2;
+    private static final int BLOCK_COMMENT = 3;
+    private static final int BLOCK_COMMENT_STAR = 4;
+    private static final int QUOTED = 5;
+    private static final int ESCAPED = 6;
+
+    private int state = CODE;
+    private int depth;
+    private int quote;
+
+    /**
+     * Scans the next char.
+     * @return Whether a top level declaration ends with it
+     */
+    public boolean next(int c) {
+        switch (state) {
+            case SLASH:
+                if (c == '/') {
+                    state = LINE_COMMENT;
+                    return false;
+                }
+                if (c == '*') {
+                    state = BLOCK_COMMENT;
+                    return false;
+                }
+                state = CODE;
+                return code(c);
+            case LINE_COMMENT:
+                if (c == '\n') {
+                    state = CODE;
+                }
+                return false;
+            case BLOCK_COMMENT:
+                if (c == '*') {
+                    state = BLOCK_COMMENT_STAR;
+                }
+                return false;
+            case BLOCK_COMMENT_STAR:
+                state = c == '/' ? CODE : c == '*' ? BLOCK_COMMENT_STAR : BLOCK_COMMENT;
+                return false;
+            case QUOTED:
+                if (c == '\\') {
+                    state = ESCAPED;
+                } else if (c == quote || c == '\n') {
+                    state = CODE;
+                }
+                return false;
+            case ESCAPED:
+                state = QUOTED;
+                return false;
+            default:
+                return code(c);
+        }
+    }
+
+    private boolean code(int c) {
+        switch (c) {
+            case '{':
+                depth++;
+                return false;
+            case '}':
+                // Unbalanced braces are left for the parser to report
+                return depth > 0 && --depth == 0;
+            case ';':
+                return depth == 0;
+            case '/':
+                state = SLASH;
+                return false;
+            case '"':
+            case '\'':
+                state = QUOTED;
+                quote = c;
+                return false;
+            default:
+                return false;
+        }
+    }
+}
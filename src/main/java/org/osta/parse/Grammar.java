@@ -0,0 +1,49 @@
+package org.osta.parse;
+
+import org.jetbrains.annotations.NotNull;
+import org.osta.parse.ast.AST;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of the grammar rules and the compiled patterns they use.
+ * Everything registered here is built once per JVM and shared by every parse, so parsers must not keep any state,
+ * the state of a parse belongs to its {@link ParseInput}.
+ */
+public final class Grammar {
+
+    private static final Map<String, Rule<?>> RULES = new ConcurrentHashMap<>();
+    private static final Map<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+
+    private Grammar() {}
+
+    /**
+     * Registers a rule, the definition is called once when the rule is first used.
+     * Meant to be stored in a static field of the AST class the rule parses.
+     * @throws IllegalStateException If a rule with the same name is already registered
+     */
+    public static <T extends AST> Rule<T> rule(@NotNull String name, @NotNull Supplier<Parser<T>> definition) {
+        Rule<T> rule = new Rule<>(name, definition);
+        if (RULES.putIfAbsent(name, rule) != null) {
+            throw new IllegalStateException("Rule already registered: " + name);
+        }
+        return rule;
+    }
+
+    public static Rule<?> rule(@NotNull String name) {
+        return RULES.get(name);
+    }
+
+    public static Collection<Rule<?>> rules() {
+        return Collections.unmodifiableCollection(RULES.values());
+    }
+
+    static Pattern pattern(@NotNull String regex) {
+        return PATTERNS.computeIfAbsent(regex, Pattern::compile);
+    }
+}
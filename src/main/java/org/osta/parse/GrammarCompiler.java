@@ -0,0 +1,401 @@
+package org.osta.parse;
+
+import org.jetbrains.annotations.NotNull;
+import org.osta.parse.ast.AST;
+import org.osta.parse.ast.BinaryExprAST;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Compiles a grammar built with the static methods of {@link Parser} into a single class.
+ * Every combinator becomes a static method of the class that calls the same static helper of {@link Combinators} as
+ * the interpreted combinator, but with constant instances of the class that start at the methods of its parsers instead of the megamorphic
+ * {@link Parser#parse(ParseInput, int)} call sites of the records, so once the helper is inlined the JIT calls them
+ * directly and can inline across rules. The precedence climbing of {@link BinaryExprAST} gets its operand the same way.
+ * Everything the combinators capture, like the map lambdas, becomes a static final constant of the class. Hand written
+ * parsers made with {@link Parser#direct} are called directly, and any other parser is called through a constant.
+ * <p>
+ * The class is generated as Java source, compiled in memory with the system compiler and defined as a hidden class
+ * in this package. The interpreted grammar is the fallback: it is used without the java.compiler module, like on a JRE
+ * or a jlinked image without it, and when the class can't be compiled or defined, which is logged.
+ * Compiling takes a while, so grammars should be compiled once and shared like the rules they are built from.
+ */
+public final class GrammarCompiler {
+
+    private static final String CLASS_NAME = "CompiledGrammar";
+    private static final System.Logger LOGGER = System.getLogger(GrammarCompiler.class.getName());
+
+    private GrammarCompiler() {}
+
+    /**
+     * Whether grammars can be compiled, otherwise {@link #compile(Parser)} returns the grammar unchanged.
+     */
+    public static boolean isAvailable() {
+        // Checked first so a runtime without the module never loads the classes that refer to it
+        return ModuleLayer.boot().findModule("java.compiler").isPresent() && Javac.compiler() != null;
+    }
+
+    /**
+     * Compiles the grammar, which must not change afterwards since the rules are only looked at once.
+     * @param grammar The grammar to compile
+     * @return A parser that produces the same results and failures as the grammar, or the grammar itself if it
+     * can't be compiled
+     */
+    public static <T extends AST> Parser<T> compile(@NotNull Parser<T> grammar) {
+        return compile(grammar, null);
+    }
+
+    /* Compiles against the given class path, or where the classes the grammar refers to are if it is null */
+    @SuppressWarnings("unchecked")
+    static <T extends AST> Parser<T> compile(@NotNull Parser<T> grammar, String classPath) {
+        if (!isAvailable()) {
+            return grammar;
+        }
+        Generator generator = new Generator(grammar);
+        String source = generator.generate();
+        byte[] bytes = Javac.compile(source, classPath != null ? classPath : generator.classPath());
+        if (bytes == null) {
+            return grammar;
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup()
+                    .defineHiddenClassWithClassData(bytes, generator.constants.toArray(), true);
+            return (Parser<T>) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class, int.class))
+                    .invoke(0);
+        } catch (Throwable e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Could not define the compiled grammar, it is interpreted", e);
+            return grammar;
+        }
+    }
+
+    /**
+     * Returns the source of the class the grammar compiles to.
+     */
+    static String source(@NotNull Parser<?> grammar) {
+        return new Generator(grammar).generate();
+    }
+
+    /**
+     * Everything that needs the java.compiler module, which a JRE or a jlinked image may not have, so it is only loaded
+     * once {@link #isAvailable()} found the module.
+     */
+    private static final class Javac {
+
+        static JavaCompiler compiler() {
+            return ToolProvider.getSystemJavaCompiler();
+        }
+
+        /* Compiles the source of the class, or returns null and logs why it doesn't compile */
+        static byte[] compile(String source, String classPath) {
+            JavaCompiler compiler = compiler();
+            DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+            StandardJavaFileManager standard = compiler.getStandardFileManager(diagnostics, null, null);
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            JavaFileManager files = new ForwardingJavaFileManager<>(standard) {
+                @Override
+                public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                           FileObject sibling) {
+                    return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                        @Override
+                        public OutputStream openOutputStream() {
+                            return output;
+                        }
+                    };
+                }
+            };
+            JavaFileObject file = new SimpleJavaFileObject(
+                    URI.create("mem:///org/osta/parse/" + CLASS_NAME + JavaFileObject.Kind.SOURCE.extension),
+                    JavaFileObject.Kind.SOURCE) {
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return source;
+                }
+            };
+            List<String> options = List.of("-classpath", classPath, "-proc:none", "-g", "-Xlint:none", "-nowarn");
+            boolean compiled = compiler.getTask(null, files, diagnostics, options, null, List.of(file)).call();
+            try {
+                files.close();
+            } catch (IOException ignored) {
+                // Nothing was written to disk
+            }
+            if (!compiled) {
+                StringBuilder message = new StringBuilder("The compiled grammar has errors, it is interpreted:");
+                for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                    message.append('\n').append(diagnostic);
+                }
+                LOGGER.log(System.Logger.Level.WARNING, message.toString());
+                return null;
+            }
+            return output.toByteArray();
+        }
+    }
+
+    /**
+     * Walks the grammar from its root and writes a method per parser.
+     */
+    private static final class Generator {
+
+        private final Parser<?> root;
+        private final Map<Parser<?>, String> methods = new IdentityHashMap<>();
+        private final Queue<Parser<?>> pending = new ArrayDeque<>();
+        private final Map<Object, String> constantNames = new IdentityHashMap<>();
+        private final List<Object> constants = new ArrayList<>();
+        private final StringBuilder fields = new StringBuilder();
+        private final StringBuilder body = new StringBuilder();
+        /* The methods the instances of the class start parsing at, the first one is the root */
+        private final List<String> entries = new ArrayList<>();
+        private final Map<Parser<?>, String> references = new IdentityHashMap<>();
+        private int arrays;
+
+        Generator(Parser<?> root) {
+            this.root = root;
+        }
+
+        /*
+         * Where the classes the generated source refers to are, which needn't be on the class path of the JVM, like
+         * when the compiler runs from a jar loaded by another class loader
+         */
+        String classPath() {
+            Set<String> locations = new LinkedHashSet<>();
+            locations.add(location(GrammarCompiler.class));
+            for (Object constant : constants) {
+                locations.add(location(constant.getClass()));
+            }
+            for (Parser<?> parser : methods.keySet()) {
+                if (parser instanceof Combinators.Direct<?> direct) {
+                    locations.add(location(direct.owner()));
+                }
+            }
+            locations.remove(null);
+            String classPath = System.getProperty("java.class.path");
+            if (classPath != null && !classPath.isEmpty()) {
+                locations.add(classPath);
+            }
+            return String.join(File.pathSeparator, locations);
+        }
+
+        private static String location(Class<?> type) {
+            CodeSource source = type.getProtectionDomain().getCodeSource();
+            if (source == null || source.getLocation() == null) {
+                return null;
+            }
+            try {
+                return Path.of(source.getLocation().toURI()).toString();
+            } catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+                return null;
+            }
+        }
+
+        String generate() {
+            entries.add(method(root));
+            while (!pending.isEmpty()) {
+                Parser<?> parser = pending.remove();
+                method(parser, methods.get(parser));
+            }
+            String description = constant(root.toString(), "String");
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("package org.osta.parse;\n\n");
+            sb.append("import org.osta.parse.ast.*;\n");
+            sb.append("import java.lang.constant.ConstantDescs;\n");
+            sb.append("import java.lang.invoke.MethodHandles;\n");
+            sb.append("import java.util.function.Predicate;\n");
+            sb.append("import java.util.function.Supplier;\n\n");
+            sb.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+            sb.append("final class ").append(CLASS_NAME).append(" implements Parser {\n\n");
+            sb.append("    private static final Object[] DATA;\n\n");
+            sb.append("    static {\n");
+            sb.append("        try {\n");
+            sb.append("            DATA = MethodHandles.classData(MethodHandles.lookup(), ConstantDescs.DEFAULT_NAME, Object[].class);\n");
+            sb.append("        } catch (IllegalAccessException e) {\n");
+            sb.append("            throw new ExceptionInInitializerError(e);\n");
+            sb.append("        }\n");
+            sb.append("    }\n\n");
+            sb.append(fields).append('\n');
+            sb.append("    private final int entry;\n\n");
+            sb.append("    ").append(CLASS_NAME).append("(int entry) {\n");
+            sb.append("        this.entry = entry;\n");
+            sb.append("    }\n\n");
+            sb.append("    @Override\n");
+            sb.append("    public ParseResult parse(ParseInput input, int offset) {\n");
+            sb.append("        switch (entry) {\n");
+            for (int i = 1; i < entries.size(); i++) {
+                sb.append("            case ").append(i).append(": return ").append(entries.get(i)).append("(input, offset);\n");
+            }
+            sb.append("            default: return ").append(entries.get(0)).append("(input, offset);\n");
+            sb.append("        }\n");
+            sb.append("    }\n\n");
+            sb.append("    @Override\n");
+            sb.append("    public String toString() {\n");
+            sb.append("        return \"compiled \" + ").append(description).append(";\n");
+            sb.append("    }\n");
+            sb.append(body);
+            sb.append("}\n");
+            return sb.toString();
+        }
+
+        /* Returns the name of the method for the parser, the method is written later */
+        private String method(Parser<?> parser) {
+            String name = methods.get(parser);
+            if (name == null) {
+                name = "p" + methods.size();
+                if (parser instanceof Rule<?> rule) {
+                    name += "_" + identifier(rule.name());
+                }
+                methods.put(parser, name);
+                pending.add(parser);
+            }
+            return name;
+        }
+
+        private String constant(Object value, String type) {
+            String name = constantNames.get(value);
+            if (name == null) {
+                name = "C" + constants.size();
+                constantNames.put(value, name);
+                fields.append("    private static final ").append(type).append(' ').append(name)
+                        .append(" = (").append(type).append(") DATA[").append(constants.size()).append("];\n");
+                constants.add(value);
+            }
+            return name;
+        }
+
+        private void method(Parser<?> parser, String name) {
+            StringBuilder sb = body;
+            sb.append("\n    // ").append(describe(parser)).append('\n');
+            sb.append("    static ParseResult ").append(name).append("(ParseInput input, int offset) {\n");
+            sb.append("        return ");
+            if (parser instanceof Rule<?> rule) {
+                String definition = method(rule.definition());
+                // Counted the way Rule.parse counts it, the check is a constant when the class is loaded
+                sb.append("ParseProfiler.ENABLED\n");
+                sb.append("                ? input.profiler().parse(").append(rule.profileId()).append(", ")
+                        .append(reference(rule.definition())).append(", input, offset)\n");
+                sb.append("                : ").append(definition).append("(input, offset)");
+            } else if (parser instanceof Combinators.Lazy<?> lazy) {
+                sb.append(method(lazy.parser())).append("(input, offset)");
+            } else if (parser instanceof Combinators.Direct<?> direct) {
+                sb.append(direct.owner().getCanonicalName()).append('.').append(direct.method()).append("(input, offset)");
+            } else if (parser instanceof BinaryExprAST.Climbing climbing) {
+                sb.append("BinaryExprAST.climb(").append(reference(climbing.operand())).append(", input, offset, 0)");
+            } else if (parser instanceof Combinators.Memo<?> memo) {
+                sb.append("Combinators.memo(").append(memo.ruleId()).append(", ").append(reference(memo.parser()))
+                        .append(", input, offset)");
+            } else if (parser instanceof Combinators.Test<?> test) {
+                sb.append("Combinators.test(").append(reference(test.parser())).append(", ")
+                        .append(constant(test.predicate(), "Predicate")).append(", ")
+                        .append(constant(test.exceptionSupplier(), "Supplier")).append(", input, offset)");
+            } else if (parser instanceof Combinators.Sequence sequence) {
+                sb.append("Combinators.sequence(").append(references(sequence.parsers())).append(", input, offset)");
+            } else if (parser instanceof Combinators.AnyOf<?> anyOf) {
+                sb.append("Combinators.anyOf(").append(references(anyOf.parsers())).append(", input, offset)");
+            } else if (parser instanceof Combinators.Commit<?> commit) {
+                sb.append("Combinators.commit(").append(reference(commit.parser())).append(", input, offset)");
+            } else if (parser instanceof Combinators.SkipTrivia<?> skipTrivia) {
+                sb.append("Combinators.skipTrivia(").append(reference(skipTrivia.parser())).append(", input, offset)");
+            } else if (parser instanceof Combinators.Map<?, ?> map) {
+                sb.append("Combinators.map(").append(reference(map.parser())).append(", ")
+                        .append(constant(map.map(), "Parser.ParserMapLambda")).append(", input, offset)");
+            } else if (parser instanceof Combinators.ZeroOrMore zeroOrMore) {
+                sb.append("Combinators.zeroOrMore(").append(reference(zeroOrMore.parser())).append(", input, offset)");
+            } else if (parser instanceof Combinators.SeparatedBy separatedBy) {
+                sb.append("Combinators.separatedBy(").append(reference(separatedBy.item())).append(", ")
+                        .append(reference(separatedBy.separator())).append(", input, offset)");
+            } else if (parser instanceof Record && parser.getClass().getEnclosingClass() == Combinators.class) {
+                // The rest don't call other parsers, the constant has the exact record type so the call is direct
+                sb.append(constant(parser, "Combinators." + parser.getClass().getSimpleName())).append(".parse(input, offset)");
+            } else {
+                sb.append(constant(parser, "Parser")).append(".parse(input, offset)");
+            }
+            sb.append(";\n");
+            sb.append("    }\n");
+        }
+
+        /*
+         * An instance of the class that starts at the method for the parser, the final fields of a hidden class are
+         * trusted so once the helper is inlined the JIT folds the switch and calls the method directly
+         */
+        private String reference(Parser<?> parser) {
+            String name = references.get(parser);
+            if (name == null) {
+                name = "R" + entries.size();
+                fields.append("    private static final Parser ").append(name).append(" = new ")
+                        .append(CLASS_NAME).append('(').append(entries.size()).append(");\n");
+                entries.add(method(parser));
+                references.put(parser, name);
+            }
+            return name;
+        }
+
+        /* The references to the methods for the parsers, as an array made once */
+        private String references(Parser<?>[] parsers) {
+            StringBuilder array = new StringBuilder("new Parser[] {");
+            for (int i = 0; i < parsers.length; i++) {
+                array.append(i == 0 ? "" : ", ").append(reference(parsers[i]));
+            }
+            String name = "P" + arrays++;
+            fields.append("    private static final Parser[] ").append(name).append(" = ").append(array).append("};\n");
+            return name;
+        }
+
+        private static String describe(Parser<?> parser) {
+            if (parser instanceof Rule<?> rule) {
+                return "Rule " + rule.name().replaceAll("[^\\w.<>$-]", "_");
+            }
+            if (parser instanceof Combinators.Token token) {
+                return "Token " + token.type();
+            }
+            if (parser instanceof Combinators.Lazy<?>) {
+                return "Lazy";
+            }
+            if (parser instanceof Combinators.Direct<?> direct) {
+                return "Direct " + direct.owner().getSimpleName() + "." + direct.method();
+            }
+            if (parser instanceof Combinators.Literal literal) {
+                // Only a description, the literal itself is a constant
+                return "Literal of " + literal.literal().length() + " chars";
+            }
+            if (parser instanceof Record) {
+                return parser.getClass().getSimpleName();
+            }
+            return "Parser " + parser.getClass().getName();
+        }
+
+        private static String identifier(String name) {
+            StringBuilder sb = new StringBuilder(name.length());
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                sb.append(Character.isJavaIdentifierPart(c) ? c : '_');
+            }
+            return sb.toString();
+        }
+    }
+}
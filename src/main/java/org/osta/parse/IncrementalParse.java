@@ -0,0 +1,174 @@
+package org.osta.parse;
+
+import org.jetbrains.annotations.NotNull;
+import org.osta.parse.ast.DeclAST;
+import org.osta.parse.ast.FileAST;
+import org.osta.text.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A parsed file that can be edited, each edit reparses only the top level declarations around it.
+ * The span of every declaration is kept next to the tree. An edit reparses from the last declaration starting before
+ * it up to the first one starting after it, and the declarations outside that region are reused as they are, only
+ * their spans move.
+ * When the reparsed declarations don't end exactly where the reused ones start, for example because the edit opened a
+ * comment or removed a closing brace, the region grows over the following declarations until they do.
+ * <p>
+ * Instances are immutable, {@link #edit(int, int, CharSequence)} returns the tree of the edited text and leaves the
+ * previous one as it was. Identifiers of every version are interned into the same {@link SymbolTable}.
+ */
+public final class IncrementalParse {
+
+    private final String text;
+    private final SymbolTable symbols;
+    private final FileAST ast;
+    private final int[] starts;
+    private final int[] ends;
+    private final int reused;
+
+    private IncrementalParse(String text, SymbolTable symbols, FileAST ast, int[] starts, int[] ends, int reused) {
+        this.text = text;
+        this.symbols = symbols;
+        this.ast = ast;
+        this.starts = starts;
+        this.ends = ends;
+        this.reused = reused;
+    }
+
+    /**
+     * Parses a whole file.
+     * @throws ParseException The same failure as {@link FileAST#parser()}
+     */
+    public static IncrementalParse parse(@NotNull CharSequence text) throws ParseException {
+        return parse(text, new SymbolTable());
+    }
+
+    public static IncrementalParse parse(@NotNull CharSequence text, @NotNull SymbolTable symbols) throws ParseException {
+        String string = text.toString();
+        DeclarationRegion region = new DeclarationRegion(string.length() / 512);
+        if (!region.parse(string, 0, string.length(), DeclAST.parser(), symbols)) {
+            throw failure(string, symbols);
+        }
+        return new IncrementalParse(string, symbols, new FileAST(region.declarations),
+                Arrays.copyOf(region.starts, region.size()), Arrays.copyOf(region.ends, region.size()), 0);
+    }
+
+    /**
+     * Replaces {@code deleted} chars at the offset with the inserted text and parses the result.
+     * @return The tree of the edited text
+     * @throws ParseException The same failure as {@link FileAST#parser()} on the edited text
+     */
+    public IncrementalParse edit(int offset, int deleted, @NotNull CharSequence inserted) throws ParseException {
+        if (offset < 0 || deleted < 0 || offset + deleted > text.length()) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", deleted " + deleted + ", length " + text.length());
+        }
+        String edited = new StringBuilder(text.length() - deleted + inserted.length())
+                .append(text, 0, offset)
+                .append(inserted)
+                .append(text, offset + deleted, text.length())
+                .toString();
+        int shift = inserted.length() - deleted;
+        int count = starts.length;
+
+        // The declaration the edit starts in is reparsed, or the one before it when the edit is right at a start since
+        // the inserted text could join the two
+        int first = Math.max(lastStartBefore(offset), 0);
+        int regionStart = first < count && starts[first] < offset ? starts[first] : 0;
+        int next = lastStartBefore(offset + deleted + 1) + 1;
+
+        while (true) {
+            int regionEnd = next < count ? starts[next] + shift : edited.length();
+            DeclarationRegion region = new DeclarationRegion(next - first + 1);
+            if (region.parse(edited, regionStart, regionEnd, DeclAST.parser(), symbols)) {
+                return splice(edited, first, next, shift, region);
+            }
+            if (next == count) {
+                // The edit left the file invalid, reparse it all so the failure is the one a full parse reports
+                throw failure(edited, symbols);
+            }
+            next = Math.min(count, next + Math.max(1, next - first));
+        }
+    }
+
+    public FileAST ast() {
+        return ast;
+    }
+
+    public String text() {
+        return text;
+    }
+
+    public SymbolTable symbols() {
+        return symbols;
+    }
+
+    /**
+     * The offset of the first token of the top level declaration at the index.
+     */
+    public int declarationStart(int index) {
+        return starts[index];
+    }
+
+    /**
+     * The offset right after the last token of the top level declaration at the index.
+     */
+    public int declarationEnd(int index) {
+        return ends[index];
+    }
+
+    /**
+     * How many top level declarations were reused from the previous tree, {@code 0} after a full parse.
+     */
+    public int reused() {
+        return reused;
+    }
+
+    /* The index of the last declaration starting before the offset, -1 if there is none */
+    private int lastStartBefore(int offset) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+
+    /* Replaces the declarations from first until next with the reparsed ones */
+    private IncrementalParse splice(String edited, int first, int next, int shift, DeclarationRegion region) {
+        int count = first + region.size() + starts.length - next;
+        List<DeclAST> declarations = new ArrayList<>(count);
+        declarations.addAll(ast.declarations().subList(0, first));
+        declarations.addAll(region.declarations);
+        declarations.addAll(ast.declarations().subList(next, starts.length));
+
+        int[] newStarts = new int[count];
+        int[] newEnds = new int[count];
+        System.arraycopy(starts, 0, newStarts, 0, first);
+        System.arraycopy(ends, 0, newEnds, 0, first);
+        System.arraycopy(region.starts, 0, newStarts, first, region.size());
+        System.arraycopy(region.ends, 0, newEnds, first, region.size());
+        for (int i = next, j = first + region.size(); i < starts.length; i++, j++) {
+            newStarts[j] = starts[i] + shift;
+            newEnds[j] = ends[i] + shift;
+        }
+        return new IncrementalParse(edited, symbols, new FileAST(declarations), newStarts, newEnds,
+                first + starts.length - next);
+    }
+
+    private static ParseException failure(String text, SymbolTable symbols) {
+        try {
+            new ParseInput(text, symbols).parse(FileAST.parser());
+        } catch (ParseException e) {
+            return e;
+        }
+        throw new IllegalStateException("The file parses as a whole but not declaration by declaration");
+    }
+}
@@ -0,0 +1,132 @@
+package org.osta.parse;
+
+import org.osta.parse.ast.AST;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Packrat memo table used by {@link Parser#memo(String, Parser)}.
+ * Every memoized rule is evaluated at most once per input position while the table is active,
+ * both successes and failures are remembered.
+ * The table is only consulted by inputs parsed through {@link #parse(Parser, CharSequence)}, so memoization is opt-in.
+ * <p>
+ * The entries are kept in one bucket per offset. A cut only drops the buckets between the previous cut and the new
+ * one, so all the cuts of a parse together cost at most the length of the input.
+ */
+public final class MemoTable {
+
+    private static final Map<String, Integer> RULE_IDS = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_RULE_ID = new AtomicInteger();
+    private static final Object FAILURE = new Object();
+
+    private final Map<Integer, Bucket> buckets = new HashMap<>();
+    /* There are no entries before it */
+    private int low;
+    private int size;
+    private long hits;
+    private long misses;
+
+    /**
+     * Parses the input with the given parser using this table.
+     * The entries of a previous parse are discarded, the hit and miss counters are kept.
+     */
+    public <T extends AST> ParseResult<T> parse(Parser<T> parser, CharSequence input) throws ParseException {
+        buckets.clear();
+        low = 0;
+        size = 0;
+        return new ParseInput(input, this).parse(parser);
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void resetCounters() {
+        hits = 0;
+        misses = 0;
+    }
+
+    static int ruleId(String rule) {
+        return RULE_IDS.computeIfAbsent(rule, name -> NEXT_RULE_ID.getAndIncrement());
+    }
+
+    static int anonymousRuleId() {
+        return NEXT_RULE_ID.getAndIncrement();
+    }
+
+    /* Drops the entries before the offset, after a cut they are never looked up again */
+    void prune(int offset) {
+        for (; low < offset && size > 0; low++) {
+            Bucket bucket = buckets.remove(low);
+            if (bucket != null) {
+                size -= bucket.size;
+            }
+        }
+        low = Math.max(low, offset);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T extends AST> ParseResult<T> apply(int ruleId, Parser<T> parser, ParseInput input, int offset) {
+        Bucket bucket = buckets.get(offset);
+        Object cached = bucket == null ? null : bucket.get(ruleId);
+        if (cached != null) {
+            hits++;
+            // The failure itself is already recorded in the input
+            return cached == FAILURE ? null : (ParseResult<T>) cached;
+        }
+
+        misses++;
+        ParseResult<T> result = parser.parse(input, offset);
+        if (offset < low) {
+            // Cut past while it was parsed, it is never looked up again
+            return result;
+        }
+        if (bucket == null) {
+            // The parse may have added the bucket or pruned it
+            bucket = buckets.computeIfAbsent(offset, o -> new Bucket());
+        }
+        bucket.put(ruleId, result == null ? FAILURE : result);
+        size++;
+        return result;
+    }
+
+    /* The entries of one offset, only a few rules are memoized at any offset so they are searched linearly */
+    private static final class Bucket {
+
+        private int[] rules = new int[4];
+        private Object[] results = new Object[4];
+        private int size;
+
+        Object get(int rule) {
+            for (int i = 0; i < size; i++) {
+                if (rules[i] == rule) {
+                    return results[i];
+                }
+            }
+            return null;
+        }
+
+        /* The rule isn't in the bucket, it was just evaluated because it missed */
+        void put(int rule, Object result) {
+            if (size == rules.length) {
+                rules = Arrays.copyOf(rules, size * 2);
+                results = Arrays.copyOf(results, size * 2);
+            }
+            rules[size] = rule;
+            results[size] = result;
+            size++;
+        }
+    }
+}
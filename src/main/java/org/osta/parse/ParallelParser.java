@@ -0,0 +1,125 @@
+package org.osta.parse;
+
+import org.jetbrains.annotations.NotNull;
+import org.osta.parse.ast.DeclAST;
+import org.osta.parse.ast.FileAST;
+import org.osta.text.BufferCharSequence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses the top level declarations of a single file in parallel.
+ * A pre-pass finds where top level declarations end by matching braces with a {@link DeclarationScanner}. The
+ * declarations are grouped into chunks of about the chunk size, each chunk is lexed and parsed as its own input on
+ * the pool and the declarations are stitched back in source order.
+ * <p>
+ * Braces only tell where declarations end when the file is valid, so when a chunk doesn't parse into whole
+ * declarations the file is parsed again on the calling thread with the same declaration parser, and the result or
+ * failure is the one of {@link FileAST#$parser(Parser)}.
+ */
+public final class ParallelParser {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private final ForkJoinPool pool;
+    private final Parser<? extends DeclAST> declaration;
+    /* The fallback, the declarations parsed one after the other */
+    private final Parser<FileAST> file;
+    private final int chunkSize;
+
+    /**
+     * @param declaration The parser of a top level declaration, usually {@link DeclAST#parser()} or a compiled copy
+     * @param chunkSize How many chars of declarations each task parses at least
+     */
+    public ParallelParser(@NotNull ForkJoinPool pool, @NotNull Parser<? extends DeclAST> declaration, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+        this.pool = pool;
+        this.declaration = declaration;
+        this.file = FileAST.$parser(declaration);
+        this.chunkSize = chunkSize;
+    }
+
+    public ParallelParser(@NotNull ForkJoinPool pool) {
+        this(pool, DeclAST.parser(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Parses a whole file.
+     * @throws ParseException The same failure as {@link FileAST#$parser(Parser)} of the declaration parser
+     */
+    public FileAST parse(@NotNull CharSequence source) throws ParseException {
+        int[] chunks = chunks(boundaries(source), source.length());
+        List<ForkJoinTask<DeclarationRegion>> tasks = new ArrayList<>(chunks.length - 1);
+        for (int i = 0; i + 1 < chunks.length; i++) {
+            int start = chunks[i];
+            int end = chunks[i + 1];
+            CharSequence text = view(source);
+            tasks.add(pool.submit(() -> {
+                DeclarationRegion region = new DeclarationRegion(16);
+                return region.parse(text, start, end, declaration, null) ? region : null;
+            }));
+        }
+
+        List<DeclAST> declarations = new ArrayList<>();
+        boolean complete = true;
+        for (ForkJoinTask<DeclarationRegion> task : tasks) {
+            DeclarationRegion region = task.join();
+            if (region == null) {
+                complete = false;
+            } else if (complete) {
+                declarations.addAll(region.declarations);
+            }
+        }
+        if (!complete) {
+            return new ParseInput(source).parse(file).ast();
+        }
+        return new FileAST(declarations);
+    }
+
+    /**
+     * Finds the offsets right after every top level declaration.
+     */
+    static int[] boundaries(CharSequence source) {
+        DeclarationScanner scanner = new DeclarationScanner();
+        int[] boundaries = new int[16];
+        int count = 0;
+        for (int offset = 0; offset < source.length(); offset++) {
+            if (scanner.next(source.charAt(offset))) {
+                boundaries = add(boundaries, count++, offset + 1);
+            }
+        }
+        return Arrays.copyOf(boundaries, count);
+    }
+
+    /* Groups the declarations into chunks, returns the offsets the chunks start at followed by the end of the source */
+    private int[] chunks(int[] boundaries, int length) {
+        int[] chunks = new int[boundaries.length + 2];
+        int count = 1;
+        for (int boundary : boundaries) {
+            if (boundary - chunks[count - 1] >= chunkSize && length - boundary >= chunkSize / 2) {
+                chunks[count++] = boundary;
+            }
+        }
+        chunks[count++] = length;
+        return Arrays.copyOf(chunks, count);
+    }
+
+    private static int[] add(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, index * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+
+    /* Buffer sequences keep a read cursor, so every task reads its own duplicate */
+    private static CharSequence view(CharSequence source) {
+        return source instanceof BufferCharSequence buffer ? buffer.duplicate() : source;
+    }
+}
@@ -1,5 +1,7 @@
 package org.osta.parse;
 
+import org.osta.token.TokenType;
+
 public class ParseException extends Exception {
 
     public ParseException(String msg) {
@@ -13,4 +15,11 @@ public class ParseException extends Exception {
     public static ParseException EXPECTED_LITERAL(String literal) {
         return new ParseException("Expected literal: " + literal);
     }
+
+    public static ParseException EXPECTED_TOKEN(TokenType type) {
+        if (type.lexeme() == null) {
+            return new ParseException("Expected token: " + type);
+        }
+        return new ParseException("Expected token: " + type.lexeme());
+    }
 }
@@ -0,0 +1,251 @@
+package org.osta.parse;
+
+import org.jetbrains.annotations.NotNull;
+import org.osta.parse.ast.AST;
+import org.osta.text.BufferCharSequence;
+import org.osta.text.SymbolTable;
+import org.osta.token.IntegerScanner;
+import org.osta.token.Lexer;
+import org.osta.token.TokenBuffer;
+import org.osta.token.TokenType;
+
+import java.util.function.Supplier;
+
+/**
+ * The input shared by every parser of a single parse.
+ * Parsers receive the input together with an offset into it and return the offset where they stopped,
+ * so advancing over the input never slices the underlying {@link CharSequence}.
+ */
+public final class ParseInput {
+
+    private final CharSequence text;
+    private final MemoTable memoTable;
+    private SymbolTable symbols;
+    private IntegerScanner integers;
+    private TokenBuffer tokens;
+    private int lastTokenOffset = -1;
+    private int lastTokenIndex;
+
+    private int cutOffset;
+
+    private int failureOffset = -1;
+    private Supplier<ParseException> failure;
+    /* Whether the failure was recorded by failDefinitely, so others at its offset don't replace it */
+    private boolean failureDefinite;
+
+    private ParseProfiler profiler;
+
+    public ParseInput(@NotNull CharSequence text) {
+        this(text, (MemoTable) null);
+    }
+
+    /**
+     * @param symbols The table identifiers are interned into, usually shared by every file of a compilation
+     */
+    public ParseInput(@NotNull CharSequence text, @NotNull SymbolTable symbols) {
+        this(text, (MemoTable) null);
+        this.symbols = symbols;
+    }
+
+    ParseInput(@NotNull CharSequence text, MemoTable memoTable) {
+        this.text = text;
+        this.memoTable = memoTable;
+    }
+
+    public CharSequence text() {
+        return text;
+    }
+
+    public int length() {
+        return text.length();
+    }
+
+    public boolean isEnd(int offset) {
+        return offset >= text.length();
+    }
+
+    public char charAt(int offset) {
+        return text.charAt(offset);
+    }
+
+    /**
+     * Checks whether the input contains the literal at the given offset, without copying the input.
+     */
+    public boolean startsWith(@NotNull String literal, int offset) {
+        if (text instanceof BufferCharSequence buffer) {
+            return buffer.regionMatches(offset, literal, 0, literal.length());
+        }
+        if (offset + literal.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (text.charAt(offset + i) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public CharSequence subSequence(int start, int end) {
+        return text.subSequence(start, end);
+    }
+
+    /**
+     * Parses this input from the start, this is the boundary where failures become exceptions.
+     * @throws ParseException The furthest failure recorded while parsing
+     */
+    public <T extends AST> ParseResult<T> parse(@NotNull Parser<T> parser) throws ParseException {
+        ParseResult<T> result = parser.parse(this, 0);
+        if (result == null) {
+            throw failure();
+        }
+        return result;
+    }
+
+    /**
+     * Records a failure at the given offset and returns {@code null}, the result of a failed parser.
+     * Only the furthest failure is kept since it is the most useful one to report,
+     * the exception is not created until it is thrown so backtracking doesn't allocate.
+     */
+    public <T extends AST> ParseResult<T> fail(int offset, @NotNull Supplier<ParseException> exceptionSupplier) {
+        if (offset > failureOffset || offset == failureOffset && !failureDefinite) {
+            failureOffset = offset;
+            failure = exceptionSupplier;
+            failureDefinite = false;
+        }
+        return null;
+    }
+
+    /**
+     * Same as {@link #fail(int, Supplier)}, but only a failure further on replaces this one. It is for input that can't
+     * be parsed any other way, like an integer literal too large for its type, where what the other alternatives
+     * expected at the same offset isn't the error.
+     */
+    public <T extends AST> ParseResult<T> failDefinitely(int offset, @NotNull Supplier<ParseException> exceptionSupplier) {
+        if (offset >= failureOffset) {
+            failureOffset = offset;
+            failure = exceptionSupplier;
+            failureDefinite = true;
+        }
+        return null;
+    }
+
+    /**
+     * Commits the parse up to the offset, see {@link Parser#commit(Parser)}.
+     * Memoized results before the offset can't be used anymore and are dropped.
+     */
+    public void cut(int offset) {
+        if (offset > cutOffset) {
+            cutOffset = offset;
+            if (memoTable != null) {
+                memoTable.prune(offset);
+            }
+        }
+    }
+
+    /**
+     * Whether the parse was committed past the offset, so parsers that started at it can't backtrack.
+     */
+    public boolean isCommitted(int offset) {
+        return cutOffset > offset;
+    }
+
+    /**
+     * The offset the parse is committed up to, the input before it isn't read again.
+     */
+    public int cutOffset() {
+        return cutOffset;
+    }
+
+    public int failureOffset() {
+        return failureOffset;
+    }
+
+    public ParseException failure() {
+        if (failure == null) {
+            return new ParseException("Parse failed");
+        }
+        return failure.get();
+    }
+
+    /**
+     * Returns the tokens of the input, the whole input is lexed the first time they are needed.
+     */
+    public TokenBuffer tokens() {
+        if (tokens == null) {
+            tokens = Lexer.lex(text);
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns the identifiers of the input, a table of its own unless one was given.
+     */
+    public SymbolTable symbols() {
+        if (symbols == null) {
+            symbols = new SymbolTable();
+        }
+        return symbols;
+    }
+
+    /**
+     * Returns the scanner integer literals are read with, one per input so literals don't allocate one.
+     */
+    public IntegerScanner integers() {
+        if (integers == null) {
+            integers = new IntegerScanner();
+        }
+        return integers;
+    }
+
+    /**
+     * Returns the text of the token at the index.
+     * Fixed tokens share their lexeme and identifiers share the name of their symbol, so only other tokens like
+     * numbers slice the input.
+     */
+    public String tokenText(int index) {
+        TokenBuffer tokens = tokens();
+        TokenType type = tokens.type(index);
+        if (type.lexeme() != null) {
+            return type.lexeme();
+        }
+        if (type == TokenType.IDENTIFIER) {
+            SymbolTable symbols = symbols();
+            return symbols.name(symbols.intern(text, tokens.start(index), tokens.end(index)));
+        }
+        return tokens.text(text, index).toString();
+    }
+
+    /**
+     * Returns the index of the token at the given offset, see {@link TokenBuffer#indexAt(int)}.
+     */
+    public int tokenAt(int offset) {
+        // Alternatives usually look at the token of the same offset one after another
+        if (offset != lastTokenOffset) {
+            lastTokenIndex = tokens().indexAt(offset);
+            lastTokenOffset = offset;
+        }
+        return lastTokenIndex;
+    }
+
+    /**
+     * Returns the profiler rules are counted by, the one of the thread that first asks unless one was set.
+     */
+    public ParseProfiler profiler() {
+        if (profiler == null) {
+            profiler = ParseProfiler.current();
+        }
+        return profiler;
+    }
+
+    /**
+     * Counts the rules of this parse with the given profiler, when profiling is enabled.
+     */
+    public void setProfiler(@NotNull ParseProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    MemoTable memoTable() {
+        return memoTable;
+    }
+}
@@ -0,0 +1,364 @@
+package org.osta.parse;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import org.jetbrains.annotations.NotNull;
+import org.osta.parse.ast.AST;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Counts what every named {@link Rule} costs: how often it is invoked, succeeds and fails, how many chars it had
+ * already matched when it failed and how long it took.
+ * <p>
+ * Profiling is turned on with {@code -Dosta.profile=true}. {@link #ENABLED} is a constant, so when it is off the JIT
+ * drops the profiling code of {@link Rule#parse(ParseInput, int)} and a profiled build costs the same as any other.
+ * When it is on, every thread counts into its own profiler, {@link #report()} adds up all of them and a
+ * {@code org.osta.ParseRuleStatistics} JFR event is emitted for every rule at the start and end of each recording
+ * chunk. The profilers of threads that ended are merged into one the next time a thread starts profiling or the
+ * statistics are read, so pools that replace their threads don't keep a profiler for every thread they ever had.
+ * <p>
+ * The backtracked chars of a failure are the ones the rule got past through the rules nested in it before failing,
+ * which the caller will parse again with another alternative. The total time of a rule includes the rules it invokes
+ * and is counted again for every recursive invocation, the self time is the part of it spent outside of other rules.
+ */
+public final class ParseProfiler {
+
+    public static final boolean ENABLED = Boolean.getBoolean("osta.profile");
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static final List<String> NAMES = new CopyOnWriteArrayList<>();
+    private static final ConcurrentLinkedQueue<Registration> PROFILERS = new ConcurrentLinkedQueue<>();
+    /* What the profilers of the threads that ended counted, it also guards moving them into it */
+    private static final ParseProfiler RETIRED = new ParseProfiler();
+    private static final ThreadLocal<ParseProfiler> CURRENT = ThreadLocal.withInitial(() -> {
+        retire();
+        ParseProfiler profiler = new ParseProfiler();
+        PROFILERS.add(new Registration(new WeakReference<>(Thread.currentThread()), profiler));
+        return profiler;
+    });
+
+    /* The profiler of a thread, which doesn't keep the thread alive */
+    private record Registration(WeakReference<Thread> thread, ParseProfiler profiler) {
+    }
+
+    static {
+        if (ENABLED) {
+            FlightRecorder.addPeriodicEvent(StatisticsEvent.class, ParseProfiler::emitStatistics);
+        }
+    }
+
+    /* Counters indexed by rule id, grown as rules are seen */
+    private long[] invocations = new long[0];
+    private long[] successes = new long[0];
+    private long[] failures = new long[0];
+    private long[] backtracked = new long[0];
+    private long[] nanos = new long[0];
+    private long[] selfNanos = new long[0];
+
+    /* One frame per rule being parsed: when it started, the time of the rules it invoked and the furthest offset
+       reached before it */
+    private long[] frameStarts = new long[64];
+    private long[] frameChildNanos = new long[64];
+    private int[] frameReaches = new int[64];
+    private int depth;
+    /* The time of the rules invoked by the current one so far */
+    private long childNanos;
+    /* The furthest offset reached by a rule that succeeded inside the current one */
+    private int reach;
+
+    /**
+     * Creates a profiler that isn't part of {@link #report()}, usually every thread uses its {@link #current()} one.
+     */
+    public ParseProfiler() {
+    }
+
+    /**
+     * Returns the profiler of the current thread.
+     */
+    public static ParseProfiler current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns the id of a rule name, the rules of the same name are counted together.
+     */
+    public static int id(@NotNull String name) {
+        Integer id = IDS.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (NAMES) {
+            return IDS.computeIfAbsent(name, key -> {
+                NAMES.add(key);
+                return NAMES.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Parses with the parser of a rule and counts it.
+     */
+    public <T extends AST> ParseResult<T> parse(int rule, Parser<T> parser, ParseInput input, int offset) {
+        enter(offset);
+        ParseResult<T> result = null;
+        try {
+            result = parser.parse(input, offset);
+            return result;
+        } finally {
+            exit(rule, offset, result);
+        }
+    }
+
+    /**
+     * Starts counting a rule, every call has to be followed by an {@link #exit(int, int, ParseResult)} once it is
+     * parsed, even if it throws.
+     */
+    public void enter(int offset) {
+        if (depth == frameStarts.length) {
+            frameStarts = Arrays.copyOf(frameStarts, depth * 2);
+            frameChildNanos = Arrays.copyOf(frameChildNanos, depth * 2);
+            frameReaches = Arrays.copyOf(frameReaches, depth * 2);
+        }
+        frameChildNanos[depth] = childNanos;
+        frameReaches[depth] = reach;
+        childNanos = 0;
+        reach = offset;
+        frameStarts[depth++] = System.nanoTime();
+    }
+
+    /**
+     * Stops counting the rule entered last.
+     * @param result The result of the rule, {@code null} if it failed
+     */
+    public void exit(int rule, int offset, ParseResult<?> result) {
+        long elapsed = System.nanoTime() - frameStarts[--depth];
+        if (rule >= invocations.length) {
+            grow(rule);
+        }
+        invocations[rule]++;
+        nanos[rule] += elapsed;
+        selfNanos[rule] += elapsed - childNanos;
+        int outerReach = frameReaches[depth];
+        if (result != null) {
+            successes[rule]++;
+            reach = Math.max(outerReach, result.offset());
+        } else {
+            failures[rule]++;
+            backtracked[rule] += reach - offset;
+            reach = outerReach;
+        }
+        childNanos = frameChildNanos[depth] + elapsed;
+    }
+
+    /**
+     * Returns what this profiler counted, sorted by self time.
+     */
+    public List<RuleStatistics> statistics() {
+        Map<String, RuleStatistics> statistics = new HashMap<>();
+        addStatistics(statistics);
+        return sorted(statistics);
+    }
+
+    /**
+     * Returns what the profilers of all threads counted, sorted by self time.
+     */
+    public static List<RuleStatistics> allStatistics() {
+        Map<String, RuleStatistics> statistics = new HashMap<>();
+        synchronized (RETIRED) {
+            retire();
+            for (Registration registration : PROFILERS) {
+                registration.profiler().addStatistics(statistics);
+            }
+            RETIRED.addStatistics(statistics);
+        }
+        return sorted(statistics);
+    }
+
+    /**
+     * Formats what the profilers of all threads counted as a table.
+     */
+    public static String report() {
+        return report(allStatistics());
+    }
+
+    public static String report(@NotNull List<RuleStatistics> statistics) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-24s %12s %12s %12s %14s %12s %12s%n",
+                "rule", "invocations", "successes", "failures", "backtracked", "total ms", "self ms"));
+        for (RuleStatistics rule : statistics) {
+            sb.append(String.format(Locale.ROOT, "%-24s %12d %12d %12d %14d %12.3f %12.3f%n",
+                    rule.rule(), rule.invocations(), rule.successes(), rule.failures(), rule.backtrackedChars(),
+                    rule.nanos() / 1_000_000.0, rule.selfNanos() / 1_000_000.0));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Forgets what the profilers of all threads counted, while no thread is parsing.
+     */
+    public static void reset() {
+        synchronized (RETIRED) {
+            retire();
+            for (Registration registration : PROFILERS) {
+                registration.profiler().clear();
+            }
+            RETIRED.clear();
+        }
+    }
+
+    /* How many threads have a profiler that isn't retired yet */
+    static int registered() {
+        return PROFILERS.size();
+    }
+
+    /* Adds the counters of the threads that ended to the retired ones and drops their profilers */
+    private static void retire() {
+        synchronized (RETIRED) {
+            for (Registration registration : PROFILERS) {
+                Thread thread = registration.thread().get();
+                // Seeing that the thread ended also makes everything it counted visible
+                if (thread == null || !thread.isAlive()) {
+                    PROFILERS.remove(registration);
+                    RETIRED.add(registration.profiler());
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(invocations, 0);
+        Arrays.fill(successes, 0);
+        Arrays.fill(failures, 0);
+        Arrays.fill(backtracked, 0);
+        Arrays.fill(nanos, 0);
+        Arrays.fill(selfNanos, 0);
+    }
+
+    /* Adds the counters of a profiler that no longer counts */
+    private void add(ParseProfiler other) {
+        if (other.invocations.length > invocations.length) {
+            grow(other.invocations.length - 1);
+        }
+        for (int rule = 0; rule < other.invocations.length; rule++) {
+            invocations[rule] += other.invocations[rule];
+            successes[rule] += other.successes[rule];
+            failures[rule] += other.failures[rule];
+            backtracked[rule] += other.backtracked[rule];
+            nanos[rule] += other.nanos[rule];
+            selfNanos[rule] += other.selfNanos[rule];
+        }
+    }
+
+    private void grow(int rule) {
+        int length = Math.max(rule + 1, invocations.length * 2);
+        invocations = Arrays.copyOf(invocations, length);
+        successes = Arrays.copyOf(successes, length);
+        failures = Arrays.copyOf(failures, length);
+        backtracked = Arrays.copyOf(backtracked, length);
+        nanos = Arrays.copyOf(nanos, length);
+        selfNanos = Arrays.copyOf(selfNanos, length);
+    }
+
+    /* Adds the counters to the ones of the same rule, the counters of another thread can be a little behind */
+    private void addStatistics(Map<String, RuleStatistics> statistics) {
+        long[] invocations = this.invocations;
+        long[] successes = this.successes;
+        long[] failures = this.failures;
+        long[] backtracked = this.backtracked;
+        long[] nanos = this.nanos;
+        long[] selfNanos = this.selfNanos;
+        // The arrays are replaced one after the other when they grow
+        int length = Math.min(Math.min(invocations.length, selfNanos.length), NAMES.size());
+        for (int rule = 0; rule < length; rule++) {
+            if (invocations[rule] != 0) {
+                statistics.merge(NAMES.get(rule), new RuleStatistics(NAMES.get(rule), invocations[rule],
+                        successes[rule], failures[rule], backtracked[rule], nanos[rule], selfNanos[rule]),
+                        RuleStatistics::plus);
+            }
+        }
+    }
+
+    private static List<RuleStatistics> sorted(Map<String, RuleStatistics> statistics) {
+        List<RuleStatistics> sorted = new ArrayList<>(statistics.values());
+        sorted.sort(Comparator.comparingLong(RuleStatistics::selfNanos).reversed()
+                .thenComparing(RuleStatistics::rule));
+        return sorted;
+    }
+
+    private static void emitStatistics() {
+        for (RuleStatistics rule : allStatistics()) {
+            StatisticsEvent event = new StatisticsEvent();
+            event.rule = rule.rule();
+            event.invocations = rule.invocations();
+            event.successes = rule.successes();
+            event.failures = rule.failures();
+            event.backtrackedChars = rule.backtrackedChars();
+            event.totalTime = rule.nanos();
+            event.selfTime = rule.selfNanos();
+            event.commit();
+        }
+    }
+
+    /**
+     * What a rule cost since the profiler was last cleared.
+     */
+    public record RuleStatistics(String rule, long invocations, long successes, long failures, long backtrackedChars,
+                                 long nanos, long selfNanos) {
+
+        RuleStatistics plus(RuleStatistics other) {
+            return new RuleStatistics(rule, invocations + other.invocations, successes + other.successes,
+                    failures + other.failures, backtrackedChars + other.backtrackedChars, nanos + other.nanos,
+                    selfNanos + other.selfNanos);
+        }
+    }
+
+    @Name("org.osta.ParseRuleStatistics")
+    @Label("Parse Rule Statistics")
+    @Category({"Osta", "Parser"})
+    @Description("What a grammar rule cost since the start of the parse profile")
+    @Period("everyChunk")
+    @StackTrace(false)
+    static final class StatisticsEvent extends Event {
+
+        @Label("Rule")
+        String rule;
+
+        @Label("Invocations")
+        long invocations;
+
+        @Label("Successes")
+        long successes;
+
+        @Label("Failures")
+        long failures;
+
+        @Label("Backtracked Chars")
+        long backtrackedChars;
+
+        @Label("Total Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long totalTime;
+
+        @Label("Self Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long selfTime;
+    }
+}
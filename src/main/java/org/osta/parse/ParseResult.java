@@ -2,7 +2,24 @@ package org.osta.parse;
 
 import org.osta.parse.ast.AST;
 
-public record ParseResult<T extends AST>(T ast, CharSequence rest) {
+/**
+ * The result of a successful parse.
+ * @param ast The parsed AST
+ * @param input The input that was parsed
+ * @param offset The offset in the input where the remaining input starts
+ */
+public record ParseResult<T extends AST>(T ast, ParseInput input, int offset) {
+
+    public ParseResult(T ast, CharSequence rest) {
+        this(ast, new ParseInput(rest), 0);
+    }
+
+    /**
+     * Returns the remaining input, this slices the input so it should only be used outside the parsers.
+     */
+    public CharSequence rest() {
+        return input.subSequence(offset, input.length());
+    }
 
     @Override
     public boolean equals(Object obj) {
@@ -16,7 +33,12 @@ public record ParseResult<T extends AST>(T ast, CharSequence rest) {
         if (!ast.equals(that.ast)) {
             return false;
         }
-        return rest.toString().equals(that.rest.toString());
+        return CharSequence.compare(rest(), that.rest()) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * ast.hashCode() + rest().toString().hashCode();
     }
 
 }
@@ -1,35 +1,100 @@
 package org.osta.parse;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.osta.parse.ast.*;
+import org.osta.token.TokenType;
+import org.osta.token.TriviaSkipper;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public interface Parser<T extends AST> {
 
-    ParseResult<T> parse(CharSequence input) throws ParseException;
+    /**
+     * Parses the input starting at the given offset.
+     * Failing is part of the normal control flow of the combinators, so instead of throwing a failing parser
+     * records the failure with {@link ParseInput#fail(int, Supplier)} and returns {@code null}.
+     * @param input The input shared by the whole parse
+     * @param offset The offset where this parser starts
+     * @return The parsed AST together with the offset where the parser stopped, or {@code null} if it failed
+     */
+    @Nullable
+    ParseResult<T> parse(ParseInput input, int offset);
+
+    /**
+     * Parses the whole input from the start.
+     * @throws ParseException The furthest failure recorded if the input can't be parsed
+     */
+    default ParseResult<T> parse(CharSequence input) throws ParseException {
+        return new ParseInput(input).parse(this);
+    }
+
+    /**
+     * Returns a parser written by hand as a public static method taking the input and the offset, like {@code parse}.
+     * It parses like the method reference, but a compiled grammar calls the method directly instead of through the
+     * reference, so hand written rules don't stay behind a megamorphic call.
+     * @param owner The class that declares the method
+     * @param method The name of the method
+     * @param parser A reference to the method
+     * @throws IllegalArgumentException If the class has no such public static method
+     */
+    static <T extends AST> Parser<T> direct(@NotNull Class<?> owner, @NotNull String method, @NotNull Parser<T> parser) {
+        try {
+            Method declared = owner.getMethod(method, ParseInput.class, int.class);
+            if (!Modifier.isStatic(declared.getModifiers())
+                    || !ParseResult.class.isAssignableFrom(declared.getReturnType())) {
+                throw new IllegalArgumentException(owner.getName() + "." + method + " isn't a static parse method");
+            }
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(owner.getName() + " has no public method " + method, e);
+        }
+        return new Combinators.Direct<>(owner, method, parser);
+    }
 
     static Parser<EmptyAST> noop() {
-        return input -> new ParseResult<>(new EmptyAST(), input);
+        return new Combinators.Noop();
     }
 
+    /**
+     * Returns a parser that gets the parser to use from the supplier the first time it parses.
+     * After that the parser is reused, so referring to a rule through lazy costs a field read.
+     * Unlike a {@link Rule} it has no name, so the {@link ParseProfiler} counts its parses under the rule around it.
+     */
     static <T extends AST> Parser<T> lazy(Supplier<Parser<T>> supplier) {
-        return input -> supplier.get().parse(input);
+        return new Combinators.Lazy<>(supplier);
+    }
+
+    /**
+     * Returns a parser that memoizes the results of the given parser per input position.
+     * The memoization only takes effect while a {@link MemoTable} is active, otherwise the parser is called directly.
+     * Parsers memoized under the same rule name share their entries, so rebuilding a rule does not lose them.
+     * @param rule The name of the rule, must identify the same grammar rule everywhere it is used
+     * @param parser The parser to memoize
+     * @return A memoizing parser
+     * @param <T> The return type of the parser
+     * @see MemoTable#parse(Parser, CharSequence)
+     */
+    static <T extends AST> Parser<T> memo(@NotNull String rule, Parser<T> parser) {
+        return memo(MemoTable.ruleId(rule), parser);
+    }
+
+    /**
+     * Same as {@link #memo(String, Parser)} but the entries are only shared by the returned parser instance.
+     */
+    static <T extends AST> Parser<T> memo(Parser<T> parser) {
+        return memo(MemoTable.anonymousRuleId(), parser);
+    }
+
+    private static <T extends AST> Parser<T> memo(int ruleId, Parser<T> parser) {
+        return new Combinators.Memo<>(ruleId, parser);
     }
 
     static <T extends AST> Parser<T> test(Parser<T> parser, Predicate<AST> predicate, Supplier<ParseException> exceptionSupplier) {
-        return input -> {
-            ParseResult<T> result = parser.parse(input);
-            if (predicate.test(result.ast())) {
-                return result;
-            }
-            throw exceptionSupplier.get();
-        };
+        return new Combinators.Test<>(parser, predicate, exceptionSupplier);
     }
 
     static <T extends AST> Parser<T> test(Parser<T> parser, Predicate<AST> predicate, String message) {
@@ -42,51 +107,32 @@ public interface Parser<T extends AST> {
             throw new IllegalArgumentException("At least one parser must be provided");
         }
 
-        return input -> {
-            List<AST> asts = new ArrayList<>(parsers.length);
-            for (Parser<?> parser : parsers) {
-                ParseResult<?> result = parser.parse(input);
-                asts.add(result.ast());
-                input = result.rest();
-            }
-            return new ParseResult<>(new SequenceAST(asts), input);
-        };
+        return new Combinators.Sequence(parsers.clone());
     }
 
     /**
      * Returns a parser that tries to parse the input with each of the provided parsers in order.
      * The first successful parser will determine the return value of the new parser.
-     * If none of the parsers succeed, the parser will throw a {@link ParseException}.
+     * If none of the parsers succeed, the parser will fail.
      * @param parsers The parsers to try
      * @return A parser that tries to parse the input with each of the provided parsers in order
      * @param <T> The return type of the parsers
      * @throws IllegalArgumentException If no parsers are provided
      * @see #oneOf(Parser[]) For a parser that tries to parse the input with each of the provided parsers in order where the parsers have the same return type
      */
-    @SuppressWarnings("unchecked")
     @SafeVarargs
     static <T extends AST> Parser<T> anyOf(Parser<? extends AST>... parsers) {
         if (parsers.length == 0) {
             throw new IllegalArgumentException("At least one parser must be provided");
         }
 
-        return input -> {
-            ParseException exception = null;
-            for (Parser<? extends AST> parser : parsers) {
-                try {
-                    return (ParseResult<T>) parser.parse(input);
-                } catch (ParseException e) {
-                    exception = e;
-                }
-            }
-            throw exception;
-        };
+        return new Combinators.AnyOf<>(parsers.clone());
     }
 
     /**
      * Returns a parser that tries to parse the input with each of the provided parsers in order.
      * The first successful parser will determine the return value of the new parser.
-     * If none of the parsers succeed, the parser will throw a {@link ParseException}.
+     * If none of the parsers succeed, the parser will fail.
      * @param parsers The parsers to try, all of which must have the same return type
      * @return A parser that tries to parse the input with each of the provided parsers in order
      * @param <T> The return type of the parsers
@@ -99,17 +145,21 @@ public interface Parser<T extends AST> {
             throw new IllegalArgumentException("At least one parser must be provided");
         }
 
-        return input -> {
-            ParseException exception = null;
-            for (Parser<T> parser : parsers) {
-                try {
-                    return parser.parse(input);
-                } catch (ParseException e) {
-                    exception = e;
-                }
-            }
-            throw exception;
-        };
+        return new Combinators.AnyOf<>(parsers.clone());
+    }
+
+    /**
+     * Returns a parser that commits the parse once the given parser matches, like after a keyword that can only start
+     * one construct.
+     * Nothing before the end of the match is parsed again: the alternatives and repetitions that started before it fail
+     * instead of backtracking, so the failure is reported from inside the committed construct, and memoized results
+     * before it are dropped.
+     * @param parser The parser to commit after
+     * @return A parser that matches the same input and cuts at its end
+     * @param <T> The return type of the parser
+     */
+    static <T extends AST> Parser<T> commit(Parser<T> parser) {
+        return new Combinators.Commit<>(parser);
     }
 
     static <T extends AST> Parser<OptionalAST<T>> optional(Parser<T> parser) {
@@ -122,28 +172,19 @@ public interface Parser<T extends AST> {
     }
 
     static <I extends AST, O extends AST> Parser<O> map(Parser<I> parser, ParserMapLambda<I, O> map) {
-        return input -> {
-            var result = parser.parse(input);
-            return new ParseResult<>(map.apply(result.ast()), result.rest());
-        };
+        return new Combinators.Map<>(parser, map);
     }
 
     static Parser<SequenceAST> zeroOrMore(Parser<?> parser) {
-        return input -> {
-            var asts = new ArrayList<AST>();
-
-            while (true) {
-                try {
-                    ParseResult<?> result = parser.parse(input);
-                    asts.add(result.ast());
-                    input = result.rest();
-                } catch (Exception e) {
-                    break;
-                }
-            }
+        return new Combinators.ZeroOrMore(parser);
+    }
 
-            return new ParseResult<>(new SequenceAST(asts), input);
-        };
+    /**
+     * Returns a parser for zero or more items separated by the separator, only the items are kept.
+     * A separator that isn't followed by an item makes the parser fail.
+     */
+    static Parser<SequenceAST> separatedBy(Parser<?> item, Parser<?> separator) {
+        return new Combinators.SeparatedBy(item, separator);
     }
 
     static Parser<SequenceAST> oneOrMore(Parser<?> parser) {
@@ -158,40 +199,37 @@ public interface Parser<T extends AST> {
     }
 
     static Parser<ItemAST> item() {
-        return input -> {
-            if (input.isEmpty()) {
-                throw ParseException.UNEXPECTED_EOF();
-            }
-            return new ParseResult<>(new ItemAST(input.charAt(0)), input.subSequence(1, input.length()));
-        };
+        return new Combinators.Item();
     }
 
     static Parser<LiteralAST> literal(@NotNull String literal) {
-        return input -> {
-            if (input.length() < literal.length()) {
-                throw ParseException.UNEXPECTED_EOF();
-            }
-            if (input.subSequence(0, literal.length()).toString().equals(literal)) {
-                return new ParseResult<>(new LiteralAST(literal), input.subSequence(literal.length(), input.length()));
-            }
+        return new Combinators.Literal(literal);
+    }
+
+    /**
+     * Returns a parser that matches a single token of the given type, skipping the whitespace and comments before it.
+     * The input is lexed once, so matching a token is a lookup of its kind.
+     * @param type The type of the token
+     * @return A parser for the token
+     */
+    static Parser<TokenAST> token(@NotNull TokenType type) {
+        return new Combinators.Token(type);
+    }
 
-            throw ParseException.EXPECTED_LITERAL(literal);
-        };
+    /**
+     * Same as {@link #token(TokenType)} but matches a token of any of the given types.
+     */
+    static Parser<TokenAST> token(@NotNull Set<TokenType> types) {
+        boolean[] accepted = new boolean[TokenType.values().length];
+        for (TokenType type : types) {
+            accepted[type.ordinal()] = true;
+        }
+        String expected = "Expected one of: " + types;
+        return new Combinators.TokenSet(accepted, () -> new ParseException(expected));
     }
 
     static Parser<RegexAST> regex(@NotNull String regex, @NotNull Supplier<ParseException> exceptionSupplier) {
-        Pattern pattern = Pattern.compile(regex);
-        return input -> {
-            Matcher matcher = pattern.matcher(input);
-            if (matcher.lookingAt()) {
-                String[] groups = new String[matcher.groupCount()];
-                for (int i = 1; i <= matcher.groupCount(); i++) {
-                    groups[i - 1] = matcher.group(i);
-                }
-                return new ParseResult<>(new RegexAST(matcher.group(), groups), input.subSequence(matcher.end(), input.length()));
-            }
-            throw exceptionSupplier.get();
-        };
+        return new Combinators.Regex(Grammar.pattern(regex), exceptionSupplier);
     }
 
     static Parser<RegexAST> regex(@NotNull String regex, @NotNull String message) {
@@ -206,8 +244,12 @@ public interface Parser<T extends AST> {
         );
     }
 
+    /**
+     * Returns a parser that skips whitespace and comments around the inner parser, see {@link TriviaSkipper}.
+     * It is a rule named {@code skipWhitespace} so the {@link ParseProfiler} counts it.
+     */
     static <T extends AST> Parser<T> skipWhitespace(Parser<T> inner) {
-        return surroundedBy(inner, regex("\\s*", "Expected whitespace"));
+        return new Rule<>("skipWhitespace", () -> new Combinators.SkipTrivia<>(inner));
     }
 
     /* TODO: Add the FloatLiteral type
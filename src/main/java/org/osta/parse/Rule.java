@@ -0,0 +1,70 @@
+package org.osta.parse;
+
+import org.jetbrains.annotations.NotNull;
+import org.osta.parse.ast.AST;
+
+import java.util.function.Supplier;
+
+/**
+ * A named grammar rule, the parser of the rule is built the first time it is used and then reused.
+ * Rules can refer to each other, and to themselves, before they are built, which is how the grammar recurses.
+ * @see Grammar#rule(String, Supplier)
+ */
+public final class Rule<T extends AST> implements Parser<T> {
+
+    private final String name;
+    private final Supplier<Parser<T>> definition;
+    private final int profileId;
+    private volatile Parser<T> parser;
+
+    Rule(@NotNull String name, @NotNull Supplier<Parser<T>> definition) {
+        this.name = name;
+        this.definition = definition;
+        this.profileId = ParseProfiler.id(name);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the parser the rule is defined as, building it if needed.
+     */
+    public Parser<T> definition() {
+        Parser<T> parser = this.parser;
+        if (parser == null) {
+            synchronized (this) {
+                parser = this.parser;
+                if (parser == null) {
+                    parser = definition.get();
+                    this.parser = parser;
+                }
+            }
+        }
+        return parser;
+    }
+
+    @Override
+    public ParseResult<T> parse(ParseInput input, int offset) {
+        Parser<T> parser = this.parser;
+        if (parser == null) {
+            parser = definition();
+        }
+        if (ParseProfiler.ENABLED) {
+            return input.profiler().parse(profileId, parser, input, offset);
+        }
+        return parser.parse(input, offset);
+    }
+
+    /**
+     * The id the rule is counted under by the {@link ParseProfiler}.
+     */
+    public int profileId() {
+        return profileId;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,25 @@
+package org.osta.parse.ast;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helpers to take apart the {@link SequenceAST}s built by the combinators.
+ */
+final class ASTs {
+
+    private ASTs() {}
+
+    static <T extends AST> List<T> list(SequenceAST sequence, Class<T> type) {
+        List<T> list = new ArrayList<>(sequence.values().size());
+        for (AST ast : sequence.values()) {
+            list.add(type.cast(ast));
+        }
+        return list;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T extends AST> T optional(AST ast) {
+        return ((OptionalAST<T>) ast).value().orElse(null);
+    }
+}
@@ -1,25 +1,37 @@
 package org.osta.parse.ast;
 
-import org.osta.parse.ParseResult;
+import org.osta.parse.Grammar;
 import org.osta.parse.Parser;
+import org.osta.parse.Rule;
+import org.osta.token.TokenType;
 
 public class AssignStmtAST extends StmtAST {
 
-    private IdentifierAST target;
+    private static final Rule<AssignStmtAST> PARSER = Grammar.rule("AssignStmtAST", () -> Parser.map(Parser.sequence(
+                ExprAST.$postfix(), Parser.token(TokenType.EQUAL), ExprAST.parser()),
+            (SequenceAST ast) -> new AssignStmtAST(
+                    (ExprAST) ast.values().get(0),
+                    (ExprAST) ast.values().get(2))
+    ));
+
+    private ExprAST target;
     private ExprAST value;
 
-    public AssignStmtAST(IdentifierAST target, ExprAST value) {
+    public AssignStmtAST(ExprAST target, ExprAST value) {
         this.target = target;
         this.value = value;
     }
 
+    public ExprAST target() {
+        return target;
+    }
+
+    public ExprAST value() {
+        return value;
+    }
+
     public static Parser<AssignStmtAST> $parser() {
-        return Parser.map(Parser.sequence(
-                    IdentifierAST.parser(), Parser.skipWhitespace(Parser.literal("=")), ExprAST.parser()),
-                (SequenceAST ast) -> new AssignStmtAST(
-                        (IdentifierAST) ast.values().get(0),
-                        (ExprAST) ast.values().get(2))
-        );
+        return PARSER;
     }
 
 }
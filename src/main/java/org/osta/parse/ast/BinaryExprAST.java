@@ -1,36 +1,85 @@
 package org.osta.parse.ast;
 
-import org.osta.parse.ParseException;
+import org.osta.parse.ParseInput;
 import org.osta.parse.ParseResult;
 import org.osta.parse.Parser;
+import org.osta.token.TokenBuffer;
+import org.osta.token.TokenType;
 
 public class BinaryExprAST extends ExprAST {
 
     private ExprAST left, right;
     private BinaryOp op;
 
+    /**
+     * The binary operators ordered by their precedence, a higher precedence binds tighter.
+     * All of them are left associative.
+     */
     public enum BinaryOp {
-        ADD,
-        SUB,
-        MULT,
-        DIV,
-        MOD;
+        MULT(TokenType.STAR, 10),
+        DIV(TokenType.SLASH, 10),
+        MOD(TokenType.PERCENT, 10),
+        ADD(TokenType.PLUS, 9),
+        SUB(TokenType.MINUS, 9),
+        SHL(TokenType.LEFT_SHIFT, 8),
+        SHR(TokenType.RIGHT_SHIFT, 8),
+        SAR(TokenType.ARITHMETIC_RIGHT_SHIFT, 8),
+        LT(TokenType.LESS, 7),
+        LE(TokenType.LESS_EQUAL, 7),
+        GT(TokenType.GREATER, 7),
+        GE(TokenType.GREATER_EQUAL, 7),
+        EQ(TokenType.EQUAL_EQUAL, 6),
+        NE(TokenType.NOT_EQUAL, 6),
+        BIT_AND(TokenType.AMPERSAND, 5),
+        BIT_XOR(TokenType.CARET, 4),
+        BIT_OR(TokenType.PIPE, 3);
+
+        private static final BinaryOp[] BY_TOKEN = new BinaryOp[TokenType.values().length];
+
+        static {
+            for (BinaryOp op : values()) {
+                BY_TOKEN[op.token.ordinal()] = op;
+            }
+        }
+
+        private final TokenType token;
+        private final int precedence;
+
+        BinaryOp(TokenType token, int precedence) {
+            this.token = token;
+            this.precedence = precedence;
+        }
+
+        public TokenType token() {
+            return token;
+        }
+
+        public int precedence() {
+            return precedence;
+        }
 
         public static BinaryOp from(String opStr) {
-            switch (opStr) {
-                case "+":
-                    return BinaryOp.ADD;
-                case "-":
-                    return BinaryOp.SUB;
-                case "*":
-                    return BinaryOp.MULT;
-                case "/":
-                    return BinaryOp.DIV;
-                case "%":
-                    return BinaryOp.MOD;
-                default:
-                    throw new RuntimeException("unreachable");
+            for (BinaryOp op : values()) {
+                if (op.token.lexeme().equals(opStr)) {
+                    return op;
+                }
             }
+            throw new RuntimeException("unreachable");
+        }
+
+        /**
+         * Returns the operator of the token kind, or {@code null} if the token isn't a binary operator.
+         */
+        public static BinaryOp ofKind(int kind) {
+            return BY_TOKEN[kind];
+        }
+
+        public static BinaryOp from(TokenType type) {
+            BinaryOp op = BY_TOKEN[type.ordinal()];
+            if (op == null) {
+                throw new RuntimeException("unreachable");
+            }
+            return op;
         }
     }
 
@@ -51,26 +100,50 @@ public class BinaryExprAST extends ExprAST {
         return op;
     }
 
-    public static Parser<BinaryExprAST> $parser() {
-        return Parser.map(
-                Parser.sequence(
-                        FactorExprAST.$parser(),
-                        Parser.oneOf(
-                                Parser.literal("+"),
-                                Parser.literal("-"),
-                                Parser.literal("*"),
-                                Parser.literal("/"),
-                                Parser.literal("%")
-                        ),
-                        Parser.lazy(ExprAST::parser)
-                ),
-                (SequenceAST ast) -> {
-                    ExprAST left = (ExprAST) ast.values().get(0);
-                    LiteralAST op = (LiteralAST) ast.values().get(1);
-                    ExprAST right = (ExprAST) ast.values().get(2);
-
-                    return new BinaryExprAST(left, BinaryOp.from(op.value()), right);
-                }
-        );
+    /**
+     * Precedence climbing parser for binary expressions over the given operands.
+     * The operators are read straight from the tokens, so the expression is parsed left to right without backtracking.
+     */
+    public static Parser<ExprAST> $parser(Parser<? extends AST> operand) {
+        return new Climbing(operand);
+    }
+
+    /**
+     * The precedence climbing parser, a record so compiled grammars can see the operand and pass {@link #climb} a
+     * direct reference to it.
+     */
+    public record Climbing(Parser<? extends AST> operand) implements Parser<ExprAST> {
+        @Override
+        public ParseResult<ExprAST> parse(ParseInput input, int offset) {
+            return climb(operand, input, offset, 0);
+        }
+    }
+
+    /**
+     * Parses operands joined by operators that bind at least as tightly as the given precedence.
+     */
+    public static ParseResult<ExprAST> climb(Parser<? extends AST> operand, ParseInput input, int offset, int minPrecedence) {
+        ParseResult<? extends AST> first = operand.parse(input, offset);
+        if (first == null) {
+            return null;
+        }
+        ExprAST left = (ExprAST) first.ast();
+        offset = first.offset();
+
+        TokenBuffer tokens = input.tokens();
+        while (true) {
+            int index = input.tokenAt(offset);
+            BinaryOp op = index < 0 ? null : BinaryOp.BY_TOKEN[tokens.kind(index)];
+            if (op == null || op.precedence < minPrecedence) {
+                return new ParseResult<>(left, input, offset);
+            }
+
+            ParseResult<ExprAST> right = climb(operand, input, tokens.end(index), op.precedence + 1);
+            if (right == null) {
+                return null;
+            }
+            left = new BinaryExprAST(left, op, right.ast());
+            offset = right.offset();
+        }
     }
 }
@@ -0,0 +1,34 @@
+package org.osta.parse.ast;
+
+import org.osta.parse.Grammar;
+import org.osta.parse.Parser;
+import org.osta.parse.Rule;
+import org.osta.token.TokenType;
+
+import java.util.List;
+
+public class BlockStmtAST extends StmtAST {
+
+    private static final Rule<BlockStmtAST> PARSER = Grammar.rule("BlockStmtAST", () -> Parser.map(
+            Parser.sequence(
+                    Parser.token(TokenType.LEFT_BRACE),
+                    Parser.zeroOrMore(StmtAST.parser()),
+                    Parser.token(TokenType.RIGHT_BRACE)
+            ),
+            (SequenceAST ast) -> new BlockStmtAST(ASTs.list((SequenceAST) ast.values().get(1), StmtAST.class))
+    ));
+
+    private final List<StmtAST> statements;
+
+    public BlockStmtAST(List<StmtAST> statements) {
+        this.statements = statements;
+    }
+
+    public List<StmtAST> statements() {
+        return statements;
+    }
+
+    public static Parser<BlockStmtAST> $parser() {
+        return PARSER;
+    }
+}
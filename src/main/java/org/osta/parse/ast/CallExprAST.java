@@ -0,0 +1,22 @@
+package org.osta.parse.ast;
+
+import java.util.List;
+
+public class CallExprAST extends ExprAST {
+
+    private final ExprAST callee;
+    private final List<ExprAST> arguments;
+
+    public CallExprAST(ExprAST callee, List<ExprAST> arguments) {
+        this.callee = callee;
+        this.arguments = arguments;
+    }
+
+    public ExprAST callee() {
+        return callee;
+    }
+
+    public List<ExprAST> arguments() {
+        return arguments;
+    }
+}
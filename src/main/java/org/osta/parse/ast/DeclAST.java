@@ -0,0 +1,29 @@
+package org.osta.parse.ast;
+
+import org.osta.parse.Grammar;
+import org.osta.parse.Parser;
+import org.osta.parse.Rule;
+import org.osta.parse.visitor.Visitor;
+
+/**
+ * A top level declaration: a struct, a trait or a free function.
+ */
+public class DeclAST implements AST {
+
+    private static final Rule<DeclAST> PARSER = Grammar.rule("DeclAST", () -> Parser.anyOf(
+            StructDeclAST.$parser(),
+            TraitDeclAST.$parser(),
+            FunctionDeclAST.$parser()
+            /* Add more Decls here */
+    ));
+
+    @Override
+    public void accept(Visitor visitor) {
+        visitor.visit(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T extends DeclAST> Parser<T> parser() {
+        return (Parser<T>) PARSER;
+    }
+}
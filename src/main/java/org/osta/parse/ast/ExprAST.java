@@ -1,26 +1,75 @@
 package org.osta.parse.ast;
 
+import org.osta.parse.Grammar;
 import org.osta.parse.Parser;
+import org.osta.parse.Rule;
 import org.osta.parse.visitor.Visitor;
+import org.osta.token.TokenType;
 
 public class ExprAST implements AST {
+
+    private static final Rule<ExprAST> PARSER = Grammar.rule("ExprAST",
+            () -> Parser.memo("ExprAST", BinaryExprAST.$parser(ExprAST.$postfix())));
+
+    private static final Rule<AST> OPERAND = Grammar.rule("ExprAST.operand", () -> Parser.anyOf(
+            FactorExprAST.$parser(),
+            Parser.map(
+                    Parser.sequence(
+                            Parser.token(TokenType.LEFT_PAREN),
+                            ExprAST.parser(),
+                            Parser.token(TokenType.RIGHT_PAREN)
+                    ),
+                    (SequenceAST ast) -> ast.values().get(1)
+            ),
+            Parser.map(
+                    Parser.sequence(Parser.token(TokenType.DOT), IdentifierAST.$parser()),
+                    (SequenceAST ast) -> new MemberExprAST(null, (IdentifierAST) ast.values().get(1))
+            )
+    ));
+
+    private static final Rule<ExprAST> POSTFIX = Grammar.rule("ExprAST.postfix", () -> Parser.map(
+            Parser.sequence(ExprAST.$operand(), Parser.zeroOrMore(Parser.anyOf(
+                    Parser.sequence(Parser.token(TokenType.DOT), IdentifierAST.$parser()),
+                    Parser.sequence(
+                            Parser.token(TokenType.LEFT_PAREN),
+                            Parser.separatedBy(ExprAST.parser(), Parser.token(TokenType.COMMA)),
+                            Parser.token(TokenType.RIGHT_PAREN)
+                    )
+            ))),
+            (SequenceAST ast) -> {
+                ExprAST expr = (ExprAST) ast.values().get(0);
+                for (AST suffix : ((SequenceAST) ast.values().get(1)).values()) {
+                    SequenceAST parts = (SequenceAST) suffix;
+                    if (((TokenAST) parts.values().get(0)).type() == TokenType.DOT) {
+                        expr = new MemberExprAST(expr, (IdentifierAST) parts.values().get(1));
+                    } else {
+                        expr = new CallExprAST(expr, ASTs.list((SequenceAST) parts.values().get(1), ExprAST.class));
+                    }
+                }
+                return expr;
+            }
+    ));
+
     @Override
     public void accept(Visitor visitor) {
         visitor.visit(this);
     }
 
     public static Parser<ExprAST> parser() {
-        return Parser.anyOf(
-                BinaryExprAST.$parser(),
-                FactorExprAST.$parser(),
-                Parser.map(
-                        Parser.skipWhitespace(Parser.sequence(
-                                Parser.literal("("),
-                                Parser.lazy(ExprAST::parser),
-                                Parser.literal(")")
-                        )),
-                        (SequenceAST ast) -> ast.values().get(1)
-                )
-        );
+        return PARSER;
+    }
+
+    /**
+     * The operands of binary expressions: factors, parenthesized expressions and {@code .member} accesses.
+     */
+    public static Parser<? extends AST> $operand() {
+        return OPERAND;
+    }
+
+    /**
+     * An operand followed by any number of member accesses and calls, like {@code vw.get()}.
+     */
+    public static Parser<ExprAST> $postfix() {
+        return POSTFIX;
     }
 }
@@ -0,0 +1,28 @@
+package org.osta.parse.ast;
+
+import org.osta.parse.Grammar;
+import org.osta.parse.Parser;
+import org.osta.parse.Rule;
+
+/**
+ * An expression evaluated for its side effects, like {@code vw.set(42);}.
+ */
+public class ExprStmtAST extends StmtAST {
+
+    private static final Rule<ExprStmtAST> PARSER = Grammar.rule("ExprStmtAST",
+            () -> Parser.map(ExprAST.parser(), ExprStmtAST::new));
+
+    private final ExprAST expr;
+
+    public ExprStmtAST(ExprAST expr) {
+        this.expr = expr;
+    }
+
+    public ExprAST expr() {
+        return expr;
+    }
+
+    public static Parser<ExprStmtAST> $parser() {
+        return PARSER;
+    }
+}
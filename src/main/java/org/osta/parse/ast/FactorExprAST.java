@@ -1,9 +1,15 @@
 package org.osta.parse.ast;
 
+import org.osta.parse.Grammar;
 import org.osta.parse.Parser;
+import org.osta.parse.Rule;
 
 public class FactorExprAST extends ExprAST {
+
+    private static final Rule<AST> PARSER = Grammar.rule("FactorExprAST", () -> Parser.memo("FactorExprAST",
+            Parser.skipWhitespace(Parser.anyOf(IntLiteralAST.$parser(), IdentifierAST.$parser()))));
+
     public static Parser<? extends AST> $parser() {
-        return Parser.skipWhitespace(Parser.anyOf(IntLiteralAST.$parser(), IdentifierAST.$parser()));
+        return PARSER;
     }
 }
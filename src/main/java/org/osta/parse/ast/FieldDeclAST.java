@@ -0,0 +1,36 @@
+package org.osta.parse.ast;
+
+import org.osta.parse.Grammar;
+import org.osta.parse.Parser;
+import org.osta.parse.Rule;
+import org.osta.token.TokenType;
+
+public class FieldDeclAST extends DeclAST {
+
+    private static final Rule<FieldDeclAST> PARSER = Grammar.rule("FieldDeclAST", () -> Parser.map(
+            Parser.sequence(TypeAST.parser(), IdentifierAST.$parser(), Parser.token(TokenType.SEMICOLON)),
+            (SequenceAST ast) -> new FieldDeclAST(
+                    (TypeAST) ast.values().get(0),
+                    ((IdentifierAST) ast.values().get(1)).identifier())
+    ));
+
+    private final TypeAST type;
+    private final String name;
+
+    public FieldDeclAST(TypeAST type, String name) {
+        this.type = type;
+        this.name = name;
+    }
+
+    public TypeAST type() {
+        return type;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public static Parser<FieldDeclAST> $parser() {
+        return PARSER;
+    }
+}
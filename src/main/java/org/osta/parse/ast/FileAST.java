@@ -0,0 +1,48 @@
+package org.osta.parse.ast;
+
+import org.osta.parse.Grammar;
+import org.osta.parse.Parser;
+import org.osta.parse.Rule;
+import org.osta.parse.visitor.Visitor;
+import org.osta.token.TokenType;
+
+import java.util.List;
+
+/**
+ * A whole source file, the declarations up to the end of the input.
+ */
+public class FileAST implements AST {
+
+    private static final Rule<FileAST> PARSER = Grammar.rule("FileAST", () -> FileAST.$parser(DeclAST.parser()));
+
+    private final List<DeclAST> declarations;
+
+    public FileAST(List<DeclAST> declarations) {
+        this.declarations = declarations;
+    }
+
+    public List<DeclAST> declarations() {
+        return declarations;
+    }
+
+    @Override
+    public void accept(Visitor visitor) {
+        for (DeclAST declaration : declarations) {
+            declaration.accept(visitor);
+        }
+    }
+
+    public static Parser<FileAST> parser() {
+        return PARSER;
+    }
+
+    /**
+     * A file of the given declarations, for another declaration parser like a compiled one.
+     */
+    public static Parser<FileAST> $parser(Parser<? extends DeclAST> declaration) {
+        return Parser.map(
+                Parser.sequence(Parser.zeroOrMore(declaration), Parser.token(TokenType.EOF)),
+                (SequenceAST ast) -> new FileAST(ASTs.list((SequenceAST) ast.values().get(0), DeclAST.class))
+        );
+    }
+}
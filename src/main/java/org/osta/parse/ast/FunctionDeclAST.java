@@ -0,0 +1,65 @@
+package org.osta.parse.ast;
+
+import org.osta.parse.Grammar;
+import org.osta.parse.Parser;
+import org.osta.parse.Rule;
+import org.osta.token.TokenType;
+
+import java.util.List;
+
+/**
+ * A function like {@code u32 add(u32 a, u32 b) { ... }}, methods of traits can leave the body out with a {@code ;}.
+ */
+public class FunctionDeclAST extends DeclAST {
+
+    private static final Rule<FunctionDeclAST> PARSER = Grammar.rule("FunctionDeclAST", () -> Parser.map(
+            Parser.sequence(
+                    TypeAST.parser(),
+                    IdentifierAST.$parser(),
+                    Parser.token(TokenType.LEFT_PAREN),
+                    Parser.separatedBy(ParamAST.$parser(), Parser.token(TokenType.COMMA)),
+                    Parser.token(TokenType.RIGHT_PAREN),
+                    Parser.anyOf(BlockStmtAST.$parser(), Parser.token(TokenType.SEMICOLON))
+            ),
+            (SequenceAST ast) -> new FunctionDeclAST(
+                    (TypeAST) ast.values().get(0),
+                    ((IdentifierAST) ast.values().get(1)).identifier(),
+                    ASTs.list((SequenceAST) ast.values().get(3), ParamAST.class),
+                    ast.values().get(5) instanceof BlockStmtAST body ? body : null)
+    ));
+
+    private final TypeAST returnType;
+    private final String name;
+    private final List<ParamAST> parameters;
+    private final BlockStmtAST body;
+
+    public FunctionDeclAST(TypeAST returnType, String name, List<ParamAST> parameters, BlockStmtAST body) {
+        this.returnType = returnType;
+        this.name = name;
+        this.parameters = parameters;
+        this.body = body;
+    }
+
+    public TypeAST returnType() {
+        return returnType;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public List<ParamAST> parameters() {
+        return parameters;
+    }
+
+    /**
+     * The body, {@code null} for a declaration without one.
+     */
+    public BlockStmtAST body() {
+        return body;
+    }
+
+    public static Parser<FunctionDeclAST> $parser() {
+        return PARSER;
+    }
+}
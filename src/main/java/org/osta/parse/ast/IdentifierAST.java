@@ -1,9 +1,17 @@
 package org.osta.parse.ast;
 
+import org.osta.parse.Grammar;
 import org.osta.parse.Parser;
+import org.osta.parse.Rule;
+import org.osta.token.TokenType;
 
 public class IdentifierAST extends ExprAST {
 
+    private static final Rule<IdentifierAST> PARSER = Grammar.rule("IdentifierAST", () -> Parser.map(
+            Parser.token(TokenType.IDENTIFIER),
+            (TokenAST ast) -> new IdentifierAST(ast.text())
+    ));
+
     private final String identifier;
 
     public IdentifierAST(String identifier) {
@@ -16,9 +24,6 @@ public class IdentifierAST extends ExprAST {
 
     // TODO
     public static Parser<IdentifierAST> $parser() {
-        return Parser.map(
-                Parser.regex("[_a-zA-Z][_a-zA-Z0-9]*", "Invalid identifier"),
-                (RegexAST ast) -> new IdentifierAST(ast.value())
-        );
+        return PARSER;
     }
 }
@@ -1,37 +1,113 @@
 package org.osta.parse.ast;
 
+import org.jetbrains.annotations.NotNull;
+import org.osta.parse.Grammar;
+import org.osta.parse.ParseException;
+import org.osta.parse.ParseInput;
+import org.osta.parse.ParseResult;
 import org.osta.parse.Parser;
+import org.osta.parse.Rule;
+import org.osta.token.IntegerScanner;
+import org.osta.token.TokenType;
 
-import java.util.Objects;
+import java.math.BigInteger;
+import java.util.function.Supplier;
 
+/**
+ * An integer literal of any width, its value is kept as a 128 bit two's complement integer.
+ * Literals without a type suffix are {@link TokenType#I32}.
+ */
 public final class IntLiteralAST extends FactorExprAST {
-    private final Integer value;
 
-    public IntLiteralAST(Integer value) {
-        this.value = value;
+    private static final Rule<IntLiteralAST> PARSER = Grammar.rule("IntLiteralAST",
+            () -> Parser.direct(IntLiteralAST.class, "parse", IntLiteralAST::parse));
+
+    private static final Supplier<ParseException> EXPECTED_INTEGER = () -> new ParseException("Expected an integer");
+    /* Indexed by the ordinal of the type, shared like the suppliers of the other failures */
+    @SuppressWarnings("unchecked")
+    private static final Supplier<ParseException>[] OUT_OF_RANGE = new Supplier[TokenType.values().length];
+
+    static {
+        for (TokenType type : TokenType.values()) {
+            if (type.isIntegerType()) {
+                OUT_OF_RANGE[type.ordinal()] = () -> new ParseException("Integer literal out of range for " + type.lexeme());
+            }
+        }
+    }
+
+    private final long high;
+    private final long low;
+    private final TokenType type;
+
+    public IntLiteralAST(int value) {
+        this(value < 0 ? -1 : 0, value, TokenType.I32);
+    }
+
+    /**
+     * @param high The high 64 bits of the value
+     * @param low The low 64 bits of the value
+     * @param type The integer type of the literal
+     */
+    public IntLiteralAST(long high, long low, @NotNull TokenType type) {
+        this.high = high;
+        this.low = low;
+        this.type = type;
+    }
+
+    /**
+     * The value as an int, only exact for types of up to 32 bits.
+     */
+    public int value() {
+        return (int) low;
+    }
+
+    public long high() {
+        return high;
     }
 
-    public Integer value() {
-        return value;
+    public long low() {
+        return low;
+    }
+
+    public TokenType type() {
+        return type;
+    }
+
+    /**
+     * The exact value, as an unsigned integer for the unsigned types.
+     */
+    public BigInteger bigValue() {
+        BigInteger value = BigInteger.valueOf(high).shiftLeft(64).or(new BigInteger(Long.toUnsignedString(low)));
+        return type.lexeme().charAt(0) == 'u' && value.signum() < 0 ? value.add(BigInteger.ONE.shiftLeft(128)) : value;
+    }
+
+    /**
+     * The failure of a literal that doesn't fit its type.
+     */
+    public static Supplier<ParseException> outOfRange(@NotNull TokenType type) {
+        return OUT_OF_RANGE[type.ordinal()];
     }
 
     public static Parser<IntLiteralAST> $parser() {
-        return Parser.map(Parser.oneOf(
-                Parser.regex("([+-]?\\d+)(?:[eE](\\+?\\d+))?", "Expected an integer"),
-                Parser.regex("[+-]?0[bB][01]+", "Expected an integer"),
-                Parser.regex("[+-]?0[oO][0-7]+", "Expected an integer"),
-                Parser.regex("[+-]?0[xX][0-9a-fA-F]+", "Expected an integer")
-        ), (RegexAST ast) -> {
-            if (ast.groups().length > 0) {
-                return new IntLiteralAST(Integer.parseInt(ast.value()));
-            }
-            int value = Integer.parseInt(ast.groups()[0]);
-            int exponent = Integer.parseInt(ast.groups()[1]);
-            if (exponent == 0) {
-                return new IntLiteralAST(value);
-            }
-            return new IntLiteralAST((int) (value * Math.pow(10, exponent)));
-        });
+        return PARSER;
+    }
+
+    /**
+     * Reads the literal straight from the text, the scanner of the input is reused for every literal.
+     * Use {@link #$parser()}, this is only public so compiled grammars can call it directly.
+     */
+    public static ParseResult<IntLiteralAST> parse(ParseInput input, int offset) {
+        IntegerScanner scanner = input.integers();
+        int end = scanner.scan(input.text(), offset, input.length());
+        if (end == IntegerScanner.MALFORMED) {
+            return input.fail(offset, EXPECTED_INTEGER);
+        }
+        TokenType type = scanner.suffix() == null ? TokenType.I32 : scanner.suffix();
+        if (end == IntegerScanner.OVERFLOW || !scanner.fits(type)) {
+            // Digits are only ever a literal, so the range is the error even if other rules are tried here
+            return input.failDefinitely(offset, OUT_OF_RANGE[type.ordinal()]);
+        }
+        return new ParseResult<>(new IntLiteralAST(scanner.high(), scanner.low(), type), input, end);
     }
 
     @Override
@@ -39,7 +115,11 @@ public final class IntLiteralAST extends FactorExprAST {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         IntLiteralAST that = (IntLiteralAST) o;
-        return Objects.equals(value, that.value);
+        return high == that.high && low == that.low && type == that.type;
     }
 
+    @Override
+    public int hashCode() {
+        return (Long.hashCode(high) * 31 + Long.hashCode(low)) * 31 + type.hashCode();
+    }
 }
@@ -0,0 +1,26 @@
+package org.osta.parse.ast;
+
+/**
+ * Member access, {@code target.member}, or {@code .member} on the current struct when there is no target.
+ */
+public class MemberExprAST extends ExprAST {
+
+    private final ExprAST target;
+    private final IdentifierAST member;
+
+    public MemberExprAST(ExprAST target, IdentifierAST member) {
+        this.target = target;
+        this.member = member;
+    }
+
+    /**
+     * The accessed value, {@code null} for the implicit {@code .member} form.
+     */
+    public ExprAST target() {
+        return target;
+    }
+
+    public IdentifierAST member() {
+        return member;
+    }
+}
@@ -0,0 +1,23 @@
+package org.osta.parse.ast;
+
+import org.osta.parse.Grammar;
+import org.osta.parse.Parser;
+import org.osta.parse.Rule;
+import org.osta.parse.visitor.Visitor;
+
+public record ParamAST(TypeAST type, String name) implements AST {
+
+    private static final Rule<ParamAST> PARSER = Grammar.rule("ParamAST", () -> Parser.map(
+            Parser.sequence(TypeAST.parser(), IdentifierAST.$parser()),
+            (SequenceAST ast) -> new ParamAST(
+                    (TypeAST) ast.values().get(0),
+                    ((IdentifierAST) ast.values().get(1)).identifier())
+    ));
+
+    @Override
+    public void accept(Visitor visitor) {}
+
+    public static Parser<ParamAST> $parser() {
+        return PARSER;
+    }
+}
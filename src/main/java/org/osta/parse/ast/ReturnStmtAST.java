@@ -0,0 +1,31 @@
+package org.osta.parse.ast;
+
+import org.osta.parse.Grammar;
+import org.osta.parse.Parser;
+import org.osta.parse.Rule;
+import org.osta.token.TokenType;
+
+public class ReturnStmtAST extends StmtAST {
+
+    private static final Rule<ReturnStmtAST> PARSER = Grammar.rule("ReturnStmtAST", () -> Parser.map(
+            Parser.sequence(Parser.token(TokenType.RETURN), Parser.optional(ExprAST.parser())),
+            (SequenceAST ast) -> new ReturnStmtAST(ASTs.optional(ast.values().get(1)))
+    ));
+
+    private final ExprAST value;
+
+    public ReturnStmtAST(ExprAST value) {
+        this.value = value;
+    }
+
+    /**
+     * The returned value, {@code null} for a bare {@code return}.
+     */
+    public ExprAST value() {
+        return value;
+    }
+
+    public static Parser<ReturnStmtAST> $parser() {
+        return PARSER;
+    }
+}
@@ -1,11 +1,27 @@
 package org.osta.parse.ast;
 
-import org.osta.parse.ParseResult;
+import org.osta.parse.Grammar;
 import org.osta.parse.Parser;
+import org.osta.parse.Rule;
 import org.osta.parse.visitor.Visitor;
+import org.osta.token.TokenType;
 
 public class StmtAST implements AST {
 
+    private static final Rule<StmtAST> PARSER = Grammar.rule("StmtAST", () -> Parser.anyOf(
+            BlockStmtAST.$parser(),
+            Parser.map(
+                    Parser.sequence(Parser.anyOf(
+                            ReturnStmtAST.$parser(),
+                            VarDeclStmtAST.$parser(),
+                            AssignStmtAST.$parser(),
+                            ExprStmtAST.$parser()
+                            /* Add more Stmts here */
+                    ), Parser.token(TokenType.SEMICOLON)),
+                    (SequenceAST ast) -> (StmtAST) ast.values().get(0)
+            )
+    ));
+
     @Override
     public void accept(Visitor visitor) {
         visitor.visit(this);
@@ -13,13 +29,7 @@ public class StmtAST implements AST {
 
     @SuppressWarnings("unchecked")
     public static <T extends StmtAST> Parser<T> parser() {
-        return Parser.map(
-                Parser.sequence(Parser.skipWhitespace(Parser.oneOf(
-                        AssignStmtAST.$parser()
-                        /* Add more Stmts here */
-                )), Parser.literal(";")),
-                (SequenceAST ast) -> (T) ast.values().get(0)
-        );
+        return (Parser<T>) PARSER;
     }
 
 }
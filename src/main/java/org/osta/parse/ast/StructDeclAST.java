@@ -0,0 +1,22 @@
+package org.osta.parse.ast;
+
+import org.osta.parse.Grammar;
+import org.osta.parse.Parser;
+import org.osta.parse.Rule;
+import org.osta.token.TokenType;
+
+import java.util.List;
+
+public class StructDeclAST extends TypeDeclAST {
+
+    private static final Rule<StructDeclAST> PARSER = Grammar.rule("StructDeclAST",
+            () -> TypeDeclAST.$parser(TokenType.STRUCT, StructDeclAST::new));
+
+    public StructDeclAST(String name, List<String> parameters, List<TypeAST> supertypes, List<DeclAST> members) {
+        super(name, parameters, supertypes, members);
+    }
+
+    public static Parser<StructDeclAST> $parser() {
+        return PARSER;
+    }
+}
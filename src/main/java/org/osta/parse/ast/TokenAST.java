@@ -0,0 +1,11 @@
+package org.osta.parse.ast;
+
+import org.osta.parse.visitor.Visitor;
+import org.osta.token.TokenType;
+
+public record TokenAST(TokenType type, String text) implements AST {
+
+    @Override
+    public void accept(Visitor visitor) {}
+
+}
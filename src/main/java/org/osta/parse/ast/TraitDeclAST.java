@@ -0,0 +1,22 @@
+package org.osta.parse.ast;
+
+import org.osta.parse.Grammar;
+import org.osta.parse.Parser;
+import org.osta.parse.Rule;
+import org.osta.token.TokenType;
+
+import java.util.List;
+
+public class TraitDeclAST extends TypeDeclAST {
+
+    private static final Rule<TraitDeclAST> PARSER = Grammar.rule("TraitDeclAST",
+            () -> TypeDeclAST.$parser(TokenType.TRAIT, TraitDeclAST::new));
+
+    public TraitDeclAST(String name, List<String> parameters, List<TypeAST> supertypes, List<DeclAST> members) {
+        super(name, parameters, supertypes, members);
+    }
+
+    public static Parser<TraitDeclAST> $parser() {
+        return PARSER;
+    }
+}
@@ -0,0 +1,137 @@
+package org.osta.parse.ast;
+
+import org.osta.parse.Grammar;
+import org.osta.parse.ParseException;
+import org.osta.parse.ParseInput;
+import org.osta.parse.ParseResult;
+import org.osta.parse.Parser;
+import org.osta.parse.Rule;
+import org.osta.parse.visitor.Visitor;
+import org.osta.token.Lexer;
+import org.osta.token.TokenType;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A type reference like {@code u32}, {@code u8**} or {@code Map<K,List<V>>}.
+ */
+public class TypeAST implements AST {
+
+    private static final TokenAST GREATER = new TokenAST(TokenType.GREATER, ">");
+
+    private static final Supplier<ParseException> EXPECTED_GREATER = () -> ParseException.EXPECTED_TOKEN(TokenType.GREATER);
+    private static final Parser<TokenAST> CLOSE = Parser.direct(TypeAST.class, "close", TypeAST::close);
+
+    private static final Rule<TypeAST> PARSER = Grammar.rule("TypeAST", () -> Parser.map(
+            Parser.sequence(
+                    Parser.token(typeNames()),
+                    Parser.optional(TypeAST.$arguments(TypeAST.parser())),
+                    Parser.zeroOrMore(Parser.token(TokenType.STAR))
+            ),
+            (SequenceAST ast) -> {
+                TokenAST name = (TokenAST) ast.values().get(0);
+                @SuppressWarnings("unchecked")
+                OptionalAST<SequenceAST> arguments = (OptionalAST<SequenceAST>) ast.values().get(1);
+                int pointers = ((SequenceAST) ast.values().get(2)).values().size();
+                List<TypeAST> types = arguments.value().map(args -> ASTs.list(args, TypeAST.class)).orElse(List.of());
+                return new TypeAST(name.text(), types, pointers);
+            }
+    ));
+
+    private final String name;
+    private final List<TypeAST> arguments;
+    private final int pointers;
+
+    public TypeAST(String name, List<TypeAST> arguments, int pointers) {
+        this.name = name;
+        this.arguments = arguments;
+        this.pointers = pointers;
+    }
+
+    public TypeAST(String name) {
+        this(name, List.of(), 0);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public List<TypeAST> arguments() {
+        return arguments;
+    }
+
+    public int pointers() {
+        return pointers;
+    }
+
+    @Override
+    public void accept(Visitor visitor) {}
+
+    public static Parser<TypeAST> parser() {
+        return PARSER;
+    }
+
+    /**
+     * Parses {@code <item, ...>}, used both for type arguments and for the type parameters of declarations.
+     */
+    public static Parser<SequenceAST> $arguments(Parser<?> item) {
+        return Parser.map(
+                Parser.sequence(Parser.token(TokenType.LESS), Parser.separatedBy(item, Parser.token(TokenType.COMMA)), CLOSE),
+                (SequenceAST ast) -> (SequenceAST) ast.values().get(1)
+        );
+    }
+
+    private static EnumSet<TokenType> typeNames() {
+        EnumSet<TokenType> names = EnumSet.of(TokenType.IDENTIFIER);
+        for (TokenType type : TokenType.values()) {
+            if (type.isPrimitiveType()) {
+                names.add(type);
+            }
+        }
+        return names;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TypeAST that = (TypeAST) o;
+        return pointers == that.pointers && name.equals(that.name) && arguments.equals(that.arguments);
+    }
+
+    @Override
+    public int hashCode() {
+        return (name.hashCode() * 31 + arguments.hashCode()) * 31 + pointers;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(name);
+        if (!arguments.isEmpty()) {
+            sb.append('<');
+            for (int i = 0; i < arguments.size(); i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(arguments.get(i));
+            }
+            sb.append('>');
+        }
+        sb.append("*".repeat(pointers));
+        return sb.toString();
+    }
+
+    /**
+     * Closes a type argument list, this works on chars since the lexer reads the end of {@code List<List<T>>} as a
+     * single {@link TokenType#RIGHT_SHIFT}. Only public so compiled grammars can call it directly.
+     */
+    public static ParseResult<TokenAST> close(ParseInput input, int offset) {
+        int at = Lexer.skipTrivia(input.text(), offset);
+        if (at < input.length() && input.charAt(at) == '>') {
+            return new ParseResult<>(GREATER, input, at + 1);
+        }
+        return input.fail(at, EXPECTED_GREATER);
+    }
+}
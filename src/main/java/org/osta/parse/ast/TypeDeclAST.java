@@ -0,0 +1,90 @@
+package org.osta.parse.ast;
+
+import org.osta.parse.Grammar;
+import org.osta.parse.Parser;
+import org.osta.parse.Rule;
+import org.osta.token.TokenType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parts shared by structs and traits:
+ * {@code name<T, ...> : Super, ... { members }} where the type parameters and super types are optional.
+ */
+public abstract class TypeDeclAST extends DeclAST {
+
+    private static final Rule<DeclAST> MEMBER = Grammar.rule("TypeDeclAST.member",
+            () -> Parser.anyOf(FieldDeclAST.$parser(), FunctionDeclAST.$parser()));
+
+    private final String name;
+    private final List<String> parameters;
+    private final List<TypeAST> supertypes;
+    private final List<DeclAST> members;
+
+    protected TypeDeclAST(String name, List<String> parameters, List<TypeAST> supertypes, List<DeclAST> members) {
+        this.name = name;
+        this.parameters = parameters;
+        this.supertypes = supertypes;
+        this.members = members;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public List<String> parameters() {
+        return parameters;
+    }
+
+    public List<TypeAST> supertypes() {
+        return supertypes;
+    }
+
+    public List<DeclAST> members() {
+        return members;
+    }
+
+    /**
+     * Parses the declaration after the keyword and hands the parts to the constructor.
+     */
+    static <T extends TypeDeclAST> Parser<T> $parser(TokenType keyword, Constructor<T> constructor) {
+        return Parser.map(
+                Parser.sequence(
+                        // Only one kind of declaration starts with the keyword
+                        Parser.commit(Parser.token(keyword)),
+                        IdentifierAST.$parser(),
+                        Parser.optional(TypeAST.$arguments(IdentifierAST.$parser())),
+                        Parser.optional(Parser.map(
+                                Parser.sequence(
+                                        Parser.token(TokenType.COLON),
+                                        Parser.separatedBy(TypeAST.parser(), Parser.token(TokenType.COMMA))
+                                ),
+                                (SequenceAST ast) -> (SequenceAST) ast.values().get(1)
+                        )),
+                        Parser.token(TokenType.LEFT_BRACE),
+                        Parser.zeroOrMore(MEMBER),
+                        Parser.token(TokenType.RIGHT_BRACE)
+                ),
+                (SequenceAST ast) -> {
+                    String name = ((IdentifierAST) ast.values().get(1)).identifier();
+                    SequenceAST parameterList = ASTs.optional(ast.values().get(2));
+                    List<String> parameters = new ArrayList<>();
+                    if (parameterList != null) {
+                        for (IdentifierAST parameter : ASTs.list(parameterList, IdentifierAST.class)) {
+                            parameters.add(parameter.identifier());
+                        }
+                    }
+                    SequenceAST supertypeList = ASTs.optional(ast.values().get(3));
+                    List<TypeAST> supertypes = supertypeList == null ? List.of() : ASTs.list(supertypeList, TypeAST.class);
+                    List<DeclAST> members = ASTs.list((SequenceAST) ast.values().get(5), DeclAST.class);
+                    return constructor.create(name, parameters, supertypes, members);
+                }
+        );
+    }
+
+    @FunctionalInterface
+    interface Constructor<T extends TypeDeclAST> {
+        T create(String name, List<String> parameters, List<TypeAST> supertypes, List<DeclAST> members);
+    }
+}
@@ -0,0 +1,53 @@
+package org.osta.parse.ast;
+
+import org.osta.parse.Grammar;
+import org.osta.parse.Parser;
+import org.osta.parse.Rule;
+import org.osta.token.TokenType;
+
+public class VarDeclStmtAST extends StmtAST {
+
+    private static final Rule<VarDeclStmtAST> PARSER = Grammar.rule("VarDeclStmtAST", () -> Parser.map(
+            Parser.sequence(
+                    TypeAST.parser(),
+                    IdentifierAST.$parser(),
+                    Parser.optional(Parser.map(
+                            Parser.sequence(Parser.token(TokenType.EQUAL), ExprAST.parser()),
+                            (SequenceAST ast) -> (ExprAST) ast.values().get(1)
+                    ))
+            ),
+            (SequenceAST ast) -> new VarDeclStmtAST(
+                    (TypeAST) ast.values().get(0),
+                    (IdentifierAST) ast.values().get(1),
+                    ASTs.optional(ast.values().get(2)))
+    ));
+
+    private final TypeAST type;
+    private final IdentifierAST name;
+    private final ExprAST value;
+
+    public VarDeclStmtAST(TypeAST type, IdentifierAST name, ExprAST value) {
+        this.type = type;
+        this.name = name;
+        this.value = value;
+    }
+
+    public TypeAST type() {
+        return type;
+    }
+
+    public IdentifierAST name() {
+        return name;
+    }
+
+    /**
+     * The initial value, {@code null} if the variable isn't initialized.
+     */
+    public ExprAST value() {
+        return value;
+    }
+
+    public static Parser<VarDeclStmtAST> $parser() {
+        return PARSER;
+    }
+}
@@ -0,0 +1,273 @@
+package org.osta.parse.flat;
+
+import org.jetbrains.annotations.NotNull;
+import org.osta.text.SymbolTable;
+import org.osta.token.TokenType;
+
+import java.util.Arrays;
+
+/**
+ * An AST stored as parallel int arrays instead of one object per node.
+ * A node is an index into the arrays, it has a {@link NodeKind}, an int payload whose meaning depends on the kind
+ * and its children as a linked list through the first child and next sibling of each node. Children are always added
+ * before their parent, so the root is the last node.
+ * <p>
+ * A whole file takes four ints per node and no per node objects. Names are symbols of a {@link SymbolTable} in the
+ * payload of their node. Use {@link FlatLowering} to build one, {@link #cursor()} or {@link #walk(FlatVisitor)}
+ * to read it and {@link FlatASTAdapter} to run an existing {@link org.osta.parse.visitor.Visitor} over it.
+ */
+public final class FlatAST {
+
+    /** The index of a missing node, like the first child of a leaf */
+    public static final int NONE = -1;
+
+    private final SymbolTable symbols;
+
+    private int[] kinds;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+    private int[] payloads;
+    private int size;
+
+    /* The values of the WIDE_INT nodes, their high and low halves one after the other, and their types */
+    private long[] constants = new long[16];
+    private TokenType[] constantTypes = new TokenType[8];
+    private int constantCount;
+
+    FlatAST(@NotNull SymbolTable symbols) {
+        this.symbols = symbols;
+        int capacity = 256;
+        kinds = new int[capacity];
+        firstChildren = new int[capacity];
+        nextSiblings = new int[capacity];
+        payloads = new int[capacity];
+    }
+
+    /**
+     * The table the names of the tree are symbols of.
+     */
+    public SymbolTable symbols() {
+        return symbols;
+    }
+
+    /**
+     * The name of a {@link NodeKind#NAME}, {@link NodeKind#TYPE_PARAMETER} or {@link NodeKind#IDENTIFIER} node.
+     */
+    public String name(int node) {
+        return symbols.name(payloads[node]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The root node, the last one added.
+     */
+    public int root() {
+        return size - 1;
+    }
+
+    public NodeKind kind(int node) {
+        return NodeKind.of(kinds[node]);
+    }
+
+    public int firstChild(int node) {
+        return firstChildren[node];
+    }
+
+    public int nextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    public int payload(int node) {
+        return payloads[node];
+    }
+
+    /**
+     * The high 64 bits of the value of an {@link NodeKind#INT} or {@link NodeKind#WIDE_INT} node.
+     */
+    public long high(int node) {
+        return kinds[node] == NodeKind.INT.ordinal() ? payloads[node] >> 31 : constants[payloads[node] * 2];
+    }
+
+    /**
+     * The low 64 bits of the value of an {@link NodeKind#INT} or {@link NodeKind#WIDE_INT} node.
+     */
+    public long low(int node) {
+        return kinds[node] == NodeKind.INT.ordinal() ? payloads[node] : constants[payloads[node] * 2 + 1];
+    }
+
+    /**
+     * The type of an {@link NodeKind#INT} or {@link NodeKind#WIDE_INT} node.
+     */
+    public TokenType integerType(int node) {
+        return kinds[node] == NodeKind.INT.ordinal() ? TokenType.I32 : constantTypes[payloads[node]];
+    }
+
+    /**
+     * Returns the child at the index, or {@link #NONE} if the node has fewer children.
+     */
+    public int child(int node, int index) {
+        int child = firstChildren[node];
+        for (int i = 0; i < index && child != NONE; i++) {
+            child = nextSiblings[child];
+        }
+        return child;
+    }
+
+    public int childCount(int node) {
+        int count = 0;
+        for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+            count++;
+        }
+        return count;
+    }
+
+    public Cursor cursor() {
+        return new Cursor(root());
+    }
+
+    /**
+     * Visits every node depth first in source order, without recursing so deeply nested expressions are fine.
+     */
+    public void walk(@NotNull FlatVisitor visitor) {
+        walk(root(), visitor);
+    }
+
+    public void walk(int node, @NotNull FlatVisitor visitor) {
+        int[] stack = new int[16];
+        int depth = 0;
+        stack[depth++] = node;
+        boolean descend = visitor.enter(this, node);
+        int current = descend ? firstChildren[node] : NONE;
+        while (depth > 0) {
+            if (current != NONE) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = current;
+                current = visitor.enter(this, current) ? firstChildren[current] : NONE;
+            } else {
+                int done = stack[--depth];
+                visitor.exit(this, done);
+                current = depth > 0 ? nextSiblings[done] : NONE;
+            }
+        }
+    }
+
+    /**
+     * Adds a node whose children, already added, start at the given one.
+     * @return The new node
+     */
+    int add(NodeKind kind, int payload, int firstChild) {
+        if (size == kinds.length) {
+            grow();
+        }
+        int node = size++;
+        kinds[node] = kind.ordinal();
+        firstChildren[node] = firstChild;
+        nextSiblings[node] = NONE;
+        payloads[node] = payload;
+        return node;
+    }
+
+    /**
+     * Adds the value of a {@link NodeKind#WIDE_INT} node.
+     * @return The index of the value, the payload of the node
+     */
+    int constant(long high, long low, TokenType type) {
+        if (constantCount == constantTypes.length) {
+            constants = Arrays.copyOf(constants, constantCount * 4);
+            constantTypes = Arrays.copyOf(constantTypes, constantCount * 2);
+        }
+        constants[constantCount * 2] = high;
+        constants[constantCount * 2 + 1] = low;
+        constantTypes[constantCount] = type;
+        return constantCount++;
+    }
+
+    /**
+     * Appends the node to a list of siblings whose last node is {@code last}, {@link #NONE} for an empty list.
+     * @return The new last node
+     */
+    int link(int last, int node) {
+        if (last != NONE) {
+            nextSiblings[last] = node;
+        }
+        return node;
+    }
+
+    private void grow() {
+        int capacity = kinds.length + (kinds.length >> 1);
+        kinds = Arrays.copyOf(kinds, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        payloads = Arrays.copyOf(payloads, capacity);
+    }
+
+    /**
+     * A position in the tree that moves between parents, children and siblings.
+     */
+    public final class Cursor {
+
+        private int[] parents = new int[16];
+        private int depth;
+        private int node;
+
+        private Cursor(int node) {
+            this.node = node;
+        }
+
+        public int node() {
+            return node;
+        }
+
+        public NodeKind kind() {
+            return FlatAST.this.kind(node);
+        }
+
+        public int payload() {
+            return payloads[node];
+        }
+
+        /**
+         * Moves to the first child, returns {@code false} and stays if there is none.
+         */
+        public boolean firstChild() {
+            int child = firstChildren[node];
+            if (child == NONE) {
+                return false;
+            }
+            if (depth == parents.length) {
+                parents = Arrays.copyOf(parents, depth * 2);
+            }
+            parents[depth++] = node;
+            node = child;
+            return true;
+        }
+
+        /**
+         * Moves to the next sibling, returns {@code false} and stays if there is none.
+         */
+        public boolean nextSibling() {
+            int sibling = nextSiblings[node];
+            if (sibling == NONE) {
+                return false;
+            }
+            node = sibling;
+            return true;
+        }
+
+        /**
+         * Moves back to the parent, returns {@code false} and stays at the node the cursor started at.
+         */
+        public boolean parent() {
+            if (depth == 0) {
+                return false;
+            }
+            node = parents[--depth];
+            return true;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.osta.parse.flat;
+
+import org.jetbrains.annotations.NotNull;
+import org.osta.parse.ast.*;
+import org.osta.parse.ast.BinaryExprAST.BinaryOp;
+import org.osta.parse.visitor.Visitor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.osta.parse.flat.FlatAST.NONE;
+
+/**
+ * Turns the nodes of a {@link FlatAST} back into AST objects, so visitors written for the objects can run over it.
+ */
+public final class FlatASTAdapter {
+
+    private static final BinaryOp[] OPS = BinaryOp.values();
+
+    private final FlatAST ast;
+
+    public FlatASTAdapter(@NotNull FlatAST ast) {
+        this.ast = ast;
+    }
+
+    /**
+     * Runs the visitor over the whole tree.
+     * The declarations of a file are turned into objects one at a time, so only the declaration being visited is
+     * ever held as objects.
+     */
+    public void accept(@NotNull Visitor visitor) {
+        int root = ast.root();
+        if (ast.kind(root) != NodeKind.FILE) {
+            toAST(root).accept(visitor);
+            return;
+        }
+        for (int declaration = ast.firstChild(root); declaration != NONE; declaration = ast.nextSibling(declaration)) {
+            toAST(declaration).accept(visitor);
+        }
+    }
+
+    /**
+     * Returns the node and everything below it as AST objects.
+     */
+    public AST toAST(int node) {
+        return switch (ast.kind(node)) {
+            case FILE -> new FileAST(list(ast.firstChild(node), DeclAST.class));
+            case STRUCT, TRAIT -> typeDeclaration(node);
+            case FIELD -> new FieldDeclAST(type(ast.firstChild(node)), name(ast.child(node, 1)));
+            case FUNCTION -> function(node);
+            case PARAM -> new ParamAST(type(ast.firstChild(node)), name(ast.child(node, 1)));
+            case TYPE -> type(node);
+            case NAME, TYPE_PARAMETER, IDENTIFIER -> new IdentifierAST(name(node));
+            case BLOCK -> new BlockStmtAST(list(ast.firstChild(node), StmtAST.class));
+            case RETURN -> new ReturnStmtAST(expression(ast.firstChild(node)));
+            case VAR_DECL -> new VarDeclStmtAST(
+                    type(ast.firstChild(node)),
+                    new IdentifierAST(name(ast.child(node, 1))),
+                    expression(ast.child(node, 2)));
+            case ASSIGN -> new AssignStmtAST(expression(ast.firstChild(node)), expression(ast.child(node, 1)));
+            case EXPR_STMT -> new ExprStmtAST(expression(ast.firstChild(node)));
+            case BINARY -> new BinaryExprAST(
+                    expression(ast.firstChild(node)),
+                    OPS[ast.payload(node)],
+                    expression(ast.child(node, 1)));
+            case INT -> new IntLiteralAST(ast.payload(node));
+            case WIDE_INT -> new IntLiteralAST(ast.high(node), ast.low(node), ast.integerType(node));
+            case MEMBER -> {
+                int first = ast.firstChild(node);
+                if (ast.kind(first) == NodeKind.NAME) {
+                    yield new MemberExprAST(null, new IdentifierAST(name(first)));
+                }
+                yield new MemberExprAST(expression(first), new IdentifierAST(name(ast.nextSibling(first))));
+            }
+            case CALL -> {
+                int callee = ast.firstChild(node);
+                yield new CallExprAST(expression(callee), list(ast.nextSibling(callee), ExprAST.class));
+            }
+        };
+    }
+
+    private TypeDeclAST typeDeclaration(int node) {
+        int child = ast.firstChild(node);
+        String name = name(child);
+        List<String> parameters = new ArrayList<>();
+        List<TypeAST> supertypes = new ArrayList<>();
+        List<DeclAST> members = new ArrayList<>();
+        for (child = ast.nextSibling(child); child != NONE; child = ast.nextSibling(child)) {
+            switch (ast.kind(child)) {
+                case TYPE_PARAMETER -> parameters.add(name(child));
+                case TYPE -> supertypes.add(type(child));
+                default -> members.add((DeclAST) toAST(child));
+            }
+        }
+        return ast.kind(node) == NodeKind.STRUCT
+                ? new StructDeclAST(name, parameters, supertypes, members)
+                : new TraitDeclAST(name, parameters, supertypes, members);
+    }
+
+    private FunctionDeclAST function(int node) {
+        int returnType = ast.firstChild(node);
+        int name = ast.nextSibling(returnType);
+        List<ParamAST> parameters = new ArrayList<>();
+        BlockStmtAST body = null;
+        for (int child = ast.nextSibling(name); child != NONE; child = ast.nextSibling(child)) {
+            if (ast.kind(child) == NodeKind.PARAM) {
+                parameters.add((ParamAST) toAST(child));
+            } else {
+                body = (BlockStmtAST) toAST(child);
+            }
+        }
+        return new FunctionDeclAST(type(returnType), name(name), parameters, body);
+    }
+
+    private TypeAST type(int node) {
+        int name = ast.firstChild(node);
+        return new TypeAST(name(name), list(ast.nextSibling(name), TypeAST.class), ast.payload(node));
+    }
+
+    private ExprAST expression(int node) {
+        return node == NONE ? null : (ExprAST) toAST(node);
+    }
+
+    private String name(int node) {
+        return ast.name(node);
+    }
+
+    /* The node and its next siblings */
+    private <T extends AST> List<T> list(int first, Class<T> type) {
+        List<T> list = new ArrayList<>();
+        for (int node = first; node != NONE; node = ast.nextSibling(node)) {
+            list.add(type.cast(toAST(node)));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,168 @@
+package org.osta.parse.flat;
+
+import org.jetbrains.annotations.NotNull;
+import org.osta.parse.ParseException;
+import org.osta.parse.ParseInput;
+import org.osta.parse.ast.*;
+import org.osta.text.SymbolTable;
+import org.osta.token.TokenType;
+
+import java.util.List;
+
+import static org.osta.parse.flat.FlatAST.NONE;
+
+/**
+ * Builds the {@link FlatAST} of a file from its AST objects, the reverse of {@link FlatASTAdapter}.
+ * The file is parsed by {@link FileAST#parser()} like any other, so the grammar is only written once, and the objects
+ * of a declaration can be dropped as soon as it is lowered.
+ */
+public final class FlatLowering {
+
+    private final FlatAST ast;
+    private final SymbolTable symbols;
+
+    private FlatLowering(SymbolTable symbols) {
+        this.ast = new FlatAST(symbols);
+        this.symbols = symbols;
+    }
+
+    /**
+     * Parses a whole file and lowers it.
+     * @throws ParseException The furthest failure if the text isn't a valid file
+     */
+    public static FlatAST parse(@NotNull CharSequence text) throws ParseException {
+        return parse(new ParseInput(text));
+    }
+
+    /**
+     * Parses a whole file and lowers it, names are interned into the symbols of the input.
+     * @throws ParseException The furthest failure if the input isn't a valid file
+     */
+    public static FlatAST parse(@NotNull ParseInput input) throws ParseException {
+        return lower(input.parse(FileAST.parser()).ast(), input.symbols());
+    }
+
+    /**
+     * Lowers a file, names are interned into the symbols.
+     */
+    public static FlatAST lower(@NotNull FileAST file, @NotNull SymbolTable symbols) {
+        FlatLowering lowering = new FlatLowering(symbols);
+        lowering.ast.add(NodeKind.FILE, 0, lowering.declarations(file.declarations()));
+        return lowering.ast;
+    }
+
+    /* The declarations as siblings, returns the first one */
+    private int declarations(List<DeclAST> declarations) {
+        int first = NONE, last = NONE;
+        for (DeclAST declaration : declarations) {
+            last = ast.link(last, declaration(declaration));
+            first = first == NONE ? last : first;
+        }
+        return first;
+    }
+
+    private int declaration(DeclAST declaration) {
+        if (declaration instanceof TypeDeclAST type) {
+            int first = name(NodeKind.NAME, type.name());
+            int last = first;
+            for (String parameter : type.parameters()) {
+                last = ast.link(last, name(NodeKind.TYPE_PARAMETER, parameter));
+            }
+            for (TypeAST supertype : type.supertypes()) {
+                last = ast.link(last, type(supertype));
+            }
+            for (DeclAST member : type.members()) {
+                last = ast.link(last, declaration(member));
+            }
+            return ast.add(type instanceof TraitDeclAST ? NodeKind.TRAIT : NodeKind.STRUCT, 0, first);
+        } else if (declaration instanceof FieldDeclAST field) {
+            int type = type(field.type());
+            ast.link(type, name(NodeKind.NAME, field.name()));
+            return ast.add(NodeKind.FIELD, 0, type);
+        } else if (declaration instanceof FunctionDeclAST function) {
+            int first = type(function.returnType());
+            int last = ast.link(first, name(NodeKind.NAME, function.name()));
+            for (ParamAST parameter : function.parameters()) {
+                int type = type(parameter.type());
+                ast.link(type, name(NodeKind.NAME, parameter.name()));
+                last = ast.link(last, ast.add(NodeKind.PARAM, 0, type));
+            }
+            if (function.body() != null) {
+                ast.link(last, statement(function.body()));
+            }
+            return ast.add(NodeKind.FUNCTION, 0, first);
+        }
+        throw new IllegalStateException("Unsupported declaration: " + declaration.getClass().getSimpleName());
+    }
+
+    private int statement(StmtAST statement) {
+        if (statement instanceof BlockStmtAST block) {
+            int first = NONE, last = NONE;
+            for (StmtAST child : block.statements()) {
+                last = ast.link(last, statement(child));
+                first = first == NONE ? last : first;
+            }
+            return ast.add(NodeKind.BLOCK, 0, first);
+        } else if (statement instanceof ReturnStmtAST returnStmt) {
+            return ast.add(NodeKind.RETURN, 0, returnStmt.value() == null ? NONE : expression(returnStmt.value()));
+        } else if (statement instanceof VarDeclStmtAST varDecl) {
+            int type = type(varDecl.type());
+            int name = ast.link(type, name(NodeKind.NAME, varDecl.name().identifier()));
+            if (varDecl.value() != null) {
+                ast.link(name, expression(varDecl.value()));
+            }
+            return ast.add(NodeKind.VAR_DECL, 0, type);
+        } else if (statement instanceof AssignStmtAST assign) {
+            int target = expression(assign.target());
+            ast.link(target, expression(assign.value()));
+            return ast.add(NodeKind.ASSIGN, 0, target);
+        } else if (statement instanceof ExprStmtAST exprStmt) {
+            return ast.add(NodeKind.EXPR_STMT, 0, expression(exprStmt.expr()));
+        }
+        throw new IllegalStateException("Unsupported statement: " + statement.getClass().getSimpleName());
+    }
+
+    private int expression(ExprAST expression) {
+        if (expression instanceof IntLiteralAST literal) {
+            if (literal.type() == TokenType.I32) {
+                return ast.add(NodeKind.INT, literal.value(), NONE);
+            }
+            return ast.add(NodeKind.WIDE_INT, ast.constant(literal.high(), literal.low(), literal.type()), NONE);
+        } else if (expression instanceof IdentifierAST identifier) {
+            return name(NodeKind.IDENTIFIER, identifier.identifier());
+        } else if (expression instanceof BinaryExprAST binary) {
+            int left = expression(binary.left());
+            ast.link(left, expression(binary.right()));
+            return ast.add(NodeKind.BINARY, binary.op().ordinal(), left);
+        } else if (expression instanceof MemberExprAST member) {
+            int name = name(NodeKind.NAME, member.member().identifier());
+            if (member.target() == null) {
+                return ast.add(NodeKind.MEMBER, 0, name);
+            }
+            int target = expression(member.target());
+            ast.link(target, name);
+            return ast.add(NodeKind.MEMBER, 0, target);
+        } else if (expression instanceof CallExprAST call) {
+            int callee = expression(call.callee());
+            int last = callee;
+            for (ExprAST argument : call.arguments()) {
+                last = ast.link(last, expression(argument));
+            }
+            return ast.add(NodeKind.CALL, 0, callee);
+        }
+        throw new IllegalStateException("Unsupported expression: " + expression.getClass().getSimpleName());
+    }
+
+    private int type(TypeAST type) {
+        int first = name(NodeKind.NAME, type.name());
+        int last = first;
+        for (TypeAST argument : type.arguments()) {
+            last = ast.link(last, type(argument));
+        }
+        return ast.add(NodeKind.TYPE, type.pointers(), first);
+    }
+
+    private int name(NodeKind kind, String name) {
+        return ast.add(kind, symbols.intern(name), NONE);
+    }
+}
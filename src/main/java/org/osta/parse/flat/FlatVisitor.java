@@ -0,0 +1,18 @@
+package org.osta.parse.flat;
+
+/**
+ * Visits the nodes of a {@link FlatAST}, see {@link FlatAST#walk(FlatVisitor)}.
+ */
+public interface FlatVisitor {
+
+    /**
+     * Called before the children of the node.
+     * @return Whether to visit the children
+     */
+    boolean enter(FlatAST ast, int node);
+
+    /**
+     * Called after the children of the node, or right after {@link #enter(FlatAST, int)} if they were skipped.
+     */
+    default void exit(FlatAST ast, int node) {}
+}
@@ -0,0 +1,57 @@
+package org.osta.parse.flat;
+
+/**
+ * The kinds of the nodes of a {@link FlatAST} and what their children and payload are.
+ */
+public enum NodeKind {
+    /** The declarations of the file */
+    FILE,
+    /** {@link #NAME}, then {@link #TYPE_PARAMETER}s, supertype {@link #TYPE}s and {@link #FIELD} or {@link #FUNCTION} members */
+    STRUCT,
+    /** Same as {@link #STRUCT} */
+    TRAIT,
+    /** {@link #TYPE} and {@link #NAME} */
+    FIELD,
+    /** Return {@link #TYPE}, {@link #NAME}, {@link #PARAM}s and a {@link #BLOCK} unless it's only declared */
+    FUNCTION,
+    /** {@link #TYPE} and {@link #NAME} */
+    PARAM,
+    /** A declared name, no children, the payload is its symbol */
+    NAME,
+    /** A type parameter name, no children, the payload is its symbol */
+    TYPE_PARAMETER,
+    /** {@link #NAME} and the type argument {@link #TYPE}s, the payload is the number of pointers */
+    TYPE,
+    /** The statements */
+    BLOCK,
+    /** The returned expression if any */
+    RETURN,
+    /** {@link #TYPE}, {@link #NAME} and the initial value expression if any */
+    VAR_DECL,
+    /** The target and value expressions */
+    ASSIGN,
+    /** The expression */
+    EXPR_STMT,
+    /** The left and right expressions, the payload is the ordinal of the operator */
+    BINARY,
+    /** An i32 literal, no children, the payload is the value */
+    INT,
+    /** A literal of another integer type, no children, the payload is the index of its value in the constants */
+    WIDE_INT,
+    /** A name used as an expression, no children, the payload is its symbol */
+    IDENTIFIER,
+    /** The target expression, absent for the {@code .member} form, and the member {@link #NAME} */
+    MEMBER,
+    /** The callee and argument expressions */
+    CALL;
+
+    private static final NodeKind[] VALUES = values();
+
+    public static NodeKind of(int kind) {
+        return VALUES[kind];
+    }
+
+    public boolean isExpression() {
+        return ordinal() >= BINARY.ordinal();
+    }
+}
@@ -0,0 +1,353 @@
+package org.osta.parse.visitor;
+
+import org.jetbrains.annotations.NotNull;
+import org.osta.il.ILFormat;
+import org.osta.il.Opcode;
+import org.osta.parse.ast.AST;
+import org.osta.parse.ast.FunctionDeclAST;
+import org.osta.parse.ast.IntLiteralAST;
+import org.osta.parse.ast.ParamAST;
+import org.osta.parse.ast.TraitDeclAST;
+import org.osta.parse.ast.TypeAST;
+import org.osta.parse.ast.TypeDeclAST;
+import org.osta.token.TokenType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lowers the AST to the same IL as {@link ILGenerator} in the binary form described by {@link ILFormat}.
+ * The code is encoded straight into a direct buffer that is written to the channel whenever it fills up, like
+ * {@link ILWriter} does with the text form. Only the constant pool and the index of the declarations are held until
+ * {@link #finish()} writes them out after the code.
+ */
+public final class BinaryILWriter extends ILLowering {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final Encoder encoder;
+    private boolean finished;
+
+    /**
+     * @param bufferSize The size of the direct buffer the IL is encoded into, at least 16 bytes for the trailer
+     */
+    public BinaryILWriter(@NotNull WritableByteChannel channel, int bufferSize) {
+        this(new Encoder(channel, bufferSize));
+    }
+
+    public BinaryILWriter(@NotNull WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public BinaryILWriter(@NotNull OutputStream out) {
+        this(Channels.newChannel(out));
+    }
+
+    private BinaryILWriter(Encoder encoder) {
+        super(encoder);
+        this.encoder = encoder;
+    }
+
+    /**
+     * Lowers the AST and writes out the code of its declarations, the buffer is only written once it fills up.
+     */
+    public void write(@NotNull AST ast) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("The IL was finished");
+        }
+        try {
+            ast.accept(this);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes out the constant pool, the index and the trailer after the code, nothing can be written afterwards.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        encoder.finish();
+    }
+
+    /**
+     * How many bytes were written to the channel so far.
+     */
+    public long written() {
+        return encoder.written;
+    }
+
+    /* Encodes the instructions into the buffer, and keeps the constants and the index for the end */
+    private static final class Encoder implements ILEmitter {
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer;
+        private long written;
+
+        /* The constants by string or IntLiteralAST, and their encoding */
+        private final Map<Object, Integer> constants = new HashMap<>();
+        private byte[] pool = new byte[1024];
+        private int poolSize;
+        private int[] constantOffsets = new int[64];
+
+        /* name, offset and length of every top level declaration written so far */
+        private int[] index = new int[3 * 64];
+        private int declarations;
+        private String declarationName;
+        private int declarationStart = ILFormat.HEADER_SIZE;
+
+        Encoder(WritableByteChannel channel, int bufferSize) {
+            if (bufferSize < ILFormat.TRAILER_SIZE) {
+                throw new IllegalArgumentException("Buffer size must be at least " + ILFormat.TRAILER_SIZE);
+            }
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(bufferSize);
+            buffer.putInt(ILFormat.MAGIC).putShort((short) ILFormat.VERSION).putShort((short) 0);
+        }
+
+        /* The constant pool, the index and the trailer after the code */
+        void finish() throws IOException {
+            int poolOffset = offset();
+            int headerSize = 4 + 4 * constants.size();
+            ensure(4);
+            buffer.putInt(constants.size());
+            for (int i = 0; i < constants.size(); i++) {
+                ensure(4);
+                buffer.putInt(poolOffset + headerSize + constantOffsets[i]);
+            }
+            for (int copied = 0; copied < poolSize; ) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                int length = Math.min(buffer.remaining(), poolSize - copied);
+                buffer.put(pool, copied, length);
+                copied += length;
+            }
+
+            int indexOffset = offset();
+            ensure(4);
+            buffer.putInt(declarations);
+            for (int i = 0; i < declarations * 3; i += 3) {
+                ensure(ILFormat.INDEX_ENTRY_SIZE);
+                buffer.putInt(index[i]).putInt(index[i + 1]).putInt(index[i + 2]);
+            }
+
+            ensure(ILFormat.TRAILER_SIZE);
+            buffer.putInt(poolOffset).putInt(indexOffset).putShort((short) ILFormat.VERSION).putShort((short) 0)
+                    .putInt(ILFormat.MAGIC);
+            drain();
+        }
+
+        @Override
+        public void declarationEnded() {
+            int end;
+            try {
+                end = offset();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (declarations * 3 == index.length) {
+                index = Arrays.copyOf(index, index.length * 2);
+            }
+            index[declarations * 3] = declarationName == null ? -1 : intern(declarationName);
+            index[declarations * 3 + 1] = declarationStart;
+            index[declarations * 3 + 2] = end - declarationStart;
+            declarations++;
+            declarationName = null;
+            declarationStart = end;
+        }
+
+        @Override
+        public void instruction(Opcode opcode) {
+            opcode(opcode);
+        }
+
+        @Override
+        public void instruction(Opcode opcode, String name) {
+            opcode(opcode);
+            varint(intern(name));
+        }
+
+        @Override
+        public void instruction(Opcode opcode, String name, int count) {
+            opcode(opcode);
+            if (name != null) {
+                varint(intern(name));
+            }
+            varint(count);
+        }
+
+        @Override
+        public void constant(IntLiteralAST literal) {
+            if (literal.type() == TokenType.I32) {
+                opcode(Opcode.CONST);
+                int value = literal.value();
+                varint(value << 1 ^ value >> 31);
+            } else {
+                opcode(Opcode.CONST_WIDE);
+                varint(intern(literal));
+            }
+        }
+
+        @Override
+        public void local(Opcode opcode, String type, String name) {
+            if (opcode == Opcode.FIELD && declarationName == null) {
+                declarationName = name;
+            }
+            opcode(opcode);
+            varint(intern(type));
+            varint(intern(name));
+        }
+
+        @Override
+        public void typeHeader(TypeDeclAST type) {
+            if (declarationName == null) {
+                declarationName = type.name();
+            }
+            opcode(type instanceof TraitDeclAST ? Opcode.TRAIT : Opcode.STRUCT);
+            varint(intern(type.name()));
+            varint(type.parameters().size());
+            for (String parameter : type.parameters()) {
+                varint(intern(parameter));
+            }
+            varint(type.supertypes().size());
+            for (TypeAST supertype : type.supertypes()) {
+                varint(intern(supertype.toString()));
+            }
+        }
+
+        @Override
+        public void functionHeader(FunctionDeclAST function) {
+            if (declarationName == null) {
+                declarationName = function.name();
+            }
+            opcode(function.body() == null ? Opcode.DECLARE : Opcode.FUNC);
+            varint(intern(function.returnType().toString()));
+            varint(intern(function.name()));
+            varint(function.parameters().size());
+            for (ParamAST parameter : function.parameters()) {
+                varint(intern(parameter.type().toString()));
+                varint(intern(parameter.name()));
+            }
+        }
+
+        /* The pool index of a string, added to the pool the first time it is seen */
+        private int intern(String text) {
+            Integer index = constants.get(text);
+            if (index == null) {
+                byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+                index = addConstant(text);
+                poolByte(ILFormat.TAG_UTF8);
+                poolVarint(utf8.length);
+                poolReserve(utf8.length);
+                System.arraycopy(utf8, 0, pool, poolSize, utf8.length);
+                poolSize += utf8.length;
+            }
+            return index;
+        }
+
+        private int intern(IntLiteralAST literal) {
+            Integer index = constants.get(literal);
+            if (index == null) {
+                int type = intern(literal.type().lexeme());
+                index = addConstant(literal);
+                poolByte(ILFormat.TAG_INTEGER);
+                poolVarint(type);
+                poolLong(literal.high());
+                poolLong(literal.low());
+            }
+            return index;
+        }
+
+        private int addConstant(Object key) {
+            int index = constants.size();
+            constants.put(key, index);
+            if (index == constantOffsets.length) {
+                constantOffsets = Arrays.copyOf(constantOffsets, index * 2);
+            }
+            constantOffsets[index] = poolSize;
+            return index;
+        }
+
+        private void poolByte(int value) {
+            poolReserve(1);
+            pool[poolSize++] = (byte) value;
+        }
+
+        private void poolVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                poolByte(value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            poolByte(value);
+        }
+
+        private void poolLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                poolByte((int) (value >>> shift));
+            }
+        }
+
+        private void poolReserve(int length) {
+            if (poolSize + length > pool.length) {
+                pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+            }
+        }
+
+        private void opcode(Opcode opcode) {
+            ensureUnchecked(1);
+            buffer.put((byte) opcode.code());
+        }
+
+        private void varint(int value) {
+            ensureUnchecked(5);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) (value & 0x7F | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        /* The offset of the next byte, which all sections refer to as an u32 */
+        private int offset() throws IOException {
+            long offset = written + buffer.position();
+            if (offset > Integer.MAX_VALUE) {
+                throw new IOException("Binary IL is limited to " + Integer.MAX_VALUE + " bytes");
+            }
+            return (int) offset;
+        }
+
+        private void ensureUnchecked(int length) {
+            try {
+                ensure(length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void ensure(int length) throws IOException {
+            if (buffer.remaining() < length) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.osta.parse.visitor;
+
+import org.osta.il.Opcode;
+import org.osta.parse.ast.FunctionDeclAST;
+import org.osta.parse.ast.IntLiteralAST;
+import org.osta.parse.ast.TypeDeclAST;
+
+/**
+ * Where {@link ILLowering} sends the IL, each form of the IL encodes the instructions its own way.
+ */
+interface ILEmitter {
+
+    void instruction(Opcode opcode);
+
+    /* An instruction with a name operand */
+    void instruction(Opcode opcode, String name);
+
+    /* An instruction with a name and a count operand, the name is null for CALLI which only has the count */
+    void instruction(Opcode opcode, String name, int count);
+
+    void constant(IntLiteralAST literal);
+
+    /* A local or a field, both have a type and a name */
+    void local(Opcode opcode, String type, String name);
+
+    void typeHeader(TypeDeclAST type);
+
+    void functionHeader(FunctionDeclAST function);
+
+    /* The value of a grammar node, which only the text form has room for */
+    default void verbatim(Object value) {
+    }
+
+    /* The block of the declaration whose header was just emitted starts */
+    default void open() {
+    }
+
+    /* The innermost open block ends */
+    default void close() {
+        instruction(Opcode.END);
+    }
+
+    /* Called once the IL of a top level declaration is complete */
+    default void declarationEnded() {
+    }
+}
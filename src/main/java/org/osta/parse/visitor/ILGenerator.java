@@ -1,37 +1,24 @@
 package org.osta.parse.visitor;
 
-import org.osta.parse.ast.*;
+/**
+ * Lowers the AST to a textual stack based IL, one instruction per line.
+ * Declarations open a block that is closed by {@code end}, expressions push their value on the stack and
+ * statements leave it as they found it. Calls always push a single value, so expression statements {@code pop} it.
+ */
+public class ILGenerator extends ILLowering {
 
-public class ILGenerator implements Visitor {
+    private final TextILEmitter text;
 
-    StringBuilder sb = new StringBuilder();
-
-    @Override
-    public void visit(ItemAST ast) {
-        sb.append(ast.value());
-    }
-
-    @Override
-    public void visit(LiteralAST ast) {
-        sb.append(ast.value());
-    }
-
-    @Override
-    public void visit(RegexAST ast) {
-        sb.append(ast.value());
-    }
-
-    @Override 
-    public void visit(ExprAST ast) {
-        // TODO
+    public ILGenerator() {
+        this(new TextILEmitter());
     }
 
-    @Override
-    public void visit(StmtAST stmtAST) {
-        // TODO
+    private ILGenerator(TextILEmitter text) {
+        super(text);
+        this.text = text;
     }
 
     public String generate() {
-        return sb.toString();
+        return text.sb.toString();
     }
 }
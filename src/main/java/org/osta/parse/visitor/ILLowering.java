@@ -0,0 +1,151 @@
+package org.osta.parse.visitor;
+
+import org.osta.il.Opcode;
+import org.osta.parse.ast.*;
+
+import java.util.List;
+
+/**
+ * Lowers the AST to a stack based IL, the instructions go to an {@link ILEmitter} which encodes them.
+ * Declarations open a block that is closed by {@code end}, expressions push their value on the stack and
+ * statements leave it as they found it. Calls always push a single value, so expression statements {@code pop} it.
+ */
+abstract class ILLowering implements Visitor {
+
+    private final ILEmitter emitter;
+    private int depth;
+
+    ILLowering(ILEmitter emitter) {
+        this.emitter = emitter;
+    }
+
+    @Override
+    public void visit(ItemAST ast) {
+        emitter.verbatim(ast.value());
+    }
+
+    @Override
+    public void visit(LiteralAST ast) {
+        emitter.verbatim(ast.value());
+    }
+
+    @Override
+    public void visit(RegexAST ast) {
+        emitter.verbatim(ast.value());
+    }
+
+    @Override
+    public void visit(ExprAST ast) {
+        if (ast instanceof IntLiteralAST literal) {
+            emitter.constant(literal);
+        } else if (ast instanceof IdentifierAST identifier) {
+            emitter.instruction(Opcode.LOAD, identifier.identifier());
+        } else if (ast instanceof BinaryExprAST binary) {
+            binary.left().accept(this);
+            binary.right().accept(this);
+            emitter.instruction(Opcode.of(binary.op()));
+        } else if (ast instanceof MemberExprAST member) {
+            target(member.target());
+            emitter.instruction(Opcode.GETFIELD, member.member().identifier());
+        } else if (ast instanceof CallExprAST call) {
+            if (call.callee() instanceof IdentifierAST function) {
+                arguments(call.arguments());
+                emitter.instruction(Opcode.CALL, function.identifier(), call.arguments().size());
+            } else if (call.callee() instanceof MemberExprAST method) {
+                target(method.target());
+                arguments(call.arguments());
+                emitter.instruction(Opcode.INVOKE, method.member().identifier(), call.arguments().size());
+            } else {
+                call.callee().accept(this);
+                arguments(call.arguments());
+                emitter.instruction(Opcode.CALLI, null, call.arguments().size());
+            }
+        } else {
+            throw new IllegalStateException("Unsupported expression: " + ast.getClass().getSimpleName());
+        }
+    }
+
+    @Override
+    public void visit(StmtAST stmtAST) {
+        if (stmtAST instanceof VarDeclStmtAST varDecl) {
+            emitter.local(Opcode.LOCAL, varDecl.type().toString(), varDecl.name().identifier());
+            if (varDecl.value() != null) {
+                varDecl.value().accept(this);
+                emitter.instruction(Opcode.STORE, varDecl.name().identifier());
+            }
+        } else if (stmtAST instanceof AssignStmtAST assign) {
+            if (assign.target() instanceof IdentifierAST identifier) {
+                assign.value().accept(this);
+                emitter.instruction(Opcode.STORE, identifier.identifier());
+            } else if (assign.target() instanceof MemberExprAST member) {
+                target(member.target());
+                assign.value().accept(this);
+                emitter.instruction(Opcode.PUTFIELD, member.member().identifier());
+            } else {
+                throw new IllegalStateException("Unsupported assignment target: " + assign.target().getClass().getSimpleName());
+            }
+        } else if (stmtAST instanceof ExprStmtAST exprStmt) {
+            exprStmt.expr().accept(this);
+            emitter.instruction(Opcode.POP);
+        } else if (stmtAST instanceof ReturnStmtAST returnStmt) {
+            if (returnStmt.value() == null) {
+                emitter.instruction(Opcode.RET_VOID);
+            } else {
+                returnStmt.value().accept(this);
+                emitter.instruction(Opcode.RET);
+            }
+        } else if (stmtAST instanceof BlockStmtAST block) {
+            for (StmtAST statement : block.statements()) {
+                statement.accept(this);
+            }
+        } else {
+            throw new IllegalStateException("Unsupported statement: " + stmtAST.getClass().getSimpleName());
+        }
+    }
+
+    @Override
+    public void visit(DeclAST ast) {
+        if (ast instanceof TypeDeclAST type) {
+            emitter.typeHeader(type);
+            emitter.open();
+            depth++;
+            for (DeclAST member : type.members()) {
+                member.accept(this);
+            }
+            depth--;
+            emitter.close();
+        } else if (ast instanceof FieldDeclAST field) {
+            emitter.local(Opcode.FIELD, field.type().toString(), field.name());
+        } else if (ast instanceof FunctionDeclAST function) {
+            // Functions without a body are only declared and don't open a block
+            emitter.functionHeader(function);
+            if (function.body() != null) {
+                emitter.open();
+                depth++;
+                function.body().accept(this);
+                depth--;
+                emitter.close();
+            }
+        } else {
+            throw new IllegalStateException("Unsupported declaration: " + ast.getClass().getSimpleName());
+        }
+        if (depth == 0) {
+            emitter.declarationEnded();
+        }
+    }
+
+    /* Pushes the object a member belongs to, the current one for the implicit .member form */
+    private void target(ExprAST target) {
+        if (target == null) {
+            emitter.instruction(Opcode.LOAD_THIS);
+        } else {
+            target.accept(this);
+        }
+    }
+
+    private void arguments(List<ExprAST> arguments) {
+        for (ExprAST argument : arguments) {
+            argument.accept(this);
+        }
+    }
+}
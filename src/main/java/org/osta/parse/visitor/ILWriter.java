@@ -0,0 +1,143 @@
+package org.osta.parse.visitor;
+
+import org.jetbrains.annotations.NotNull;
+import org.osta.parse.ast.AST;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Lowers the AST to the same IL as {@link ILGenerator} but writes it out as it goes, instead of keeping all of it.
+ * The IL of a top level declaration is encoded as UTF-8 into a direct buffer as soon as the declaration ends, and the
+ * buffer is written to the channel whenever it fills up and at the end of every {@link #write(AST)}. Only the IL of the
+ * declaration being lowered and the buffer are ever held, and the buffer is reused for the whole output.
+ */
+public final class ILWriter extends ILLowering implements Flushable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final Encoder encoder;
+
+    /**
+     * @param bufferSize The size of the direct buffer the IL is encoded into, at least 4 bytes for any char
+     */
+    public ILWriter(@NotNull WritableByteChannel channel, int bufferSize) {
+        this(new Encoder(channel, bufferSize));
+    }
+
+    public ILWriter(@NotNull WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ILWriter(@NotNull OutputStream out) {
+        this(Channels.newChannel(out));
+    }
+
+    private ILWriter(Encoder encoder) {
+        super(encoder);
+        this.encoder = encoder;
+    }
+
+    /**
+     * Lowers the AST and writes out its IL, declaration by declaration.
+     */
+    public void write(@NotNull AST ast) throws IOException {
+        try {
+            ast.accept(this);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        flush();
+    }
+
+    /**
+     * Writes text as is, like a separator between the IL of two files.
+     */
+    public void append(@NotNull CharSequence text) throws IOException {
+        encoder.sb.append(text);
+        flush();
+    }
+
+    /**
+     * How many bytes were written to the channel so far.
+     */
+    public long written() {
+        return encoder.written;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        encoder.encode();
+        encoder.drain();
+    }
+
+    /* The text form, moved into the buffer whenever a top level declaration ends */
+    private static final class Encoder extends TextILEmitter {
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer;
+        private long written;
+
+        Encoder(WritableByteChannel channel, int bufferSize) {
+            if (bufferSize < 4) {
+                throw new IllegalArgumentException("Buffer size must be at least 4");
+            }
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        @Override
+        public void declarationEnded() {
+            try {
+                encode();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /* Moves the IL lowered so far into the buffer, lone surrogates become '?' like String.getBytes does */
+        private void encode() throws IOException {
+            int length = sb.length();
+            for (int i = 0; i < length; i++) {
+                if (buffer.remaining() < 4) {
+                    drain();
+                }
+                char c = sb.charAt(i);
+                if (c < 0x80) {
+                    buffer.put((byte) c);
+                } else if (c < 0x800) {
+                    buffer.put((byte) (0xC0 | c >> 6));
+                    buffer.put((byte) (0x80 | c & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(sb.charAt(i + 1))) {
+                        int codePoint = Character.toCodePoint(c, sb.charAt(++i));
+                        buffer.put((byte) (0xF0 | codePoint >> 18));
+                        buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                        buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                        buffer.put((byte) (0x80 | codePoint & 0x3F));
+                    } else {
+                        buffer.put((byte) '?');
+                    }
+                } else {
+                    buffer.put((byte) (0xE0 | c >> 12));
+                    buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                    buffer.put((byte) (0x80 | c & 0x3F));
+                }
+            }
+            sb.setLength(0);
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
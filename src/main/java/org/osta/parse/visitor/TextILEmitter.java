@@ -0,0 +1,100 @@
+package org.osta.parse.visitor;
+
+import org.osta.il.Opcode;
+import org.osta.parse.ast.FunctionDeclAST;
+import org.osta.parse.ast.IntLiteralAST;
+import org.osta.parse.ast.ParamAST;
+import org.osta.parse.ast.TraitDeclAST;
+import org.osta.parse.ast.TypeDeclAST;
+import org.osta.token.TokenType;
+
+/**
+ * Writes the text form of the IL into a StringBuilder, one instruction per line indented by the blocks it is in.
+ */
+class TextILEmitter implements ILEmitter {
+
+    final StringBuilder sb = new StringBuilder();
+    private int depth;
+
+    @Override
+    public void instruction(Opcode opcode) {
+        line(opcode.mnemonic());
+    }
+
+    @Override
+    public void instruction(Opcode opcode, String name) {
+        line(opcode.mnemonic(), " ", name);
+    }
+
+    @Override
+    public void instruction(Opcode opcode, String name, int count) {
+        if (name == null) {
+            line(opcode.mnemonic(), " ", count);
+        } else {
+            line(opcode.mnemonic(), " ", name, " ", count);
+        }
+    }
+
+    @Override
+    public void constant(IntLiteralAST literal) {
+        if (literal.type() == TokenType.I32) {
+            line("const ", literal.value());
+        } else {
+            line("const ", literal.bigValue(), " ", literal.type().lexeme());
+        }
+    }
+
+    @Override
+    public void local(Opcode opcode, String type, String name) {
+        line(opcode.mnemonic(), " ", type, " ", name);
+    }
+
+    @Override
+    public void typeHeader(TypeDeclAST type) {
+        StringBuilder header = new StringBuilder(type instanceof TraitDeclAST ? "trait " : "struct ");
+        header.append(type.name());
+        if (!type.parameters().isEmpty()) {
+            header.append('<').append(String.join(",", type.parameters())).append('>');
+        }
+        for (int i = 0; i < type.supertypes().size(); i++) {
+            header.append(i == 0 ? " : " : ", ").append(type.supertypes().get(i));
+        }
+        line(header);
+    }
+
+    @Override
+    public void functionHeader(FunctionDeclAST function) {
+        StringBuilder header = new StringBuilder(function.body() == null ? "declare " : "func ");
+        header.append(function.returnType()).append(' ').append(function.name()).append('(');
+        for (int i = 0; i < function.parameters().size(); i++) {
+            ParamAST parameter = function.parameters().get(i);
+            header.append(i == 0 ? "" : ", ").append(parameter.type()).append(' ').append(parameter.name());
+        }
+        header.append(')');
+        line(header);
+    }
+
+    @Override
+    public void verbatim(Object value) {
+        sb.append(value);
+    }
+
+    @Override
+    public void open() {
+        depth++;
+    }
+
+    @Override
+    public void close() {
+        depth--;
+        instruction(Opcode.END);
+    }
+
+    private void line(Object... parts) {
+        sb.append("  ".repeat(depth));
+        for (Object part : parts) {
+            sb.append(part);
+        }
+        sb.append('\n');
+    }
+}
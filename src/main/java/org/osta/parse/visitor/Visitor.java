@@ -13,4 +13,6 @@ public interface Visitor {
     void visit(ExprAST ast);
 
     void visit(StmtAST stmtAST);
+
+    void visit(DeclAST ast);
 }
@@ -3,37 +3,129 @@ package org.osta.text;
 import org.jetbrains.annotations.NotNull;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
+/**
+ * UTF-8 encoded bytes viewed as UTF-16 chars, usually a memory mapped source file.
+ * Sources that are plain ASCII, which is checked with one scan the first time the chars are needed, are read directly.
+ * Otherwise an index of the byte offset of every {@value #CHECKPOINT_INTERVAL}th char is built, and chars are decoded
+ * from the nearest checkpoint, or from the previously read char when reading in order.
+ * Instances are not thread safe, use {@link #duplicate()} to read the same source from another thread.
+ */
 public class BufferCharSequence implements CharSequence {
 
+    private static final int CHECKPOINT_SHIFT = 6;
+    private static final int CHECKPOINT_INTERVAL = 1 << CHECKPOINT_SHIFT;
+
     private final ByteBuffer buffer;
+    private final int base;
+    private final int byteLength;
+
+    private Index index;
+    private String string;
+    private ByteBuffer bytes;
+
+    /* The last decoded char, used to read in order without going back to a checkpoint */
+    private int cursorChar = -1;
+    private int cursorByte;
+    private boolean cursorLowHalf;
 
     public BufferCharSequence(ByteBuffer buffer) {
+        this(buffer, null);
+    }
+
+    private BufferCharSequence(ByteBuffer buffer, Index index) {
         this.buffer = buffer;
+        this.base = buffer.position();
+        this.byteLength = buffer.remaining();
+        this.index = index;
+    }
+
+    /**
+     * Returns a view of the same bytes that shares the decoded index but can be read independently.
+     */
+    public BufferCharSequence duplicate() {
+        return new BufferCharSequence(buffer.duplicate(), index());
+    }
+
+    /**
+     * Whether every byte is ASCII, so char indices and byte offsets are the same.
+     */
+    public boolean isAscii() {
+        return index().ascii;
+    }
+
+    /**
+     * Returns the bytes of the sequence, indexed like the chars when it {@link #isAscii()}.
+     * The buffer is shared by every call, so it should only be read with absolute gets.
+     */
+    public ByteBuffer bytes() {
+        if (bytes == null) {
+            bytes = buffer.slice(base, byteLength);
+        }
+        return bytes;
     }
 
     @Override
     public int length() {
-        return buffer.remaining();
+        return index().length;
     }
 
     @Override
     public char charAt(int index) {
-        return (char) buffer.get(buffer.position() + index);
+        Index idx = index();
+        if (idx.ascii) {
+            if (index < 0 || index >= byteLength) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (char) buffer.get(base + index);
+        }
+        if (index < 0 || index >= idx.length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        seek(idx, index);
+        return decodeAtCursor();
+    }
+
+    /**
+     * Compares a region of this sequence with a region of another one, without decoding into a {@link String}.
+     */
+    public boolean regionMatches(int index, @NotNull CharSequence other, int otherIndex, int length) {
+        if (index < 0 || otherIndex < 0 || index + length > length() || otherIndex + length > other.length()) {
+            return false;
+        }
+        if (isAscii()) {
+            for (int i = 0; i < length; i++) {
+                if ((char) buffer.get(base + index + i) != other.charAt(otherIndex + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (int i = 0; i < length; i++) {
+            if (charAt(index + i) != other.charAt(otherIndex + i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     @NotNull
     public CharSequence subSequence(int start, int end) {
-        // Return as string
-        int position = buffer.position();
-        int limit = buffer.limit();
-        buffer.position(position + start);
-        buffer.limit(position + end);
-        BufferCharSequence result = slice();
-        buffer.position(position);
-        buffer.limit(limit);
-        return result;
+        if (start < 0 || end > length() || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length());
+        }
+        if (isAscii()) {
+            return new BufferCharSequence(buffer.slice(base + start, end - start));
+        }
+        int startByte = byteOffset(start);
+        int endByte = byteOffset(end);
+        if (startByte < 0 || endByte < 0) {
+            // One of the bounds splits a surrogate pair, which can't be represented as bytes
+            return toString().substring(start, end);
+        }
+        return new BufferCharSequence(buffer.slice(base + startByte, endByte - startByte));
     }
 
     @Override
@@ -42,15 +134,180 @@ public class BufferCharSequence implements CharSequence {
         return asString();
     }
 
+    /**
+     * Decodes the whole sequence, the result is kept so it is only decoded once.
+     */
     public String asString() {
-        byte[] bytes = new byte[buffer.remaining()];
-        buffer.mark();
-        buffer.get(bytes);
-        buffer.reset();
-        return new String(bytes);
+        if (string == null) {
+            byte[] bytes = new byte[byteLength];
+            buffer.get(base, bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return string;
+    }
+
+    /* Returns the byte offset of the char, or -1 if the char is the low half of a surrogate pair */
+    private int byteOffset(int charIndex) {
+        Index idx = index();
+        if (charIndex == idx.length) {
+            return byteLength;
+        }
+        seek(idx, charIndex);
+        return cursorLowHalf ? -1 : cursorByte;
+    }
+
+    private Index index() {
+        if (index == null) {
+            index = Index.build(buffer, base, byteLength);
+        }
+        return index;
+    }
+
+    private void seek(Index idx, int charIndex) {
+        if (cursorChar < 0 || charIndex < cursorChar || charIndex - cursorChar > CHECKPOINT_INTERVAL) {
+            long checkpoint = idx.checkpoints[charIndex >> CHECKPOINT_SHIFT];
+            cursorChar = charIndex & -CHECKPOINT_INTERVAL;
+            cursorByte = (int) (checkpoint >>> 1);
+            cursorLowHalf = (checkpoint & 1) != 0;
+        }
+        while (cursorChar < charIndex) {
+            int size = sequenceLength(buffer, base, byteLength, cursorByte);
+            if (size == 4 && !cursorLowHalf) {
+                // Supplementary code points are two chars, the second one is in the same bytes
+                cursorLowHalf = true;
+            } else {
+                cursorLowHalf = false;
+                cursorByte += Math.abs(size);
+            }
+            cursorChar++;
+        }
+    }
+
+    private char decodeAtCursor() {
+        int codePoint = decode(buffer, base, byteLength, cursorByte);
+        if (Character.isBmpCodePoint(codePoint)) {
+            return (char) codePoint;
+        }
+        return cursorLowHalf ? Character.lowSurrogate(codePoint) : Character.highSurrogate(codePoint);
+    }
+
+    /*
+     * Number of bytes of the sequence starting at the offset, negated if they are malformed. Malformed bytes decode to
+     * one U+FFFD per sequence like the JDK decoder: the longest prefix of a valid sequence, or the lone byte if none
+     */
+    private static int sequenceLength(ByteBuffer buffer, int base, int byteLength, int offset) {
+        int lead = buffer.get(base + offset) & 0xFF;
+        int size;
+        if (lead < 0x80) {
+            return 1;
+        } else if (lead >= 0xC2 && lead < 0xE0) {
+            size = 2;
+        } else if (lead >= 0xE0 && lead < 0xF0) {
+            size = 3;
+        } else if (lead >= 0xF0 && lead < 0xF5) {
+            size = 4;
+        } else {
+            return -1;
+        }
+        int available = Math.min(size, byteLength - offset);
+        for (int i = 1; i < available; i++) {
+            if (!continues(lead, i, buffer.get(base + offset + i) & 0xFF)) {
+                return -i;
+            }
+        }
+        if (available < size) {
+            return -available;
+        }
+        // Surrogates are encoded like any other 3 byte sequence, they are rejected only once all of it is read
+        if (lead == 0xED && (buffer.get(base + offset + 1) & 0xFF) >= 0xA0) {
+            return -size;
+        }
+        return size;
+    }
+
+    /* Whether the byte can be at the position of a sequence, the second byte rules out overlong encodings and code
+       points past U+10FFFF */
+    private static boolean continues(int lead, int position, int value) {
+        if ((value & 0xC0) != 0x80) {
+            return false;
+        }
+        if (position == 1) {
+            return switch (lead) {
+                case 0xE0 -> value >= 0xA0;
+                case 0xF0 -> value >= 0x90;
+                case 0xF4 -> value < 0x90;
+                default -> true;
+            };
+        }
+        return true;
+    }
+
+    private static int decode(ByteBuffer buffer, int base, int byteLength, int offset) {
+        int lead = buffer.get(base + offset) & 0xFF;
+        int size = sequenceLength(buffer, base, byteLength, offset);
+        if (size < 0) {
+            return 0xFFFD;
+        }
+        if (size == 1) {
+            return lead;
+        }
+        int codePoint = lead & (0xFF >> (size + 1));
+        for (int i = 1; i < size; i++) {
+            codePoint = (codePoint << 6) | (buffer.get(base + offset + i) & 0x3F);
+        }
+        return codePoint;
     }
 
-    private BufferCharSequence slice() {
-        return new BufferCharSequence(buffer.slice(buffer.position(), buffer.limit() - buffer.position()));
+    private static final class Index {
+
+        final boolean ascii;
+        final int length;
+        /* The byte offset of every CHECKPOINT_INTERVALth char shifted left once, the low bit tells if the char is the
+           low half of a surrogate pair */
+        final long[] checkpoints;
+
+        private Index(boolean ascii, int length, long[] checkpoints) {
+            this.ascii = ascii;
+            this.length = length;
+            this.checkpoints = checkpoints;
+        }
+
+        static Index build(ByteBuffer buffer, int base, int byteLength) {
+            if (isAscii(buffer, base, byteLength)) {
+                return new Index(true, byteLength, null);
+            }
+
+            long[] checkpoints = new long[(byteLength >> CHECKPOINT_SHIFT) + 2];
+            int chars = 0;
+            int offset = 0;
+            while (offset < byteLength) {
+                int size = sequenceLength(buffer, base, byteLength, offset);
+                int units = size == 4 ? 2 : 1;
+                for (int unit = 0; unit < units; unit++) {
+                    if ((chars & (CHECKPOINT_INTERVAL - 1)) == 0) {
+                        checkpoints[chars >> CHECKPOINT_SHIFT] = ((long) offset << 1) | unit;
+                    }
+                    chars++;
+                }
+                offset += Math.abs(size);
+            }
+            return new Index(false, chars, checkpoints);
+        }
+
+        private static boolean isAscii(ByteBuffer buffer, int base, int byteLength) {
+            int i = 0;
+            // Eight bytes at a time, the byte order doesn't matter when testing every high bit
+            for (; i + Long.BYTES <= byteLength; i += Long.BYTES) {
+                if ((buffer.getLong(base + i) & 0x8080808080808080L) != 0) {
+                    return false;
+                }
+            }
+            for (; i < byteLength; i++) {
+                if (buffer.get(base + i) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
 }
@@ -0,0 +1,154 @@
+package org.osta.text;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The bytes of a file read through a sliding window of fixed size chunks, so a file of any size is read with the
+ * same memory.
+ * Positions are {@code long} byte offsets. Only the chunks from the one holding the {@link #released()} position up to
+ * the {@link #limit()} can be read, reading one loads it into the buffer of a chunk that was released. Whoever reads the
+ * source calls {@link #release(long)} once it is done with everything before a position, which moves the window on.
+ * <p>
+ * Chunks are read into buffers that are allocated once instead of being mapped, since a mapping is only unmapped when
+ * it is garbage collected and the window wouldn't really bound the memory used.
+ */
+public final class ChunkedSource implements AutoCloseable {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    public static final int DEFAULT_CHUNKS = 8;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int chunkShift;
+    private final ByteBuffer[] buffers;
+    /* The chunk held by each buffer, chunk k always goes in buffer k % buffers.length */
+    private final long[] loaded;
+    private long released;
+
+    private ChunkedSource(FileChannel channel, int chunkSize, int chunks) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+        this.buffers = new ByteBuffer[chunks];
+        for (int i = 0; i < chunks; i++) {
+            buffers[i] = ByteBuffer.allocateDirect(chunkSize);
+        }
+        this.loaded = new long[chunks];
+        Arrays.fill(loaded, -1);
+    }
+
+    public static ChunkedSource open(@NotNull Path path) throws IOException {
+        return open(path, DEFAULT_CHUNK_SIZE, DEFAULT_CHUNKS);
+    }
+
+    /**
+     * @param chunkSize The size of a chunk, a power of two
+     * @param chunks How many chunks the window holds, at least 2 so the window can move on without dropping the chunk
+     *               being read
+     */
+    public static ChunkedSource open(@NotNull Path path, int chunkSize, int chunks) throws IOException {
+        if (Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("Chunk size must be a power of two");
+        }
+        if (chunks < 2) {
+            throw new IllegalArgumentException("The window must hold at least 2 chunks");
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new ChunkedSource(channel, chunkSize, chunks);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * The position everything before which was released and can't be read anymore.
+     */
+    public long released() {
+        return released;
+    }
+
+    /**
+     * The first position past the window, it can't be read until more of the source is released.
+     */
+    public long limit() {
+        return Math.min(size, ((released >>> chunkShift) + buffers.length) << chunkShift);
+    }
+
+    /**
+     * Returns the byte at the position, between 0 and 255.
+     * @throws IllegalStateException If the position is outside of the window
+     */
+    public int byteAt(long position) throws IOException {
+        if (position < released || position >= limit()) {
+            throw new IllegalStateException("Position " + position + " is outside of the window from " + released
+                    + " to " + limit());
+        }
+        return chunk(position >>> chunkShift).get((int) (position & ((1 << chunkShift) - 1))) & 0xFF;
+    }
+
+    /**
+     * Decodes the bytes between the positions as UTF-8, the range has to be inside the window.
+     */
+    public String decode(long start, long end) throws IOException {
+        if (start < released || end > limit() || start > end) {
+            throw new IllegalStateException("Range " + start + " to " + end + " is outside of the window from "
+                    + released + " to " + limit());
+        }
+        byte[] bytes = new byte[(int) (end - start)];
+        int mask = (1 << chunkShift) - 1;
+        int copied = 0;
+        while (copied < bytes.length) {
+            long position = start + copied;
+            int offset = (int) (position & mask);
+            int length = Math.min(bytes.length - copied, mask + 1 - offset);
+            chunk(position >>> chunkShift).get(offset, bytes, copied, length);
+            copied += length;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gives up everything before the position, the chunks before its chunk are reused for the following ones.
+     */
+    public void release(long position) {
+        if (position > size) {
+            throw new IllegalArgumentException("Position " + position + " is past the end " + size);
+        }
+        released = Math.max(released, position);
+    }
+
+    private ByteBuffer chunk(long chunk) throws IOException {
+        int slot = (int) (chunk % buffers.length);
+        ByteBuffer buffer = buffers[slot];
+        if (loaded[slot] != chunk) {
+            buffer.clear();
+            long position = chunk << chunkShift;
+            while (buffer.hasRemaining() && position + buffer.position() < size) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            loaded[slot] = chunk;
+        }
+        return buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
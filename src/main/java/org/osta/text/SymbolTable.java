@@ -0,0 +1,243 @@
+package org.osta.text;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Interns names into dense int symbols, {@code 0} for the first distinct name, {@code 1} for the next and so on,
+ * so later phases can use them as array indices.
+ * Names are looked up straight from a range of the source, hashing and comparing its chars in place, so interning a
+ * name that was already seen doesn't allocate. Every distinct name is stored once, as chars in a shared pool, and
+ * turned into a {@link String} only when {@link #name(int)} asks for it.
+ * <p>
+ * The hash table is open addressed with linear probing and holds the symbol of each slot next to its hash, so a
+ * probe only compares chars when the hashes match. One table is meant to be shared by a whole compilation, it is
+ * safe to use from several threads.
+ * <p>
+ * Looking up a name that is already there doesn't lock. A symbol is added under the lock: its chars and offsets are
+ * written first and the symbol is then stored into its slot with release semantics. The slots, the chars and the
+ * offsets are published together in a volatile snapshot that is replaced whole whenever one of them grows, so a reader
+ * that sees the symbol with acquire semantics and then reads the snapshot sees its name too. A reader still probing
+ * slots that were rehashed meanwhile may miss a name added since and then looks again under the lock.
+ */
+public final class SymbolTable {
+
+    /** Returned by {@link #find(CharSequence, int, int)} for a name that was never interned */
+    public static final int NONE = -1;
+
+    private static final int EMPTY = -1;
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(int[].class);
+
+    /* The slots and the names, replaced whole when any of them grows */
+    private volatile Slots slots;
+
+    private String[] strings = new String[64];
+    private volatile int size;
+
+    public SymbolTable() {
+        this(64);
+    }
+
+    /**
+     * @param expected How many distinct names are expected, the table grows past it as needed
+     */
+    public SymbolTable(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+        slots = new Slots(capacity, new char[1024], new int[65]);
+    }
+
+    /**
+     * Returns the symbol of the name, adding it if it's new.
+     */
+    public int intern(@NotNull CharSequence name) {
+        return intern(name, 0, name.length());
+    }
+
+    /**
+     * Returns the symbol of the name between the offsets of the text, adding it if it's new.
+     */
+    public int intern(@NotNull CharSequence text, int start, int end) {
+        int hash = hash(text, start, end);
+        int symbol = probe(slots, text, start, end, hash);
+        if (symbol != NONE) {
+            return symbol;
+        }
+        synchronized (this) {
+            // Added by another thread since, or missed in slots that were rehashed meanwhile
+            Slots slots = this.slots;
+            symbol = probe(slots, text, start, end, hash);
+            return symbol != NONE ? symbol : add(slots, text, start, end, hash);
+        }
+    }
+
+    /**
+     * Returns the symbol of the name between the offsets of the text, or {@link #NONE} if it was never interned.
+     */
+    public int find(@NotNull CharSequence text, int start, int end) {
+        return probe(slots, text, start, end, hash(text, start, end));
+    }
+
+    /**
+     * Returns the name of the symbol, the same {@link String} every time.
+     */
+    public String name(int symbol) {
+        if (symbol < 0 || symbol >= size) {
+            throw new IndexOutOfBoundsException(symbol);
+        }
+        // Strings can be shared through a race, a stale array only holds fewer of them
+        String string = strings[symbol];
+        if (string != null) {
+            return string;
+        }
+        synchronized (this) {
+            string = strings[symbol];
+            if (string == null) {
+                Slots slots = this.slots;
+                int offset = slots.offsets[symbol];
+                string = new String(slots.chars, offset, slots.offsets[symbol + 1] - offset);
+                strings[symbol] = string;
+            }
+            return string;
+        }
+    }
+
+    /**
+     * How many distinct names were interned, every symbol is less than it.
+     */
+    public int size() {
+        return size;
+    }
+
+    private int probe(Slots slots, CharSequence text, int start, int end, int hash) {
+        int[] table = slots.table;
+        int slot = hash & slots.mask;
+        while (true) {
+            int symbol = (int) SLOT.getAcquire(table, slot * 2);
+            if (symbol == EMPTY) {
+                return NONE;
+            }
+            // The snapshot is read after the symbol, so it holds the name even if the slots being probed are stale
+            if (table[slot * 2 + 1] == hash && matches(this.slots, symbol, text, start, end)) {
+                return symbol;
+            }
+            slot = (slot + 1) & slots.mask;
+        }
+    }
+
+    /* Called under the lock with the current slots, which don't hold the name */
+    private int add(Slots slots, CharSequence text, int start, int end, int hash) {
+        int symbol = size;
+        int offset = slots.offsets[symbol];
+        int length = end - start;
+        if (offset + length > slots.chars.length) {
+            char[] grown = Arrays.copyOf(slots.chars, Math.max(slots.chars.length * 2, offset + length));
+            slots = publish(new Slots(slots, grown, slots.offsets));
+        }
+        char[] chars = slots.chars;
+        if (text instanceof String string) {
+            string.getChars(start, end, chars, offset);
+        } else {
+            for (int i = 0; i < length; i++) {
+                chars[offset + i] = text.charAt(start + i);
+            }
+        }
+        if (symbol == strings.length) {
+            strings = Arrays.copyOf(strings, strings.length * 2);
+            slots = publish(new Slots(slots, chars, Arrays.copyOf(slots.offsets, strings.length + 1)));
+        }
+        slots.offsets[symbol + 1] = offset + length;
+        int[] table = slots.table;
+        int slot = hash & slots.mask;
+        while (table[slot * 2] != EMPTY) {
+            slot = (slot + 1) & slots.mask;
+        }
+        table[slot * 2 + 1] = hash;
+        // Publishes the name along with the symbol
+        SLOT.setRelease(table, slot * 2, symbol);
+        size = symbol + 1;
+        // Kept at most half full so probe sequences stay short
+        if (size * 2 > slots.mask + 1) {
+            rehash(slots);
+        }
+        return symbol;
+    }
+
+    private static boolean matches(Slots slots, int symbol, CharSequence text, int start, int end) {
+        int[] offsets = slots.offsets;
+        int offset = offsets[symbol];
+        if (offsets[symbol + 1] - offset != end - start) {
+            return false;
+        }
+        char[] chars = slots.chars;
+        for (int i = start; i < end; i++) {
+            if (chars[offset++] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Slots publish(Slots slots) {
+        this.slots = slots;
+        return slots;
+    }
+
+    private void rehash(Slots slots) {
+        Slots rehashed = new Slots((slots.mask + 1) * 2, slots.chars, slots.offsets);
+        int[] table = slots.table;
+        for (int i = 0; i < table.length; i += 2) {
+            if (table[i] == EMPTY) {
+                continue;
+            }
+            int slot = table[i + 1] & rehashed.mask;
+            while (rehashed.table[slot * 2] != EMPTY) {
+                slot = (slot + 1) & rehashed.mask;
+            }
+            rehashed.table[slot * 2] = table[i];
+            rehashed.table[slot * 2 + 1] = table[i + 1];
+        }
+        // Filled before it is published, so readers see it whole
+        this.slots = rehashed;
+    }
+
+    /* The same hash as String.hashCode, mixed so names differing only in their last chars spread over the table */
+    private static int hash(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+
+    private static final class Slots {
+
+        /* Two ints per slot: the symbol or EMPTY and the hash of its name */
+        final int[] table;
+        final int mask;
+        /* The chars of every name one after the other, the name of a symbol ends where the next one starts */
+        final char[] chars;
+        final int[] offsets;
+
+        Slots(int capacity, char[] chars, int[] offsets) {
+            table = new int[capacity * 2];
+            Arrays.fill(table, EMPTY);
+            mask = capacity - 1;
+            this.chars = chars;
+            this.offsets = offsets;
+        }
+
+        /* The same slots with grown names */
+        Slots(Slots slots, char[] chars, int[] offsets) {
+            table = slots.table;
+            mask = slots.mask;
+            this.chars = chars;
+            this.offsets = offsets;
+        }
+    }
+}
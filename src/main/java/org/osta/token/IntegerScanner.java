@@ -0,0 +1,237 @@
+package org.osta.token;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads an integer literal in one pass over the source, without allocating.
+ * A literal is an optional sign, then decimal digits with an optional {@code e} exponent or {@code 0b}, {@code 0o} or
+ * {@code 0x} followed by digits of that base, then an optional type suffix from {@code i8} to {@code u128} or
+ * {@code usize}. The magnitude is read as an unsigned 128 bit integer, whether it fits the type of the literal is
+ * left to {@link #fits(TokenType)}.
+ * <p>
+ * A scanner holds the value of the last literal it read, so it is reused for every literal of a parse.
+ */
+public final class IntegerScanner {
+
+    /** The text isn't an integer literal. */
+    public static final int MALFORMED = -1;
+    /** The magnitude of the literal doesn't fit in 128 bits. */
+    public static final int OVERFLOW = -2;
+
+    private static final TokenType[] SUFFIXES = {
+            TokenType.I8, TokenType.I16, TokenType.I32, TokenType.I64, TokenType.I128,
+            TokenType.U8, TokenType.U16, TokenType.U32, TokenType.U64, TokenType.U128,
+            TokenType.USIZE
+    };
+
+    /* The largest high half that can still be multiplied by each base */
+    private static final long[] HIGH_LIMITS = new long[17];
+
+    static {
+        for (int base : new int[] {2, 8, 10, 16}) {
+            HIGH_LIMITS[base] = Long.divideUnsigned(-1L, base);
+        }
+    }
+
+    private long high;
+    private long low;
+    private boolean negative;
+    private TokenType suffix;
+
+    /**
+     * Reads the literal at the offset, it has to end before the limit at a char that can't continue it.
+     * @return The offset right after the literal, {@link #MALFORMED} or {@link #OVERFLOW}
+     */
+    public int scan(@NotNull CharSequence text, int offset, int limit) {
+        high = 0;
+        low = 0;
+        negative = false;
+        suffix = null;
+        if (offset < limit && (text.charAt(offset) == '+' || text.charAt(offset) == '-')) {
+            negative = text.charAt(offset) == '-';
+            offset++;
+        }
+        int base = 10;
+        if (offset + 1 < limit && text.charAt(offset) == '0') {
+            base = switch (text.charAt(offset + 1)) {
+                case 'b', 'B' -> 2;
+                case 'o', 'O' -> 8;
+                case 'x', 'X' -> 16;
+                default -> 10;
+            };
+            if (base != 10) {
+                offset += 2;
+            }
+        }
+
+        int start = offset;
+        boolean overflow = false;
+        int digit;
+        while (offset < limit && (digit = digit(text.charAt(offset), base)) >= 0) {
+            overflow |= !multiplyAdd(base, digit);
+            offset++;
+        }
+        if (offset == start) {
+            return MALFORMED;
+        }
+
+        if (base == 10 && offset + 1 < limit && (text.charAt(offset) | 0x20) == 'e') {
+            int at = offset + 1;
+            if (text.charAt(at) == '+') {
+                at++;
+            }
+            int exponentStart = at;
+            int exponent = 0;
+            while (at < limit && (digit = digit(text.charAt(at), 10)) >= 0) {
+                // Past 39 the exponent overflows anything but zero, counting on would only risk overflowing the int
+                exponent = Math.min(exponent * 10 + digit, 40);
+                at++;
+            }
+            if (at == exponentStart) {
+                return MALFORMED;
+            }
+            for (int i = 0; i < exponent && (high | low) != 0 && !overflow; i++) {
+                overflow = !multiplyAdd(10, 0);
+            }
+            offset = at;
+        }
+
+        if (offset < limit && (text.charAt(offset) == 'i' || text.charAt(offset) == 'u')) {
+            offset = suffix(text, offset, limit);
+            if (offset < 0) {
+                return MALFORMED;
+            }
+        }
+        if (offset < limit && isIdentifierPart(text.charAt(offset))) {
+            return MALFORMED;
+        }
+        return overflow ? OVERFLOW : offset;
+    }
+
+    /**
+     * Whether the value of the last literal fits in the number type.
+     */
+    public boolean fits(@NotNull TokenType type) {
+        int bits = bits(type);
+        if (type.lexeme().charAt(0) == 'u') {
+            return (!negative || (high | low) == 0) && belowPowerOfTwo(bits);
+        }
+        return belowPowerOfTwo(bits - 1) || negative && isPowerOfTwo(bits - 1);
+    }
+
+    /**
+     * The number of bits of an integer type, from {@link TokenType#I8} to {@link TokenType#U128} and
+     * {@link TokenType#USIZE}.
+     */
+    public static int bits(@NotNull TokenType type) {
+        return switch (type) {
+            case I8, U8 -> 8;
+            case I16, U16 -> 16;
+            case I32, U32 -> 32;
+            case I64, U64, USIZE -> 64;
+            case I128, U128 -> 128;
+            default -> throw new IllegalArgumentException(type + " isn't an integer type");
+        };
+    }
+
+    /**
+     * The high 64 bits of the value as a 128 bit two's complement integer.
+     */
+    public long high() {
+        return negative ? ~high + (low == 0 ? 1 : 0) : high;
+    }
+
+    /**
+     * The low 64 bits of the value as a 128 bit two's complement integer.
+     */
+    public long low() {
+        return negative ? -low : low;
+    }
+
+    public boolean isNegative() {
+        return negative;
+    }
+
+    /**
+     * The type suffix of the last literal, {@code null} if it has none.
+     */
+    @Nullable
+    public TokenType suffix() {
+        return suffix;
+    }
+
+    /* magnitude = magnitude * base + digit, returns false if it overflows 128 bits */
+    private boolean multiplyAdd(int base, int digit) {
+        if (Long.compareUnsigned(high, HIGH_LIMITS[base]) > 0) {
+            return false;
+        }
+        // The unsigned high half of low * base
+        long carry = Math.multiplyHigh(low, base) + ((low >> 63) & base);
+        long newLow = low * base + digit;
+        if (Long.compareUnsigned(newLow, low * base) < 0) {
+            carry++;
+        }
+        long newHigh = high * base + carry;
+        if (Long.compareUnsigned(newHigh, high * base) < 0) {
+            return false;
+        }
+        high = newHigh;
+        low = newLow;
+        return true;
+    }
+
+    private boolean belowPowerOfTwo(int bits) {
+        if (bits >= 128) {
+            return true;
+        }
+        if (bits >= 64) {
+            return Long.compareUnsigned(high, 1L << (bits - 64)) < 0;
+        }
+        return high == 0 && Long.compareUnsigned(low, 1L << bits) < 0;
+    }
+
+    private boolean isPowerOfTwo(int bits) {
+        if (bits >= 64) {
+            return low == 0 && high == 1L << (bits - 64);
+        }
+        return high == 0 && low == 1L << bits;
+    }
+
+    private int suffix(CharSequence text, int offset, int limit) {
+        for (TokenType type : SUFFIXES) {
+            String lexeme = type.lexeme();
+            if (offset + lexeme.length() <= limit && matches(text, offset, lexeme)
+                    && (offset + lexeme.length() == limit || !isIdentifierPart(text.charAt(offset + lexeme.length())))) {
+                suffix = type;
+                return offset + lexeme.length();
+            }
+        }
+        return MALFORMED;
+    }
+
+    private static boolean matches(CharSequence text, int offset, String lexeme) {
+        for (int i = 0; i < lexeme.length(); i++) {
+            if (text.charAt(offset + i) != lexeme.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digit(char c, int base) {
+        int value;
+        if (c >= '0' && c <= '9') {
+            value = c - '0';
+        } else if ((c | 0x20) >= 'a' && (c | 0x20) <= 'f') {
+            value = (c | 0x20) - 'a' + 10;
+        } else {
+            return -1;
+        }
+        return value < base ? value : -1;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+    }
+}
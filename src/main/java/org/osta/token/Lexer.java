@@ -0,0 +1,268 @@
+package org.osta.token;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Table driven lexer, scans a source once into a {@link TokenBuffer}.
+ * Whitespace and comments are skipped, characters that don't start any token become {@link TokenType#INVALID}.
+ */
+public final class Lexer {
+
+    private static final byte OTHER = 0;
+    private static final byte SPACE = 1;
+    private static final byte LETTER = 2;
+    private static final byte DIGIT = 3;
+    private static final byte PUNCT = 4;
+    private static final byte QUOTE = 5;
+
+    private static final byte[] CLASSES = new byte[128];
+    /* Keywords by their first letter, keywords are lowercase ASCII */
+    private static final TokenType[][] KEYWORDS = new TokenType[26][];
+
+    static {
+        for (char c : " \t\n\r\f\u000B".toCharArray()) {
+            CLASSES[c] = SPACE;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            CLASSES[c] = LETTER;
+            CLASSES[Character.toUpperCase(c)] = LETTER;
+        }
+        CLASSES['_'] = LETTER;
+        for (char c = '0'; c <= '9'; c++) {
+            CLASSES[c] = DIGIT;
+        }
+        for (char c : "(){}[],;:.?!+-*/%&|^~<>=".toCharArray()) {
+            CLASSES[c] = PUNCT;
+        }
+        CLASSES['"'] = QUOTE;
+        CLASSES['\''] = QUOTE;
+
+        for (char first = 'a'; first <= 'z'; first++) {
+            int count = 0;
+            for (TokenType type : TokenType.values()) {
+                if (type.isKeyword() && type.lexeme().charAt(0) == first) {
+                    count++;
+                }
+            }
+            KEYWORDS[first - 'a'] = new TokenType[count];
+            for (TokenType type : TokenType.values()) {
+                if (type.isKeyword() && type.lexeme().charAt(0) == first) {
+                    KEYWORDS[first - 'a'][--count] = type;
+                }
+            }
+        }
+    }
+
+    private final CharSequence source;
+    private final int length;
+    private final TokenBuffer tokens;
+    private int offset;
+
+    private Lexer(CharSequence source) {
+        this.source = source;
+        this.length = source.length();
+        // Source code averages a token every few characters
+        this.tokens = new TokenBuffer(length / 4);
+    }
+
+    public static TokenBuffer lex(@NotNull CharSequence source) {
+        Lexer lexer = new Lexer(source);
+        lexer.run();
+        return lexer.tokens;
+    }
+
+    /**
+     * Returns the offset of the first character at or after the given offset that isn't whitespace or a comment.
+     */
+    public static int skipTrivia(@NotNull CharSequence source, int offset) {
+        return TriviaSkipper.skip(source, offset);
+    }
+
+    private void run() {
+        while (true) {
+            offset = skipTrivia(source, offset);
+            if (offset >= length) {
+                break;
+            }
+            int start = offset;
+            char c = source.charAt(offset);
+            byte cls = c < 128 ? CLASSES[c] : OTHER;
+            TokenType type = switch (cls) {
+                case LETTER -> identifierOrKeyword();
+                case DIGIT -> number();
+                case PUNCT -> punctuation(c);
+                case QUOTE -> quoted(c);
+                default -> {
+                    offset++;
+                    yield TokenType.INVALID;
+                }
+            };
+            tokens.add(type.ordinal(), start, offset - start);
+        }
+        tokens.add(TokenType.EOF.ordinal(), length, 0);
+    }
+
+    private boolean isIdentifierPart(int at) {
+        if (at >= length) {
+            return false;
+        }
+        char c = source.charAt(at);
+        return c < 128 && (CLASSES[c] == LETTER || CLASSES[c] == DIGIT);
+    }
+
+    private TokenType identifierOrKeyword() {
+        int start = offset;
+        char first = source.charAt(offset);
+        do {
+            offset++;
+        } while (isIdentifierPart(offset));
+
+        if (first < 'a' || first > 'z') {
+            return TokenType.IDENTIFIER;
+        }
+        int length = offset - start;
+        for (TokenType keyword : KEYWORDS[first - 'a']) {
+            String lexeme = keyword.lexeme();
+            if (lexeme.length() == length && matches(lexeme, start)) {
+                return keyword;
+            }
+        }
+        return TokenType.IDENTIFIER;
+    }
+
+    private boolean matches(String lexeme, int at) {
+        for (int i = 1; i < lexeme.length(); i++) {
+            if (source.charAt(at + i) != lexeme.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private TokenType number() {
+        char first = source.charAt(offset);
+        char second = offset + 1 < length ? source.charAt(offset + 1) : 0;
+        if (first == '0' && "bBoOxX".indexOf(second) >= 0) {
+            offset += 2;
+            while (isIdentifierPart(offset)) {
+                offset++;
+            }
+            return TokenType.INTEGER;
+        }
+
+        skipDigits();
+        TokenType type = TokenType.INTEGER;
+        if (peek(0) == '.' && isDigit(peek(1))) {
+            offset++;
+            skipDigits();
+            type = TokenType.FLOAT;
+        }
+        char e = peek(0);
+        if ((e == 'e' || e == 'E') && (isDigit(peek(1)) || ((peek(1) == '+' || peek(1) == '-') && isDigit(peek(2))))) {
+            offset += isDigit(peek(1)) ? 1 : 2;
+            skipDigits();
+        }
+        // Suffixes and malformed digits stay in the token, the literal parser reports them
+        while (isIdentifierPart(offset)) {
+            offset++;
+        }
+        return type;
+    }
+
+    private void skipDigits() {
+        while (isDigit(peek(0))) {
+            offset++;
+        }
+    }
+
+    private char peek(int ahead) {
+        int at = offset + ahead;
+        return at < length ? source.charAt(at) : 0;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private TokenType quoted(char quote) {
+        offset++;
+        while (offset < length) {
+            char c = source.charAt(offset++);
+            if (c == '\\') {
+                offset++;
+            } else if (c == quote) {
+                return quote == '"' ? TokenType.STRING : TokenType.CHAR;
+            } else if (c == '\n') {
+                break;
+            }
+        }
+        offset = Math.min(offset, length);
+        return TokenType.INVALID;
+    }
+
+    private TokenType punctuation(char c) {
+        offset++;
+        char next = peek(0);
+        switch (c) {
+            case '(': return TokenType.LEFT_PAREN;
+            case ')': return TokenType.RIGHT_PAREN;
+            case '{': return TokenType.LEFT_BRACE;
+            case '}': return TokenType.RIGHT_BRACE;
+            case '[': return TokenType.LEFT_BRACKET;
+            case ']': return TokenType.RIGHT_BRACKET;
+            case ',': return TokenType.COMMA;
+            case ';': return TokenType.SEMICOLON;
+            case ':': return TokenType.COLON;
+            case '.': return TokenType.DOT;
+            case '?': return TokenType.QUESTION;
+            case '~': return TokenType.TILDE;
+            case '!': return withEqual(next, TokenType.EXCLAMATION, TokenType.NOT_EQUAL);
+            case '=': return withEqual(next, TokenType.EQUAL, TokenType.EQUAL_EQUAL);
+            case '+': return withEqual(next, TokenType.PLUS, TokenType.PLUS_EQUAL);
+            case '*': return withEqual(next, TokenType.STAR, TokenType.STAR_EQUAL);
+            case '/':
+                if (next == '*') {
+                    // skipTrivia only stops at a comment when it is unterminated
+                    offset = length;
+                    return TokenType.INVALID;
+                }
+                return withEqual(next, TokenType.SLASH, TokenType.SLASH_EQUAL);
+            case '%': return withEqual(next, TokenType.PERCENT, TokenType.PERCENT_EQUAL);
+            case '&': return withEqual(next, TokenType.AMPERSAND, TokenType.AMPERSAND_EQUAL);
+            case '|': return withEqual(next, TokenType.PIPE, TokenType.PIPE_EQUAL);
+            case '^': return withEqual(next, TokenType.CARET, TokenType.CARET_EQUAL);
+            case '-':
+                if (next == '>') {
+                    offset++;
+                    return TokenType.ARROW;
+                }
+                return withEqual(next, TokenType.MINUS, TokenType.MINUS_EQUAL);
+            case '<':
+                if (next == '<') {
+                    offset++;
+                    return withEqual(peek(0), TokenType.LEFT_SHIFT, TokenType.LEFT_SHIFT_EQUAL);
+                }
+                return withEqual(next, TokenType.LESS, TokenType.LESS_EQUAL);
+            case '>':
+                if (next == '>') {
+                    offset++;
+                    if (peek(0) == '>') {
+                        offset++;
+                        return withEqual(peek(0), TokenType.ARITHMETIC_RIGHT_SHIFT, TokenType.ARITHMETIC_RIGHT_SHIFT_EQUAL);
+                    }
+                    return withEqual(peek(0), TokenType.RIGHT_SHIFT, TokenType.RIGHT_SHIFT_EQUAL);
+                }
+                return withEqual(next, TokenType.GREATER, TokenType.GREATER_EQUAL);
+            default:
+                return TokenType.INVALID;
+        }
+    }
+
+    private TokenType withEqual(char next, TokenType single, TokenType withEqual) {
+        if (next == '=') {
+            offset++;
+            return withEqual;
+        }
+        return single;
+    }
+}
@@ -0,0 +1,85 @@
+package org.osta.token;
+
+import java.util.Arrays;
+
+/**
+ * The tokens of a source, stored as parallel arrays so a file of any size is three {@code int[]}.
+ * A token is referred to by its index, its kind is the ordinal of its {@link TokenType}.
+ * The last token is always an {@link TokenType#EOF} of length 0 at the end of the source.
+ */
+public final class TokenBuffer {
+
+    private int[] kinds;
+    private int[] starts;
+    private int[] lengths;
+    private int size;
+
+    TokenBuffer(int capacity) {
+        capacity = Math.max(capacity, 16);
+        kinds = new int[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+    }
+
+    void add(int kind, int start, int length) {
+        if (size == kinds.length) {
+            int capacity = size + (size >> 1);
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        kinds[size] = kind;
+        starts[size] = start;
+        lengths[size] = length;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int kind(int index) {
+        return kinds[index];
+    }
+
+    public TokenType type(int index) {
+        return TokenType.of(kinds[index]);
+    }
+
+    public int start(int index) {
+        return starts[index];
+    }
+
+    public int length(int index) {
+        return lengths[index];
+    }
+
+    public int end(int index) {
+        return starts[index] + lengths[index];
+    }
+
+    public CharSequence text(CharSequence source, int index) {
+        return source.subSequence(starts[index], starts[index] + lengths[index]);
+    }
+
+    /**
+     * Returns the index of the first token at or after the given offset, skipping the trivia in between.
+     * @return The index of the token, or -1 if the offset is inside a token
+     */
+    public int indexAt(int offset) {
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low > 0 && starts[low - 1] + lengths[low - 1] > offset) {
+            return -1;
+        }
+        return low;
+    }
+}
@@ -2,31 +2,74 @@ package org.osta.token;
 
 public enum TokenType {
     // Keywords
-    STRUCT, TRAIT, ENUM,
-    AUTO, STATIC, CONST,
-    IF, ELSE,
-    WHILE, FOR, DO,
-    BREAK, CONTINUE, RETURN, DEFER,
-    I8, I16, I32, I64, I128,
-    U8, U16, U32, U64, U128,
-    F32, F64,
-    USIZE,
+    STRUCT("struct"), TRAIT("trait"), ENUM("enum"),
+    AUTO("auto"), STATIC("static"), CONST("const"),
+    IF("if"), ELSE("else"),
+    WHILE("while"), FOR("for"), DO("do"),
+    BREAK("break"), CONTINUE("continue"), RETURN("return"), DEFER("defer"),
+    I8("i8"), I16("i16"), I32("i32"), I64("i64"), I128("i128"),
+    U8("u8"), U16("u16"), U32("u32"), U64("u64"), U128("u128"),
+    F32("f32"), F64("f64"),
+    USIZE("usize"),
     // Literals
     IDENTIFIER, INTEGER, FLOAT, STRING, CHAR,
     // Delimiters
-    LEFT_PAREN, RIGHT_PAREN, LEFT_BRACE, RIGHT_BRACE, LEFT_BRACKET, RIGHT_BRACKET,
-    COMMA, SEMICOLON, COLON, DOT,
-    QUESTION, EXCLAMATION,
+    LEFT_PAREN("("), RIGHT_PAREN(")"), LEFT_BRACE("{"), RIGHT_BRACE("}"), LEFT_BRACKET("["), RIGHT_BRACKET("]"),
+    COMMA(","), SEMICOLON(";"), COLON(":"), DOT("."),
+    QUESTION("?"), EXCLAMATION("!"),
     // Operators
-    PLUS, MINUS, STAR, SLASH, PERCENT,
-    AMPERSAND, PIPE, CARET, TILDE, LEFT_SHIFT, RIGHT_SHIFT, ARITHMETIC_RIGHT_SHIFT,
+    PLUS("+"), MINUS("-"), STAR("*"), SLASH("/"), PERCENT("%"),
+    AMPERSAND("&"), PIPE("|"), CARET("^"), TILDE("~"), LEFT_SHIFT("<<"), RIGHT_SHIFT(">>"), ARITHMETIC_RIGHT_SHIFT(">>>"),
     // Comparison
-    EQUAL_EQUAL, NOT_EQUAL, LESS, LESS_EQUAL, GREATER, GREATER_EQUAL,
+    EQUAL_EQUAL("=="), NOT_EQUAL("!="), LESS("<"), LESS_EQUAL("<="), GREATER(">"), GREATER_EQUAL(">="),
     // Assignment
-    EQUAL, PLUS_EQUAL, MINUS_EQUAL, STAR_EQUAL, SLASH_EQUAL, PERCENT_EQUAL,
-    AMPERSAND_EQUAL, PIPE_EQUAL, CARET_EQUAL, LEFT_SHIFT_EQUAL, RIGHT_SHIFT_EQUAL, ARITHMETIC_RIGHT_SHIFT_EQUAL,
+    EQUAL("="), PLUS_EQUAL("+="), MINUS_EQUAL("-="), STAR_EQUAL("*="), SLASH_EQUAL("/="), PERCENT_EQUAL("%="),
+    AMPERSAND_EQUAL("&="), PIPE_EQUAL("|="), CARET_EQUAL("^="), LEFT_SHIFT_EQUAL("<<="), RIGHT_SHIFT_EQUAL(">>="), ARITHMETIC_RIGHT_SHIFT_EQUAL(">>>="),
     // Misc
-    ARROW,
+    ARROW("->"),
+    // Anything the lexer can't recognize, the parser reports it
+    INVALID,
     // EOF
     EOF;
+
+    private static final TokenType[] VALUES = values();
+
+    private final String lexeme;
+
+    TokenType() {
+        this(null);
+    }
+
+    TokenType(String lexeme) {
+        this.lexeme = lexeme;
+    }
+
+    /**
+     * Returns the fixed spelling of the token, or {@code null} for tokens whose text varies like identifiers.
+     */
+    public String lexeme() {
+        return lexeme;
+    }
+
+    public boolean isKeyword() {
+        return ordinal() <= USIZE.ordinal();
+    }
+
+    /**
+     * Whether the token is one of the builtin number types, from {@link #I8} to {@link #USIZE}.
+     */
+    public boolean isPrimitiveType() {
+        return ordinal() >= I8.ordinal() && ordinal() <= USIZE.ordinal();
+    }
+
+    /**
+     * Whether the token is one of the builtin integer types, from {@link #I8} to {@link #U128} or {@link #USIZE}.
+     */
+    public boolean isIntegerType() {
+        return isPrimitiveType() && this != F32 && this != F64;
+    }
+
+    public static TokenType of(int kind) {
+        return VALUES[kind];
+    }
 }
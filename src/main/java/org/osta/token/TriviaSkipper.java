@@ -0,0 +1,75 @@
+package org.osta.token;
+
+import org.jetbrains.annotations.NotNull;
+import org.osta.text.BufferCharSequence;
+
+/**
+ * Skips whitespace and comments, the trivia between tokens.
+ * ASCII sources backed by a buffer, like mapped files, are scanned with the incubator Vector API a whole vector of
+ * bytes at a time when the {@code jdk.incubator.vector} module is in the boot layer, that is when the JVM runs with
+ * {@code --add-modules jdk.incubator.vector}. Other sources, or any source when the module is missing or
+ * {@code -Dosta.vector=false} is set, are scanned one char at a time.
+ */
+public final class TriviaSkipper {
+
+    /**
+     * Whether buffer backed sources are scanned with vectors.
+     */
+    public static final boolean VECTORIZED = !"false".equals(System.getProperty("osta.vector"))
+            && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private TriviaSkipper() {}
+
+    /**
+     * Returns the offset of the first char at or after the given offset that isn't whitespace or a comment.
+     * An unterminated block comment isn't skipped, it is left for the lexer to report.
+     */
+    public static int skip(@NotNull CharSequence source, int offset) {
+        // VectorTrivia is only loaded when the branch is taken, so the module doesn't have to be there otherwise
+        if (VECTORIZED && source instanceof BufferCharSequence buffer && buffer.isAscii()) {
+            return VectorTrivia.skip(buffer.bytes(), offset, buffer.length());
+        }
+        return scalar(source, offset);
+    }
+
+    static int scalar(CharSequence source, int offset) {
+        int length = source.length();
+        while (offset < length) {
+            char c = source.charAt(offset);
+            if (isSpace(c)) {
+                offset++;
+            } else if (c == '/' && offset + 1 < length && source.charAt(offset + 1) == '/') {
+                offset += 2;
+                while (offset < length && source.charAt(offset) != '\n') {
+                    offset++;
+                }
+            } else if (c == '/' && offset + 1 < length && source.charAt(offset + 1) == '*') {
+                int end = blockCommentEnd(source, offset + 2);
+                if (end < 0) {
+                    return offset;
+                }
+                offset = end;
+            } else {
+                return offset;
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Whether the char is one of the ASCII whitespace chars, the ones {@code \s} matches.
+     */
+    static boolean isSpace(int c) {
+        return c == ' ' || c >= '\t' && c <= '\r';
+    }
+
+    private static int blockCommentEnd(CharSequence source, int offset) {
+        int length = source.length();
+        for (; offset + 1 < length; offset++) {
+            if (source.charAt(offset) == '*' && source.charAt(offset + 1) == '/') {
+                return offset + 2;
+            }
+        }
+        return -1;
+    }
+}
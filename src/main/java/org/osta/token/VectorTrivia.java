@@ -0,0 +1,86 @@
+package org.osta.token;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The vectorized scan of {@link TriviaSkipper}, over the bytes of an ASCII source.
+ * Runs of whitespace and the bodies of comments are scanned as many bytes at a time as the preferred vector size, 16
+ * to 64 depending on the CPU, and only the tail that doesn't fill a vector is scanned a byte at a time.
+ */
+final class VectorTrivia {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    private VectorTrivia() {}
+
+    static int skip(ByteBuffer bytes, int offset, int length) {
+        while (true) {
+            offset = skipSpaces(bytes, offset, length);
+            if (offset + 1 >= length || bytes.get(offset) != '/') {
+                return offset;
+            }
+            byte next = bytes.get(offset + 1);
+            if (next == '/') {
+                offset = find(bytes, offset + 2, length, (byte) '\n');
+            } else if (next == '*') {
+                int end = blockCommentEnd(bytes, offset + 2, length);
+                if (end < 0) {
+                    return offset;
+                }
+                offset = end;
+            } else {
+                return offset;
+            }
+        }
+    }
+
+    private static int skipSpaces(ByteBuffer bytes, int offset, int length) {
+        for (; offset + LANES <= length; offset += LANES) {
+            ByteVector vector = ByteVector.fromByteBuffer(SPECIES, bytes, offset, ByteOrder.nativeOrder());
+            VectorMask<Byte> spaces = vector.eq((byte) ' ')
+                    .or(vector.compare(VectorOperators.GE, (byte) '\t').and(vector.compare(VectorOperators.LE, (byte) '\r')));
+            int first = spaces.not().firstTrue();
+            if (first < LANES) {
+                return offset + first;
+            }
+        }
+        while (offset < length && TriviaSkipper.isSpace(bytes.get(offset))) {
+            offset++;
+        }
+        return offset;
+    }
+
+    /* The offset of the first byte equal to the value, or the length if there is none */
+    private static int find(ByteBuffer bytes, int offset, int length, byte value) {
+        for (; offset + LANES <= length; offset += LANES) {
+            int first = ByteVector.fromByteBuffer(SPECIES, bytes, offset, ByteOrder.nativeOrder()).eq(value).firstTrue();
+            if (first < LANES) {
+                return offset + first;
+            }
+        }
+        while (offset < length && bytes.get(offset) != value) {
+            offset++;
+        }
+        return offset;
+    }
+
+    private static int blockCommentEnd(ByteBuffer bytes, int offset, int length) {
+        while (true) {
+            offset = find(bytes, offset, length - 1, (byte) '*');
+            if (offset >= length - 1) {
+                return -1;
+            }
+            if (bytes.get(offset + 1) == '/') {
+                return offset + 2;
+            }
+            offset++;
+        }
+    }
+}
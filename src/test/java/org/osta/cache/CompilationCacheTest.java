@@ -0,0 +1,168 @@
+package org.osta.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompilationCacheTest {
+
+    private static ByteBuffer source(String source) {
+        return ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void xxHash64() {
+        assertEquals(0xEF46DB3751D8E999L, XXHash64.hash(new byte[0], 0));
+        assertEquals(0xD24EC4F1A98C6E5BL, XXHash64.hash("a".getBytes(StandardCharsets.UTF_8), 0));
+        assertEquals(0x44BC2CF5AD770999L, XXHash64.hash("abc".getBytes(StandardCharsets.UTF_8), 0));
+        assertEquals(0x32DD38952C4BC720L, XXHash64.hash("xxhash".getBytes(StandardCharsets.UTF_8), 0));
+        assertEquals(0xB559B98D844E0635L, XXHash64.hash("xxhash".getBytes(StandardCharsets.UTF_8), 20141025));
+        // Long enough for the 32 byte steps
+        ByteBuffer buffer = source("..Nobody inspects the spammish repetition..");
+        buffer.position(2).limit(buffer.limit() - 2);
+        assertEquals(0xFBCEA83C8A378BF1L, XXHash64.hash(buffer, 0));
+        assertEquals(2, buffer.position());
+    }
+
+    @Test
+    void missThenHit(@TempDir Path dir) throws Exception {
+        CompilationCache cache = CompilationCache.open(dir, "v1", CompilationCache.DEFAULT_MAX_SIZE);
+        CompilationCache.Key key = cache.key(source("i32 main() { return 0; }"));
+        assertNull(cache.get(key));
+        cache.put(key, "func i32 main()\n  const 0\n  ret\nend\n");
+        assertEquals("func i32 main()\n  const 0\n  ret\nend\n", cache.get(key));
+        cache.put(key, "");
+        assertEquals("", cache.get(key));
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+
+        // Another salt is another compiler, a reopened cache sees what is on disk
+        CompilationCache other = CompilationCache.open(dir, "v2", CompilationCache.DEFAULT_MAX_SIZE);
+        assertNull(other.get(other.key(source("i32 main() { return 0; }"))));
+        CompilationCache reopened = CompilationCache.open(dir, "v1", CompilationCache.DEFAULT_MAX_SIZE);
+        assertEquals("", reopened.get(key));
+        assertEquals(56, reopened.size());
+    }
+
+    @Test
+    void collisionsMiss(@TempDir Path dir) throws Exception {
+        CompilationCache cache = CompilationCache.open(dir, "v1", CompilationCache.DEFAULT_MAX_SIZE);
+        CompilationCache.Key key = cache.key(source("void f() {}"));
+        cache.put(key, "func void f()\nend\n");
+        // Another source of the same size whose hash collides, or the same source under another salt
+        byte[] digest = cache.key(source("void g() {}")).digest();
+        assertNull(cache.get(new CompilationCache.Key(key.hash(), key.size(), digest)));
+        CompilationCache other = CompilationCache.open(dir, "v2", CompilationCache.DEFAULT_MAX_SIZE);
+        CompilationCache.Key salted = other.key(source("void f() {}"));
+        assertNull(cache.get(new CompilationCache.Key(key.hash(), key.size(), salted.digest())));
+        assertEquals("func void f()\nend\n", cache.get(cache.key(source("void f() {}"))));
+    }
+
+    @Test
+    void compilerVersion() {
+        // Not run from a versioned jar, so the classes tell the builds apart
+        String version = CompilationCache.compilerVersion();
+        assertTrue(version.matches("dev\\+[0-9a-f]{64}"), version);
+        assertEquals(version, CompilationCache.compilerVersion());
+    }
+
+    @Test
+    void corruptEntriesMiss(@TempDir Path dir) throws Exception {
+        CompilationCache cache = CompilationCache.open(dir, "v1", CompilationCache.DEFAULT_MAX_SIZE);
+        CompilationCache.Key key = cache.key(source("void f() {}"));
+        cache.put(key, "func void f()\nend\n");
+        Path entry = cache.path(key);
+        byte[] bytes = Files.readAllBytes(entry);
+        // Cut short by a crash before the move, or written by another format
+        Files.write(entry, Arrays.copyOf(bytes, bytes.length - 1));
+        assertNull(cache.get(key));
+        bytes[4] = 9;
+        Files.write(entry, bytes);
+        assertNull(cache.get(key));
+        Files.write(entry, new byte[3]);
+        assertNull(cache.get(key));
+        cache.put(key, "func void f()\nend\n");
+        assertEquals("func void f()\nend\n", cache.get(key));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed(@TempDir Path dir) throws Exception {
+        // Entries of 56 + 44 bytes, so ten of them fill the cache
+        CompilationCache cache = CompilationCache.open(dir, "v1", 1000);
+        String il = "x".repeat(44);
+        List<CompilationCache.Key> keys = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            CompilationCache.Key key = cache.key(source("source " + i));
+            cache.put(key, il);
+            Files.setLastModifiedTime(cache.path(key), FileTime.fromMillis(1_000_000L * (i + 1)));
+            keys.add(key);
+        }
+        assertEquals(1000, cache.size());
+        // Reading the first entry makes it the most recently used
+        assertEquals(il, cache.get(keys.get(0)));
+
+        Path stale = Files.createTempFile(cache.path(keys.get(0)).getParent(), "dead", ".tmp");
+        Files.setLastModifiedTime(stale, FileTime.fromMillis(0));
+        cache.put(cache.key(source("source 10")), il);
+        // Down to 750 bytes, so seven entries are left
+        assertEquals(700, cache.size());
+        assertEquals(il, cache.get(keys.get(0)));
+        for (int i = 1; i <= 4; i++) {
+            assertFalse(Files.exists(cache.path(keys.get(i))));
+        }
+        for (int i = 5; i < 10; i++) {
+            assertEquals(il, cache.get(keys.get(i)));
+        }
+        assertFalse(Files.exists(stale));
+    }
+
+    @Test
+    void concurrentUse(@TempDir Path dir) throws Exception {
+        // Two caches on one directory, as two processes would be, small enough to evict all the time
+        CompilationCache first = CompilationCache.open(dir, "v1", 4000);
+        CompilationCache second = CompilationCache.open(dir, "v1", 4000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                CompilationCache cache = t % 2 == 0 ? first : second;
+                tasks.add(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        String source = "source " + i % 50;
+                        CompilationCache.Key key = cache.key(source(source));
+                        String il = cache.get(key);
+                        // Either missing or whole, never torn
+                        if (il == null) {
+                            cache.put(key, ("il of " + source + "\n").repeat(10));
+                        } else {
+                            assertEquals(("il of " + source + "\n").repeat(10), il);
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(first.hits() + second.hits() > 0);
+        first.evict();
+        assertTrue(first.size() <= 4000);
+    }
+}
@@ -0,0 +1,126 @@
+package org.osta.driver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osta.cache.CompilationCache;
+import org.osta.mono.Monomorphizer;
+import org.osta.parse.ParseException;
+import org.osta.parse.Parser;
+import org.osta.parse.ast.FileAST;
+import org.osta.parse.ast.TypeDeclAST;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompilerDriverTest {
+
+    @Test
+    void resultsKeepFileOrder(@TempDir Path dir) throws Exception {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            // Sizes vary so the files finish out of order
+            Path file = dir.resolve(String.format("f%02d.osta", i));
+            Files.writeString(file, "x".repeat((i * 7919) % 500) + i);
+            files.add(file);
+        }
+        Files.writeString(dir.resolve("ignored.txt"), "not a source");
+
+        List<Path> sources = CompilerDriver.collectSources(List.of(dir));
+        assertEquals(sources, files);
+
+        try (CompilerDriver driver = new CompilerDriver(Parser.zeroOrMore(Parser.item()), 4)) {
+            List<FileResult> results = driver.compile(sources);
+            for (int i = 0; i < files.size(); i++) {
+                assertEquals(results.get(i).path(), files.get(i));
+                assertEquals(results.get(i).il(), Files.readString(files.get(i)));
+            }
+        }
+    }
+
+    @Test
+    void failuresAreReported(@TempDir Path dir) throws Exception {
+        Path good = dir.resolve("good.osta");
+        Path bad = dir.resolve("bad.osta");
+        Files.writeString(good, "hello");
+        Files.writeString(bad, "goodbye");
+
+        try (CompilerDriver driver = new CompilerDriver(Parser.literal("hello"), 2)) {
+            List<FileResult> results = driver.compile(List.of(good, bad, dir.resolve("missing.osta")));
+            assertTrue(results.get(0).succeeded());
+            assertInstanceOf(ParseException.class, results.get(1).error());
+            assertFalse(results.get(2).succeeded());
+            assertTrue(CompilerDriver.report(results).contains("3 files, 2 failed"));
+        }
+    }
+
+    @Test
+    void loweringFailuresAreReported(@TempDir Path dir) throws Exception {
+        Path good = dir.resolve("good.osta");
+        Path unlowerable = dir.resolve("unlowerable.osta");
+        Files.writeString(good, "void f() { g(); }");
+        // Parses, but a call can't be assigned to
+        Files.writeString(unlowerable, "void f() { g() = 1; }");
+
+        try (CompilerDriver driver = new CompilerDriver(FileAST.parser(), 2)) {
+            List<FileResult> results = driver.compile(List.of(unlowerable, good));
+            assertInstanceOf(IllegalStateException.class, results.get(0).error());
+            assertEquals("Unsupported assignment target: CallExprAST", results.get(0).error().getMessage());
+            assertTrue(results.get(1).succeeded());
+        }
+    }
+
+    @Test
+    void monomorphizesAcrossFiles(@TempDir Path dir) throws Exception {
+        Path generics = dir.resolve("generics.osta");
+        Path first = dir.resolve("first.osta");
+        Path second = dir.resolve("second.osta");
+        Path wrong = dir.resolve("wrong.osta");
+        Files.writeString(generics, "struct Box<T> { T value; }");
+        Files.writeString(first, "void f(Box<u8> a) { Box<u32> b; }");
+        Files.writeString(second, "void g(Box<u32>* a) {}");
+        Files.writeString(wrong, "void h(Box<u8, u8> a) {}");
+
+        Monomorphizer monomorphizer = new Monomorphizer();
+        try (CompilerDriver driver = new CompilerDriver(FileAST.parser(), 2)) {
+            // The generic is declared after the files that use it
+            List<FileResult> results = driver.compile(List.of(first, second, generics, wrong), monomorphizer);
+            assertEquals("func void f(Box<u8> a)\n  local Box<u32> b\nend\n", results.get(0).il());
+            assertEquals("func void g(Box<u32>* a)\nend\n", results.get(1).il());
+            assertEquals("", results.get(2).il());
+            assertInstanceOf(IllegalArgumentException.class, results.get(3).error());
+        }
+        assertEquals(List.of("Box<u32>", "Box<u8>"), monomorphizer.instances().stream().map(TypeDeclAST::name).toList());
+    }
+
+    @Test
+    void cachedFilesAreNotParsed(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("main.osta");
+        Path broken = dir.resolve("broken.osta");
+        Files.writeString(file, "i32 main() { return 0; }");
+        Files.writeString(broken, "i32 main( {");
+        String il;
+        CompilationCache cache = CompilationCache.open(dir.resolve("cache"), "test", CompilationCache.DEFAULT_MAX_SIZE);
+        try (CompilerDriver driver = new CompilerDriver(FileAST.parser(), 2, cache)) {
+            List<FileResult> results = driver.compile(List.of(file, broken));
+            il = results.get(0).il();
+            assertTrue(il.startsWith("func i32 main()"));
+            assertFalse(results.get(1).succeeded());
+        }
+        assertEquals(0, cache.hits());
+
+        // A grammar that fails on everything shows the IL came from the cache, failures aren't cached
+        CompilationCache reopened = CompilationCache.open(dir.resolve("cache"), "test", CompilationCache.DEFAULT_MAX_SIZE);
+        try (CompilerDriver driver = new CompilerDriver(Parser.literal("nothing"), 2, reopened)) {
+            List<FileResult> results = driver.compile(List.of(file, broken));
+            assertEquals(il, results.get(0).il());
+            assertEquals(0, results.get(0).parseNanos());
+            assertFalse(results.get(1).succeeded());
+        }
+        assertEquals(1, reopened.hits());
+        assertEquals(1, reopened.misses());
+    }
+}
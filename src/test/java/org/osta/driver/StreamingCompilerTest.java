@@ -0,0 +1,72 @@
+package org.osta.driver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osta.gen.SourceGenerator;
+import org.osta.parse.ParseException;
+import org.osta.parse.ast.FileAST;
+import org.osta.parse.visitor.ILGenerator;
+import org.osta.parse.visitor.ILWriter;
+import org.osta.text.ChunkedSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingCompilerTest {
+
+    @Test
+    void sameILAsWholeFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("big.osta");
+        new SourceGenerator(4, 6).generate(file, 256 * 1024);
+        String program = Files.readString(file);
+        ILGenerator expected = new ILGenerator();
+        FileAST.parser().parse(program).ast().accept(expected);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // A window of 32 KB for a file of 256 KB, and a buffer smaller than the IL of most declarations
+        ILWriter writer = new ILWriter(Channels.newChannel(out), 64);
+        try (ChunkedSource source = ChunkedSource.open(file, 4096, 8)) {
+            long batches = new StreamingCompiler(FileAST.parser(), 1024).compile(source, writer);
+            assertTrue(batches > 100);
+            assertEquals(source.size(), source.released());
+        }
+        assertEquals(expected.generate(), out.toString(StandardCharsets.UTF_8));
+        assertEquals(out.size(), writer.written());
+    }
+
+    @Test
+    void failures(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("invalid.osta");
+        Files.writeString(file, "struct A {}\nstruct B { i32 }\n");
+        try (ChunkedSource source = ChunkedSource.open(file, 16, 4)) {
+            ILWriter writer = new ILWriter(OutputStream.nullOutputStream());
+            ParseException e = assertThrows(ParseException.class,
+                    () -> new StreamingCompiler(FileAST.parser(), 1).compile(source, writer));
+            assertTrue(e.getMessage().endsWith("from byte 11 to 28"), e.getMessage());
+        }
+
+        // A declaration that doesn't fit in the window
+        Files.writeString(file, "struct A { " + "i32 a; ".repeat(20) + "}");
+        try (ChunkedSource source = ChunkedSource.open(file, 16, 4)) {
+            ILWriter writer = new ILWriter(OutputStream.nullOutputStream());
+            assertThrows(ParseException.class, () -> new StreamingCompiler().compile(source, writer));
+        }
+    }
+
+    @Test
+    void empty(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("empty.osta");
+        Files.writeString(file, "");
+        try (ChunkedSource source = ChunkedSource.open(file)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertEquals(1, new StreamingCompiler().compile(source, new ILWriter(out)));
+            assertEquals(0, out.size());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.osta.gen;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osta.parse.ast.FileAST;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourceGeneratorTest {
+
+    @Test
+    void generatedProgramsParse() throws Exception {
+        for (int depth : new int[]{0, 1, 8, 64}) {
+            String source = new SourceGenerator(depth, depth).generate(64 * 1024);
+            assertTrue(source.length() >= 64 * 1024);
+            FileAST file = FileAST.parser().parse(source).ast();
+            assertFalse(file.declarations().isEmpty());
+        }
+    }
+
+    @Test
+    void sameSeedSameProgram() {
+        assertEquals(new SourceGenerator(42, 8).generate(16 * 1024), new SourceGenerator(42, 8).generate(16 * 1024));
+        assertNotEquals(new SourceGenerator(42, 8).generate(16 * 1024), new SourceGenerator(43, 8).generate(16 * 1024));
+    }
+
+    @Test
+    void streamsToFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("big.osta");
+        long written = new SourceGenerator(7, 4).generate(file, 256 * 1024);
+        assertEquals(Files.size(file), written);
+        assertEquals(Files.readString(file), new SourceGenerator(7, 4).generate(256 * 1024));
+    }
+
+    @Test
+    void sizes() {
+        assertEquals(512, SourceGenerator.parseSize("512"));
+        assertEquals(64 * 1024, SourceGenerator.parseSize("64k"));
+        assertEquals(16L << 20, SourceGenerator.parseSize("16M"));
+        assertEquals(2L << 30, SourceGenerator.parseSize("2g"));
+    }
+}
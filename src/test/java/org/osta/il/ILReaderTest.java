@@ -0,0 +1,140 @@
+package org.osta.il;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osta.gen.SourceGenerator;
+import org.osta.parse.ast.FileAST;
+import org.osta.parse.ast.IntLiteralAST;
+import org.osta.parse.visitor.BinaryILWriter;
+import org.osta.parse.visitor.ILGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ILReaderTest {
+
+    private static final String PROGRAM = """
+            struct Box<T> : Shape, Named { i32 size; }
+            trait Shape { i32 area(); }
+            i64 big() { return 9223372036854775807i64 + 1u8 * 340282366920938463463374607431768211455u128; }
+            i32 main(i32 argc) { Box<i32> box = make(); box.size = -3; print(box.area(), argc); return 0x7fffffff; }
+            """;
+
+    private static String generate(FileAST ast) {
+        ILGenerator generator = new ILGenerator();
+        ast.accept(generator);
+        return generator.generate();
+    }
+
+    private static ByteBuffer write(FileAST ast, int bufferSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryILWriter writer = new BinaryILWriter(Channels.newChannel(out), bufferSize);
+        writer.write(ast);
+        writer.finish();
+        assertEquals(out.size(), writer.written());
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    @Test
+    void sameILAsGenerator() throws Exception {
+        FileAST ast = FileAST.parser().parse(PROGRAM).ast();
+        ILReader reader = new ILReader(write(ast, 16));
+        assertEquals(ILFormat.VERSION, reader.version());
+        assertEquals(4, reader.declarations());
+        assertEquals(generate(ast), reader.text());
+    }
+
+    @Test
+    void sameILAsGeneratorForGeneratedSource() throws Exception {
+        FileAST ast = FileAST.parser().parse(new SourceGenerator(3, 5).generate(256 * 1024)).ast();
+        ByteBuffer binary = write(ast, BinaryILWriter.DEFAULT_BUFFER_SIZE);
+        String text = generate(ast);
+        assertEquals(text, new ILReader(binary).text());
+        // Identifiers are only stored once, so the binary form is far smaller
+        assertTrue(binary.remaining() * 2 < text.length());
+    }
+
+    @Test
+    void findsDeclarations(@TempDir Path directory) throws Exception {
+        FileAST ast = FileAST.parser().parse(PROGRAM).ast();
+        Path file = directory.resolve("program.osil");
+        try (var out = Files.newOutputStream(file)) {
+            BinaryILWriter writer = new BinaryILWriter(out);
+            writer.write(ast);
+            writer.finish();
+        }
+
+        ILReader reader = ILReader.open(file);
+        int main = reader.find("main");
+        assertEquals(3, main);
+        assertEquals("main", reader.name(main));
+        assertEquals(-1, reader.find("mai"));
+        assertEquals(-1, reader.find("missing"));
+        assertEquals("trait Shape\n  declare i32 area()\nend\n", reader.text(reader.find("Shape")));
+
+        ILReader.Instructions instructions = reader.instructions(main);
+        assertTrue(instructions.next());
+        assertEquals(Opcode.FUNC, instructions.opcode());
+        assertEquals("main", reader.string(instructions.operand(1)));
+        assertEquals(1, instructions.operand(2));
+        int constants = 0;
+        while (instructions.next()) {
+            if (instructions.opcode() == Opcode.CONST) {
+                assertTrue(instructions.operand(0) == -3 || instructions.operand(0) == Integer.MAX_VALUE
+                        || instructions.operand(0) == 0);
+                constants++;
+            }
+        }
+        assertEquals(2, constants);
+        assertNull(instructions.opcode());
+    }
+
+    @Test
+    void wideConstants() throws Exception {
+        FileAST ast = FileAST.parser().parse(PROGRAM).ast();
+        ILReader reader = new ILReader(write(ast, 64));
+        ILReader.Instructions instructions = reader.instructions(reader.find("big"));
+        assertTrue(instructions.next());
+        int name = instructions.operand(1);
+        List<String> values = new ArrayList<>();
+        while (instructions.next()) {
+            if (instructions.opcode() == Opcode.CONST_WIDE) {
+                IntLiteralAST literal = reader.integer(instructions.operand(0));
+                values.add(literal.bigValue() + " " + literal.type().lexeme());
+            }
+        }
+        assertEquals(List.of("9223372036854775807 i64", "1 u8", "340282366920938463463374607431768211455 u128"), values);
+        assertThrows(IllegalArgumentException.class, () -> reader.integer(name));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws Exception {
+        assertThrows(IOException.class, () -> new ILReader(ByteBuffer.wrap(new byte[64])));
+        ByteBuffer binary = write(FileAST.parser().parse(PROGRAM).ast(), 64);
+        binary.putShort(4, (short) (ILFormat.VERSION + 1));
+        IOException e = assertThrows(IOException.class, () -> new ILReader(binary));
+        assertEquals("Unsupported binary IL version " + (ILFormat.VERSION + 1), e.getMessage());
+    }
+
+    @Test
+    void finishes() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryILWriter writer = new BinaryILWriter(out);
+        writer.finish();
+        writer.finish();
+        assertThrows(IllegalStateException.class, () -> writer.write(new FileAST(List.of())));
+
+        ILReader reader = new ILReader(ByteBuffer.wrap(out.toByteArray()));
+        assertEquals(0, reader.declarations());
+        assertEquals("", reader.text());
+        assertEquals(ILFormat.HEADER_SIZE + 4 + 4 + ILFormat.TRAILER_SIZE, out.size());
+    }
+}
@@ -0,0 +1,189 @@
+package org.osta.mono;
+
+import org.junit.jupiter.api.Test;
+import org.osta.parse.ast.AST;
+import org.osta.parse.ast.FileAST;
+import org.osta.parse.ast.TypeAST;
+import org.osta.parse.ast.TypeDeclAST;
+import org.osta.parse.visitor.ILGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonomorphizerTest {
+
+    private static final String GENERICS = """
+            trait Value<T> { T get(); }
+            struct Wrapper<T> { T value; }
+            struct ValueWrapper<T> : Wrapper<T>, Value<T> { T get() { T copy = .value; return copy; } }
+            struct Pair<K, V> { K key; V* value; Wrapper<V> wrapped; }
+            """;
+
+    private static String il(AST ast) {
+        ILGenerator generator = new ILGenerator();
+        ast.accept(generator);
+        return generator.generate();
+    }
+
+    private static FileAST parse(String source) throws Exception {
+        return FileAST.parser().parse(source).ast();
+    }
+
+    private static List<String> names(Monomorphizer monomorphizer) {
+        return monomorphizer.instances().stream().map(TypeDeclAST::name).toList();
+    }
+
+    @Test
+    void instantiatesUsedTuples() throws Exception {
+        Monomorphizer monomorphizer = new Monomorphizer();
+        FileAST generics = parse(GENERICS);
+        monomorphizer.register(generics);
+
+        FileAST program = parse("i32 main() { ValueWrapper<u32> a; Pair<u8, ValueWrapper<u32>>* b; return 0; }");
+        assertEquals("""
+                func i32 main()
+                  local ValueWrapper<u32> a
+                  local Pair<u8,ValueWrapper<u32>>* b
+                  const 0
+                  ret
+                end
+                """, il(monomorphizer.monomorphize(program)));
+        // The generic declarations themselves are dropped
+        assertEquals("", il(monomorphizer.monomorphize(generics)));
+
+        assertEquals(List.of("Pair<u8,ValueWrapper<u32>>", "Value<u32>", "ValueWrapper<u32>", "Wrapper<ValueWrapper<u32>>",
+                "Wrapper<u32>"), names(monomorphizer));
+        assertEquals("""
+                struct Pair<u8,ValueWrapper<u32>>
+                  field u8 key
+                  field ValueWrapper<u32>* value
+                  field Wrapper<ValueWrapper<u32>> wrapped
+                end
+                struct ValueWrapper<u32> : Wrapper<u32>, Value<u32>
+                  func u32 get()
+                    local u32 copy
+                    load this
+                    getfield value
+                    store copy
+                    load copy
+                    ret
+                  end
+                end
+                """, il(new FileAST(List.of(monomorphizer.instances().get(0), monomorphizer.instances().get(2)))));
+    }
+
+    @Test
+    void leavesOtherTypes() throws Exception {
+        Monomorphizer monomorphizer = new Monomorphizer();
+        monomorphizer.register(parse(GENERICS));
+        FileAST program = parse("struct S : Map<u8, Wrapper<i8>> { List<Wrapper<i8>> items; Wrapper<i8> f(Wrapper t); }");
+        assertEquals("""
+                struct S : Map<u8,Wrapper<i8>>
+                  field List<Wrapper<i8>> items
+                  declare Wrapper<i8> f(Wrapper t)
+                end
+                """, il(monomorphizer.monomorphize(program)));
+        assertEquals(List.of("Wrapper<i8>"), names(monomorphizer));
+    }
+
+    @Test
+    void instantiatesOncePerTuple() throws Exception {
+        Monomorphizer monomorphizer = new Monomorphizer();
+        monomorphizer.register(parse(GENERICS));
+        List<FileAST> files = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            files.add(parse("void use" + i + "(ValueWrapper<u" + (8 << i % 4) + "> a, Wrapper<u32> b) {"
+                    + " Pair<i32, u8> c; ValueWrapper<u32> d; }"));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<FileAST>> tasks = new ArrayList<>();
+            for (FileAST file : files) {
+                tasks.add(() -> monomorphizer.monomorphize(file));
+            }
+            for (Future<FileAST> future : executor.invokeAll(tasks)) {
+                assertFalse(il(future.get()).contains("<T>"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(List.of("Pair<i32,u8>", "Value<u16>", "Value<u32>", "Value<u64>", "Value<u8>",
+                "ValueWrapper<u16>", "ValueWrapper<u32>", "ValueWrapper<u64>", "ValueWrapper<u8>",
+                "Wrapper<u16>", "Wrapper<u32>", "Wrapper<u64>", "Wrapper<u8>"), names(monomorphizer));
+    }
+
+    @Test
+    void failures() throws Exception {
+        Monomorphizer monomorphizer = new Monomorphizer();
+        monomorphizer.register(parse(GENERICS + "struct Nested<T> { Nested<Wrapper<T>>* next; }"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> monomorphizer.monomorphize(parse("void f(Pair<u8> p) {}")));
+        assertEquals("Pair takes 2 type arguments, not 1", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class,
+                () -> monomorphizer.monomorphize(parse("void f(Nested<u8> p) {}")));
+        assertTrue(e.getMessage().endsWith("is nested more than " + Monomorphizer.MAX_DEPTH + " deep"));
+        // A type that uses itself as it is ends
+        Monomorphizer recursive = new Monomorphizer();
+        recursive.register(parse("struct Node<T> { T value; Node<T>* next; }"));
+        recursive.monomorphize(parse("void f(Node<u8> n) {}"));
+        assertEquals(List.of("Node<u8>"), names(recursive));
+    }
+
+    @Test
+    void failsEveryUseTheSameWay() throws Exception {
+        Monomorphizer monomorphizer = new Monomorphizer();
+        monomorphizer.register(parse(GENERICS + """
+                struct Nested<T> { Nested<Wrapper<T>>* next; }
+                struct Holder<T> { Nested<T> nested; Wrapper<T> wrapped; Holder<T>* next; }
+                struct Left<T> { Right<T>* right; }
+                struct Right<T> { Left<T>* left; }
+                """));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Throwable>> tasks = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                String use = i % 2 == 0 ? "Holder<u8> h" : "Nested<u8> n";
+                String cycle = i % 4 < 2 ? "Left<u8> l" : "Right<u8> r";
+                FileAST file = parse("void f(" + cycle + ") {} void g(" + use + ") {}");
+                tasks.add(() -> assertThrows(IllegalArgumentException.class, () -> monomorphizer.monomorphize(file)));
+            }
+            List<Future<Throwable>> failures = executor.invokeAll(tasks);
+            // Waiting for an instance another thread builds gets its failure, not a name that was never instantiated
+            Throwable cause = failures.get(0).get().getCause();
+            assertNotNull(cause);
+            for (int i = 1; i < failures.size(); i++) {
+                Throwable failure = failures.get(i).get();
+                assertNotSame(failures.get(0).get(), failure);
+                assertSame(cause, failure.getCause());
+                assertEquals(cause.getMessage(), failure.getMessage());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        List<String> names = names(monomorphizer);
+        assertEquals(List.of("Left<u8>", "Right<u8>"), names.subList(0, 2));
+        assertTrue(names.stream().noneMatch(name -> name.startsWith("Holder") || name.startsWith("Nested")));
+    }
+
+    @Test
+    void canonicalTypeIds() throws Exception {
+        TypeIds ids = new TypeIds();
+        TypeAST map = new TypeAST("Map", List.of(new TypeAST("K"), new TypeAST("List", List.of(new TypeAST("V")), 0)), 0);
+        int id = ids.id(map);
+        assertEquals(id, ids.id(TypeAST.parser().parse("Map<K, List<V>>").ast()));
+        assertNotEquals(id, ids.id(TypeAST.parser().parse("Map<K,List<V>>*").ast()));
+        assertNotEquals(id, ids.id(TypeAST.parser().parse("Map<K,List<V*>>").ast()));
+        assertEquals(map, ids.type(id));
+        // K, V, List<V>, the map and its pointer, then V*, List<V*> and their map
+        assertEquals(8, ids.size());
+    }
+}
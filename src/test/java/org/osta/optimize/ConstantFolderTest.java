@@ -0,0 +1,132 @@
+package org.osta.optimize;
+
+import org.junit.jupiter.api.Test;
+import org.osta.gen.SourceGenerator;
+import org.osta.parse.ast.AST;
+import org.osta.parse.ast.ExprAST;
+import org.osta.parse.ast.FileAST;
+import org.osta.parse.visitor.ILGenerator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConstantFolderTest {
+
+    private static final ConstantFolder FOLDER = new ConstantFolder();
+
+    private static String il(AST ast) {
+        ILGenerator generator = new ILGenerator();
+        ast.accept(generator);
+        return generator.generate();
+    }
+
+    private static String fold(String expression) throws Exception {
+        return il(FOLDER.fold(ExprAST.parser().parse(expression).ast()));
+    }
+
+    @Test
+    void foldsLiterals() throws Exception {
+        assertEquals("const -100000000\n", fold("-5e7 * 2 + 0"));
+        assertEquals("const 7\n", fold("1 + 2 * 3"));
+        assertEquals("const 1\n", fold("(7 - 4) % 2"));
+        assertEquals("const 16 i64\n", fold("1i64 << 4i64"));
+        assertEquals("const 6\n", fold("0xF & 6 | 2 ^ 0b10"));
+    }
+
+    @Test
+    void wrapsAtTheWidthOfTheType() throws Exception {
+        assertEquals("const -2147483648\n", fold("2147483647 + 1"));
+        assertEquals("const -2147483648\n", fold("-2147483648 / -1"));
+        assertEquals("const -56 i8\n", fold("100i8 + 100i8"));
+        assertEquals("const 255 u8\n", fold("0u8 - 1u8"));
+        assertEquals("const 144 u8\n", fold("200u8 * 2u8"));
+        assertEquals("const -9223372036854775808 i64\n", fold("9223372036854775807i64 + 1i64"));
+        assertEquals("const 0 u128\n", fold("340282366920938463463374607431768211455u128 + 1u128"));
+        assertEquals("const -2 i128\n", fold("170141183460469231731687303715884105727i128 * 2i128"));
+    }
+
+    @Test
+    void shiftsAtTheWidthOfTheType() throws Exception {
+        assertEquals("const 127 u8\n", fold("255u8 >> 1u8"));
+        assertEquals("const 32767 i16\n", fold("-1i16 >> 1i16"));
+        assertEquals("const -1 i16\n", fold("-1i16 >>> 1i16"));
+        assertEquals("const 2147483647\n", fold("-1 >> 1"));
+        assertEquals("const -1\n", fold("-1 >>> 1"));
+        assertEquals("const 0 u8\n", fold("128u8 << 1u8"));
+    }
+
+    @Test
+    void leavesWhatCantBeFolded() throws Exception {
+        assertEquals("const 1\nconst 0\ndiv\n", fold("1 / 0"));
+        assertEquals("const 1\nconst 32\nshl\n", fold("1 << 32"));
+        assertEquals("const 1\nconst 2\nlt\n", fold("1 < 2"));
+        assertEquals("const 1 u8\nconst 2\nadd\n", fold("1u8 + 2"));
+        assertEquals("const 0\nload x\nsub\n", fold("0 - x"));
+        assertEquals("load x\nconst 2\ndiv\n", fold("x / 2"));
+    }
+
+    @Test
+    void removesIdentities() throws Exception {
+        assertEquals("load x\n", fold("x + 0"));
+        assertEquals("load x\n", fold("0 + x * 1"));
+        assertEquals("load x\n", fold("(x - 0) / 1 | 0 ^ 0"));
+        assertEquals("load x\n", fold("x << (2 - 2)"));
+        assertEquals("call f 0\n", fold("1 * f()"));
+    }
+
+    @Test
+    void reducesMultiplicationsToShifts() throws Exception {
+        assertEquals("load x\nconst 3\nshl\n", fold("x * 8"));
+        assertEquals("load x\nconst 4\nshl\n", fold("(4 * 4) * x"));
+        assertEquals("load x\nconst 7 u8\nshl\n", fold("x * 128u8"));
+        assertEquals("load x\nconst 2 u64\nshl\n", fold("x * 4u64"));
+        assertEquals("load x\nconst 3 u64\nshl\n", fold("8u64 * x"));
+        assertEquals("load x\nconst 64 u128\nshl\n", fold("x * 18446744073709551616u128"));
+        assertEquals("load x\nconst -128 i8\nmul\n", fold("x * -128i8"));
+        assertEquals("load x\nconst 6\nmul\n", fold("x * 6"));
+    }
+
+    @Test
+    void foldsWholeFiles() throws Exception {
+        FileAST file = FileAST.parser().parse("""
+                struct S { i32 a; i32 get() { return .a * 4 + 0; } }
+                i32 main(i32 x) { i32 y = 2 * 3; s.a = y * 1; f(x + 0, 1 + 1); return; }
+                """).ast();
+        assertEquals("""
+                struct S
+                  field i32 a
+                  func i32 get()
+                    load this
+                    getfield a
+                    const 2
+                    shl
+                    ret
+                  end
+                end
+                func i32 main(i32 x)
+                  local i32 y
+                  const 6
+                  store y
+                  load s
+                  load y
+                  putfield a
+                  load x
+                  const 2
+                  call f 2
+                  pop
+                  ret.void
+                end
+                """, il(FOLDER.fold(file)));
+    }
+
+    @Test
+    void keepsWhatDidntChange() throws Exception {
+        FileAST file = FileAST.parser().parse("i32 f(i32 x) { return x * 3 + g(x); }").ast();
+        assertSame(file, FOLDER.fold(file));
+
+        FileAST generated = FileAST.parser().parse(new SourceGenerator(11, 5).generate(64 * 1024)).ast();
+        FileAST folded = FOLDER.fold(generated);
+        // Folding again finds nothing more
+        assertSame(folded, FOLDER.fold(folded));
+        assertTrue(il(folded).length() <= il(generated).length());
+    }
+}
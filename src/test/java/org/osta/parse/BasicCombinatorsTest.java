@@ -2,13 +2,21 @@ package org.osta.parse;
 
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.osta.parse.ast.ExprAST;
 import org.osta.parse.ast.LiteralAST;
 import org.osta.parse.ast.OptionalAST;
 import org.osta.parse.ast.SequenceAST;
+import org.osta.parse.ast.TokenAST;
+import org.osta.token.TokenType;
 
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class BasicCombinatorsTest {
@@ -44,6 +52,81 @@ class BasicCombinatorsTest {
         );
     }
 
+    @Test
+    void failureReportsFurthestAlternative() {
+        Parser<SequenceAST> parser = Parser.oneOf(
+                Parser.sequence(Parser.literal("ab"), Parser.literal("c")),
+                Parser.sequence(Parser.literal("a"), Parser.literal("x"))
+        );
+        ParseInput input = new ParseInput("abd");
+
+        assertNull(parser.parse(input, 0));
+        assertEquals(input.failureOffset(), 2);
+        ParseException exception = assertThrows(ParseException.class, () -> parser.parse("abd"));
+        assertEquals(exception.getMessage(), "Expected literal: c");
+    }
+
+    @Test
+    void commitStopsBacktracking() throws Exception {
+        Parser<SequenceAST> committed = Parser.oneOf(
+                Parser.sequence(Parser.commit(Parser.literal("a")), Parser.literal("b")),
+                Parser.sequence(Parser.literal("a"), Parser.literal("c"))
+        );
+        ParseInput input = new ParseInput("ac");
+        assertNull(committed.parse(input, 0));
+        assertEquals(input.cutOffset(), 1);
+        assertTrue(input.isCommitted(0));
+        assertFalse(input.isCommitted(1));
+        assertEquals(input.failure().getMessage(), "Expected literal: b");
+        assertNotNull(committed.parse("ab"));
+
+        // Repetitions fail too instead of stopping before the committed item
+        Parser<SequenceAST> repeated = Parser.zeroOrMore(committed);
+        assertThrows(ParseException.class, () -> repeated.parse("abac"));
+        assertEquals(Parser.zeroOrMore(Parser.sequence(Parser.literal("a"), Parser.literal("b"))).parse("abac").offset(), 2);
+        Parser<SequenceAST> separated = Parser.separatedBy(committed, Parser.literal(","));
+        assertThrows(ParseException.class, () -> separated.parse("ab,ac"));
+
+        // Alternatives that start after the cut still backtrack
+        Parser<SequenceAST> inner = Parser.sequence(Parser.commit(Parser.literal("x")), Parser.oneOf(
+                Parser.sequence(Parser.literal("a"), Parser.literal("b")),
+                Parser.sequence(Parser.literal("a"), Parser.literal("c"))
+        ));
+        assertEquals(inner.parse("xac").offset(), 3);
+    }
+
+    @Test
+    void token() throws Exception {
+        Parser<SequenceAST> parser = Parser.sequence(
+                Parser.token(TokenType.IDENTIFIER), Parser.token(TokenType.PLUS_EQUAL), Parser.token(TokenType.INTEGER)
+        );
+        ParseResult<SequenceAST> result = parser.parse("  value /* c */ += 42;");
+        assertEquals(((TokenAST) result.ast().values().get(0)).text(), "value");
+        assertEquals(((TokenAST) result.ast().values().get(2)).text(), "42");
+        assertEquals(result.rest(), ";");
+
+        assertThrows(ParseException.class, () -> Parser.token(TokenType.STRUCT).parse("structure"));
+    }
+
+    @Test
+    void lazyBuildsOnce() throws Exception {
+        int[] calls = {0};
+        Parser<LiteralAST> parser = Parser.lazy(() -> {
+            calls[0]++;
+            return Parser.literal("a");
+        });
+        parser.parse("a");
+        parser.parse("a");
+        assertEquals(calls[0], 1);
+    }
+
+    @Test
+    void rulesAreSingletons() {
+        assertSame(ExprAST.parser(), ExprAST.parser());
+        assertSame(Grammar.rule("ExprAST"), ExprAST.parser());
+        assertThrows(IllegalStateException.class, () -> Grammar.rule("ExprAST", Parser::noop));
+    }
+
     /* FIXME(cdecompilador): broken somehow, I think there is a bug in optional */
     @Test
     void skipWhitespace() throws Exception {
@@ -0,0 +1,90 @@
+package org.osta.parse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import org.osta.parse.ast.*;
+
+import java.util.List;
+
+public class DeclParseTest {
+
+    @Test
+    void types() throws Exception {
+        assertEquals(new TypeAST("u32"), TypeAST.parser().parse("u32").ast());
+        assertEquals(new TypeAST("Foo", List.of(), 2), TypeAST.parser().parse("Foo**").ast());
+        TypeAST map = TypeAST.parser().parse("Map<K, List<V>>*").ast();
+        assertEquals(new TypeAST("Map", List.of(new TypeAST("K"),
+                new TypeAST("List", List.of(new TypeAST("V")), 0)), 1), map);
+        assertEquals("Map<K,List<V>>*", map.toString());
+        // The >> and >>> closing several argument lists are single tokens
+        assertEquals("A<B<C<D>>>", TypeAST.parser().parse("A<B<C<D>>>").ast().toString());
+        assertEquals("A<B<C>,D>", TypeAST.parser().parse("A<B<C>, D>").ast().toString());
+    }
+
+    @Test
+    void fields() throws Exception {
+        FieldDeclAST field = FieldDeclAST.$parser().parse("List<T>* items;").ast();
+        assertEquals(new TypeAST("List", List.of(new TypeAST("T")), 1), field.type());
+        assertEquals("items", field.name());
+        assertThrows(ParseException.class, () -> FieldDeclAST.$parser().parse("u32 value"));
+    }
+
+    @Test
+    void functions() throws Exception {
+        FunctionDeclAST function = FunctionDeclAST.$parser().parse("T* get(u32 index, Map<K,V> map) { return .value; }").ast();
+        assertEquals(new TypeAST("T", List.of(), 1), function.returnType());
+        assertEquals("get", function.name());
+        assertEquals(List.of(new ParamAST(new TypeAST("u32"), "index"),
+                new ParamAST(new TypeAST("Map", List.of(new TypeAST("K"), new TypeAST("V")), 0), "map")),
+                function.parameters());
+        assertEquals(1, function.body().statements().size());
+
+        // Without a body it is only declared
+        FunctionDeclAST declared = FunctionDeclAST.$parser().parse("void run();").ast();
+        assertTrue(declared.parameters().isEmpty());
+        assertNull(declared.body());
+    }
+
+    @Test
+    void structsAndTraits() throws Exception {
+        FileAST file = FileAST.parser().parse("""
+                trait Value<T> { T get(); }
+                struct Box<T> : Value<T>, Printable { T value; T get() { return .value; } }
+                struct Empty {}
+                """).ast();
+        assertEquals(3, file.declarations().size());
+
+        TraitDeclAST value = (TraitDeclAST) file.declarations().get(0);
+        assertEquals("Value", value.name());
+        assertEquals(List.of("T"), value.parameters());
+        assertTrue(value.supertypes().isEmpty());
+        assertEquals(1, value.members().size());
+
+        StructDeclAST box = (StructDeclAST) file.declarations().get(1);
+        assertEquals(List.of(new TypeAST("Value", List.of(new TypeAST("T")), 0), new TypeAST("Printable")),
+                box.supertypes());
+        assertEquals(FieldDeclAST.class, box.members().get(0).getClass());
+        assertEquals(FunctionDeclAST.class, box.members().get(1).getClass());
+
+        StructDeclAST empty = (StructDeclAST) file.declarations().get(2);
+        assertTrue(empty.parameters().isEmpty());
+        assertTrue(empty.members().isEmpty());
+    }
+
+    @Test
+    void files() throws Exception {
+        assertTrue(FileAST.parser().parse("").ast().declarations().isEmpty());
+        FileAST file = FileAST.parser().parse("i32 main() { return f(1); } void f(i32 x) {}").ast();
+        assertEquals(List.of("main", "f"),
+                file.declarations().stream().map(declaration -> ((FunctionDeclAST) declaration).name()).toList());
+    }
+
+    @Test
+    void failures() {
+        assertThrows(ParseException.class, () -> FileAST.parser().parse("struct Foo { u32 bar }"));
+        assertThrows(ParseException.class, () -> FileAST.parser().parse("i32 f(i32 a,) {}"));
+        assertThrows(ParseException.class, () -> FileAST.parser().parse("i32 f() { return 1 }"));
+    }
+}
@@ -23,4 +23,36 @@ public class ExprParseTest {
         assertEquals(id.identifier(), "a");
     }
 
-}
\ No newline at end of file
+    @Test
+    void leftAssociative() throws ParseException {
+        BinaryExprAST ast = (BinaryExprAST) ExprAST.parser().parse("1 - 2 - 3").ast();
+        BinaryExprAST left = (BinaryExprAST) ast.left();
+
+        assertEquals(ast.op(), BinaryExprAST.BinaryOp.SUB);
+        assertEquals(((IntLiteralAST) ast.right()).value(), 3);
+        assertEquals(((IntLiteralAST) left.left()).value(), 1);
+        assertEquals(((IntLiteralAST) left.right()).value(), 2);
+    }
+
+    @Test
+    void precedence() throws ParseException {
+        // (a == ((1 + (2 * 3)) << 1)) | b
+        BinaryExprAST or = (BinaryExprAST) ExprAST.parser().parse("a == 1 + 2 * 3 << 1 | b").ast();
+        assertEquals(or.op(), BinaryExprAST.BinaryOp.BIT_OR);
+        BinaryExprAST eq = (BinaryExprAST) or.left();
+        assertEquals(eq.op(), BinaryExprAST.BinaryOp.EQ);
+        BinaryExprAST shl = (BinaryExprAST) eq.right();
+        assertEquals(shl.op(), BinaryExprAST.BinaryOp.SHL);
+        BinaryExprAST add = (BinaryExprAST) shl.left();
+        assertEquals(add.op(), BinaryExprAST.BinaryOp.ADD);
+        assertEquals(((BinaryExprAST) add.right()).op(), BinaryExprAST.BinaryOp.MULT);
+    }
+
+    @Test
+    void deepNesting() throws ParseException {
+        String input = "(".repeat(200) + "1 + a" + ")".repeat(200) + " * 2";
+        BinaryExprAST ast = (BinaryExprAST) ExprAST.parser().parse(input).ast();
+        assertEquals(ast.op(), BinaryExprAST.BinaryOp.MULT);
+    }
+
+}
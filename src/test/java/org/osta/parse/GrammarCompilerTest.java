@@ -0,0 +1,262 @@
+package org.osta.parse;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.osta.gen.SourceGenerator;
+import org.osta.parse.ast.*;
+import org.osta.token.TokenType;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential tests, the interpreted combinators are the reference for the compiled grammars.
+ */
+class GrammarCompilerTest {
+
+    private static Parser<FileAST> file;
+    private static Parser<ExprAST> expr;
+
+    @BeforeAll
+    static void compile() {
+        file = GrammarCompiler.compile(FileAST.parser());
+        expr = GrammarCompiler.compile(ExprAST.parser());
+    }
+
+    @Test
+    void compiles() {
+        assertTrue(GrammarCompiler.isAvailable());
+        assertNotSame(FileAST.parser(), file);
+        assertTrue(file.getClass().isHidden());
+        assertTrue(GrammarCompiler.source(FileAST.parser()).contains("_ExprAST(ParseInput input, int offset)"));
+    }
+
+    @Test
+    void callsExpressionRulesDirectly() {
+        String source = GrammarCompiler.source(ExprAST.parser());
+        // Every parser of the rules is a method of the class, none is called through a constant
+        assertFalse(source.matches("(?s).*static final Parser C\\d+ =.*"), source);
+        assertFalse(GrammarCompiler.source(FileAST.parser()).matches("(?s).*static final Parser C\\d+ =.*"));
+        assertTrue(source.contains("return org.osta.parse.ast.IntLiteralAST.parse(input, offset);"), source);
+        assertTrue(source.matches("(?s).*return BinaryExprAST.climb\\(R\\d+, input, offset, 0\\);.*"), source);
+    }
+
+    @Test
+    void fallsBackToInterpreting() {
+        // Nothing the class refers to can be found, so it doesn't compile
+        Parser<ExprAST> parser = GrammarCompiler.compile(ExprAST.parser(), "does-not-exist");
+        Assertions.assertSame(ExprAST.parser(), parser);
+    }
+
+    @Test
+    void generatedPrograms() {
+        for (int seed = 0; seed < 8; seed++) {
+            assertSame(FileAST.parser(), file, new SourceGenerator(seed, seed * 4).generate(16 * 1024));
+        }
+    }
+
+    @Test
+    void examples() throws Exception {
+        assertSame(FileAST.parser(), file, Files.readString(Path.of("examples/program.osta")));
+        assertSame(FileAST.parser(), file, Files.readString(Path.of("examples/struct.osta")));
+    }
+
+    @Test
+    void expressions() {
+        for (String input : List.of("1 + 2 * 3", "((a))", "a.b(1, c)(d).e", "a < b == c >> 2", "1 +", "(a", "")) {
+            assertSame(ExprAST.parser(), expr, input);
+        }
+    }
+
+    @Test
+    void failures() {
+        String program = new SourceGenerator(3, 6).generate(4 * 1024);
+        // Every prefix fails somewhere different, the furthest failure and its message must agree
+        for (int end = 0; end < program.length(); end += 37) {
+            assertSame(FileAST.parser(), file, program.substring(0, end));
+        }
+    }
+
+    @Test
+    void memoized() throws Exception {
+        String input = new SourceGenerator(5, 12).generate(8 * 1024);
+        MemoTable interpreted = new MemoTable();
+        MemoTable compiled = new MemoTable();
+        assertEquals(dump(interpreted.parse(FileAST.parser(), input).ast()), dump(compiled.parse(file, input).ast()));
+        assertEquals(interpreted.hits(), compiled.hits());
+        assertEquals(interpreted.misses(), compiled.misses());
+    }
+
+    @Test
+    void combinators() {
+        Parser<SequenceAST> parser = Parser.sequence(
+                Parser.oneOrMore(Parser.skipWhitespace(Parser.regex("(\\d)(\\d*)", "Expected a number"))),
+                Parser.optional(Parser.literal("end")),
+                Parser.test(Parser.item(), ast -> ((ItemAST) ast).value() == '.', "Expected a dot"),
+                Parser.noop(),
+                Parser.zeroOrMore(Parser.oneOf(
+                        Parser.sequence(Parser.commit(Parser.literal("k")), Parser.literal("1")),
+                        Parser.sequence(Parser.literal("k"), Parser.literal("2")),
+                        Parser.sequence(Parser.literal("j"), Parser.literal("3"))
+                )),
+                Parser.separatedBy(Parser.sequence(Parser.commit(Parser.literal("s")), Parser.literal("!")),
+                        Parser.literal(","))
+        );
+        Parser<SequenceAST> compiled = GrammarCompiler.compile(parser);
+        for (String input : List.of("1 23 456 end.", "1.", "12 x", "1 end", "", "1.k1j3s!,s!", "1.k1k2", "1.s!,s?",
+                "1.j3s?")) {
+            assertSame(parser, compiled, input);
+        }
+    }
+
+    @Test
+    void everyCombinatorKind() {
+        Parser<SequenceAST> grammar = Grammar.rule("GrammarCompilerTest.everyKind", () -> Parser.sequence(
+                Parser.separatedBy(Parser.memo("GrammarCompilerTest.expr", BinaryExprAST.$parser(Parser.anyOf(
+                        IntLiteralAST.$parser(),
+                        Parser.lazy(IdentifierAST::$parser)
+                ))), Parser.token(TokenType.COMMA)),
+                Parser.zeroOrMore(Parser.oneOf(
+                        Parser.sequence(Parser.commit(Parser.token(TokenType.COLON)),
+                                Parser.token(Set.of(TokenType.PLUS, TokenType.MINUS))),
+                        Parser.sequence(Parser.token(TokenType.COLON), Parser.token(TokenType.STAR)),
+                        Parser.sequence(Parser.token(TokenType.SEMICOLON), Parser.token(TokenType.STAR))
+                )),
+                Parser.map(Parser.skipWhitespace(Parser.literal("end")), (LiteralAST ast) -> new EmptyAST()),
+                Parser.test(Parser.item(), ast -> ((ItemAST) ast).value() != '!', "Unexpected !"),
+                Parser.regex("([a-z])(\\d*)", "Expected a tag"),
+                Parser.noop()
+        ));
+        // Every kind of parser the compiler handles is in the grammar
+        Set<Class<?>> kinds = new HashSet<>();
+        kinds(grammar, kinds, new HashSet<>());
+        for (Class<?> type : Combinators.class.getDeclaredClasses()) {
+            assertTrue(kinds.contains(type), type.getSimpleName());
+        }
+        assertTrue(kinds.containsAll(List.of(Rule.class, BinaryExprAST.Climbing.class)), kinds.toString());
+
+        Parser<SequenceAST> compiled = GrammarCompiler.compile(grammar);
+        assertNotSame(grammar, compiled);
+        for (String input : List.of("1,a + 2 * b :+ :- end.x12", "a,1u8 end.x", "a end?y", "a:+;* end.z", "a :* end.x",
+                "a ;+ end.x", "1 +", "a, end.x", "a end!x", "a end.", "a end.1", "a endx", "", "a * (b)",
+                "1u8 + 300u8 end.x")) {
+            assertSame(grammar, compiled, input);
+            MemoTable interpreted = new MemoTable();
+            MemoTable memoized = new MemoTable();
+            try {
+                assertEquals(dump(interpreted.parse(grammar, input).ast()), dump(memoized.parse(compiled, input).ast()));
+            } catch (ParseException e) {
+                assertThrows(ParseException.class, () -> memoized.parse(compiled, input), input);
+            }
+            assertEquals(interpreted.hits(), memoized.hits(), input);
+            assertEquals(interpreted.misses(), memoized.misses(), input);
+        }
+    }
+
+    /* Collects the classes of the parsers the grammar is made of */
+    private static void kinds(Parser<?> parser, Set<Class<?>> kinds, Set<Parser<?>> seen) {
+        if (!seen.add(parser)) {
+            return;
+        }
+        kinds.add(parser.getClass());
+        if (parser instanceof Rule<?> rule) {
+            kinds(rule.definition(), kinds, seen);
+        } else if (parser instanceof Combinators.Lazy<?> lazy) {
+            kinds(lazy.parser(), kinds, seen);
+        } else if (parser instanceof Record) {
+            for (RecordComponent component : parser.getClass().getRecordComponents()) {
+                try {
+                    Object value = component.getAccessor().invoke(parser);
+                    if (value instanceof Parser<?> inner) {
+                        kinds(inner, kinds, seen);
+                    } else if (value instanceof Parser<?>[] inners) {
+                        Arrays.stream(inners).forEach(inner -> kinds(inner, kinds, seen));
+                    }
+                } catch (ReflectiveOperationException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        }
+    }
+
+    /* Parses with both parsers and checks they agree on the AST, or on where and why they fail */
+    private static void assertSame(Parser<?> reference, Parser<?> compiled, String input) {
+        ParseInput expectedInput = new ParseInput(input);
+        ParseInput actualInput = new ParseInput(input);
+        ParseResult<?> expected = reference.parse(expectedInput, 0);
+        ParseResult<?> actual = compiled.parse(actualInput, 0);
+        if (expected == null) {
+            assertNull(actual, input);
+            assertEquals(expectedInput.failureOffset(), actualInput.failureOffset(), input);
+            assertEquals(expectedInput.failure().getMessage(), actualInput.failure().getMessage(), input);
+        } else {
+            assertNotNull(actual, input);
+            assertEquals(expected.offset(), actual.offset(), input);
+            assertEquals(dump(expected.ast()), dump(actual.ast()), input);
+        }
+    }
+
+    /* A structural dump of an AST, most of the AST classes don't implement equals */
+    private static String dump(Object value) {
+        StringBuilder sb = new StringBuilder();
+        dump(value, sb);
+        return sb.toString();
+    }
+
+    private static void dump(Object value, StringBuilder sb) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Character
+                || value instanceof Boolean || value instanceof Enum<?>) {
+            sb.append(value);
+        } else if (value instanceof List<?> list) {
+            sb.append('[');
+            list.forEach(item -> {
+                dump(item, sb);
+                sb.append(',');
+            });
+            sb.append(']');
+        } else if (value instanceof Optional<?> optional) {
+            dump(optional.orElse(null), sb);
+        } else if (value instanceof Object[] array) {
+            dump(List.of(array), sb);
+        } else if (value.getClass().isRecord()) {
+            sb.append(value.getClass().getSimpleName()).append('(');
+            for (RecordComponent component : value.getClass().getRecordComponents()) {
+                try {
+                    dump(component.getAccessor().invoke(value), sb);
+                } catch (ReflectiveOperationException e) {
+                    throw new AssertionError(e);
+                }
+                sb.append(',');
+            }
+            sb.append(')');
+        } else {
+            sb.append(value.getClass().getSimpleName()).append('(');
+            for (Class<?> type = value.getClass(); type != Object.class; type = type.getSuperclass()) {
+                for (Field field : type.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    try {
+                        field.setAccessible(true);
+                        dump(field.get(value), sb);
+                    } catch (ReflectiveOperationException e) {
+                        throw new AssertionError(e);
+                    }
+                    sb.append(',');
+                }
+            }
+            sb.append(')');
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.osta.parse;
+
+import org.junit.jupiter.api.Test;
+import org.osta.gen.SourceGenerator;
+import org.osta.parse.ast.AST;
+import org.osta.parse.ast.FileAST;
+import org.osta.parse.visitor.ILGenerator;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalParseTest {
+
+    private static final String PROGRAM = """
+            struct A { i32 a; }
+            trait B { i32 b(); }
+            i32 f(i32 x) { return x + 1; }
+            struct C : B { i32 b() { return 2; } }
+            """;
+
+    @Test
+    void reusesUntouchedDeclarations() throws Exception {
+        IncrementalParse before = IncrementalParse.parse(PROGRAM);
+        int offset = PROGRAM.indexOf("x + 1") + 4;
+        IncrementalParse after = before.edit(offset, 1, "42");
+
+        assertEquals(PROGRAM.replace("x + 1", "x + 42"), after.text());
+        assertSameIL(after);
+        // Only the edited function is reparsed
+        assertEquals(3, after.reused());
+        assertSame(before.ast().declarations().get(0), after.ast().declarations().get(0));
+        assertSame(before.ast().declarations().get(1), after.ast().declarations().get(1));
+        assertNotSame(before.ast().declarations().get(2), after.ast().declarations().get(2));
+        assertSame(before.ast().declarations().get(3), after.ast().declarations().get(3));
+        assertEquals(before.declarationStart(3) + 1, after.declarationStart(3));
+        assertEquals(after.text().length() - 1, after.declarationEnd(3));
+    }
+
+    @Test
+    void addsAndRemovesDeclarations() throws Exception {
+        IncrementalParse parse = IncrementalParse.parse(PROGRAM);
+        int offset = PROGRAM.indexOf("i32 f");
+        parse = parse.edit(offset, 0, "struct D { u8 d; }\nstruct E {}\n");
+        assertEquals(6, parse.ast().declarations().size());
+        assertSameIL(parse);
+        parse = parse.edit(0, PROGRAM.indexOf("trait"), "");
+        assertEquals(5, parse.ast().declarations().size());
+        assertSameIL(parse);
+    }
+
+    @Test
+    void editsThatSpillIntoTheNextDeclaration() throws Exception {
+        // Removing the end of a comment comments out everything up to the end of the next one
+        String text = "struct A {}\n/* x */\nstruct B {}\n/* y */\nstruct C {}\n";
+        IncrementalParse parse = IncrementalParse.parse(text).edit(text.indexOf("*/"), 2, "");
+        assertEquals(2, parse.ast().declarations().size());
+        assertEquals(1, parse.reused());
+        assertSameIL(parse);
+
+        // A line comment that swallows the declaration after it
+        text = "struct A {}\n/* x */ struct B {}\nstruct C {}\n";
+        parse = IncrementalParse.parse(text).edit(text.indexOf("/*"), 0, "/");
+        assertEquals(2, parse.ast().declarations().size());
+        assertSameIL(parse);
+    }
+
+    @Test
+    void failures() throws Exception {
+        IncrementalParse parse = IncrementalParse.parse(PROGRAM);
+        ParseException incremental = assertThrows(ParseException.class,
+                () -> parse.edit(PROGRAM.indexOf("return x"), 0, "{"));
+        ParseException full = assertThrows(ParseException.class,
+                () -> FileAST.parser().parse(PROGRAM.replace("return x", "{return x")));
+        assertEquals(full.getMessage(), incremental.getMessage());
+        assertThrows(ParseException.class, () -> IncrementalParse.parse("struct {"));
+        assertThrows(IndexOutOfBoundsException.class, () -> parse.edit(PROGRAM.length(), 1, ""));
+    }
+
+    @Test
+    void randomEdits() throws Exception {
+        String program = new SourceGenerator(7, 6).generate(16 * 1024);
+        Random random = new Random(7);
+        IncrementalParse parse = IncrementalParse.parse(program);
+        for (int i = 0; i < 300; i++) {
+            String text = parse.text();
+            int offset = random.nextInt(text.length() + 1);
+            int deleted = random.nextInt(Math.min(64, text.length() - offset) + 1);
+            // Putting back what was deleted is valid, moving a piece of the program elsewhere usually isn't
+            int from = random.nextInt(text.length());
+            String inserted = random.nextBoolean()
+                    ? text.substring(offset, offset + deleted)
+                    : text.substring(from, Math.min(text.length(), from + random.nextInt(48)));
+            String edited = text.substring(0, offset) + inserted + text.substring(offset + deleted);
+
+            String expected;
+            try {
+                expected = il(FileAST.parser().parse(edited).ast());
+            } catch (ParseException e) {
+                IncrementalParse previous = parse;
+                ParseException failure = assertThrows(ParseException.class, () -> previous.edit(offset, deleted, inserted));
+                assertEquals(e.getMessage(), failure.getMessage());
+                continue;
+            }
+            IncrementalParse next = parse.edit(offset, deleted, inserted);
+            assertEquals(edited, next.text());
+            assertEquals(expected, il(next.ast()));
+            parse = next;
+        }
+    }
+
+    /* Checks the tree against a full parse of its text */
+    private static void assertSameIL(IncrementalParse parse) throws ParseException {
+        assertEquals(il(FileAST.parser().parse(parse.text()).ast()), il(parse.ast()));
+        for (int i = 0; i < parse.ast().declarations().size(); i++) {
+            String declaration = parse.text().substring(parse.declarationStart(i), parse.declarationEnd(i));
+            assertEquals(il(FileAST.parser().parse(declaration).ast()), il(parse.ast().declarations().get(i)));
+        }
+    }
+
+    private static String il(AST ast) {
+        ILGenerator generator = new ILGenerator();
+        ast.accept(generator);
+        return generator.generate();
+    }
+}
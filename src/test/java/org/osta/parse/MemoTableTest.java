@@ -0,0 +1,82 @@
+package org.osta.parse;
+
+import org.junit.jupiter.api.Test;
+import org.osta.parse.ast.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoTableTest {
+
+    @Test
+    void sameResultAsUnmemoized() throws Exception {
+        String input = " 0 + ( 1 * a ) ";
+        MemoTable table = new MemoTable();
+
+        BinaryExprAST plain = (BinaryExprAST) ExprAST.parser().parse(input).ast();
+        BinaryExprAST memoized = (BinaryExprAST) table.parse(ExprAST.parser(), input).ast();
+
+        assertEquals(plain.op(), memoized.op());
+        assertEquals(((IntLiteralAST) plain.left()).value(), ((IntLiteralAST) memoized.left()).value());
+        BinaryExprAST right = (BinaryExprAST) memoized.right();
+        assertEquals(right.op(), BinaryExprAST.BinaryOp.MULT);
+        assertEquals(((IdentifierAST) right.right()).identifier(), "a");
+    }
+
+    @Test
+    void successesAreMemoized() throws Exception {
+        Parser<ExprAST> factor = Parser.memo("MemoTableTest.factor", ExprAST.parser());
+        Parser<ExprAST> parser = Parser.anyOf(
+                Parser.map(Parser.sequence(factor, Parser.literal(";")), (SequenceAST ast) -> (ExprAST) ast.values().get(0)),
+                factor
+        );
+        MemoTable table = new MemoTable();
+        table.parse(parser, "1 + a");
+
+        // The expression is parsed by the first alternative and then reused by the second one
+        assertEquals(table.hits(), 1);
+        assertTrue(table.misses() > 0);
+    }
+
+    @Test
+    void failuresAreMemoized() {
+        Parser<LiteralAST> parser = Parser.memo(Parser.literal("a"));
+        Parser<LiteralAST> twice = Parser.anyOf(
+                Parser.map(Parser.sequence(parser, Parser.literal("x")), (SequenceAST ast) -> (LiteralAST) ast.values().get(0)),
+                parser
+        );
+        MemoTable table = new MemoTable();
+
+        assertThrows(ParseException.class, () -> table.parse(twice, "b"));
+        assertEquals(table.misses(), 1);
+        assertEquals(table.hits(), 1);
+    }
+
+    @Test
+    void inactiveWithoutTable() throws Exception {
+        Parser<LiteralAST> parser = Parser.memo("inactive", Parser.literal("a"));
+        assertEquals(parser.parse("ab"), new ParseResult<>(new LiteralAST("a"), "b"));
+    }
+
+    @Test
+    void cutsDropEntries() throws Exception {
+        Parser<LiteralAST> letter = Parser.memo("MemoTableTest.letter", Parser.literal("a"));
+        Parser<SequenceAST> parser = Parser.zeroOrMore(Parser.sequence(Parser.commit(letter), Parser.literal(";")));
+        MemoTable table = new MemoTable();
+        table.parse(parser, "a;".repeat(100));
+        // Only the entry after the last cut is left
+        assertEquals(table.size(), 1);
+        assertEquals(table.misses(), 101);
+    }
+
+    @Test
+    void entriesCutWhileParsedAreNotKept() throws Exception {
+        // The rule commits past its own offset, so its result could never be looked up
+        Parser<SequenceAST> parser = Parser.zeroOrMore(
+                Parser.memo("MemoTableTest.committed", Parser.commit(Parser.literal("ab"))));
+        MemoTable table = new MemoTable();
+        table.parse(parser, "ab".repeat(1000));
+        // Only the failure at the end
+        assertEquals(1, table.size());
+        assertEquals(1001, table.misses());
+    }
+}
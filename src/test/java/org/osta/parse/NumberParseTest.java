@@ -1,10 +1,14 @@
 package org.osta.parse;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.junit.jupiter.api.Test;
 
 import org.osta.parse.ast.IntLiteralAST;
 import org.osta.parse.*;
+import org.osta.token.TokenType;
+
+import java.math.BigInteger;
 
 public class NumberParseTest {
 
@@ -27,4 +31,37 @@ public class NumberParseTest {
         );
     }
 
+    @Test
+    void basesAndExponents() throws ParseException {
+        assertEquals(IntLiteralAST.parser().parse("0b1010"), new ParseResult<>(new IntLiteralAST(10), ""));
+        assertEquals(IntLiteralAST.parser().parse("0o17"), new ParseResult<>(new IntLiteralAST(15), ""));
+        assertEquals(IntLiteralAST.parser().parse("-0x1F "), new ParseResult<>(new IntLiteralAST(-31), ""));
+        assertEquals(IntLiteralAST.parser().parse("5e7"), new ParseResult<>(new IntLiteralAST(50_000_000), ""));
+        assertEquals(IntLiteralAST.parser().parse("21e0"), new ParseResult<>(new IntLiteralAST(21), ""));
+    }
+
+    @Test
+    void widths() throws ParseException {
+        IntLiteralAST literal = (IntLiteralAST) IntLiteralAST.parser().parse("255u8").ast();
+        assertEquals(TokenType.U8, literal.type());
+        assertEquals(BigInteger.valueOf(255), literal.bigValue());
+
+        literal = (IntLiteralAST) IntLiteralAST.parser().parse("-170141183460469231731687303715884105728i128").ast();
+        assertEquals(TokenType.I128, literal.type());
+        assertEquals(BigInteger.ONE.shiftLeft(127).negate(), literal.bigValue());
+
+        literal = (IntLiteralAST) IntLiteralAST.parser().parse("0xffffffffffffffffffffffffffffffffu128").ast();
+        assertEquals(BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE), literal.bigValue());
+    }
+
+    @Test
+    void outOfRange() {
+        ParseException e = assertThrows(ParseException.class, () -> IntLiteralAST.$parser().parse("2147483648"));
+        assertEquals("Integer literal out of range for i32", e.getMessage());
+        e = assertThrows(ParseException.class, () -> IntLiteralAST.$parser().parse("256u8"));
+        assertEquals("Integer literal out of range for u8", e.getMessage());
+        e = assertThrows(ParseException.class, () -> IntLiteralAST.$parser().parse("1e40i128"));
+        assertEquals("Integer literal out of range for i128", e.getMessage());
+        assertThrows(ParseException.class, () -> IntLiteralAST.$parser().parse("0b102"));
+    }
 }
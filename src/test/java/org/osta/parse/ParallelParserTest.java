@@ -0,0 +1,96 @@
+package org.osta.parse;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.osta.gen.SourceGenerator;
+import org.osta.parse.ast.AST;
+import org.osta.parse.ast.DeclAST;
+import org.osta.parse.ast.FileAST;
+import org.osta.parse.ast.FunctionDeclAST;
+import org.osta.parse.visitor.ILGenerator;
+import org.osta.text.BufferCharSequence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelParserTest {
+
+    private static ForkJoinPool pool;
+    private static ParallelParser parser;
+
+    @BeforeAll
+    static void start() {
+        pool = new ForkJoinPool(4);
+        // Small chunks so even the examples are split
+        parser = new ParallelParser(pool, DeclAST.parser(), 64);
+    }
+
+    @AfterAll
+    static void stop() {
+        pool.shutdown();
+    }
+
+    @Test
+    void boundaries() {
+        String source = "struct A { i32 f() { return 1; } }\ni32 g(); // } ;\n/* { */ trait B {} x = \"}\" + '{';";
+        int[] boundaries = ParallelParser.boundaries(source);
+        assertEquals(4, boundaries.length);
+        assertEquals("struct A { i32 f() { return 1; } }", source.substring(0, boundaries[0]));
+        assertEquals("\ni32 g();", source.substring(boundaries[0], boundaries[1]));
+        assertEquals(" // } ;\n/* { */ trait B {}", source.substring(boundaries[1], boundaries[2]));
+        assertEquals(" x = \"}\" + '{';", source.substring(boundaries[2], boundaries[3]));
+    }
+
+    @Test
+    void sameASTAsSequential() throws Exception {
+        assertSameIL(Files.readString(Path.of("examples/program.osta")));
+        assertSameIL(Files.readString(Path.of("examples/struct.osta")));
+        assertSameIL("");
+        assertSameIL("  // only a comment\n");
+        for (int seed = 0; seed < 4; seed++) {
+            String program = new SourceGenerator(seed, seed * 4).generate(32 * 1024);
+            assertSameIL(program);
+            assertSameIL(new BufferCharSequence(ByteBuffer.wrap(program.getBytes(StandardCharsets.UTF_8))));
+        }
+    }
+
+    @Test
+    void failures() {
+        String program = new SourceGenerator(2, 4).generate(4 * 1024);
+        for (String invalid : new String[]{program + "}", program.replaceFirst("\\{", ""), "/*" + program,
+                program.substring(0, program.length() / 2)}) {
+            ParseException expected = assertThrows(ParseException.class, () -> FileAST.parser().parse(invalid));
+            ParseException actual = assertThrows(ParseException.class, () -> parser.parse(invalid));
+            assertEquals(expected.getMessage(), actual.getMessage());
+        }
+    }
+
+    @Test
+    void fallsBackToTheDeclarationParser() throws Exception {
+        Parser<DeclAST> functions = Parser.test(DeclAST.parser(), ast -> ast instanceof FunctionDeclAST,
+                "Expected a function");
+        ParallelParser functionsOnly = new ParallelParser(pool, functions, 64);
+        String program = new SourceGenerator(1, 4).generate(4 * 1024) + "\nstruct Last { i32 value; }\n";
+        // The chunk with the struct fails, the whole file is parsed again with the same declarations
+        ParseException expected = assertThrows(ParseException.class, () -> FileAST.$parser(functions).parse(program));
+        ParseException actual = assertThrows(ParseException.class, () -> functionsOnly.parse(program));
+        assertEquals(expected.getMessage(), actual.getMessage());
+        assertNotNull(FileAST.parser().parse(program).ast());
+    }
+
+    private static void assertSameIL(CharSequence source) throws ParseException {
+        assertEquals(il(FileAST.parser().parse(source.toString()).ast()), il(parser.parse(source)));
+    }
+
+    private static String il(AST ast) {
+        ILGenerator generator = new ILGenerator();
+        ast.accept(generator);
+        return generator.generate();
+    }
+}
@@ -0,0 +1,167 @@
+package org.osta.parse;
+
+import org.junit.jupiter.api.Test;
+import org.osta.parse.ast.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The counting is tested by calling the profiler directly, the build runs this class again with
+ * {@code -Dosta.profile=true} for the tests of the grammar being profiled.
+ */
+class ParseProfilerTest {
+
+    @Test
+    void countsInvocations() {
+        ParseProfiler profiler = new ParseProfiler();
+        int rule = ParseProfiler.id("ParseProfilerTest.literal");
+        Parser<LiteralAST> literal = Parser.literal("a");
+        ParseInput input = new ParseInput("aab");
+
+        assertNotNull(profiler.parse(rule, literal, input, 0));
+        assertNotNull(profiler.parse(rule, literal, input, 1));
+        assertNull(profiler.parse(rule, literal, input, 2));
+
+        ParseProfiler.RuleStatistics statistics = find(profiler.statistics(), "ParseProfilerTest.literal");
+        assertEquals(3, statistics.invocations());
+        assertEquals(2, statistics.successes());
+        assertEquals(1, statistics.failures());
+        assertEquals(0, statistics.backtrackedChars());
+        assertTrue(statistics.selfNanos() <= statistics.nanos());
+    }
+
+    @Test
+    void countsBacktrackedChars() {
+        ParseProfiler profiler = new ParseProfiler();
+        int outer = ParseProfiler.id("ParseProfilerTest.outer");
+        int inner = ParseProfiler.id("ParseProfilerTest.inner");
+        Parser<LiteralAST> word = (input, offset) -> profiler.parse(inner, Parser.literal("abc"), input, offset);
+        Parser<SequenceAST> twice = Parser.sequence(word, word);
+
+        // The second word fails after the first one matched 3 chars, which the outer rule gives back
+        assertNull(profiler.parse(outer, twice, new ParseInput("abcab"), 0));
+        assertNotNull(profiler.parse(outer, twice, new ParseInput("abcabc"), 0));
+
+        List<ParseProfiler.RuleStatistics> statistics = profiler.statistics();
+        assertEquals(1, find(statistics, "ParseProfilerTest.outer").failures());
+        assertEquals(3, find(statistics, "ParseProfilerTest.outer").backtrackedChars());
+        assertEquals(4, find(statistics, "ParseProfilerTest.inner").invocations());
+        assertEquals(0, find(statistics, "ParseProfilerTest.inner").backtrackedChars());
+        assertTrue(find(statistics, "ParseProfilerTest.outer").nanos()
+                >= find(statistics, "ParseProfilerTest.inner").nanos());
+
+        profiler.clear();
+        assertTrue(profiler.statistics().isEmpty());
+    }
+
+    @Test
+    void exitsOnThrow() {
+        ParseProfiler profiler = new ParseProfiler();
+        int rule = ParseProfiler.id("ParseProfilerTest.throwing");
+        Parser<LiteralAST> throwing = (input, offset) -> {
+            throw new IllegalStateException();
+        };
+
+        assertThrows(IllegalStateException.class, () -> profiler.parse(rule, throwing, new ParseInput("a"), 0));
+        assertNotNull(profiler.parse(rule, Parser.literal("a"), new ParseInput("a"), 0));
+
+        assertEquals(2, find(profiler.statistics(), "ParseProfilerTest.throwing").invocations());
+    }
+
+    @Test
+    void profilesGrammar() throws Exception {
+        assumeTrue(ParseProfiler.ENABLED);
+        ParseProfiler profiler = new ParseProfiler();
+        ParseInput input = new ParseInput("i32 main() { i32 a = 1 + 2 * 3; return a; }");
+        input.setProfiler(profiler);
+        input.parse(FileAST.parser());
+
+        List<ParseProfiler.RuleStatistics> statistics = profiler.statistics();
+        assertEquals(1, find(statistics, "FileAST").successes());
+        assertTrue(find(statistics, "ExprAST").invocations() > 0);
+        assertTrue(find(statistics, "IntLiteralAST").successes() >= 3);
+        assertTrue(find(statistics, "StmtAST").failures() > 0);
+        assertTrue(ParseProfiler.report(statistics).contains("IntLiteralAST"));
+    }
+
+    @Test
+    void lazyIsNotARule() throws Exception {
+        assumeTrue(ParseProfiler.ENABLED);
+        ParseProfiler profiler = new ParseProfiler();
+        ParseInput input = new ParseInput("1 + 2");
+        input.setProfiler(profiler);
+        input.parse(Parser.lazy(ExprAST::parser));
+
+        List<ParseProfiler.RuleStatistics> statistics = profiler.statistics();
+        assertEquals(1, find(statistics, "ExprAST").successes());
+        assertTrue(statistics.stream().noneMatch(rule -> rule.rule().equals("<lazy>")));
+    }
+
+    @Test
+    void profilesCompiledGrammar() throws Exception {
+        assumeTrue(ParseProfiler.ENABLED);
+        Parser<ExprAST> compiled = GrammarCompiler.compile(ExprAST.parser());
+        ParseProfiler interpreted = new ParseProfiler();
+        ParseProfiler generated = new ParseProfiler();
+
+        ParseInput input = new ParseInput("1 + (a * 2)");
+        input.setProfiler(interpreted);
+        input.parse(ExprAST.parser());
+        input = new ParseInput("1 + (a * 2)");
+        input.setProfiler(generated);
+        input.parse(compiled);
+
+        // Both count the same rules, only the time differs
+        List<ParseProfiler.RuleStatistics> expected = interpreted.statistics();
+        List<ParseProfiler.RuleStatistics> actual = generated.statistics();
+        assertEquals(expected.size(), actual.size());
+        for (ParseProfiler.RuleStatistics rule : expected) {
+            ParseProfiler.RuleStatistics other = find(actual, rule.rule());
+            assertEquals(rule.invocations(), other.invocations(), rule.rule());
+            assertEquals(rule.failures(), other.failures(), rule.rule());
+            assertEquals(rule.backtrackedChars(), other.backtrackedChars(), rule.rule());
+        }
+    }
+
+    @Test
+    void reportsAllThreads() throws Exception {
+        assumeTrue(ParseProfiler.ENABLED);
+        Thread thread = new Thread(() -> {
+            try {
+                ExprAST.parser().parse("12 + 34");
+            } catch (ParseException e) {
+                throw new AssertionError(e);
+            }
+        });
+        thread.start();
+        thread.join();
+
+        assertTrue(find(ParseProfiler.allStatistics(), "skipWhitespace").invocations() > 0);
+        assertTrue(ParseProfiler.report().contains("skipWhitespace"));
+    }
+
+    @Test
+    void mergesEndedThreads() throws Exception {
+        int rule = ParseProfiler.id("ParseProfilerTest.thread");
+        Parser<LiteralAST> literal = Parser.literal("a");
+        int threads = 32;
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(() -> ParseProfiler.current().parse(rule, literal, new ParseInput("a"), 0));
+            thread.start();
+            thread.join();
+        }
+        // Every thread was counted, but only the profilers of the threads still running are kept
+        assertEquals(threads, find(ParseProfiler.allStatistics(), "ParseProfilerTest.thread").invocations());
+        assertTrue(ParseProfiler.registered() < threads, "registered " + ParseProfiler.registered());
+    }
+
+    private static ParseProfiler.RuleStatistics find(List<ParseProfiler.RuleStatistics> statistics, String rule) {
+        return statistics.stream()
+                .filter(counted -> counted.rule().equals(rule))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No statistics for " + rule));
+    }
+}
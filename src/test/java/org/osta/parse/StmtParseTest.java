@@ -1,15 +1,57 @@
 package org.osta.parse;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 import org.junit.jupiter.api.Test;
 
 import org.osta.parse.ast.*;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
 public class StmtParseTest {
     @Test
     void simple() throws Exception {
         StmtAST ast = StmtAST.parser().parse("a = 1 + 1;").ast();
         assertEquals(AssignStmtAST.class, ast.getClass());
     }
+
+    @Test
+    void statements() throws Exception {
+        assertEquals(VarDeclStmtAST.class, StmtAST.parser().parse("Map<K,List<V>>* x = a + 1;").ast().getClass());
+        assertEquals(ReturnStmtAST.class, StmtAST.parser().parse("return .value;").ast().getClass());
+        assertEquals(ExprStmtAST.class, StmtAST.parser().parse("vw.set(42);").ast().getClass());
+        BlockStmtAST block = (BlockStmtAST) StmtAST.parser().parse("{ u32 a; a = 1; { return a; } }").ast();
+        assertEquals(3, block.statements().size());
+    }
+
+    @Test
+    void postfixExpressions() throws Exception {
+        AssignStmtAST assign = (AssignStmtAST) StmtAST.parser().parse("a.b(1)(2, c).d = .e;").ast();
+        MemberExprAST target = (MemberExprAST) assign.target();
+        assertEquals("d", target.member().identifier());
+        CallExprAST outer = (CallExprAST) target.target();
+        assertEquals(2, outer.arguments().size());
+        CallExprAST inner = (CallExprAST) outer.callee();
+        assertEquals(1, inner.arguments().size());
+        assertEquals("a", ((IdentifierAST) ((MemberExprAST) inner.callee()).target()).identifier());
+        // A leading dot is a member of the current object
+        assertNull(((MemberExprAST) assign.value()).target());
+    }
+
+    @Test
+    void examples() throws Exception {
+        FileAST program = FileAST.parser().parse(Files.readString(Path.of("examples/program.osta"))).ast();
+        assertEquals(4, program.declarations().size());
+        StructDeclAST wrapper = (StructDeclAST) program.declarations().get(2);
+        assertEquals(List.of(new TypeAST("Wrapper", List.of(new TypeAST("T")), 0),
+                new TypeAST("Value", List.of(new TypeAST("T")), 0)), wrapper.supertypes());
+
+        FileAST structs = FileAST.parser().parse(Files.readString(Path.of("examples/struct.osta"))).ast();
+        StructDeclAST foo3 = (StructDeclAST) structs.declarations().get(3);
+        assertEquals(List.of("K", "V"), foo3.parameters());
+        assertEquals("Map<K,List<V>>", ((FieldDeclAST) foo3.members().get(1)).type().toString());
+    }
 }
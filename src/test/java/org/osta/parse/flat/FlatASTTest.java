@@ -0,0 +1,166 @@
+package org.osta.parse.flat;
+
+import org.junit.jupiter.api.Test;
+import org.osta.gen.SourceGenerator;
+import org.osta.parse.ParseException;
+import org.osta.parse.ast.FileAST;
+import org.osta.parse.visitor.ILGenerator;
+import org.osta.token.TokenType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlatASTTest {
+
+    @Test
+    void sameILAsObjects() throws Exception {
+        List<String> sources = new ArrayList<>();
+        sources.add(Files.readString(Path.of("examples/program.osta")));
+        sources.add(Files.readString(Path.of("examples/struct.osta")));
+        sources.add("i32 f() { x * y; a.b(1)(2).c = -3 + +4; { return; } u8** p = (a); g(); }");
+        for (int seed = 0; seed < 4; seed++) {
+            sources.add(new SourceGenerator(seed, seed * 8).generate(16 * 1024));
+        }
+        for (String source : sources) {
+            assertEquals(objectIL(source), flatIL(source));
+        }
+    }
+
+    @Test
+    void sameLiteralsAsObjects() throws Exception {
+        String[] literals = {
+                "7", "-2147483648", "7i32", "5i64", "-3i8", "255u8", "-128i8", "65535u16", "0xffffffffffffffffu64",
+                "-9223372036854775808i64", "340282366920938463463374607431768211455u128",
+                "-170141183460469231731687303715884105728i128", "0b1010usize", "1e18i64"
+        };
+        for (String literal : literals) {
+            String source = "i32 f() { return x + " + literal + "; }";
+            assertEquals(objectIL(source), flatIL(source), literal);
+        }
+        FlatAST ast = FlatLowering.parse("i32 f() { return 0xffffffffffffffffu64; }");
+        int literal = ast.firstChild(ast.firstChild(ast.child(ast.firstChild(ast.root()), 2)));
+        assertEquals(NodeKind.WIDE_INT, ast.kind(literal));
+        assertEquals(TokenType.U64, ast.integerType(literal));
+        assertEquals(0, ast.high(literal));
+        assertEquals(-1, ast.low(literal));
+    }
+
+    @Test
+    void outOfRange() {
+        for (String source : new String[] {"i32 f() { return 300u8; }", "i32 f() { g(x, 300u8); }"}) {
+            ParseException e = assertThrows(ParseException.class, () -> FileAST.parser().parse(source));
+            assertEquals("Integer literal out of range for u8", e.getMessage(), source);
+            e = assertThrows(ParseException.class, () -> FlatLowering.parse(source));
+            assertEquals("Integer literal out of range for u8", e.getMessage(), source);
+        }
+    }
+
+    @Test
+    void nodes() throws Exception {
+        FlatAST ast = FlatLowering.parse("struct Foo<T> : Bar<T*> { T value; }");
+        int struct = ast.firstChild(ast.root());
+        assertEquals(NodeKind.STRUCT, ast.kind(struct));
+        assertEquals(4, ast.childCount(struct));
+        assertEquals("Foo", ast.name(ast.firstChild(struct)));
+        assertEquals(NodeKind.TYPE_PARAMETER, ast.kind(ast.child(struct, 1)));
+        assertEquals("T", ast.name(ast.child(struct, 1)));
+        int supertype = ast.child(struct, 2);
+        assertEquals("Bar", ast.name(ast.firstChild(supertype)));
+        assertEquals(1, ast.payload(ast.child(supertype, 1)));
+        assertEquals(NodeKind.FIELD, ast.kind(ast.child(struct, 3)));
+        assertEquals(FlatAST.NONE, ast.child(struct, 4));
+    }
+
+    @Test
+    void symbols() throws Exception {
+        FlatAST ast = FlatLowering.parse("T id(T value) { return value; }");
+        int function = ast.firstChild(ast.root());
+        int returnType = ast.firstChild(ast.firstChild(function));
+        int parameterType = ast.firstChild(ast.firstChild(ast.child(function, 2)));
+        assertEquals(ast.payload(returnType), ast.payload(parameterType));
+        int parameter = ast.child(ast.child(function, 2), 1);
+        int returned = ast.firstChild(ast.firstChild(ast.child(function, 3)));
+        assertEquals(NodeKind.IDENTIFIER, ast.kind(returned));
+        assertEquals(ast.payload(parameter), ast.payload(returned));
+        assertEquals("value", ast.name(returned));
+        assertEquals(3, ast.symbols().size());
+    }
+
+    @Test
+    void cursor() throws Exception {
+        FlatAST ast = FlatLowering.parse("i32 f() { return 1 + 2 * 3; }");
+        FlatAST.Cursor cursor = ast.cursor();
+        assertEquals(NodeKind.FILE, cursor.kind());
+        assertTrue(cursor.firstChild());
+        assertEquals(NodeKind.FUNCTION, cursor.kind());
+        assertTrue(cursor.firstChild());
+        assertEquals(NodeKind.TYPE, cursor.kind());
+        assertTrue(cursor.nextSibling());
+        assertEquals("f", ast.name(cursor.node()));
+        assertTrue(cursor.nextSibling());
+        assertEquals(NodeKind.BLOCK, cursor.kind());
+        assertFalse(cursor.nextSibling());
+        assertTrue(cursor.parent());
+        assertEquals(NodeKind.FUNCTION, cursor.kind());
+        assertTrue(cursor.parent());
+        assertFalse(cursor.parent());
+    }
+
+    @Test
+    void walk() throws Exception {
+        FlatAST ast = FlatLowering.parse("i32 f() { return 1 + 2 * 3; }");
+        StringBuilder sb = new StringBuilder();
+        ast.walk(new FlatVisitor() {
+            @Override
+            public boolean enter(FlatAST ast, int node) {
+                sb.append('(').append(ast.kind(node));
+                // Types aren't interesting here
+                return ast.kind(node) != NodeKind.TYPE;
+            }
+
+            @Override
+            public void exit(FlatAST ast, int node) {
+                sb.append(')');
+            }
+        });
+        assertEquals("(FILE(FUNCTION(TYPE)(NAME)(BLOCK(RETURN(BINARY(INT)(BINARY(INT)(INT)))))))", sb.toString());
+        assertEquals(ast.size(), ast.root() + 1);
+    }
+
+    @Test
+    void deepNesting() throws Exception {
+        String expression = "(".repeat(500) + "1" + " + 1)".repeat(500);
+        FlatAST ast = FlatLowering.parse("i32 f() { return " + expression + "; }");
+        int[] binaries = new int[1];
+        ast.walk((tree, node) -> {
+            if (tree.kind(node) == NodeKind.BINARY) {
+                binaries[0]++;
+            }
+            return true;
+        });
+        assertEquals(500, binaries[0]);
+    }
+
+    @Test
+    void failures() {
+        assertThrows(ParseException.class, () -> FlatLowering.parse("struct Foo { u32 bar }"));
+        assertThrows(ParseException.class, () -> FlatLowering.parse("i32 f() { return 1 +; }"));
+        assertThrows(ParseException.class, () -> FlatLowering.parse("i32 f() { return 99999999999; }"));
+    }
+
+    private static String objectIL(String source) throws ParseException {
+        ILGenerator generator = new ILGenerator();
+        FileAST.parser().parse(source).ast().accept(generator);
+        return generator.generate();
+    }
+
+    private static String flatIL(String source) throws ParseException {
+        ILGenerator generator = new ILGenerator();
+        new FlatASTAdapter(FlatLowering.parse(source)).accept(generator);
+        return generator.generate();
+    }
+}
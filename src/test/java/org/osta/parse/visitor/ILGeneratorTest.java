@@ -0,0 +1,73 @@
+package org.osta.parse.visitor;
+
+import org.junit.jupiter.api.Test;
+import org.osta.parse.ParseException;
+import org.osta.parse.ast.AST;
+import org.osta.parse.ast.FileAST;
+import org.osta.parse.ast.StmtAST;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ILGeneratorTest {
+
+    private static String generate(AST ast) {
+        ILGenerator generator = new ILGenerator();
+        ast.accept(generator);
+        return generator.generate();
+    }
+
+    private static String file(String source) throws ParseException {
+        return generate(FileAST.parser().parse(source).ast());
+    }
+
+    private static String statement(String source) throws ParseException {
+        return generate(StmtAST.parser().parse(source).ast());
+    }
+
+    @Test
+    void expressions() throws Exception {
+        assertEquals("load a\nconst 2\nconst 3\nmul\nadd\npop\n", statement("a + 2 * 3;"));
+        assertEquals("load this\ngetfield value\nret\n", statement("return .value;"));
+        assertEquals("load a\ngetfield b\nconst 1\ncall f 2\npop\n", statement("f(a.b, 1);"));
+        assertEquals("load list\nconst 0\ninvoke get 1\nret\n", statement("return list.get(0);"));
+        // Calling what a call returns goes through calli
+        assertEquals("const 1\ncall f 1\nconst 2\ncalli 1\npop\n", statement("f(1)(2);"));
+    }
+
+    @Test
+    void statements() throws Exception {
+        assertEquals("local Map<K,V>* m\nload n\nstore m\n", statement("Map<K, V>* m = n;"));
+        assertEquals("local u32 x\n", statement("u32 x;"));
+        assertEquals("load p\nconst 1\nputfield x\nload this\nconst 2\nputfield y\n", statement("{ p.x = 1; .y = 2; }"));
+        assertEquals("ret.void\n", statement("return;"));
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> statement("f() = 1;"));
+        assertEquals("Unsupported assignment target: CallExprAST", e.getMessage());
+    }
+
+    @Test
+    void declarations() throws Exception {
+        assertEquals("""
+                trait Value<T>
+                  declare T get()
+                end
+                struct Box<T> : Value<T>, Printable
+                  field T value
+                  func T get()
+                    load this
+                    getfield value
+                    ret
+                  end
+                end
+                func i32 add(i32 a, i32 b)
+                  load a
+                  load b
+                  add
+                  ret
+                end
+                """, file("""
+                trait Value<T> { T get(); }
+                struct Box<T> : Value<T>, Printable { T value; T get() { return .value; } }
+                i32 add(i32 a, i32 b) { return a + b; }
+                """));
+    }
+}
@@ -0,0 +1,101 @@
+package org.osta.parse.visitor;
+
+import org.junit.jupiter.api.Test;
+import org.osta.gen.SourceGenerator;
+import org.osta.parse.ast.FileAST;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ILWriterTest {
+
+    private static String generate(FileAST ast) {
+        ILGenerator generator = new ILGenerator();
+        ast.accept(generator);
+        return generator.generate();
+    }
+
+    @Test
+    void sameILAsGenerator() throws Exception {
+        FileAST ast = FileAST.parser().parse(new SourceGenerator(7, 5).generate(64 * 1024)).ast();
+        for (int bufferSize : new int[] {4, 100, ILWriter.DEFAULT_BUFFER_SIZE}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ILWriter writer = new ILWriter(Channels.newChannel(out), bufferSize);
+            writer.write(ast);
+            assertEquals(generate(ast), out.toString(StandardCharsets.UTF_8));
+            assertEquals(out.size(), writer.written());
+        }
+    }
+
+    @Test
+    void writesPerDeclaration() throws Exception {
+        String program = "struct A { i32 a; }\ni32 f() { return 1 + 2; }\ntrait T { i32 g(); }\n";
+        FileAST ast = FileAST.parser().parse(program).ast();
+        List<Integer> writes = new ArrayList<>();
+        ILWriter writer = new ILWriter(new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                writes.add(src.remaining());
+                int written = src.remaining();
+                src.position(src.limit());
+                return written;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        }, 16);
+        writer.write(ast);
+
+        // The buffer is smaller than any declaration, so every one is written out as soon as it is lowered
+        assertTrue(writes.size() > 3);
+        assertEquals(generate(ast).length(), writes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void encodesUTF8() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ILWriter writer = new ILWriter(Channels.newChannel(out), 5);
+        String text = "aé€😀\ud800b\n";
+        writer.append(text);
+        assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), out.toByteArray());
+    }
+
+    @Test
+    void failures() throws Exception {
+        FileAST ast = FileAST.parser().parse("struct A { i32 a; }").ast();
+        ILWriter writer = new ILWriter(new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                throw new IOException("closed");
+            }
+
+            @Override
+            public boolean isOpen() {
+                return false;
+            }
+
+            @Override
+            public void close() {
+            }
+        }, 4);
+        assertDoesNotThrow(() -> writer.write(new FileAST(List.of())));
+        // Thrown while lowering the declaration, and not wrapped as the visitor has to
+        IOException e = assertThrows(IOException.class, () -> writer.write(ast));
+        assertEquals("closed", e.getMessage());
+        assertThrows(IOException.class, () -> writer.append("abcdef"));
+    }
+}
@@ -0,0 +1,99 @@
+package org.osta.text;
+
+import org.junit.jupiter.api.Test;
+import org.osta.parse.ParseResult;
+import org.osta.parse.Parser;
+import org.osta.parse.ast.LiteralAST;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BufferCharSequenceTest {
+
+    private static BufferCharSequence of(String text) {
+        return new BufferCharSequence(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void assertSameChars(CharSequence actual, String expected) {
+        assertEquals(actual.length(), expected.length());
+        for (int i = 0; i < expected.length(); i++) {
+            assertEquals(actual.charAt(i), expected.charAt(i), "at " + i);
+        }
+        // Backwards too, which can't reuse the previous char
+        for (int i = expected.length() - 1; i >= 0; i--) {
+            assertEquals(actual.charAt(i), expected.charAt(i), "at " + i);
+        }
+    }
+
+    @Test
+    void ascii() {
+        BufferCharSequence sequence = of("struct Foo { u32 bar; }");
+        assertTrue(sequence.isAscii());
+        assertSameChars(sequence, "struct Foo { u32 bar; }");
+        assertEquals(sequence.subSequence(7, 10).toString(), "Foo");
+    }
+
+    @Test
+    void multiByte() {
+        String text = "ñña = \"日本\"; // 🦀 crab ".repeat(20);
+        BufferCharSequence sequence = of(text);
+        assertFalse(sequence.isAscii());
+        assertSameChars(sequence, text);
+        assertEquals(sequence.toString(), text);
+
+        int start = text.indexOf('日');
+        assertEquals(sequence.subSequence(start, start + 2).toString(), "日本");
+        int crab = text.indexOf("🦀");
+        // Splitting the surrogate pair falls back to the decoded string
+        assertEquals(sequence.subSequence(crab + 1, crab + 3).toString(), text.substring(crab + 1, crab + 3));
+    }
+
+    @Test
+    void malformed() {
+        byte[] bytes = {'a', (byte) 0xC3, 'b', (byte) 0xFF};
+        BufferCharSequence sequence = new BufferCharSequence(ByteBuffer.wrap(bytes));
+        assertSameChars(sequence, "a�b�");
+    }
+
+    @Test
+    void malformedLikeTheDecoder() {
+        // Truncated, overlong, surrogate and out of range sequences, alone, before other bytes and at the end
+        int[][] cases = {
+                {0xE2, 0x82, 'A', 'B'}, {0xE2, 0x82}, {0xE2}, {0xE2, 'A'}, {0xF0, 0x9F, 0xA6}, {0xF0, 0x9F, 0xA6, 'x'},
+                {0xF0, 0x9F, 'x', 'y'}, {0xF0, 0x8F, 0x80, 0x80}, {0xF4, 0x90, 0x80, 0x80}, {0xF5, 0x80, 0x80, 0x80},
+                {0xE0, 0x80, 0x80}, {0xE0, 0xA0}, {0xED, 0xA0, 0x80}, {0xED, 0xA0, 'x'}, {0xED, 0xA0}, {0xC0, 0x80},
+                {0xC3}, {0x80, 0xBF}, {0xFE, 0xFF}, {0xF0, 0x9F, 0xA6, 0x80, 0xE2, 0x82}, {0xC3, 0xB1, 0xE2, 0x82, 0xAC}
+        };
+        for (int[] values : cases) {
+            byte[] bytes = new byte[values.length * 40];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) values[i % values.length];
+            }
+            for (int length : new int[] {values.length, bytes.length}) {
+                byte[] input = Arrays.copyOf(bytes, length);
+                String expected = new String(input, StandardCharsets.UTF_8);
+                BufferCharSequence sequence = new BufferCharSequence(ByteBuffer.wrap(input));
+                assertSameChars(sequence, expected);
+                assertEquals(expected, sequence.toString());
+                assertEquals(expected.substring(1), sequence.subSequence(1, expected.length()).toString());
+            }
+        }
+    }
+
+    @Test
+    void regionMatches() {
+        BufferCharSequence sequence = of("ññaa");
+        assertTrue(sequence.regionMatches(0, "ñña", 0, 3));
+        assertFalse(sequence.regionMatches(1, "ñña", 0, 3));
+        assertFalse(sequence.regionMatches(2, "aaa", 0, 3));
+    }
+
+    @Test
+    void literal() throws Exception {
+        ParseResult<LiteralAST> result = Parser.literal("ñña").parse(of("ññaa"));
+        assertEquals(result, new ParseResult<>(new LiteralAST("ñña"), "a"));
+    }
+}
@@ -0,0 +1,61 @@
+package org.osta.text;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedSourceTest {
+
+    @Test
+    void slidingWindow(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("source.osta");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        Files.writeString(file, sb);
+        try (ChunkedSource source = ChunkedSource.open(file, 16, 3)) {
+            assertEquals(100, source.size());
+            assertEquals(48, source.limit());
+            assertEquals('a', source.byteAt(0));
+            assertEquals('a' + 46 % 26, source.byteAt(46));
+            assertThrows(IllegalStateException.class, () -> source.byteAt(48));
+            assertEquals(sb.substring(10, 40), source.decode(10, 40));
+
+            // Releasing part of a chunk keeps the chunk
+            source.release(20);
+            assertEquals(64, source.limit());
+            assertThrows(IllegalStateException.class, () -> source.byteAt(19));
+            assertEquals(sb.substring(20, 64), source.decode(20, 64));
+
+            source.release(90);
+            assertEquals(100, source.limit());
+            assertEquals(sb.substring(90), source.decode(90, 100));
+            assertEquals(sb.charAt(99), source.byteAt(99));
+        }
+    }
+
+    @Test
+    void multiByteAcrossChunks(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("source.osta");
+        String text = "ñ日本🦀".repeat(10);
+        Files.writeString(file, text);
+        try (ChunkedSource source = ChunkedSource.open(file, 8, 16)) {
+            assertEquals(text.getBytes(StandardCharsets.UTF_8).length, source.size());
+            assertEquals(text, source.decode(0, source.size()));
+        }
+    }
+
+    @Test
+    void invalidWindows(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("source.osta");
+        Files.writeString(file, "x");
+        assertThrows(IllegalArgumentException.class, () -> ChunkedSource.open(file, 10, 4));
+        assertThrows(IllegalArgumentException.class, () -> ChunkedSource.open(file, 16, 1));
+    }
+}
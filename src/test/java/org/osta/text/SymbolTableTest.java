@@ -0,0 +1,125 @@
+package org.osta.text;
+
+import org.junit.jupiter.api.Test;
+import org.osta.parse.ParseInput;
+import org.osta.parse.ast.FileAST;
+import org.osta.parse.ast.ExprAST;
+import org.osta.parse.ast.IdentifierAST;
+import org.osta.parse.visitor.ILGenerator;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolTableTest {
+
+    @Test
+    void denseSymbols() {
+        SymbolTable symbols = new SymbolTable();
+        String text = "value T vw value T";
+        assertEquals(0, symbols.intern(text, 0, 5));
+        assertEquals(1, symbols.intern(text, 6, 7));
+        assertEquals(2, symbols.intern(text, 8, 10));
+        assertEquals(0, symbols.intern(text, 11, 16));
+        assertEquals(1, symbols.intern("T"));
+        assertEquals(3, symbols.size());
+        assertEquals("vw", symbols.name(2));
+        assertSame(symbols.name(0), symbols.name(symbols.intern("value")));
+        assertEquals(SymbolTable.NONE, symbols.find("values", 0, 6));
+        assertEquals(2, symbols.find(text, 8, 10));
+        assertThrows(IndexOutOfBoundsException.class, () -> symbols.name(3));
+    }
+
+    @Test
+    void grows() {
+        SymbolTable symbols = new SymbolTable(1);
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, symbols.intern("name" + i));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, symbols.intern("name" + i));
+            assertEquals("name" + i, symbols.name(i));
+        }
+        assertEquals(10_000, symbols.size());
+    }
+
+    @Test
+    void collisions() {
+        // "Aa" and "BB" have the same String hash code
+        SymbolTable symbols = new SymbolTable();
+        int aa = symbols.intern("Aa");
+        int bb = symbols.intern("BB");
+        assertNotEquals(aa, bb);
+        assertEquals(aa, symbols.intern("Aa"));
+        assertEquals(bb, symbols.intern("BB"));
+        assertEquals(SymbolTable.NONE, symbols.find("AaBB", 1, 3));
+    }
+
+    @Test
+    void mappedSource() {
+        BufferCharSequence source = new BufferCharSequence(
+                ByteBuffer.wrap("naïve naïve".getBytes(StandardCharsets.UTF_8)));
+        SymbolTable symbols = new SymbolTable();
+        assertEquals(symbols.intern(source, 0, 5), symbols.intern(source, 6, 11));
+        assertEquals("naïve", symbols.name(0));
+    }
+
+    @Test
+    void sharedIdentifiers() throws Exception {
+        SymbolTable symbols = new SymbolTable();
+        FileAST first = new ParseInput("i32 f(i32 value) { return value; }", symbols).parse(FileAST.parser()).ast();
+        FileAST second = new ParseInput("i32 g() { return value; }", symbols).parse(FileAST.parser()).ast();
+        List<String> identifiers = new ArrayList<>();
+        for (FileAST file : List.of(first, second)) {
+            file.accept(new ILGenerator() {
+                @Override
+                public void visit(ExprAST ast) {
+                    if (ast instanceof IdentifierAST identifier) {
+                        identifiers.add(identifier.identifier());
+                    }
+                    super.visit(ast);
+                }
+            });
+        }
+        assertEquals(2, identifiers.size());
+        assertSame(identifiers.get(0), identifiers.get(1));
+    }
+
+    @Test
+    void concurrent() throws Exception {
+        SymbolTable symbols = new SymbolTable(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<int[]>> tasks = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                tasks.add(() -> {
+                    int[] ids = new int[2000];
+                    for (int i = 0; i < ids.length; i++) {
+                        String name = "n" + i;
+                        ids[i] = symbols.intern(name);
+                        // Read back without the lock while the others keep adding and rehashing
+                        assertEquals(name, symbols.name(ids[i]));
+                        assertEquals(ids[i], symbols.find(name, 0, name.length()));
+                        assertEquals(ids[i / 2], symbols.intern("n" + i / 2));
+                    }
+                    return ids;
+                });
+            }
+            List<Future<int[]>> results = executor.invokeAll(tasks);
+            int[] expected = results.get(0).get();
+            for (Future<int[]> result : results) {
+                assertArrayEquals(expected, result.get());
+            }
+            assertEquals(2000, symbols.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.osta.token;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntegerScannerTest {
+
+    private static BigInteger value(IntegerScanner scanner) {
+        return BigInteger.valueOf(scanner.high()).shiftLeft(64).or(new BigInteger(Long.toUnsignedString(scanner.low())));
+    }
+
+    private static BigInteger scan(String literal) {
+        IntegerScanner scanner = new IntegerScanner();
+        assertEquals(literal.length(), scanner.scan(literal, 0, literal.length()), literal);
+        return value(scanner);
+    }
+
+    @Test
+    void bases() {
+        assertEquals(BigInteger.valueOf(154), scan("0154"));
+        assertEquals(BigInteger.valueOf(5), scan("0b101"));
+        assertEquals(BigInteger.valueOf(63), scan("0o77"));
+        assertEquals(BigInteger.valueOf(0xCAFE), scan("0xcaFE"));
+        assertEquals(BigInteger.valueOf(-42), scan("-42"));
+        assertEquals(BigInteger.valueOf(42), scan("+0X2a"));
+        assertEquals(BigInteger.ZERO, scan("-0"));
+    }
+
+    @Test
+    void exponents() {
+        assertEquals(BigInteger.valueOf(21), scan("21e0"));
+        assertEquals(BigInteger.valueOf(500_000_000), scan("5e8"));
+        assertEquals(BigInteger.valueOf(-300), scan("-3E+2"));
+        assertEquals(BigInteger.ZERO, scan("0e99999999999"));
+        assertEquals(BigInteger.TEN.pow(38), scan("1e38"));
+    }
+
+    @Test
+    void suffixes() {
+        IntegerScanner scanner = new IntegerScanner();
+        String text = "255u8 + 1i128";
+        assertEquals(5, scanner.scan(text, 0, text.length()));
+        assertEquals(TokenType.U8, scanner.suffix());
+        assertEquals(13, scanner.scan(text, 8, text.length()));
+        assertEquals(TokenType.I128, scanner.suffix());
+        assertEquals(6, scanner.scan("7usize", 0, 6));
+        assertEquals(TokenType.USIZE, scanner.suffix());
+        assertEquals(1, scanner.scan("1", 0, 1));
+        assertNull(scanner.suffix());
+    }
+
+    @Test
+    void malformed() {
+        for (String literal : new String[] {"", "-", "0x", "0b2", "0o8", "12ab", "1e", "1e-2", "3u7", "3i", "0xg", "1_0"}) {
+            IntegerScanner scanner = new IntegerScanner();
+            assertEquals(IntegerScanner.MALFORMED, scanner.scan(literal, 0, literal.length()), literal);
+        }
+        // The literal ends where it can't go on
+        IntegerScanner scanner = new IntegerScanner();
+        assertEquals(2, scanner.scan("12+3", 0, 4));
+        assertEquals(2, scanner.scan("12;", 0, 3));
+    }
+
+    @Test
+    void overflow() {
+        BigInteger max = BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE);
+        assertEquals(max, scan(max.toString()).add(BigInteger.ONE.shiftLeft(128)));
+        assertEquals(max, scan("0x" + "f".repeat(32)).add(BigInteger.ONE.shiftLeft(128)));
+
+        IntegerScanner scanner = new IntegerScanner();
+        String tooLarge = max.add(BigInteger.ONE).toString();
+        assertEquals(IntegerScanner.OVERFLOW, scanner.scan(tooLarge, 0, tooLarge.length()));
+        assertEquals(IntegerScanner.OVERFLOW, scanner.scan("0b1" + "0".repeat(128), 0, 131));
+        assertEquals(IntegerScanner.OVERFLOW, scanner.scan("1e39", 0, 4));
+        assertEquals(IntegerScanner.OVERFLOW, scanner.scan("4e38", 0, 4));
+    }
+
+    @Test
+    void widths() {
+        assertFits("127", TokenType.I8, true);
+        assertFits("128", TokenType.I8, false);
+        assertFits("-128", TokenType.I8, true);
+        assertFits("-129", TokenType.I8, false);
+        assertFits("255", TokenType.U8, true);
+        assertFits("256", TokenType.U8, false);
+        assertFits("-1", TokenType.U8, false);
+        assertFits("-0", TokenType.U8, true);
+        assertFits("2147483647", TokenType.I32, true);
+        assertFits("-2147483648", TokenType.I32, true);
+        assertFits("2147483648", TokenType.I32, false);
+        assertFits("0xffffffff", TokenType.U32, true);
+        assertFits("0x100000000", TokenType.U32, false);
+        assertFits("-9223372036854775808", TokenType.I64, true);
+        assertFits("9223372036854775808", TokenType.I64, false);
+        assertFits("18446744073709551615", TokenType.U64, true);
+        assertFits("18446744073709551616", TokenType.USIZE, false);
+        assertFits("18446744073709551616", TokenType.I128, true);
+        assertFits("-0x80000000000000000000000000000000", TokenType.I128, true);
+        assertFits("0x80000000000000000000000000000000", TokenType.I128, false);
+        assertFits("0x80000000000000000000000000000000", TokenType.U128, true);
+        assertThrows(IllegalArgumentException.class, () -> IntegerScanner.bits(TokenType.F32));
+    }
+
+    private static void assertFits(String literal, TokenType type, boolean fits) {
+        IntegerScanner scanner = new IntegerScanner();
+        assertTrue(scanner.scan(literal, 0, literal.length()) > 0, literal);
+        assertEquals(fits, scanner.fits(type), literal + " in " + type);
+        if (fits && IntegerScanner.bits(type) <= 64 && type.lexeme().startsWith("i")) {
+            assertEquals(new BigInteger(literal.replace("0x", "").replace("-", ""), literal.contains("0x") ? 16 : 10)
+                    .multiply(BigInteger.valueOf(literal.startsWith("-") ? -1 : 1)).longValue(), scanner.low());
+        }
+    }
+}
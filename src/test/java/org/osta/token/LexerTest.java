@@ -0,0 +1,64 @@
+package org.osta.token;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LexerTest {
+
+    private static List<TokenType> types(TokenBuffer tokens) {
+        List<TokenType> types = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            types.add(tokens.type(i));
+        }
+        return types;
+    }
+
+    @Test
+    void keywordsAndIdentifiers() {
+        TokenBuffer tokens = Lexer.lex("struct Foo1<T> { u32 bar; }");
+        assertEquals(types(tokens), List.of(
+                TokenType.STRUCT, TokenType.IDENTIFIER, TokenType.LESS, TokenType.IDENTIFIER, TokenType.GREATER,
+                TokenType.LEFT_BRACE, TokenType.U32, TokenType.IDENTIFIER, TokenType.SEMICOLON, TokenType.RIGHT_BRACE,
+                TokenType.EOF
+        ));
+        assertEquals(tokens.start(1), 7);
+        assertEquals(tokens.length(1), 4);
+        assertEquals(tokens.text("struct Foo1<T> { u32 bar; }", 7).toString(), "bar");
+    }
+
+    @Test
+    void longestOperator() {
+        TokenBuffer tokens = Lexer.lex("a>>>=b>>c->d<=e!=f");
+        assertEquals(types(tokens), List.of(
+                TokenType.IDENTIFIER, TokenType.ARITHMETIC_RIGHT_SHIFT_EQUAL, TokenType.IDENTIFIER,
+                TokenType.RIGHT_SHIFT, TokenType.IDENTIFIER, TokenType.ARROW, TokenType.IDENTIFIER,
+                TokenType.LESS_EQUAL, TokenType.IDENTIFIER, TokenType.NOT_EQUAL, TokenType.IDENTIFIER,
+                TokenType.EOF
+        ));
+    }
+
+    @Test
+    void literalsAndTrivia() {
+        TokenBuffer tokens = Lexer.lex("-5e7 // comment\n 0x1F /* block */ 1.5 \"a\\\"b\" 'c' $");
+        assertEquals(types(tokens), List.of(
+                TokenType.MINUS, TokenType.INTEGER, TokenType.INTEGER, TokenType.FLOAT, TokenType.STRING,
+                TokenType.CHAR, TokenType.INVALID, TokenType.EOF
+        ));
+        assertEquals(tokens.length(1), 3);
+        assertEquals(tokens.length(4), 6);
+    }
+
+    @Test
+    void indexAt() {
+        TokenBuffer tokens = Lexer.lex("ab  cd");
+        assertEquals(tokens.indexAt(0), 0);
+        assertEquals(tokens.indexAt(1), -1);
+        assertEquals(tokens.indexAt(2), 1);
+        assertEquals(tokens.indexAt(4), 1);
+        assertEquals(tokens.indexAt(6), 2);
+    }
+}
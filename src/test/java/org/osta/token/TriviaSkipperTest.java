@@ -0,0 +1,55 @@
+package org.osta.token;
+
+import org.junit.jupiter.api.Test;
+import org.osta.text.BufferCharSequence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class TriviaSkipperTest {
+
+    private static BufferCharSequence buffer(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 3);
+        // Not starting at 0 so the view has to offset its reads
+        buffer.position(3).put(bytes).position(3);
+        return new BufferCharSequence(buffer);
+    }
+
+    @Test
+    void skipsSpacesAndComments() {
+        String text = "  \t\n// line\n  /* block * / */\r\n\f\u000Bx /* unterminated";
+        for (CharSequence source : new CharSequence[] {text, buffer(text)}) {
+            assertEquals(text.indexOf('x'), TriviaSkipper.skip(source, 0));
+            assertEquals(text.indexOf('x'), TriviaSkipper.skip(source, 4));
+            assertEquals(text.indexOf('x') + 2, TriviaSkipper.skip(source, text.indexOf('x') + 1));
+            assertEquals(text.length(), TriviaSkipper.skip(source, text.length()));
+        }
+        assertEquals(6, TriviaSkipper.skip("a // b", 1));
+    }
+
+    @Test
+    void vectorizedMatchesScalar() {
+        assumeTrue(TriviaSkipper.VECTORIZED);
+        String[] pieces = {" ", "    ", "\n", "\t", "// comment\n", "/* block */", "/**/", "/***/", "/", "*", "x",
+                "/* no end", "// no end", " ".repeat(100), "\r\n"};
+        Random random = new Random(20);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int count = random.nextInt(12);
+            for (int j = 0; j < count; j++) {
+                sb.append(pieces[random.nextInt(pieces.length)]);
+            }
+            String text = sb.toString();
+            BufferCharSequence buffer = buffer(text);
+            for (int offset = 0; offset <= text.length(); offset += 1 + random.nextInt(7)) {
+                assertEquals(TriviaSkipper.scalar(text, offset), VectorTrivia.skip(buffer.bytes(), offset, text.length()),
+                        text + " from " + offset);
+            }
+        }
+    }
+}